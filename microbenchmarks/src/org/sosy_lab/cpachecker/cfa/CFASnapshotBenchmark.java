@@ -0,0 +1,132 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for writing and reading a serialized CFA, comparing {@link CFASnapshot} with the
+ * default format (a gzip-compressed {@link ObjectOutputStream} of the whole CFA).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss512m") // Java serialization of the CFA is deeply recursive
+@State(Scope.Benchmark)
+public class CFASnapshotBenchmark {
+
+  public enum Format {
+    SERIALIZED {
+      @Override
+      void write(CFA pCfa, Path pFile) throws IOException {
+        try (ObjectOutputStream out =
+            new ObjectOutputStream(new GZIPOutputStream(Files.newOutputStream(pFile)))) {
+          out.writeObject(pCfa);
+        }
+      }
+
+      @Override
+      CFA read(Path pFile) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in =
+            new ObjectInputStream(new GZIPInputStream(Files.newInputStream(pFile)))) {
+          return (CFA) in.readObject();
+        }
+      }
+    },
+
+    SNAPSHOT {
+      @Override
+      void write(CFA pCfa, Path pFile) throws IOException {
+        CFASnapshot.write(pCfa, pFile);
+      }
+
+      @Override
+      CFA read(Path pFile) throws IOException, ClassNotFoundException {
+        return CFASnapshot.read(pFile);
+      }
+    };
+
+    abstract void write(CFA pCfa, Path pFile) throws IOException;
+
+    abstract CFA read(Path pFile) throws IOException, ClassNotFoundException;
+  }
+
+  @Param({"10"})
+  private int variables;
+
+  @Param({"1000", "10000"})
+  private int branchings;
+
+  @Param({"SERIALIZED", "SNAPSHOT"})
+  private Format format;
+
+  private CFA cfa;
+  private Path file;
+
+  @Setup
+  public void setUp() throws Exception {
+    cfa =
+        GeneratedCFA.create(variables, branchings)
+            .getCFA()
+            .makeImmutableCFA(Optional.empty(), Optional.empty());
+    file = Files.createTempFile("cfa", ".ser");
+    format.write(cfa, file);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  public void write() throws IOException {
+    format.write(cfa, file);
+  }
+
+  @Benchmark
+  public CFA read() throws IOException, ClassNotFoundException {
+    return format.read(file);
+  }
+}
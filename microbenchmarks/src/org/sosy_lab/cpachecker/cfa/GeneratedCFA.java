@@ -0,0 +1,211 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.SortedSetMultimap;
+import com.google.common.collect.TreeMultimap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpressionBuilder;
+import org.sosy_lab.cpachecker.cfa.ast.c.CExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CExpressionAssignmentStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CInitializerExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIntegerLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CVariableDeclaration;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CAssumeEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CDeclarationEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CStatementEdge;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CFunctionType;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cfa.types.c.CStorageClass;
+import org.sosy_lab.cpachecker.exceptions.UnrecognizedCodeException;
+
+/**
+ * Generator for synthetic programs that are used as input for microbenchmarks. This avoids the
+ * dependency on the C parser and allows to scale the size of the input freely.
+ *
+ * <p>The generated program consists of a single function main that declares some int variables
+ * and then contains a sequence of if-then-else statements, each of which assigns one of the
+ * variables in both branches:
+ *
+ * <pre>
+ * int v0 = 0; ... int vN = 0;
+ * if (v0 &lt; 0) { v0 = v0 + 1; } else { v1 = v0; }
+ * if (v1 &lt; 1) { v1 = v1 + 1; } else { v2 = v1; }
+ * ...
+ * </pre>
+ */
+public final class GeneratedCFA {
+
+  private static final String FUNCTION = "main";
+
+  private final MutableCFA cfa;
+  private final ImmutableList<CFAEdge> edges;
+
+  private GeneratedCFA(MutableCFA pCfa, ImmutableList<CFAEdge> pEdges) {
+    cfa = pCfa;
+    edges = pEdges;
+  }
+
+  /** The generated CFA. */
+  public MutableCFA getCFA() {
+    return cfa;
+  }
+
+  /** All edges of the generated CFA in the order of the program text. */
+  public ImmutableList<CFAEdge> getEdges() {
+    return edges;
+  }
+
+  /**
+   * Create a program with the given number of variables and if-then-else statements.
+   *
+   * @param pVariables the number of variables, at least 1
+   * @param pBranchings the number of if-then-else statements
+   */
+  public static GeneratedCFA create(int pVariables, int pBranchings)
+      throws UnrecognizedCodeException {
+    MachineModel machineModel = MachineModel.LINUX64;
+    CBinaryExpressionBuilder builder =
+        new CBinaryExpressionBuilder(machineModel, LogManager.createNullLogManager());
+
+    FunctionExitNode exit = new FunctionExitNode(FUNCTION);
+    CFunctionEntryNode entry =
+        new CFunctionEntryNode(
+            FileLocation.DUMMY,
+            new CFunctionDeclaration(
+                FileLocation.DUMMY,
+                CFunctionType.functionTypeWithReturnType(CNumericTypes.INT),
+                FUNCTION,
+                Collections.emptyList()),
+            exit,
+            com.google.common.base.Optional.absent());
+    exit.setEntryNode(entry);
+
+    SortedSetMultimap<String, CFANode> nodes = TreeMultimap.create();
+    nodes.put(FUNCTION, entry);
+    nodes.put(FUNCTION, exit);
+    List<CFAEdge> edges = new ArrayList<>();
+
+    CFANode current = newNode(nodes);
+    addEdge(
+        new BlankEdge("", FileLocation.DUMMY, entry, current, "Function start dummy edge"), edges);
+
+    List<CIdExpression> variables = new ArrayList<>(pVariables);
+    for (int i = 0; i < pVariables; i++) {
+      String name = "v" + i;
+      CVariableDeclaration decl =
+          new CVariableDeclaration(
+              FileLocation.DUMMY,
+              false,
+              CStorageClass.AUTO,
+              CNumericTypes.INT,
+              name,
+              name,
+              FUNCTION + "::" + name,
+              new CInitializerExpression(FileLocation.DUMMY, CIntegerLiteralExpression.ZERO));
+      variables.add(new CIdExpression(FileLocation.DUMMY, decl));
+      CFANode next = newNode(nodes);
+      addEdge(
+          new CDeclarationEdge(decl.toASTString(), FileLocation.DUMMY, current, next, decl),
+          edges);
+      current = next;
+    }
+
+    for (int i = 0; i < pBranchings; i++) {
+      CIdExpression var = variables.get(i % pVariables);
+      CIdExpression nextVar = variables.get((i + 1) % pVariables);
+      CExpression condition =
+          builder.buildBinaryExpression(
+              var,
+              CIntegerLiteralExpression.createDummyLiteral(i, CNumericTypes.INT),
+              BinaryOperator.LESS_THAN);
+
+      CFANode thenNode = newNode(nodes);
+      CFANode elseNode = newNode(nodes);
+      CFANode join = newNode(nodes);
+      addEdge(
+          new CAssumeEdge(
+              condition.toASTString(), FileLocation.DUMMY, current, thenNode, condition, true),
+          edges);
+      addEdge(
+          new CAssumeEdge(
+              condition.toASTString(), FileLocation.DUMMY, current, elseNode, condition, false),
+          edges);
+      addEdge(
+          assignment(
+              var,
+              builder.buildBinaryExpression(
+                  var, CIntegerLiteralExpression.ONE, BinaryOperator.PLUS),
+              thenNode,
+              join),
+          edges);
+      addEdge(assignment(nextVar, var, elseNode, join), edges);
+      current = join;
+    }
+
+    addEdge(new BlankEdge("", FileLocation.DUMMY, current, exit, "default return"), edges);
+
+    NavigableMap<String, FunctionEntryNode> functions = new TreeMap<>();
+    functions.put(FUNCTION, entry);
+    MutableCFA cfa =
+        new MutableCFA(machineModel, functions, nodes, entry, ImmutableList.of(), Language.C);
+    return new GeneratedCFA(cfa, ImmutableList.copyOf(edges));
+  }
+
+  private static CFANode newNode(SortedSetMultimap<String, CFANode> pNodes) {
+    CFANode node = new CFANode(FUNCTION);
+    pNodes.put(FUNCTION, node);
+    return node;
+  }
+
+  private static CFAEdge assignment(
+      CIdExpression pLeft, CExpression pRight, CFANode pPredecessor, CFANode pSuccessor) {
+    CExpressionAssignmentStatement statement =
+        new CExpressionAssignmentStatement(FileLocation.DUMMY, pLeft, pRight);
+    return new CStatementEdge(
+        statement.toASTString(), statement, FileLocation.DUMMY, pPredecessor, pSuccessor);
+  }
+
+  private static void addEdge(CFAEdge pEdge, List<CFAEdge> pEdges) {
+    CFACreationUtils.addEdgeUnconditionallyToCFA(pEdge);
+    pEdges.add(pEdge);
+  }
+}
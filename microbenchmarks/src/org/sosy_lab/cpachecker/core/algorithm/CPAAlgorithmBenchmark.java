@@ -0,0 +1,111 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import static org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition.getDefaultPartition;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.GeneratedCFA;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.core.CPABuilder;
+import org.sosy_lab.cpachecker.core.Specification;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.reachedset.AggregatedReachedSets;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+
+/**
+ * Benchmarks for the main loop of {@link CPAAlgorithm} with a value analysis on generated
+ * programs. No SMT solver is necessary.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CPAAlgorithmBenchmark {
+
+  @Param({"10"})
+  private int variables;
+
+  @Param({"100", "1000"})
+  private int branchings;
+
+  /** merge operator of the value analysis, SEP leads to exponentially many states */
+  @Param({"JOIN"})
+  private String merge;
+
+  private FunctionEntryNode mainFunction;
+  private ConfigurableProgramAnalysis cpa;
+  private Algorithm algorithm;
+  private ReachedSetFactory reachedSetFactory;
+
+  @Setup
+  public void setUp() throws Exception {
+    GeneratedCFA generated = GeneratedCFA.create(variables, branchings);
+    mainFunction = generated.getCFA().getMainFunction();
+
+    Configuration config =
+        Configuration.builder()
+            .setOption("cpa", "cpa.arg.ARGCPA")
+            .setOption("ARGCPA.cpa", "cpa.composite.CompositeCPA")
+            .setOption("CompositeCPA.cpas", "cpa.location.LocationCPA, cpa.value.ValueAnalysisCPA")
+            .setOption("cpa.value.merge", merge)
+            .build();
+    LogManager logger = LogManager.createNullLogManager();
+    ShutdownNotifier shutdownNotifier = ShutdownNotifier.createDummy();
+
+    reachedSetFactory = new ReachedSetFactory(config, logger);
+    cpa =
+        new CPABuilder(config, logger, shutdownNotifier, reachedSetFactory)
+            .buildCPAs(
+                generated.getCFA(), Specification.alwaysSatisfied(), new AggregatedReachedSets());
+    algorithm = CPAAlgorithm.create(cpa, logger, config, shutdownNotifier);
+  }
+
+  @Benchmark
+  public ReachedSet run() throws Exception {
+    ReachedSet reached = reachedSetFactory.create();
+    reached.add(
+        cpa.getInitialState(mainFunction, getDefaultPartition()),
+        cpa.getInitialPrecision(mainFunction, getDefaultPartition()));
+    algorithm.run(reached);
+    return reached;
+  }
+}
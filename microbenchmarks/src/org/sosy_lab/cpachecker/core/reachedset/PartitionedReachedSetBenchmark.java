@@ -0,0 +1,118 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+
+/** Benchmarks for adding states to and querying partitions of a {@link PartitionedReachedSet}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PartitionedReachedSetBenchmark {
+
+  private static final class BenchmarkState implements AbstractState, Partitionable {
+
+    private final int partition;
+
+    private BenchmarkState(int pPartition) {
+      partition = pPartition;
+    }
+
+    @Override
+    public Object getPartitionKey() {
+      return partition;
+    }
+  }
+
+  @Param({"10000"})
+  private int states;
+
+  @Param({"1", "100", "10000"})
+  private int partitions;
+
+  private final Precision precision = SingletonPrecision.getInstance();
+  private List<AbstractState> input;
+  private ReachedSet filledReachedSet;
+
+  @Setup
+  public void setUp() {
+    input = new ArrayList<>(states);
+    for (int i = 0; i < states; i++) {
+      input.add(new BenchmarkState(i % partitions));
+    }
+    filledReachedSet = fill(new PartitionedReachedSet(TraversalMethod.DFS));
+  }
+
+  private ReachedSet fill(ReachedSet pReached) {
+    for (AbstractState state : input) {
+      pReached.add(state, precision);
+    }
+    return pReached;
+  }
+
+  @Benchmark
+  public ReachedSet add() {
+    return fill(new PartitionedReachedSet(TraversalMethod.DFS));
+  }
+
+  @Benchmark
+  public void getReached(Blackhole pBlackhole) {
+    for (AbstractState state : input) {
+      pBlackhole.consume(filledReachedSet.getReached(state).size());
+    }
+  }
+
+  @Benchmark
+  public int popAll() {
+    ReachedSet reached = fill(new PartitionedReachedSet(TraversalMethod.BFS));
+    int count = 0;
+    while (reached.hasWaitingState()) {
+      reached.popFromWaitlist();
+      count++;
+    }
+    return count;
+  }
+}
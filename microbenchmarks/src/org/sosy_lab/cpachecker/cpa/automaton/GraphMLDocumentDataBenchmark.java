@@ -0,0 +1,92 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Benchmarks for reading a generated witness with {@link GraphMLDocumentData}, compared with
+ * building a DOM of the same document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GraphMLDocumentDataBenchmark {
+
+  @Param({"1000", "50000"})
+  private int edges;
+
+  private byte[] witness;
+  private DocumentBuilderFactory domFactory;
+
+  @Setup
+  public void setUp() {
+    StringBuilder sb =
+        new StringBuilder()
+            .append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n")
+            .append("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n")
+            .append("<graph>\n");
+    for (int i = 0; i <= edges; i++) {
+      sb.append("<node id=\"N").append(i).append("\">");
+      sb.append("<data key=\"invariant\">x == ").append(i).append("</data></node>\n");
+    }
+    for (int i = 0; i < edges; i++) {
+      sb.append("<edge source=\"N").append(i).append("\" target=\"N").append(i + 1);
+      sb.append("\"><data key=\"startline\">").append(i).append("</data></edge>\n");
+    }
+    sb.append("</graph></graphml>\n");
+    witness = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+    domFactory = DocumentBuilderFactory.newInstance();
+    domFactory.setNamespaceAware(true);
+  }
+
+  @Benchmark
+  public GraphMLDocumentData parse() throws Exception {
+    return GraphMLDocumentData.parse(new ByteArrayInputStream(witness), false);
+  }
+
+  @Benchmark
+  public Document parseDom() throws Exception {
+    return domFactory.newDocumentBuilder().parse(new ByteArrayInputStream(witness));
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.core.defaults.NoOpReducer;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+/**
+ * Benchmarks for storing and looking up entries in {@link BAMCacheImpl}, which is dominated by
+ * hashing and comparing the (reduced) abstract states that are used as keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BAMCacheBenchmark {
+
+  @Param({"1000"})
+  private int entries;
+
+  /** number of variables in the value-analysis states that are used as keys */
+  @Param({"10", "100"})
+  private int variables;
+
+  private final Precision precision = SingletonPrecision.getInstance();
+  private final ReachedSet reached = new PartitionedReachedSet(TraversalMethod.DFS);
+  private Block block;
+  private List<AbstractState> keys;
+  private List<AbstractState> equalKeys;
+  private BAMCacheImpl filledCache;
+
+  @Setup
+  public void setUp() throws InvalidConfigurationException {
+    CFANode node = new CFANode("main");
+    block = new Block(ImmutableSet.of(), ImmutableSet.of(node), ImmutableSet.of(node),
+        ImmutableList.of(node));
+
+    keys = new ArrayList<>(entries);
+    equalKeys = new ArrayList<>(entries);
+    for (int i = 0; i < entries; i++) {
+      ValueAnalysisState state = new ValueAnalysisState(MachineModel.LINUX64);
+      for (int v = 0; v < variables; v++) {
+        state.assignConstant(
+            MemoryLocation.valueOf("main", "v" + v), new NumericValue(i + v), CNumericTypes.INT);
+      }
+      keys.add(state);
+      equalKeys.add(ValueAnalysisState.copyOf(state));
+    }
+
+    filledCache = newCache();
+    for (AbstractState key : keys) {
+      filledCache.put(key, precision, block, reached);
+    }
+  }
+
+  private static BAMCacheImpl newCache() throws InvalidConfigurationException {
+    return new BAMCacheImpl(
+        Configuration.defaultConfiguration(),
+        NoOpReducer.getInstance(),
+        LogManager.createNullLogManager());
+  }
+
+  @Benchmark
+  public BAMCacheImpl put() throws InvalidConfigurationException {
+    BAMCacheImpl cache = newCache();
+    for (AbstractState key : keys) {
+      cache.put(key, precision, block, reached);
+    }
+    return cache;
+  }
+
+  /** Look up keys that are equal, but not identical to the stored keys. */
+  @Benchmark
+  public void getEqual(Blackhole pBlackhole) {
+    for (AbstractState key : equalKeys) {
+      pBlackhole.consume(filledCache.get(key, precision, block));
+    }
+  }
+
+  @Benchmark
+  public void getIdentical(Blackhole pBlackhole) {
+    for (AbstractState key : keys) {
+      pBlackhole.consume(filledCache.get(key, precision, block));
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.value;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+/**
+ * Benchmarks for the lattice operations of {@link ValueAnalysisState}, which are executed by the
+ * stop and merge operators for each new state.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValueAnalysisStateBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int variables;
+
+  /** all variables */
+  private ValueAnalysisState full;
+
+  /** equal to {@link #full}, but a different instance */
+  private ValueAnalysisState fullCopy;
+
+  /** all variables, the last one with a different value than in {@link #full} */
+  private ValueAnalysisState differentLast;
+
+  /** half of the variables of {@link #full} */
+  private ValueAnalysisState half;
+
+  @Setup
+  public void setUp() {
+    full = new ValueAnalysisState(MachineModel.LINUX64);
+    half = new ValueAnalysisState(MachineModel.LINUX64);
+    for (int i = 0; i < variables; i++) {
+      MemoryLocation location = MemoryLocation.valueOf("main", "v" + i);
+      full.assignConstant(location, new NumericValue(i), CNumericTypes.INT);
+      if (i % 2 == 0) {
+        half.assignConstant(location, new NumericValue(i), CNumericTypes.INT);
+      }
+    }
+    fullCopy = ValueAnalysisState.copyOf(full);
+    differentLast = ValueAnalysisState.copyOf(full);
+    differentLast.assignConstant(
+        MemoryLocation.valueOf("main", "v" + (variables - 1)),
+        new NumericValue(-1),
+        CNumericTypes.INT);
+  }
+
+  @Benchmark
+  public boolean isLessOrEqualEqualStates() {
+    return full.isLessOrEqual(fullCopy);
+  }
+
+  @Benchmark
+  public boolean isLessOrEqualSubset() {
+    return full.isLessOrEqual(half);
+  }
+
+  @Benchmark
+  public boolean isLessOrEqualDifferent() {
+    return full.isLessOrEqual(differentLast);
+  }
+
+  @Benchmark
+  public ValueAnalysisState joinEqualStates() {
+    return full.join(fullCopy);
+  }
+
+  @Benchmark
+  public ValueAnalysisState joinDifferent() {
+    return full.join(differentLast);
+  }
+
+  @Benchmark
+  public boolean equalStates() {
+    return full.equals(fullCopy);
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.common.collect.MapsDifference;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap.SSAMapBuilder;
+
+/**
+ * Benchmarks for creating and merging {@link SSAMap}s, which happens for every edge and every
+ * merge of the predicate analysis.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SSAMapBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int variables;
+
+  /** how many variables have a different index in both maps */
+  @Param({"1", "10"})
+  private int changedVariables;
+
+  private String[] names;
+  private SSAMap base;
+  private SSAMap left;
+  private SSAMap right;
+
+  @Setup
+  public void setUp() {
+    names = new String[variables];
+    SSAMapBuilder builder = SSAMap.emptySSAMap().builder();
+    for (int i = 0; i < variables; i++) {
+      names[i] = "main::v" + i;
+      builder.setIndex(names[i], CNumericTypes.INT, 1);
+    }
+    base = builder.build();
+
+    SSAMapBuilder leftBuilder = base.builder();
+    SSAMapBuilder rightBuilder = base.builder();
+    for (int i = 0; i < Math.min(changedVariables, variables); i++) {
+      leftBuilder.setIndex(names[i], CNumericTypes.INT, 2);
+      rightBuilder.setIndex(names[variables - 1 - i], CNumericTypes.INT, 3);
+    }
+    left = leftBuilder.build();
+    right = rightBuilder.build();
+  }
+
+  @Benchmark
+  public SSAMap merge() {
+    return SSAMap.merge(left, right, MapsDifference.ignoreMapsDifference());
+  }
+
+  @Benchmark
+  public SSAMap mergeIdentical() {
+    return SSAMap.merge(left, left, MapsDifference.ignoreMapsDifference());
+  }
+
+  @Benchmark
+  public SSAMap incrementAll() {
+    SSAMapBuilder builder = base.builder();
+    for (String name : names) {
+      builder.setIndex(name, CNumericTypes.INT, builder.getFreshIndex(name));
+    }
+    return builder.build();
+  }
+
+  @Benchmark
+  public boolean equalsAfterMerge() {
+    return SSAMap.merge(left, right, MapsDifference.ignoreMapsDifference())
+        .equals(SSAMap.merge(right, left, MapsDifference.ignoreMapsDifference()));
+  }
+}
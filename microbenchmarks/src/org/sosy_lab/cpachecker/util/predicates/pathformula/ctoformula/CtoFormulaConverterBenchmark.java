@@ -0,0 +1,121 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula.ctoformula;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.GeneratedCFA;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormula;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManagerImpl;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+
+/**
+ * Benchmarks for converting CFA edges into formulas with {@link CtoFormulaConverter}. This uses
+ * SMTInterpol, which is written in Java, so no native solver library is necessary.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CtoFormulaConverterBenchmark {
+
+  @Param({"10"})
+  private int variables;
+
+  @Param({"100"})
+  private int branchings;
+
+  /** whether to use the encoding with pointer aliasing */
+  @Param({"false", "true"})
+  private boolean handlePointerAliasing;
+
+  private Solver solver;
+  private PathFormulaManager pfmgr;
+  private Iterable<CFAEdge> edges;
+  private PathFormula initial;
+
+  @Setup
+  public void setUp() throws Exception {
+    Configuration config =
+        Configuration.builder()
+            .setOption("solver.solver", "SMTINTERPOL")
+            .setOption(
+                "cpa.predicate.handlePointerAliasing", Boolean.toString(handlePointerAliasing))
+            .build();
+    LogManager logger = LogManager.createNullLogManager();
+    ShutdownNotifier shutdownNotifier = ShutdownNotifier.createDummy();
+
+    solver = Solver.create(config, logger, shutdownNotifier);
+    pfmgr =
+        new PathFormulaManagerImpl(
+            solver.getFormulaManager(),
+            config,
+            logger,
+            shutdownNotifier,
+            MachineModel.LINUX64,
+            Optional.empty(),
+            AnalysisDirection.FORWARD);
+    edges = GeneratedCFA.create(variables, branchings).getEdges();
+    initial = pfmgr.makeEmptyPathFormula();
+  }
+
+  @TearDown
+  public void tearDown() {
+    solver.close();
+  }
+
+  /**
+   * Convert all edges of the program one after another, such that all assignments see the
+   * declarations, but both branches of each if statement are conjoined.
+   */
+  @Benchmark
+  public PathFormula convertAllEdges() throws Exception {
+    PathFormula pf = initial;
+    for (CFAEdge edge : edges) {
+      pf = pfmgr.makeAnd(pf, edge);
+    }
+    return pf;
+  }
+}
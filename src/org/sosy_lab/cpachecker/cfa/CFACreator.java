@@ -204,6 +204,16 @@ public class CFACreator {
   @FileOption(FileOption.Type.OUTPUT_FILE)
   private Path serializeCfaFile = Paths.get("cfa.ser.gz");
 
+  @Option(
+    secure = true,
+    name = "cfa.serializeAsSnapshot",
+    description =
+        "export CFA in the experimental binary snapshot format instead of a compressed"
+            + " serialization of the whole CFA. Both formats can be loaded with"
+            + " analysis.serializedCfaFile, and loading is not faster for snapshots yet."
+  )
+  private boolean serializeCfaAsSnapshot = false;
+
   @Option(
     secure = true,
     name = "cfa.pixelGraphicFile",
@@ -1002,10 +1012,14 @@ v.addInitializer(initializer);
     if (serializeCfa && serializeCfaFile != null) {
       try {
         MoreFiles.createParentDirectories(serializeCfaFile);
-        try (OutputStream outputStream = Files.newOutputStream(serializeCfaFile);
-            OutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
-            ObjectOutputStream oos = new ObjectOutputStream(gzipOutputStream)) {
-          oos.writeObject(cfa);
+        if (serializeCfaAsSnapshot) {
+          CFASnapshot.write(cfa, serializeCfaFile);
+        } else {
+          try (OutputStream outputStream = Files.newOutputStream(serializeCfaFile);
+              OutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+              ObjectOutputStream oos = new ObjectOutputStream(gzipOutputStream)) {
+            oos.writeObject(cfa);
+          }
         }
       } catch (IOException e) {
         logger.logException(Level.WARNING, e, "Could not serialize CFA to file.");
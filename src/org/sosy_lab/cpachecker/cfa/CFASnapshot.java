@@ -0,0 +1,386 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.SetMultimap;
+import com.google.common.io.ByteStreams;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.LiveVariables;
+import org.sosy_lab.cpachecker.util.LoopStructure;
+import org.sosy_lab.cpachecker.util.dependencegraph.DependenceGraph;
+import org.sosy_lab.cpachecker.util.variableclassification.VariableClassification;
+
+/**
+ * Binary snapshot of a complete {@link CFA}, which can be loaded instead of parsing the program
+ * again.
+ *
+ * <p>A snapshot consists of a header with the offsets of two sections. The object pool contains
+ * the nodes, the edges with their AST, and the additional information about the CFA, written
+ * with Java serialization. Equal strings are written only once, and because the edge lists of
+ * nodes are not serialized, each node and each edge can be written on its own without deep
+ * recursion. The graph table stores the entering and leaving edges of each node as indices into
+ * the edges of the pool, such that their order is kept. Both sections are compressed with deflate
+ * like the gzipped serialization format.
+ *
+ * <p>Both sections are read completely when loading a snapshot, so loading is currently not faster
+ * than loading the gzipped serialization of the whole CFA. This is why snapshots are only written
+ * if requested with the option {@code cfa.serializeAsSnapshot}.
+ */
+public final class CFASnapshot {
+
+  private static final long MAGIC = 0x435041_4346_41_0001L; // "CPACFA" 0001
+  private static final int FORMAT_VERSION = 2;
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES + 4 * Long.BYTES;
+
+  private CFASnapshot() {}
+
+  /** Check whether the given file starts like a CFA snapshot. */
+  public static boolean isSnapshot(Path pFile) throws IOException {
+    try (InputStream in = Files.newInputStream(pFile)) {
+      byte[] start = new byte[Long.BYTES];
+      int read = 0;
+      while (read < start.length) {
+        int count = in.read(start, read, start.length - read);
+        if (count < 0) {
+          return false;
+        }
+        read += count;
+      }
+      return ByteBuffer.wrap(start).getLong() == MAGIC;
+    }
+  }
+
+  public static void write(CFA pCfa, Path pFile) throws IOException {
+    List<CFANode> nodes = ImmutableList.copyOf(pCfa.getAllNodes());
+    Map<CFAEdge, Integer> edgeIndices = new IdentityHashMap<>();
+    List<CFAEdge> edges = new ArrayList<>();
+    for (CFANode node : nodes) {
+      for (CFAEdge edge : CFAUtils.allLeavingEdges(node)) {
+        if (!edgeIndices.containsKey(edge)) {
+          edgeIndices.put(edge, edges.size());
+          edges.add(edge);
+        }
+      }
+    }
+    for (CFANode node : nodes) {
+      for (CFAEdge edge : CFAUtils.allEnteringEdges(node)) {
+        if (!edgeIndices.containsKey(edge)) {
+          edgeIndices.put(edge, edges.size());
+          edges.add(edge);
+        }
+      }
+    }
+
+    try (FileChannel channel =
+        FileChannel.open(
+            pFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      channel.position(HEADER_SIZE);
+
+      // object pool
+      final long poolOffset = channel.position();
+      final long tableOffset;
+      Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+      try {
+        DeflaterOutputStream poolStream =
+            new DeflaterOutputStream(Channels.newOutputStream(channel), deflater, BUFFER_SIZE);
+        ObjectOutputStream pool = new SnapshotOutputStream(poolStream);
+        writePool(pCfa, nodes, edges, pool);
+        pool.flush();
+        poolStream.finish();
+
+        // graph table
+        tableOffset = channel.position();
+        deflater.reset();
+        DeflaterOutputStream tableStream =
+            new DeflaterOutputStream(Channels.newOutputStream(channel), deflater, BUFFER_SIZE);
+        DataOutputStream table = new DataOutputStream(tableStream);
+        int previousIndex = 0;
+        for (CFANode node : nodes) {
+          writeVarInt(table, node.getNumLeavingEdges());
+          for (CFAEdge edge : CFAUtils.leavingEdges(node)) {
+            int index = edgeIndices.get(edge);
+            writeVarInt(table, zigZag(index - previousIndex));
+            previousIndex = index;
+          }
+          writeVarInt(table, node.getNumEnteringEdges());
+          for (CFAEdge edge : CFAUtils.enteringEdges(node)) {
+            int index = edgeIndices.get(edge);
+            writeVarInt(table, zigZag(index - previousIndex));
+            previousIndex = index;
+          }
+        }
+        table.flush();
+        tableStream.finish();
+      } finally {
+        deflater.end();
+      }
+      final long poolLength = tableOffset - poolOffset;
+      final long tableLength = channel.position() - tableOffset;
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putLong(MAGIC).putInt(FORMAT_VERSION);
+      header.putLong(poolOffset).putLong(poolLength).putLong(tableOffset).putLong(tableLength);
+      header.flip();
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+    }
+  }
+
+  private static void writePool(
+      CFA pCfa, List<CFANode> pNodes, List<CFAEdge> pEdges, ObjectOutputStream pool)
+      throws IOException {
+    pool.writeObject(pCfa.getMachineModel());
+    pool.writeObject(pCfa.getLanguage());
+    pool.writeObject(ImmutableList.copyOf(Lists.transform(pCfa.getFileNames(), Path::toString)));
+    pool.writeInt(pNodes.size());
+    for (CFANode node : pNodes) {
+      pool.writeObject(node);
+    }
+    pool.writeInt(pEdges.size());
+    for (CFAEdge edge : pEdges) {
+      pool.writeObject(edge);
+    }
+    pool.writeObject(ImmutableSortedMap.copyOf(pCfa.getAllFunctions()));
+    pool.writeObject(pCfa.isEmpty() ? null : pCfa.getMainFunction());
+    pool.writeObject(pCfa.getLoopStructure().orElse(null));
+    pool.writeObject(pCfa.getVarClassification().orElse(null));
+    pool.writeObject(pCfa.getLiveVariables().orElse(null));
+    pool.writeObject(pCfa.getDependenceGraph().orElse(null));
+  }
+
+  @SuppressWarnings("unchecked")
+  public static CFA read(Path pFile) throws IOException, ClassNotFoundException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    try (InputStream in = Files.newInputStream(pFile)) {
+      if (ByteStreams.read(in, header.array(), 0, HEADER_SIZE) < HEADER_SIZE
+          || header.getLong() != MAGIC) {
+        throw new StreamCorruptedException(pFile + " is not a CFA snapshot");
+      }
+    }
+    int version = header.getInt();
+    if (version != FORMAT_VERSION) {
+      throw new StreamCorruptedException(
+          "CFA snapshot " + pFile + " has unsupported format version " + version);
+    }
+    long poolOffset = header.getLong();
+    long poolLength = header.getLong();
+    long tableOffset = header.getLong();
+    long tableLength = header.getLong();
+    long size = Files.size(pFile);
+    checkSection(size, poolOffset, poolLength);
+    checkSection(size, tableOffset, tableLength);
+
+    Inflater inflater = new Inflater();
+    try (ObjectInputStream pool =
+        new ObjectInputStream(openSection(pFile, poolOffset, poolLength, inflater))) {
+      MachineModel machineModel = (MachineModel) pool.readObject();
+      Language language = (Language) pool.readObject();
+      List<Path> fileNames = Lists.transform((List<String>) pool.readObject(), Paths::get);
+
+      int nodeCount = pool.readInt();
+      List<CFANode> nodes = new ArrayList<>(nodeCount);
+      SetMultimap<String, CFANode> functionNodes = HashMultimap.create();
+      for (int i = 0; i < nodeCount; i++) {
+        CFANode node = (CFANode) pool.readObject();
+        nodes.add(node);
+        functionNodes.put(node.getFunctionName(), node);
+      }
+      int edgeCount = pool.readInt();
+      List<CFAEdge> edges = new ArrayList<>(edgeCount);
+      for (int i = 0; i < edgeCount; i++) {
+        edges.add((CFAEdge) pool.readObject());
+      }
+      SortedMap<String, FunctionEntryNode> functions =
+          (SortedMap<String, FunctionEntryNode>) pool.readObject();
+      FunctionEntryNode mainFunction = (FunctionEntryNode) pool.readObject();
+      LoopStructure loopStructure = (LoopStructure) pool.readObject();
+      VariableClassification varClassification =
+          (VariableClassification) pool.readObject();
+      LiveVariables liveVariables = (LiveVariables) pool.readObject();
+      DependenceGraph dependenceGraph = (DependenceGraph) pool.readObject();
+
+      // add edges to the nodes in the original order
+      inflater.reset();
+      try (DataInputStream table =
+          new DataInputStream(openSection(pFile, tableOffset, tableLength, inflater))) {
+        readGraphTable(table, nodes, edges);
+      } catch (EOFException | IndexOutOfBoundsException e) {
+        throw new StreamCorruptedException("Invalid graph table in CFA snapshot " + pFile);
+      }
+
+      if (mainFunction == null) {
+        return ImmutableCFA.empty(machineModel, language);
+      }
+      return new ImmutableCFA(
+          machineModel,
+          functions,
+          functionNodes,
+          mainFunction,
+          Optional.ofNullable(loopStructure),
+          Optional.ofNullable(varClassification),
+          Optional.ofNullable(liveVariables),
+          Optional.ofNullable(dependenceGraph),
+          fileNames,
+          language);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static void readGraphTable(
+      DataInputStream pTable, List<CFANode> pNodes, List<CFAEdge> pEdges) throws IOException {
+    int index = 0;
+    for (CFANode node : pNodes) {
+      for (int i = readVarInt(pTable); i > 0; i--) {
+        index += unZigZag(readVarInt(pTable));
+        node.addLeavingEdge(pEdges.get(index));
+      }
+      for (int i = readVarInt(pTable); i > 0; i--) {
+        index += unZigZag(readVarInt(pTable));
+        node.addEnteringEdge(pEdges.get(index));
+      }
+    }
+  }
+
+  /*
+   * The graph table stores the differences between subsequent edge indices, which are usually
+   * small because edges are numbered in the order of their predecessors. They are written as
+   * variable-length integers with 7 bits per byte, negative differences are zig-zag encoded.
+   */
+
+  private static int zigZag(int pValue) {
+    return (pValue << 1) ^ (pValue >> 31);
+  }
+
+  private static int unZigZag(int pValue) {
+    return (pValue >>> 1) ^ -(pValue & 1);
+  }
+
+  private static void writeVarInt(DataOutputStream pOut, int pValue) throws IOException {
+    int value = pValue;
+    while ((value & ~0x7F) != 0) {
+      pOut.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    pOut.writeByte(value);
+  }
+
+  private static int readVarInt(DataInputStream pIn) throws IOException {
+    int result = 0;
+    for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+      int b = pIn.readUnsignedByte();
+      result |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+    }
+    throw new StreamCorruptedException("Invalid number in graph table of CFA snapshot");
+  }
+
+  private static void checkSection(long pFileSize, long pOffset, long pLength)
+      throws StreamCorruptedException {
+    if (pOffset < HEADER_SIZE || pLength < 0 || pOffset + pLength > pFileSize) {
+      throw new StreamCorruptedException("Invalid section in CFA snapshot");
+    }
+  }
+
+  /**
+   * Return a stream that inflates the given section of the file. Sections are streamed instead of
+   * mapped, because they are inflated completely anyway, and such that files larger than 2 GiB can
+   * be read as well.
+   */
+  private static InputStream openSection(
+      Path pFile, long pOffset, long pLength, Inflater pInflater) throws IOException {
+    InputStream in = Files.newInputStream(pFile);
+    try {
+      ByteStreams.skipFully(in, pOffset);
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+    InputStream section = ByteStreams.limit(new BufferedInputStream(in, BUFFER_SIZE), pLength);
+    return new InflaterInputStream(section, pInflater, BUFFER_SIZE);
+  }
+
+  /** Writes equal strings only once, by replacing them with the first written instance. */
+  private static final class SnapshotOutputStream extends ObjectOutputStream {
+
+    private final Map<String, String> strings = new HashMap<>();
+
+    SnapshotOutputStream(OutputStream pOut) throws IOException {
+      super(pOut);
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected Object replaceObject(Object pObj) {
+      if (pObj instanceof String) {
+        return strings.computeIfAbsent((String) pObj, s -> s);
+      }
+      return pObj;
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.SortedSetMultimap;
+import com.google.common.collect.TreeMultimap;
+import java.io.StreamCorruptedException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.ast.c.CExpressionStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIntegerLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CAssumeEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CStatementEdge;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CFunctionType;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+
+public class CFASnapshotTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static FileLocation location(int pLine) {
+    // distinct string instances, which are written only once
+    return new FileLocation(new String("test.c"), pLine * 10, 5, pLine, pLine);
+  }
+
+  private static CIntegerLiteralExpression constant(int pLine, int pValue) {
+    return new CIntegerLiteralExpression(
+        location(pLine), CNumericTypes.INT, BigInteger.valueOf(pValue));
+  }
+
+  private static FunctionEntryNode createFunction(
+      String pName, int pLine, SortedSetMultimap<String, CFANode> pNodes) {
+    FunctionExitNode exit = new FunctionExitNode(pName);
+    FunctionEntryNode entry =
+        new CFunctionEntryNode(
+            location(pLine),
+            new CFunctionDeclaration(
+                location(pLine),
+                CFunctionType.functionTypeWithReturnType(CNumericTypes.INT),
+                pName,
+                Collections.emptyList()),
+            exit,
+            Optional.absent());
+    CFANode n1 = new CFANode(pName);
+    CFANode n2 = new CFANode(pName);
+    pNodes.putAll(pName, ImmutableList.of(entry, n1, n2, exit));
+
+    CFACreationUtils.addEdgeUnconditionallyToCFA(
+        new CStatementEdge(
+            "1;",
+            new CExpressionStatement(location(pLine + 1), constant(pLine + 1, 1)),
+            location(pLine + 1),
+            entry,
+            n1));
+    CFACreationUtils.addEdgeUnconditionallyToCFA(
+        new CAssumeEdge("2", location(pLine + 2), n1, n2, constant(pLine + 2, 2), true));
+    CFACreationUtils.addEdgeUnconditionallyToCFA(
+        new CAssumeEdge("2", location(pLine + 2), n1, exit, constant(pLine + 2, 2), false));
+    CFACreationUtils.addEdgeUnconditionallyToCFA(
+        new BlankEdge("", location(pLine + 3), n2, exit, "skip"));
+    return entry;
+  }
+
+  private static CFA createCFA() {
+    TreeMap<String, FunctionEntryNode> functions = new TreeMap<>();
+    SortedSetMultimap<String, CFANode> nodes = TreeMultimap.create();
+    functions.put("main", createFunction("main", 1, nodes));
+    functions.put("f", createFunction("f", 10, nodes));
+    MutableCFA cfa =
+        new MutableCFA(
+            MachineModel.LINUX64,
+            functions,
+            nodes,
+            functions.get("main"),
+            ImmutableList.of(Paths.get("test.c")),
+            Language.C);
+    return cfa.makeImmutableCFA(java.util.Optional.empty(), java.util.Optional.empty());
+  }
+
+  private static List<String> describe(Iterable<CFAEdge> pEdges) {
+    List<String> result = new ArrayList<>();
+    for (CFAEdge edge : pEdges) {
+      result.add(
+          edge.getPredecessor().getNodeNumber()
+              + " -> "
+              + edge.getSuccessor().getNodeNumber()
+              + ": "
+              + edge.getEdgeType()
+              + " "
+              + edge.getDescription()
+              + " @ "
+              + edge.getFileLocation());
+    }
+    return result;
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    CFA original = createCFA();
+    Path file = tempFolder.newFile("cfa.snapshot").toPath();
+    CFASnapshot.write(original, file);
+    assertThat(CFASnapshot.isSnapshot(file)).isTrue();
+
+    CFA read = CFASnapshot.read(file);
+
+    assertThat(read.getMachineModel()).isEqualTo(MachineModel.LINUX64);
+    assertThat(read.getLanguage()).isEqualTo(Language.C);
+    assertThat(read.getFileNames()).containsExactly(Paths.get("test.c"));
+    assertThat(read.getAllFunctionNames()).containsExactly("f", "main").inOrder();
+    assertThat(read.getMainFunction().getFunctionName()).isEqualTo("main");
+    assertThat(read.getMainFunction().getExitNode())
+        .isSameAs(read.getFunctionHead("main").getExitNode());
+
+    List<CFANode> originalNodes = ImmutableList.copyOf(original.getAllNodes());
+    List<CFANode> readNodes = ImmutableList.copyOf(read.getAllNodes());
+    assertThat(readNodes).hasSize(originalNodes.size());
+    for (int i = 0; i < originalNodes.size(); i++) {
+      CFANode originalNode = originalNodes.get(i);
+      CFANode readNode = readNodes.get(i);
+      assertThat(readNode.getNodeNumber()).isEqualTo(originalNode.getNodeNumber());
+      assertThat(readNode.getFunctionName()).isEqualTo(originalNode.getFunctionName());
+      assertThat(describe(CFAUtils.leavingEdges(readNode)))
+          .isEqualTo(describe(CFAUtils.leavingEdges(originalNode)));
+      assertThat(describe(CFAUtils.enteringEdges(readNode)))
+          .isEqualTo(describe(CFAUtils.enteringEdges(originalNode)));
+      for (CFAEdge edge : CFAUtils.leavingEdges(readNode)) {
+        assertThat(edge.getPredecessor()).isSameAs(readNode);
+        assertThat(CFAUtils.enteringEdges(edge.getSuccessor())).contains(edge);
+      }
+    }
+
+    for (FunctionEntryNode function : read.getAllFunctionHeads()) {
+      Set<CFANode> functionNodes =
+          read.getAllNodes()
+              .stream()
+              .filter(n -> n.getFunctionName().equals(function.getFunctionName()))
+              .collect(Collectors.toSet());
+      assertThat(CFACheck.check(function, functionNodes)).isTrue();
+    }
+
+    // equal strings are shared after reading
+    CFAEdge firstEdge = read.getMainFunction().getLeavingEdge(0);
+    CFAEdge secondEdge = firstEdge.getSuccessor().getLeavingEdge(0);
+    assertThat(secondEdge.getFileLocation().getFileName())
+        .isSameAs(firstEdge.getFileLocation().getFileName());
+  }
+
+  @Test
+  public void testIsSnapshot() throws Exception {
+    Path file = tempFolder.newFile("other").toPath();
+    Files.write(file, new byte[] {1, 2, 3});
+    assertThat(CFASnapshot.isSnapshot(file)).isFalse();
+  }
+
+  @Test(expected = StreamCorruptedException.class)
+  public void testReadInvalid() throws Exception {
+    Path file = tempFolder.newFile("invalid").toPath();
+    Files.write(file, new byte[100]);
+    CFASnapshot.read(file);
+  }
+}
@@ -26,6 +26,7 @@ package org.sosy_lab.cpachecker.cfa;
 import java.io.IOException;
 import java.util.List;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -177,11 +178,41 @@ public interface CParser extends Parser {
     @Option(secure=true, description="C dialect for parser")
     private Dialect dialect = Dialect.GNUC;
 
+    @Option(
+      secure = true,
+      description =
+          "Number of threads for parsing the translation units of a program. "
+              + "The CFA itself, including the numbering of its nodes, "
+              + "is built sequentially and does not depend on this option."
+    )
+    @IntegerOption(min = 1)
+    private int threads = 1;
+
+    @Option(
+      secure = true,
+      description =
+          "Keep the syntax trees of parsed translation units in memory "
+              + "and reuse them if the same parser instance parses the same "
+              + "(preprocessed) code again, e.g., when a tool analyzes several versions "
+              + "of a program with the same CFACreator. The cache is not persisted, "
+              + "so separate runs of CPAchecker do not benefit from it. "
+              + "Translation units with #include directives are not cached."
+    )
+    private boolean cacheTranslationUnits = false;
+
     protected ParserOptions() {}
 
     public Dialect getDialect() {
       return dialect;
     }
+
+    public int getThreads() {
+      return threads;
+    }
+
+    public boolean cacheTranslationUnits() {
+      return cacheTranslationUnits;
+    }
   }
 
   /** Factory that tries to create a parser based on available libraries (e.g. Eclipse CDT). */
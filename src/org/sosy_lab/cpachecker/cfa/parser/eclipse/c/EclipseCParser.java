@@ -28,13 +28,20 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
 import com.google.common.io.MoreFiles;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -43,6 +50,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
 import org.eclipse.cdt.core.dom.ast.IASTCompoundStatement;
 import org.eclipse.cdt.core.dom.ast.IASTDeclaration;
 import org.eclipse.cdt.core.dom.ast.IASTFunctionDefinition;
@@ -94,6 +106,17 @@ class EclipseCParser implements CParser {
   private final Timer parseTimer = new Timer();
   private final Timer cfaTimer = new Timer();
 
+  /**
+   * Syntax trees of translation units that were parsed before, if {@link
+   * EclipseCParserOptions#cacheTranslationUnits()} is enabled. The cache belongs to this parser
+   * instance, so syntax trees are only reused by callers that parse several versions of a program
+   * with the same parser (e.g., the same {@link org.sosy_lab.cpachecker.cfa.CFACreator}). The keys
+   * consist of the language, the file name, and a hash of the code. The values are only softly
+   * referenced, such that the cache does not cause memory exhaustion.
+   */
+  private final Cache<String, IASTTranslationUnit> translationUnitCache =
+      CacheBuilder.newBuilder().softValues().build();
+
   public EclipseCParser(LogManager pLogger, EclipseCParserOptions pOptions, MachineModel pMachine) {
 
     this.logger = pLogger;
@@ -129,13 +152,12 @@ class EclipseCParser implements CParser {
     return FileContent.create(pFileName, pCode.toCharArray());
   }
 
-  private FileContent wrapFile(String pFileName) throws IOException {
-    String code = MoreFiles.asCharSource(Paths.get(pFileName), Charset.defaultCharset()).read();
-    return wrapCode(pFileName, code);
+  private String readFile(String pFileName) throws IOException {
+    return MoreFiles.asCharSource(Paths.get(pFileName), Charset.defaultCharset()).read();
   }
 
   private interface FileParseWrapper {
-    FileContent wrap(String pFileName, FileToParse pContent) throws IOException;
+    String getCode(String pFileName, FileToParse pContent) throws IOException;
   }
 
   private ParseResult parseSomething(
@@ -158,19 +180,100 @@ class EclipseCParser implements CParser {
     ParseContext parseContext =
         new ParseContext(createNiceFileNameFunction(fileNameMapping.keySet()), sourceOriginMapping);
 
-    List<IASTTranslationUnit> astUnits = new ArrayList<>(pInput.size());
+    List<IASTTranslationUnit> astUnits;
+    if (options.getThreads() > 1 && pInput.size() > 1) {
+      astUnits = parseInParallel(pInput, parseContext, pWrapperFunction);
+    } else {
+      astUnits = new ArrayList<>(pInput.size());
+      for (FileToParse f : pInput) {
+        parseTimer.start();
+        try {
+          astUnits.add(
+              parseTranslationUnit(fixPath(f.getFileName()), f, parseContext, pWrapperFunction));
+        } finally {
+          parseTimer.stop();
+        }
+      }
+    }
 
-    for (FileToParse f : pInput) {
-      final String fileName = fixPath(f.getFileName());
+    return buildCFA(astUnits, parseContext, scope);
+  }
 
-      try {
-        astUnits.add(parse(pWrapperFunction.wrap(fileName, f), parseContext));
-      } catch (IOException e) {
-        throw new CParserException("IO failed!", e);
+  /**
+   * Parse the translation units with several threads. Only the syntax trees are created in
+   * parallel, the CFA is built afterwards in the order of the input, such that it does not depend
+   * on the scheduling of the threads. If several translation units fail to parse, the error of the
+   * first one is reported, as in sequential parsing.
+   */
+  private List<IASTTranslationUnit> parseInParallel(
+      List<? extends FileToParse> pInput,
+      ParseContext pParseContext,
+      FileParseWrapper pWrapperFunction)
+      throws CParserException {
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(options.getThreads(), pInput.size()),
+            new ThreadFactoryBuilder().setNameFormat("CParser-%d").setDaemon(true).build());
+    parseTimer.start();
+    try {
+      List<Future<IASTTranslationUnit>> futures = new ArrayList<>(pInput.size());
+      for (FileToParse f : pInput) {
+        futures.add(
+            executor.submit(
+                () ->
+                    parseTranslationUnit(
+                        fixPath(f.getFileName()), f, pParseContext, pWrapperFunction)));
       }
+      List<IASTTranslationUnit> astUnits = new ArrayList<>(pInput.size());
+      for (Future<IASTTranslationUnit> future : futures) {
+        try {
+          astUnits.add(Uninterruptibles.getUninterruptibly(future));
+        } catch (ExecutionException e) {
+          Throwables.propagateIfPossible(e.getCause(), CParserException.class);
+          throw new AssertionError("Unexpected exception while parsing", e.getCause());
+        }
+      }
+      return astUnits;
+    } finally {
+      parseTimer.stop();
+      executor.shutdownNow();
     }
+  }
 
-    return buildCFA(astUnits, parseContext, scope);
+  /** Parse a single translation unit, or reuse its syntax tree if it was cached. */
+  private IASTTranslationUnit parseTranslationUnit(
+      String pFileName,
+      FileToParse pInput,
+      ParseContext pParseContext,
+      FileParseWrapper pWrapperFunction)
+      throws CParserException {
+    String code;
+    try {
+      code = pWrapperFunction.getCode(pFileName, pInput);
+    } catch (IOException e) {
+      throw new CParserException("IO failed!", e);
+    }
+    if (!options.cacheTranslationUnits()) {
+      return parseUntimed(wrapCode(pFileName, code), pParseContext);
+    }
+
+    String key =
+        language.getId()
+            + ":"
+            + pFileName
+            + ":"
+            + Hashing.sha256().hashString(code, StandardCharsets.UTF_8);
+    IASTTranslationUnit result = translationUnitCache.getIfPresent(key);
+    if (result != null) {
+      logger.log(Level.FINE, "Reusing syntax tree of previously parsed file", pFileName);
+      return result;
+    }
+    result = parseUntimed(wrapCode(pFileName, code), pParseContext);
+    // With includes, the syntax tree depends on more than the code of this file.
+    if (result.getIncludeDirectives().length == 0) {
+      translationUnitCache.put(key, result);
+    }
+    return result;
   }
 
   @Override
@@ -180,7 +283,7 @@ class EclipseCParser implements CParser {
         Lists.transform(pFilenames, FileToParse::new),
         new CSourceOriginMapping(),
         CProgramScope.empty(),
-        (pFileName, pContent) -> wrapFile(pFileName));
+        (pFileName, pContent) -> readFile(pFileName));
   }
 
   @Override
@@ -194,7 +297,7 @@ class EclipseCParser implements CParser {
         CProgramScope.empty(),
         (pFileName, pContent) -> {
           Preconditions.checkArgument(pContent instanceof FileContentToParse);
-          return wrapCode(pFileName, ((FileContentToParse) pContent).getFileContent());
+          return ((FileContentToParse) pContent).getFileContent();
         });
 
   }
@@ -218,7 +321,7 @@ class EclipseCParser implements CParser {
         pScope instanceof CProgramScope ? ((CProgramScope) pScope) : CProgramScope.empty(),
         (fileName, content) -> {
           Preconditions.checkArgument(content instanceof FileContentToParse);
-          return wrapCode(fileName, ((FileContentToParse) content).getFileContent());
+          return ((FileContentToParse) content).getFileContent();
         });
   }
 
@@ -307,6 +410,16 @@ class EclipseCParser implements CParser {
   private IASTTranslationUnit parse(FileContent codeReader, ParseContext parseContext)
       throws CParserException {
     parseTimer.start();
+    try {
+      return parseUntimed(codeReader, parseContext);
+    } finally {
+      parseTimer.stop();
+    }
+  }
+
+  /** Parse without measuring the time, such that this method can be called by several threads. */
+  private IASTTranslationUnit parseUntimed(FileContent codeReader, ParseContext parseContext)
+      throws CParserException {
     try {
       IASTTranslationUnit result = getASTTranslationUnit(codeReader);
 
@@ -333,8 +446,6 @@ class EclipseCParser implements CParser {
 
     } catch (CFAGenerationRuntimeException | CoreException e) {
       throw new CParserException(e);
-    } finally {
-      parseTimer.stop();
     }
   }
 
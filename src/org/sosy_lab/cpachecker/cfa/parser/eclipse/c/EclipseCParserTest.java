@@ -0,0 +1,146 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cfa.parser.eclipse.c;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Ordering;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CParser;
+import org.sosy_lab.cpachecker.cfa.CParser.FileContentToParse;
+import org.sosy_lab.cpachecker.cfa.CSourceOriginMapping;
+import org.sosy_lab.cpachecker.cfa.ParseResult;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.exceptions.CParserException;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+
+public class EclipseCParserTest {
+
+  private static final ImmutableList<FileContentToParse> PROGRAM =
+      ImmutableList.of(
+          new FileContentToParse(
+              "a.c",
+              "int g;\n"
+                  + "int f(int x) {\n"
+                  + "  int i;\n"
+                  + "  for (i = 0; i < x; i++) { g += i; }\n"
+                  + "  return g;\n"
+                  + "}\n"),
+          new FileContentToParse(
+              "b.c",
+              "extern int g;\n"
+                  + "int h(int y) {\n"
+                  + "  if (y > g) { return y; } else { return g - y; }\n"
+                  + "}\n"),
+          new FileContentToParse(
+              "c.c",
+              "int k(int z) {\n"
+                  + "  while (z > 0) { z = z / 2; }\n"
+                  + "  return z;\n"
+                  + "}\n"),
+          new FileContentToParse(
+              "main.c",
+              "int f(int x);\n"
+                  + "int h(int y);\n"
+                  + "int k(int z);\n"
+                  + "int main() {\n"
+                  + "  int r = f(3);\n"
+                  + "  r = h(r) + k(r);\n"
+                  + "  return r;\n"
+                  + "}\n"));
+
+  private static CParser createParser(int pThreads, boolean pCacheTranslationUnits)
+      throws InvalidConfigurationException {
+    Configuration config =
+        Configuration.builder()
+            .setOption("parser.threads", Integer.toString(pThreads))
+            .setOption("parser.cacheTranslationUnits", Boolean.toString(pCacheTranslationUnits))
+            .build();
+    return CParser.Factory.getParser(
+        LogManager.createTestLogManager(),
+        CParser.Factory.getOptions(config),
+        MachineModel.LINUX32);
+  }
+
+  private static ParseResult parse(CParser pParser) throws CParserException {
+    return pParser.parseString(PROGRAM, new CSourceOriginMapping());
+  }
+
+  /**
+   * Describe the nodes and edges of a parse result with node numbers relative to the smallest
+   * node number, because node numbers are taken from a global counter.
+   */
+  private static List<String> describe(ParseResult pResult) {
+    List<CFANode> nodes =
+        Ordering.natural()
+            .onResultOf(CFANode::getNodeNumber)
+            .sortedCopy(pResult.getCFANodes().values());
+    int offset = nodes.get(0).getNodeNumber();
+    List<String> result = new ArrayList<>(nodes.size());
+    for (CFANode node : nodes) {
+      StringBuilder description =
+          new StringBuilder()
+              .append(node.getFunctionName())
+              .append(':')
+              .append(node.getNodeNumber() - offset);
+      for (CFAEdge edge : CFAUtils.leavingEdges(node)) {
+        description
+            .append(" -[")
+            .append(edge.getDescription())
+            .append("]-> ")
+            .append(edge.getSuccessor().getNodeNumber() - offset);
+      }
+      result.add(description.toString());
+    }
+    return result;
+  }
+
+  @Test
+  public void testParallelParsingKeepsNodeNumbering() throws Exception {
+    List<String> sequential = describe(parse(createParser(1, false)));
+    List<String> parallel = describe(parse(createParser(4, false)));
+
+    assertThat(parallel).containsExactlyElementsIn(sequential).inOrder();
+  }
+
+  @Test
+  public void testCachedTranslationUnitsKeepNodeNumbering() throws Exception {
+    CParser parser = createParser(4, true);
+    ParseResult first = parse(parser);
+    List<String> expected = describe(first);
+    ParseResult second = parse(parser);
+
+    assertThat(describe(second)).containsExactlyElementsIn(expected).inOrder();
+    // the CFA is built again from the cached syntax trees and does not share nodes
+    assertThat(second.getCFANodes().values()).containsNoneIn(first.getCFANodes().values());
+  }
+}
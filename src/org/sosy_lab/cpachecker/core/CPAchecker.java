@@ -65,6 +65,7 @@ import org.sosy_lab.common.io.IO;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.CFACreator;
+import org.sosy_lab.cpachecker.cfa.CFASnapshot;
 import org.sosy_lab.cpachecker.cfa.Language;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
@@ -455,6 +456,10 @@ public class CPAchecker {
       stats.setCFACreator(cfaCreator);
       cfa = cfaCreator.parseFileAndCreateCFA(fileNames);
 
+    } else if (CFASnapshot.isSnapshot(serializedCfaFile)) {
+      // load CFA from snapshot file
+      cfa = CFASnapshot.read(serializedCfaFile);
+
     } else {
       // load CFA from serialization file
       try (InputStream inputStream = Files.newInputStream(serializedCfaFile);
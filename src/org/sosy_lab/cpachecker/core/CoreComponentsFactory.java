@@ -51,6 +51,7 @@ import org.sosy_lab.cpachecker.core.algorithm.ExternalCBMCAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.InterleavedAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.NoopAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.ParallelAlgorithm;
+import org.sosy_lab.cpachecker.core.algorithm.ParallelCPAAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.ProgramSplitAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.RestartAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.RestartWithConditionsAlgorithm;
@@ -62,6 +63,7 @@ import org.sosy_lab.cpachecker.core.algorithm.bmc.BMCAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.bmc.PdrAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.counterexamplecheck.CounterexampleCheckAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.impact.ImpactAlgorithm;
+import org.sosy_lab.cpachecker.core.algorithm.incremental.IncrementalAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.mpv.MPVAlgorithm;
 import org.sosy_lab.cpachecker.core.algorithm.mpv.MPVReachedSet;
 import org.sosy_lab.cpachecker.core.algorithm.parallel_bam.ParallelBAMAlgorithm;
@@ -247,6 +249,27 @@ public class CoreComponentsFactory {
   @Option(secure = true, name = "algorithm.useParallelBAM", description = "run the parallel BAM algortihm.")
   private boolean useParallelBAM = false;
 
+  @Option(
+      secure = true,
+      name = "algorithm.parallelCPA",
+      description =
+          "use a multi-threaded variant of the CPA algorithm that explores states in parallel"
+              + " (cf. options cpa.parallel.*). The operators of the CPA are only called"
+              + " concurrently if all CPAs support this in their configuration"
+              + " (currently ARGCPA without merging, CompositeCPA, LocationCPA, CallstackCPA"
+              + " and ValueAnalysisCPA without symbolic values)"
+              + " and if analysis.reachedSet=CONCURRENTPARTITIONED is used.")
+  private boolean useParallelCPAAlgorithm = false;
+
+  @Option(
+      secure = true,
+      name = "algorithm.incremental",
+      description =
+          "Reuse the ARG of a previous analysis of an older version of the program"
+              + " and re-explore only the parts that belong to changed functions"
+              + " (cf. options analysis.incremental.*).")
+  private boolean useIncrementalAlgorithm = false;
+
   @Option(secure=true, name="unknownIfUnrestrictedProgram",
       description="stop the analysis with the result unknown if the program does not satisfies certain restrictions.")
   private boolean unknownIfUnrestrictedProgram = false;
@@ -397,7 +420,11 @@ public class CoreComponentsFactory {
               aggregatedReachedSets);
 
     } else {
-      algorithm = CPAAlgorithm.create(cpa, logger, config, shutdownNotifier);
+      if (useParallelCPAAlgorithm) {
+        algorithm = ParallelCPAAlgorithm.create(cpa, logger, config, shutdownNotifier);
+      } else {
+        algorithm = CPAAlgorithm.create(cpa, logger, config, shutdownNotifier);
+      }
 
       if (constructResidualProgram) {
         algorithm = new ResidualProgramConstructionAlgorithm(cfa, config, logger, shutdownNotifier,
@@ -416,6 +443,10 @@ public class CoreComponentsFactory {
         algorithm = new CEGARAlgorithmFactory(algorithm, cpa, logger, config).newInstance();
       }
 
+      if (useIncrementalAlgorithm) {
+        algorithm = new IncrementalAlgorithm(algorithm, cpa, cfa, config, logger);
+      }
+
       if (usePDR) {
         algorithm =
             new PdrAlgorithm(
@@ -58,6 +58,7 @@ import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
+import org.sosy_lab.cpachecker.core.reachedset.ConcurrentPartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.PseudoPartitionedReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
@@ -177,6 +178,14 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
     public CPAAlgorithm newInstance() {
       return new CPAAlgorithm(cpa, logger, shutdownNotifier, forcedCovering, reportFalseAsUnknown);
     }
+
+    boolean usesForcedCovering() {
+      return forcedCovering != null;
+    }
+
+    boolean reportsFalseAsUnknown() {
+      return reportFalseAsUnknown;
+    }
   }
 
   public static CPAAlgorithm create(ConfigurableProgramAnalysis cpa, LogManager logger,
@@ -236,6 +245,8 @@ public class CPAAlgorithm implements Algorithm, StatisticsProvider {
         reachedSetStats = ((PartitionedReachedSet) reachedSet).getStatistics();
       } else if (reachedSet instanceof PseudoPartitionedReachedSet) {
         reachedSetStats = ((PseudoPartitionedReachedSet) reachedSet).getStatistics();
+      } else if (reachedSet instanceof ConcurrentPartitionedReachedSet) {
+        reachedSetStats = ((ConcurrentPartitionedReachedSet) reachedSet).getStatistics();
       } else {
         reachedSetStats = null;
       }
@@ -62,10 +62,13 @@ import org.sosy_lab.common.configuration.AnnotatedValue;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.ConfigurationBuilder;
 import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.configuration.TimeSpanOption;
 import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
@@ -90,6 +93,7 @@ import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
 import org.sosy_lab.cpachecker.util.resources.ResourceLimitChecker;
 import org.sosy_lab.cpachecker.util.resources.ThreadCpuTimeLimit;
 import org.sosy_lab.cpachecker.util.statistics.StatisticsUtils;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 
 @Options(prefix = "parallelAlgorithm")
 public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
@@ -109,6 +113,55 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
   @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
   private List<AnnotatedValue<Path>> configFiles;
 
+  @Option(
+    secure = true,
+    name = "scheduling.adaptive",
+    description =
+        "Run the analyses on a bounded number of threads and measure their progress and"
+            + " the distribution of CPU time."
+  )
+  private boolean adaptiveScheduling = false;
+
+  @Option(
+    secure = true,
+    name = "scheduling.cancelStalled",
+    description =
+        "Cancel analyses that make no progress if other analyses can use their CPU time"
+            + " instead. Progress is measured by changes of the reached set, so an analysis"
+            + " that is busy with long solver calls or unrollings may be cancelled as well."
+  )
+  private boolean cancelStalled = false;
+
+  @Option(
+    secure = true,
+    name = "scheduling.threads",
+    description =
+        "Number of threads for adaptive scheduling (0 for the number of available processors)."
+  )
+  @IntegerOption(min = 0)
+  private int schedulingThreads = 0;
+
+  @Option(
+    secure = true,
+    name = "scheduling.interval",
+    description =
+        "Interval in which the progress of the analyses is checked for adaptive scheduling"
+            + " (use seconds or specify a unit)."
+  )
+  @TimeSpanOption(codeUnit = TimeUnit.MILLISECONDS, defaultUserUnit = TimeUnit.SECONDS, min = 1)
+  private TimeSpan schedulingInterval = TimeSpan.ofSeconds(1);
+
+  @Option(
+    secure = true,
+    name = "scheduling.stallTimeout",
+    description =
+        "Time after which an analysis whose reached set did not change is considered stalled"
+            + " and cancelled by the adaptive scheduling if cancellation is enabled"
+            + " (use seconds or specify a unit)."
+  )
+  @TimeSpanOption(codeUnit = TimeUnit.MILLISECONDS, defaultUserUnit = TimeUnit.SECONDS, min = 1)
+  private TimeSpan stallTimeout = TimeSpan.ofSeconds(60);
+
   private static final String SUCCESS_MESSAGE =
       "One of the parallel analyses has finished successfully, cancelling all other runs.";
 
@@ -122,6 +175,7 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
   private ParallelAnalysisResult finalResult = null;
   private CFANode mainEntryNode = null;
   private final AggregatedReachedSetManager aggregatedReachedSetManager;
+  private @Nullable PortfolioScheduler scheduler = null;
 
   private final List<ConditionAdjustmentEventSubscriber> conditionAdjustmentEventSubscribers =
       new CopyOnWriteArrayList<>();
@@ -152,7 +206,16 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
     mainEntryNode = AbstractStates.extractLocation(pReachedSet.getFirstState());
     ForwardingReachedSet forwardingReachedSet = (ForwardingReachedSet) pReachedSet;
 
-    ListeningExecutorService exec = listeningDecorator(newFixedThreadPool(configFiles.size()));
+    int threads = configFiles.size();
+    if (adaptiveScheduling) {
+      int availableThreads =
+          schedulingThreads > 0 ? schedulingThreads : Runtime.getRuntime().availableProcessors();
+      threads = Math.min(threads, availableThreads);
+      scheduler = new PortfolioScheduler(schedulingInterval, cancelStalled, stallTimeout, logger);
+      stats.scheduler = scheduler;
+    }
+
+    ListeningExecutorService exec = listeningDecorator(newFixedThreadPool(threads));
     List<ListenableFuture<ParallelAnalysisResult>> futures = new ArrayList<>();
 
     for (AnnotatedValue<Path> p : configFiles) {
@@ -163,9 +226,16 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
     exec.shutdown();
 
     try {
+      if (scheduler != null) {
+        scheduler.start();
+      }
       handleFutureResults(futures);
 
     } finally {
+      if (scheduler != null) {
+        scheduler.close();
+      }
+
       // Wait some time so that all threads are shut down and we have a happens-before relation
       // (necessary for statistics).
       if (!awaitTermination(exec, 10, TimeUnit.SECONDS)) {
@@ -322,7 +392,7 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
                 FluentIterable.from(singleAnalysisOverallLimit.getResourceLimits())
                     .filter(ThreadCpuTimeLimit.class),
                 null), terminated);
-    return () -> {
+    Callable<ParallelAnalysisResult> analysis = () -> {
       final Algorithm algorithm;
       final ConfigurableProgramAnalysis cpa;
 
@@ -370,6 +440,26 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
       terminated.set(true);
       return r;
     };
+
+    final PortfolioScheduler currentScheduler = scheduler;
+    if (currentScheduler == null) {
+      return analysis;
+    }
+    // analyses that supply their reached set to others must not be cancelled
+    final PortfolioScheduler.Task task =
+        currentScheduler.register(
+            singleConfigFileName.toString(),
+            singleShutdownManager,
+            statisticsEntry.reachedSet::get,
+            !supplyReached && !supplyRefinableReached);
+    return () -> {
+      currentScheduler.started(task);
+      try {
+        return analysis.call();
+      } finally {
+        currentScheduler.finished(task);
+      }
+    };
   }
 
   private ParallelAnalysisResult runParallelAnalysis(
@@ -581,6 +671,7 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
     private final List<StatisticsEntry> allAnalysesStats = Lists.newCopyOnWriteArrayList();
     private int noOfAlgorithmsUsed = 0;
     private String successfulAnalysisName = null;
+    private @Nullable PortfolioScheduler scheduler = null;
 
     ParallelAlgorithmStatistics(LogManager pLogger) {
       logger = checkNotNull(pLogger);
@@ -605,6 +696,9 @@ public class ParallelAlgorithm implements Algorithm, StatisticsProvider {
       if (successfulAnalysisName != null) {
         out.println("Successful analysis: " + successfulAnalysisName);
       }
+      if (scheduler != null) {
+        scheduler.printStatistics(StatisticsWriter.writingStatisticsTo(out));
+      }
       printSubStatistics(out, result);
     }
 
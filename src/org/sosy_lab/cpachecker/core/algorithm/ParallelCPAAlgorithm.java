@@ -0,0 +1,904 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import com.google.common.base.Functions;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.algorithm.CPAAlgorithm.CPAAlgorithmFactory;
+import org.sosy_lab.cpachecker.core.defaults.MergeSepOperator;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysisWithConcurrency;
+import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustment;
+import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustmentResult;
+import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustmentResult.Action;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
+import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
+import org.sosy_lab.cpachecker.core.interfaces.TransferRelation;
+import org.sosy_lab.cpachecker.core.reachedset.ConcurrentPartitionedReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGMergeJoinCPAEnabledAnalysis;
+import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CPAs;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsUtils;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
+
+/**
+ * Multi-threaded variant of {@link CPAAlgorithm}.
+ *
+ * <p>Several workers handle states in parallel, i.e., they compute the transfer relation and the
+ * precision adjustment. Merge, stop and adding to the reached set are serialized per partition of
+ * the reached set (cf. {@link PartitionedReachedSet#getPartitionKeyOf}), such that workers that
+ * produce successors for different partitions do not block each other.
+ *
+ * <p>The operators of the CPA are called concurrently if all CPAs allow this (cf. {@link
+ * ConfigurableProgramAnalysisWithConcurrency}) and the reached set is a {@link
+ * ConcurrentPartitionedReachedSet} (option analysis.reachedSet=CONCURRENTPARTITIONED). In this
+ * case each worker has its own transfer relation and precision adjustment, and the exploration
+ * uses work stealing: each worker keeps the successors it produced in its own deque and continues
+ * with its newest state. Idle workers first take states from the waitlist of the reached set and
+ * then steal the oldest states of other workers. When the algorithm stops, all states that were
+ * not handled are put back into the waitlist of the reached set.
+ *
+ * <p>Otherwise, all workers take states from the waitlist of the reached set, and each state is
+ * handled while holding the lock of the reached set, i.e., the analysis is effectively sequential.
+ */
+public class ParallelCPAAlgorithm implements Algorithm, StatisticsProvider {
+
+  private static class ParallelCPAStatistics implements Statistics {
+
+    private final StatTimer totalTimer = new StatTimer("Total time for parallel CPA algorithm");
+    private final ThreadSafeTimerContainer chooseTimer =
+        new ThreadSafeTimerContainer("Time for choose from waitlist");
+    private final ThreadSafeTimerContainer precisionTimer =
+        new ThreadSafeTimerContainer("Time for precision adjustment");
+    private final ThreadSafeTimerContainer transferTimer =
+        new ThreadSafeTimerContainer("Time for transfer relation");
+    private final ThreadSafeTimerContainer mergeTimer =
+        new ThreadSafeTimerContainer("Time for merge operator");
+    private final ThreadSafeTimerContainer stopTimer =
+        new ThreadSafeTimerContainer("Time for stop operator");
+    private final ThreadSafeTimerContainer addTimer =
+        new ThreadSafeTimerContainer("Time for adding to reached set");
+
+    private final ThreadSafeTimerContainer reachedLockTimer =
+        new ThreadSafeTimerContainer("Time waiting for reached-set lock");
+    private final ThreadSafeTimerContainer partitionLockTimer =
+        new ThreadSafeTimerContainer("Time waiting for partition locks");
+    private final ThreadSafeTimerContainer idleTimer =
+        new ThreadSafeTimerContainer("Time idle without states");
+
+    private final StatCounter countIterations = new StatCounter("Number of iterations");
+    private final LongAccumulator maxWaitlistSize = new LongAccumulator(Math::max, 0);
+    private final LongAdder countSuccessors = new LongAdder();
+    private final LongAccumulator maxSuccessors = new LongAccumulator(Math::max, 0);
+    private final StatCounter countMerge = new StatCounter("Number of times merged");
+    private final StatCounter countStop = new StatCounter("Number of times stopped");
+    private final StatCounter countBreak =
+        new StatCounter("Number of times the analysis was stopped by a break");
+    private final StatCounter countSteals =
+        new StatCounter("Number of states stolen from other workers");
+    private final StatCounter countPartitionLocks =
+        new StatCounter("Number of partition-lock acquisitions");
+    private final StatCounter countContendedPartitionLocks =
+        new StatCounter("Number of contended partition-lock acquisitions");
+    private final StatCounter countIdleWaits = new StatCounter("Number of idle waits for states");
+
+    private int numberOfThreads = 0;
+    private volatile boolean concurrentOperators = false;
+
+    @Override
+    public String getName() {
+      return "Parallel CPA algorithm";
+    }
+
+    @Override
+    public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
+      StatisticsUtils.write(out, 0, 50, "Number of worker threads", numberOfThreads);
+      StatisticsUtils.write(
+          out, 0, 50, "CPA operators called concurrently", concurrentOperators ? "yes" : "no");
+      StatisticsUtils.write(out, 0, 50, countIterations);
+      if (countIterations.getValue() == 0) {
+        // Statistics not relevant
+        return;
+      }
+      StatisticsUtils.write(out, 0, 50, "Max size of waitlist", maxWaitlistSize);
+      StatisticsUtils.write(out, 0, 50, "Number of computed successors", countSuccessors);
+      StatisticsUtils.write(out, 0, 50, "Max successors for one state", maxSuccessors);
+      StatisticsUtils.write(out, 0, 50, countMerge);
+      StatisticsUtils.write(out, 0, 50, countStop);
+      StatisticsUtils.write(out, 0, 50, countBreak);
+      out.println();
+      StatisticsUtils.write(out, 0, 50, totalTimer);
+      StatisticsUtils.write(out, 1, 50, chooseTimer);
+      StatisticsUtils.write(out, 1, 50, precisionTimer);
+      StatisticsUtils.write(out, 1, 50, transferTimer);
+      if (mergeTimer.getNumberOfIntervals() > 0) {
+        StatisticsUtils.write(out, 1, 50, mergeTimer);
+      }
+      StatisticsUtils.write(out, 1, 50, stopTimer);
+      StatisticsUtils.write(out, 1, 50, addTimer);
+      out.println();
+      out.println("Contention:");
+      StatisticsUtils.write(out, 1, 50, reachedLockTimer);
+      StatisticsUtils.write(out, 1, 50, partitionLockTimer);
+      StatisticsUtils.write(out, 1, 50, idleTimer);
+      StatisticsUtils.write(out, 1, 50, countPartitionLocks);
+      StatisticsUtils.write(out, 1, 50, countContendedPartitionLocks);
+      StatisticsUtils.write(out, 1, 50, countIdleWaits);
+      StatisticsUtils.write(out, 1, 50, countSteals);
+    }
+  }
+
+  @Options(prefix = "cpa.parallel")
+  public static class ParallelCPAAlgorithmFactory implements AlgorithmFactory {
+
+    @Option(
+      secure = true,
+      description =
+          "number of worker threads, positive values match exactly, "
+              + "with -1 we use the number of available cores of the machine automatically."
+    )
+    private int numberOfThreads = -1;
+
+    @Option(
+      secure = true,
+      description =
+          "number of locks that are used for serializing merge and stop per partition "
+              + "of the reached set (several partitions may share one lock)"
+    )
+    private int numberOfLockStripes = 256;
+
+    private final boolean reportFalseAsUnknown;
+
+    private final ConfigurableProgramAnalysis cpa;
+    private final LogManager logger;
+    private final ShutdownNotifier shutdownNotifier;
+
+    public ParallelCPAAlgorithmFactory(
+        ConfigurableProgramAnalysis pCpa,
+        LogManager pLogger,
+        Configuration pConfig,
+        ShutdownNotifier pShutdownNotifier)
+        throws InvalidConfigurationException {
+      pConfig.inject(this);
+      if (numberOfThreads == 0 || numberOfThreads < -1) {
+        throw new InvalidConfigurationException(
+            "Number of threads for parallel CPA algorithm has to be positive or -1.");
+      }
+      if (numberOfLockStripes <= 0) {
+        throw new InvalidConfigurationException(
+            "Number of lock stripes for parallel CPA algorithm has to be positive.");
+      }
+
+      // the options of the sequential algorithm (cpa.*) apply here as well
+      CPAAlgorithmFactory sequentialFactory =
+          new CPAAlgorithmFactory(pCpa, pLogger, pConfig, pShutdownNotifier);
+      if (sequentialFactory.usesForcedCovering()) {
+        throw new InvalidConfigurationException(
+            "Forced covering (option cpa.forcedCovering) is not supported "
+                + "by the parallel CPA algorithm.");
+      }
+      reportFalseAsUnknown = sequentialFactory.reportsFalseAsUnknown();
+
+      cpa = pCpa;
+      logger = pLogger;
+      shutdownNotifier = pShutdownNotifier;
+    }
+
+    @Override
+    public ParallelCPAAlgorithm newInstance() {
+      int threads =
+          numberOfThreads > 0 ? numberOfThreads : Runtime.getRuntime().availableProcessors();
+      return new ParallelCPAAlgorithm(
+          cpa, logger, shutdownNotifier, threads, numberOfLockStripes, reportFalseAsUnknown);
+    }
+  }
+
+  public static ParallelCPAAlgorithm create(
+      ConfigurableProgramAnalysis cpa,
+      LogManager logger,
+      Configuration config,
+      ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
+
+    return new ParallelCPAAlgorithmFactory(cpa, logger, config, pShutdownNotifier).newInstance();
+  }
+
+  /** Maximal time an idle worker sleeps before re-checking for shutdown requests. */
+  private static final long IDLE_WAIT_MILLIS = 100;
+
+  /** Used as partition key for reached sets that do not provide partitions. */
+  private static final Object SINGLE_PARTITION = new Object();
+
+  private final ParallelCPAStatistics stats = new ParallelCPAStatistics();
+
+  private final ConfigurableProgramAnalysis cpa;
+  private final TransferRelation transferRelation;
+  private final MergeOperator mergeOperator;
+  private final StopOperator stopOperator;
+  private final PrecisionAdjustment precisionAdjustment;
+
+  private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
+
+  private final int numberOfThreads;
+  private final Striped<Lock> partitionLocks;
+
+  private final AlgorithmStatus status;
+
+  /** whether all CPAs allow to call their operators concurrently */
+  private final boolean operatorsAllowConcurrency;
+
+  private boolean warnedAboutReachedSet = false;
+
+  // The following fields are only valid during one call to run().
+  private ImmutableList<Worker> workers = ImmutableList.of();
+  private final Object reachedLock = new Object();
+  private final AtomicInteger activeWorkers = new AtomicInteger();
+  private volatile int idleWorkers = 0; // modified only while holding reachedLock
+  private volatile boolean terminate = false;
+
+  private ParallelCPAAlgorithm(
+      ConfigurableProgramAnalysis pCpa,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier,
+      int pNumberOfThreads,
+      int pNumberOfLockStripes,
+      boolean pIsImprecise) {
+
+    cpa = pCpa;
+    transferRelation = pCpa.getTransferRelation();
+    mergeOperator = pCpa.getMergeOperator();
+    stopOperator = pCpa.getStopOperator();
+    precisionAdjustment = pCpa.getPrecisionAdjustment();
+    logger = pLogger;
+    shutdownNotifier = pShutdownNotifier;
+    numberOfThreads = pNumberOfThreads;
+    partitionLocks = Striped.lock(pNumberOfLockStripes);
+    status = AlgorithmStatus.SOUND_AND_PRECISE.withPrecise(!pIsImprecise);
+
+    ImmutableSet<String> sequentialCpas =
+        CPAs.asIterable(pCpa)
+            .filter(c -> !allowsConcurrentOperators(c))
+            .transform(c -> c.getClass().getSimpleName())
+            .toSet();
+    operatorsAllowConcurrency = sequentialCpas.isEmpty();
+    if (!operatorsAllowConcurrency) {
+      logger.log(
+          Level.WARNING,
+          "The following CPAs do not allow concurrent operators in the current configuration:",
+          sequentialCpas,
+          "- states will be handled one after another by the parallel CPA algorithm.");
+    }
+    stats.numberOfThreads = pNumberOfThreads;
+  }
+
+  private static boolean allowsConcurrentOperators(ConfigurableProgramAnalysis pCpa) {
+    return pCpa instanceof ConfigurableProgramAnalysisWithConcurrency
+        && ((ConfigurableProgramAnalysisWithConcurrency) pCpa).allowsConcurrentOperators();
+  }
+
+  @Override
+  public AlgorithmStatus run(final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
+    stats.totalTimer.start();
+    try {
+      return run0(reachedSet);
+    } finally {
+      stats.totalTimer.stop();
+    }
+  }
+
+  private AlgorithmStatus run0(final ReachedSet reachedSet)
+      throws CPAException, InterruptedException {
+    boolean concurrent =
+        operatorsAllowConcurrency && reachedSet instanceof ConcurrentPartitionedReachedSet;
+    if (operatorsAllowConcurrency && !concurrent && !warnedAboutReachedSet) {
+      warnedAboutReachedSet = true;
+      logger.log(
+          Level.WARNING,
+          "The parallel CPA algorithm calls the operators of the CPA concurrently only with",
+          "analysis.reachedSet=CONCURRENTPARTITIONED, states will be handled one after another.");
+    }
+    stats.concurrentOperators = concurrent;
+
+    ImmutableList.Builder<Worker> newWorkers = ImmutableList.builder();
+    for (int i = 0; i < numberOfThreads; i++) {
+      newWorkers.add(concurrent ? new Worker(i, reachedSet, cpa) : new Worker(i, reachedSet));
+    }
+    workers = newWorkers.build();
+    activeWorkers.set(0);
+    terminate = false;
+
+    ExecutorService pool =
+        Executors.newFixedThreadPool(
+            numberOfThreads,
+            new ThreadFactoryBuilder()
+                .setNameFormat("ParallelCPAAlgorithm-worker-%d")
+                .setDaemon(true)
+                .build());
+    List<Future<Void>> futures = new ArrayList<>(numberOfThreads);
+    Throwable failure = null;
+    try {
+      for (Worker worker : workers) {
+        futures.add(pool.submit(worker));
+      }
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          // stop all other workers and wait for them, then re-throw the first exception
+          requestTermination();
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        }
+      }
+    } finally {
+      requestTermination();
+      pool.shutdownNow();
+    }
+
+    // All workers have stopped, states that nobody handled go back to the waitlist,
+    // such that the reached set is consistent for the caller.
+    for (Worker worker : workers) {
+      worker.returnLocalStatesToWaitlist();
+    }
+    workers = ImmutableList.of();
+
+    if (failure != null) {
+      Throwables.propagateIfPossible(failure, CPAException.class, InterruptedException.class);
+      throw new AssertionError(failure);
+    }
+    return status;
+  }
+
+  private void requestTermination() {
+    synchronized (reachedLock) {
+      terminate = true;
+      reachedLock.notifyAll();
+    }
+  }
+
+  /**
+   * Return the key of the lock that protects the partition of the reached set that the given
+   * state belongs to.
+   */
+  private static Object getPartitionKey(ReachedSet reachedSet, AbstractState state) {
+    if (reachedSet instanceof PartitionedReachedSet) {
+      return ((PartitionedReachedSet) reachedSet).getPartitionKeyOf(state);
+    } else if (reachedSet instanceof ConcurrentPartitionedReachedSet) {
+      return ((ConcurrentPartitionedReachedSet) reachedSet).getPartitionKeyOf(state);
+    }
+    return SINGLE_PARTITION;
+  }
+
+  /** One worker thread that handles states until no worker has states left. */
+  private class Worker implements Callable<Void> {
+
+    private final int index;
+    private final ReachedSet reachedSet;
+
+    /** The reached set if the operators are called concurrently, null otherwise. */
+    private final @Nullable ConcurrentPartitionedReachedSet concurrentReachedSet;
+
+    /**
+     * The states that this worker produced and that still need to be handled, the newest state is
+     * at the end. Other workers steal states from the front. Only used if the operators are called
+     * concurrently, otherwise all states are in the waitlist of the reached set.
+     */
+    private final Deque<AbstractState> localStates = new ConcurrentLinkedDeque<>();
+
+    /** The lock that guards modifications of the reached set. */
+    private final Object structureLock;
+
+    private final TransferRelation workerTransferRelation;
+    private final PrecisionAdjustment workerPrecisionAdjustment;
+
+    private final TimerWrapper chooseTimer = stats.chooseTimer.getNewTimer();
+    private final TimerWrapper precisionTimer = stats.precisionTimer.getNewTimer();
+    private final TimerWrapper transferTimer = stats.transferTimer.getNewTimer();
+    private final TimerWrapper mergeTimer = stats.mergeTimer.getNewTimer();
+    private final TimerWrapper stopTimer = stats.stopTimer.getNewTimer();
+    private final TimerWrapper addTimer = stats.addTimer.getNewTimer();
+    private final TimerWrapper reachedLockTimer = stats.reachedLockTimer.getNewTimer();
+    private final TimerWrapper partitionLockTimer = stats.partitionLockTimer.getNewTimer();
+    private final TimerWrapper idleTimer = stats.idleTimer.getNewTimer();
+
+    /** Create a worker that handles each state while holding the lock of the reached set. */
+    private Worker(int pIndex, ReachedSet pReachedSet) {
+      index = pIndex;
+      reachedSet = pReachedSet;
+      concurrentReachedSet = null;
+      structureLock = reachedLock;
+      workerTransferRelation = transferRelation;
+      workerPrecisionAdjustment = precisionAdjustment;
+    }
+
+    /** Create a worker with its own operators that runs concurrently to other workers. */
+    private Worker(int pIndex, ReachedSet pReachedSet, ConfigurableProgramAnalysis pCpa) {
+      index = pIndex;
+      reachedSet = pReachedSet;
+      concurrentReachedSet = (ConcurrentPartitionedReachedSet) pReachedSet;
+      // A thread-safe reached set needs no external synchronization of modifications,
+      // in this case we use a lock that is local to this worker and thus never contended.
+      structureLock = new Object();
+      workerTransferRelation = pCpa.getTransferRelation();
+      workerPrecisionAdjustment = pCpa.getPrecisionAdjustment();
+    }
+
+    @Override
+    public Void call() throws CPAException, InterruptedException {
+      try {
+        run();
+      } finally {
+        chooseTimer.stopIfRunning();
+        precisionTimer.stopIfRunning();
+        transferTimer.stopIfRunning();
+        mergeTimer.stopIfRunning();
+        stopTimer.stopIfRunning();
+        addTimer.stopIfRunning();
+        reachedLockTimer.stopIfRunning();
+        partitionLockTimer.stopIfRunning();
+        idleTimer.stopIfRunning();
+      }
+      return null;
+    }
+
+    private void run() throws CPAException, InterruptedException {
+      while (true) {
+        shutdownNotifier.shutdownIfNecessary();
+
+        final AbstractState state;
+        chooseTimer.start();
+        try {
+          state = concurrentReachedSet != null ? takeStateConcurrently() : takeStateFromWaitlist();
+        } finally {
+          chooseTimer.stopIfRunning();
+        }
+        if (state == null) {
+          // either a break was signalled or nobody can produce new states anymore
+          return;
+        }
+        // activeWorkers was incremented while taking the state
+
+        stats.countIterations.inc();
+        logger.log(Level.FINER, "Retrieved state from waitlist");
+        boolean breakAnalysis = false;
+        try {
+          if (concurrentReachedSet != null) {
+            breakAnalysis = handleState(state, reachedSet.getPrecision(state));
+          } else {
+            // the operators might touch the ARG or read the reached set
+            reachedLockTimer.start();
+            synchronized (reachedLock) {
+              reachedLockTimer.stop();
+              breakAnalysis = handleState(state, reachedSet.getPrecision(state));
+            }
+          }
+        } catch (CPAException | InterruptedException | RuntimeException e) {
+          // re-add the old state to the waitlist, there might be unhandled successors left
+          // that otherwise would be forgotten (which would be unsound)
+          synchronized (structureLock) {
+            reachedSet.reAddToWaitlist(state);
+          }
+          terminate = true;
+          throw e;
+        } finally {
+          synchronized (reachedLock) {
+            // decrement while holding the lock, cf. waitForStates()
+            activeWorkers.decrementAndGet();
+            if (breakAnalysis) {
+              terminate = true;
+            }
+            reachedLock.notifyAll();
+          }
+        }
+      }
+    }
+
+    /**
+     * Take the next state from the waitlist of the reached set, waiting while other workers might
+     * still produce states. Return null if the analysis is finished.
+     */
+    private @Nullable AbstractState takeStateFromWaitlist() throws InterruptedException {
+      reachedLockTimer.start();
+      synchronized (reachedLock) {
+        reachedLockTimer.stop();
+        while (!terminate && !reachedSet.hasWaitingState() && activeWorkers.get() > 0) {
+          // other workers might still produce new states
+          waitForStates();
+        }
+        if (terminate || !reachedSet.hasWaitingState()) {
+          reachedLock.notifyAll();
+          return null;
+        }
+
+        stats.maxWaitlistSize.accumulate(reachedSet.getWaitlist().size());
+        activeWorkers.incrementAndGet();
+        return reachedSet.popFromWaitlist();
+      }
+    }
+
+    /**
+     * Take the next state for this worker without locking: the newest state of this worker, a
+     * state from the waitlist of the reached set, or the oldest state of another worker. If there
+     * is none, wait while other workers might still produce states. Return null if the analysis is
+     * finished.
+     */
+    private @Nullable AbstractState takeStateConcurrently() throws InterruptedException {
+      while (true) {
+        // Increment before looking for states, such that other workers do not terminate
+        // while this worker holds a state that is neither in a deque nor in the waitlist.
+        activeWorkers.incrementAndGet();
+        if (!terminate) {
+          AbstractState state = pollState();
+          while (state != null && !reachedSet.contains(state)) {
+            // the state was removed by merge
+            state = pollState();
+          }
+          if (state != null) {
+            return state;
+          }
+        }
+
+        reachedLockTimer.start();
+        synchronized (reachedLock) {
+          reachedLockTimer.stop();
+          activeWorkers.decrementAndGet();
+          idleWorkers++;
+          try {
+            // check after registering as idle worker, cf. wakeUpIdleWorkers()
+            if (terminate || (activeWorkers.get() == 0 && !hasStates())) {
+              reachedLock.notifyAll();
+              return null;
+            }
+            waitForStates();
+          } finally {
+            idleWorkers--;
+          }
+        }
+      }
+    }
+
+    private @Nullable AbstractState pollState() {
+      AbstractState state = localStates.pollLast();
+      if (state != null) {
+        return state;
+      }
+      state = concurrentReachedSet.pollFromWaitlist();
+      if (state != null) {
+        return state;
+      }
+      for (int i = 1; i < workers.size(); i++) {
+        Worker victim = workers.get((index + i) % workers.size());
+        // the oldest state of the victim is probably the root of the largest unexplored part
+        state = victim.localStates.pollFirst();
+        if (state != null) {
+          stats.countSteals.inc();
+          return state;
+        }
+      }
+      return null;
+    }
+
+    private boolean hasStates() {
+      return reachedSet.hasWaitingState()
+          || workers.stream().anyMatch(w -> !w.localStates.isEmpty());
+    }
+
+    /** Wait for a notification about new states. The caller has to hold the reachedLock. */
+    private void waitForStates() throws InterruptedException {
+      stats.countIdleWaits.inc();
+      idleTimer.start();
+      try {
+        reachedLock.wait(IDLE_WAIT_MILLIS);
+      } finally {
+        idleTimer.stop();
+      }
+      shutdownNotifier.shutdownIfNecessary();
+    }
+
+    /** Put the states that this worker did not handle back into the waitlist. */
+    private void returnLocalStatesToWaitlist() {
+      for (AbstractState state : localStates) {
+        if (reachedSet.contains(state)) {
+          reachedSet.reAddToWaitlist(state);
+        }
+      }
+      localStates.clear();
+    }
+
+    /**
+     * Handle one state from the waitlist, i.e., produce successors etc.
+     *
+     * @return true if analysis should terminate, false if analysis should continue
+     */
+    private boolean handleState(final AbstractState state, final Precision precision)
+        throws CPAException, InterruptedException {
+      logger.log(Level.ALL, "Current state is", state, "with precision", precision);
+
+      transferTimer.start();
+      Collection<? extends AbstractState> successors;
+      try {
+        successors = workerTransferRelation.getAbstractSuccessors(state, precision);
+      } finally {
+        transferTimer.stop();
+      }
+
+      int numSuccessors = successors.size();
+      logger.log(Level.FINER, "Current state has", numSuccessors, "successors");
+      stats.countSuccessors.add(numSuccessors);
+      stats.maxSuccessors.accumulate(numSuccessors);
+
+      for (Iterator<? extends AbstractState> it = successors.iterator(); it.hasNext(); ) {
+        AbstractState successor = it.next();
+        shutdownNotifier.shutdownIfNecessary();
+        logger.log(Level.FINER, "Considering successor of current state");
+        logger.log(Level.ALL, "Successor of", state, "\nis", successor);
+
+        precisionTimer.start();
+        PrecisionAdjustmentResult precAdjustmentResult;
+        try {
+          Optional<PrecisionAdjustmentResult> precAdjustmentOptional =
+              workerPrecisionAdjustment.prec(
+                  successor, precision, reachedSet, Functions.identity(), successor);
+          if (!precAdjustmentOptional.isPresent()) {
+            continue;
+          }
+          precAdjustmentResult = precAdjustmentOptional.get();
+        } finally {
+          precisionTimer.stop();
+        }
+
+        successor = precAdjustmentResult.abstractState();
+        Precision successorPrecision = precAdjustmentResult.precision();
+        Action action = precAdjustmentResult.action();
+
+        Lock partitionLock = acquirePartitionLock(successor);
+        try {
+          if (action == Action.BREAK) {
+            Collection<AbstractState> reached = getReachedSnapshot(successor);
+            stopTimer.start();
+            boolean stop;
+            try {
+              stop = stopOperator.stop(successor, reached, successorPrecision);
+            } finally {
+              stopTimer.stop();
+            }
+
+            if (AbstractStates.isTargetState(successor) && stop) {
+              // don't signal BREAK for covered states
+              stats.countStop.inc();
+              logger.log(
+                  Level.FINER, "Break was signalled but ignored because the state is covered.");
+              continue;
+
+            } else {
+              stats.countBreak.inc();
+              logger.log(Level.FINER, "Break signalled, ParallelCPAAlgorithm will stop.");
+
+              reachedLockTimer.start();
+              synchronized (structureLock) {
+                reachedLockTimer.stop();
+                reachedSet.add(successor, successorPrecision);
+                if (it.hasNext()) {
+                  // re-add the old state to the waitlist, there are unhandled
+                  // successors left that otherwise would be forgotten
+                  reachedSet.reAddToWaitlist(state);
+                }
+              }
+              return true;
+            }
+          }
+          assert action == Action.CONTINUE : "Enum Action has unhandled values!";
+
+          handleSuccessor(successor, successorPrecision);
+
+        } finally {
+          partitionLock.unlock();
+        }
+      }
+
+      return false;
+    }
+
+    /**
+     * Merge the successor into its partition of the reached set, and add it if it is not covered.
+     * The caller has to hold the lock of the successor's partition.
+     */
+    private void handleSuccessor(AbstractState successor, Precision successorPrecision)
+        throws CPAException, InterruptedException {
+      Collection<AbstractState> reached = getReachedSnapshot(successor);
+
+      // An optimization, we don't bother merging if we know that the
+      // merge operator won't do anything (i.e., it is merge-sep).
+      if (mergeOperator != MergeSepOperator.getInstance() && !reached.isEmpty()) {
+        boolean changed = false;
+        mergeTimer.start();
+        try {
+          List<AbstractState> toRemove = new ArrayList<>();
+          List<Pair<AbstractState, Precision>> toAdd = new ArrayList<>();
+          try {
+            logger.log(
+                Level.FINER, "Considering", reached.size(), "states from reached set for merge");
+            for (AbstractState reachedState : reached) {
+              shutdownNotifier.shutdownIfNecessary();
+              AbstractState mergedState =
+                  mergeOperator.merge(successor, reachedState, successorPrecision);
+
+              if (!mergedState.equals(reachedState)) {
+                logger.log(Level.FINER, "Successor was merged with state from reached set");
+                logger.log(
+                    Level.ALL, "Merged", successor, "\nand", reachedState, "\n-->", mergedState);
+                stats.countMerge.inc();
+
+                toRemove.add(reachedState);
+                toAdd.add(Pair.of(mergedState, successorPrecision));
+              }
+            }
+          } finally {
+            // If we terminate, we should still update the reachedSet if necessary
+            // because ARGCPA doesn't like states in toRemove to be in the reachedSet.
+            if (!toRemove.isEmpty() || !toAdd.isEmpty()) {
+              changed = true;
+              reachedLockTimer.start();
+              synchronized (structureLock) {
+                reachedLockTimer.stop();
+                reachedSet.removeAll(toRemove);
+                reachedSet.addAll(toAdd);
+                if (mergeOperator instanceof ARGMergeJoinCPAEnabledAnalysis) {
+                  ((ARGMergeJoinCPAEnabledAnalysis) mergeOperator).cleanUp(reachedSet);
+                }
+              }
+              wakeUpIdleWorkers();
+            }
+          }
+        } finally {
+          mergeTimer.stop();
+        }
+
+        if (changed) {
+          reached = getReachedSnapshot(successor);
+        }
+      }
+
+      stopTimer.start();
+      boolean stop;
+      try {
+        stop = stopOperator.stop(successor, reached, successorPrecision);
+      } finally {
+        stopTimer.stop();
+      }
+
+      if (stop) {
+        logger.log(Level.FINER, "Successor is covered or unreachable, not adding to waitlist");
+        stats.countStop.inc();
+
+      } else {
+        logger.log(Level.FINER, "No need to stop, adding successor to waitlist");
+
+        addTimer.start();
+        if (concurrentReachedSet != null) {
+          concurrentReachedSet.addWithoutWaitlist(successor, successorPrecision);
+          localStates.addLast(successor);
+        } else {
+          reachedLockTimer.start();
+          synchronized (reachedLock) {
+            reachedLockTimer.stop();
+            reachedSet.add(successor, successorPrecision);
+          }
+        }
+        addTimer.stop();
+        wakeUpIdleWorkers();
+      }
+    }
+
+    private void wakeUpIdleWorkers() {
+      // Idle workers register before checking for states, so if a worker missed the new state,
+      // it is already registered here.
+      if (idleWorkers > 0) {
+        synchronized (reachedLock) {
+          reachedLock.notifyAll();
+        }
+      }
+    }
+
+    /**
+     * Copy the partition of the successor out of the reached set. The copy stays valid as long as
+     * the caller holds the partition lock, because only holders of this lock modify the partition.
+     * A {@link ConcurrentPartitionedReachedSet} can be read without copying.
+     */
+    private Collection<AbstractState> getReachedSnapshot(AbstractState successor) {
+      if (concurrentReachedSet != null) {
+        return concurrentReachedSet.getReached(successor);
+      }
+      reachedLockTimer.start();
+      synchronized (reachedLock) {
+        reachedLockTimer.stop();
+        return ImmutableList.copyOf(reachedSet.getReached(successor));
+      }
+    }
+
+    private Lock acquirePartitionLock(AbstractState successor) {
+      Object key = getPartitionKey(reachedSet, successor);
+      Lock lock = partitionLocks.get(Preconditions.checkNotNull(key));
+      stats.countPartitionLocks.inc();
+      if (!lock.tryLock()) {
+        stats.countContendedPartitionLocks.inc();
+        partitionLockTimer.start();
+        lock.lock();
+        partitionLockTimer.stop();
+      }
+      return lock;
+    }
+  }
+
+  @Override
+  public void collectStatistics(Collection<Statistics> pStatsCollection) {
+    pStatsCollection.add(stats);
+  }
+}
@@ -0,0 +1,395 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.SortedSetMultimap;
+import com.google.common.collect.TreeMultimap;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.CFACreationUtils;
+import org.sosy_lab.cpachecker.cfa.Language;
+import org.sosy_lab.cpachecker.cfa.MutableCFA;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpressionBuilder;
+import org.sosy_lab.cpachecker.cfa.ast.c.CExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CExpressionAssignmentStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CInitializer;
+import org.sosy_lab.cpachecker.cfa.ast.c.CInitializerExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIntegerLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.ast.c.CVariableDeclaration;
+import org.sosy_lab.cpachecker.cfa.model.BlankEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CAssumeEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CDeclarationEdge;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CStatementEdge;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CFunctionType;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cfa.types.c.CStorageClass;
+import org.sosy_lab.cpachecker.core.CPABuilder;
+import org.sosy_lab.cpachecker.core.Specification;
+import org.sosy_lab.cpachecker.core.algorithm.Algorithm.AlgorithmStatus;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.interfaces.StateSpacePartition;
+import org.sosy_lab.cpachecker.core.reachedset.AggregatedReachedSets;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+
+public class ParallelCPAAlgorithmTest {
+
+  private static final String FUNCTION = "main";
+
+  /** number of if-then-else statements, the program has 2^BRANCHINGS paths */
+  private static final int BRANCHINGS = 9;
+
+  private static final int THREADS = 4;
+
+  private final LogManager logger = LogManager.createTestLogManager();
+
+  private CFA cfa;
+
+  @Before
+  public void createCFA() throws Exception {
+    cfa = createBranchingProgram(BRANCHINGS);
+  }
+
+  /**
+   * Create a program that branches on a non-deterministic value and assigns a different value in
+   * each branch, such that value analysis has to explore every path separately:
+   *
+   * <pre>
+   * int n; int a0 = 0; ... int aK = 0;
+   * if (n &lt; 0) { a0 = 1; } else { a0 = 2; }
+   * ...
+   * if (n &lt; K) { aK = 1; } else { aK = 2; }
+   * </pre>
+   */
+  private static CFA createBranchingProgram(int pBranchings) throws Exception {
+    MachineModel machineModel = MachineModel.LINUX64;
+    CBinaryExpressionBuilder builder =
+        new CBinaryExpressionBuilder(machineModel, LogManager.createNullLogManager());
+
+    FunctionExitNode exit = new FunctionExitNode(FUNCTION);
+    CFunctionEntryNode entry =
+        new CFunctionEntryNode(
+            FileLocation.DUMMY,
+            new CFunctionDeclaration(
+                FileLocation.DUMMY,
+                CFunctionType.functionTypeWithReturnType(CNumericTypes.INT),
+                FUNCTION,
+                Collections.emptyList()),
+            exit,
+            com.google.common.base.Optional.absent());
+    exit.setEntryNode(entry);
+
+    SortedSetMultimap<String, CFANode> nodes = TreeMultimap.create();
+    nodes.put(FUNCTION, entry);
+    nodes.put(FUNCTION, exit);
+
+    CFANode current = newNode(nodes);
+    CFACreationUtils.addEdgeUnconditionallyToCFA(
+        new BlankEdge("", FileLocation.DUMMY, entry, current, "Function start dummy edge"));
+
+    CIdExpression nondet = declare("n", null, current, newNode(nodes));
+    current = successor(current);
+    List<CIdExpression> variables = new ArrayList<>(pBranchings);
+    for (int i = 0; i < pBranchings; i++) {
+      CInitializer zero =
+          new CInitializerExpression(FileLocation.DUMMY, CIntegerLiteralExpression.ZERO);
+      variables.add(declare("a" + i, zero, current, newNode(nodes)));
+      current = successor(current);
+    }
+
+    for (int i = 0; i < pBranchings; i++) {
+      CExpression condition =
+          builder.buildBinaryExpression(
+              nondet,
+              CIntegerLiteralExpression.createDummyLiteral(i, CNumericTypes.INT),
+              BinaryOperator.LESS_THAN);
+      CFANode thenNode = newNode(nodes);
+      CFANode elseNode = newNode(nodes);
+      CFANode join = newNode(nodes);
+      CFACreationUtils.addEdgeUnconditionallyToCFA(
+          new CAssumeEdge(
+              condition.toASTString(), FileLocation.DUMMY, current, thenNode, condition, true));
+      CFACreationUtils.addEdgeUnconditionallyToCFA(
+          new CAssumeEdge(
+              condition.toASTString(), FileLocation.DUMMY, current, elseNode, condition, false));
+      assign(variables.get(i), 1, thenNode, join);
+      assign(variables.get(i), 2, elseNode, join);
+      current = join;
+    }
+
+    CFACreationUtils.addEdgeUnconditionallyToCFA(
+        new BlankEdge("", FileLocation.DUMMY, current, exit, "default return"));
+
+    TreeMap<String, FunctionEntryNode> functions = new TreeMap<>();
+    functions.put(FUNCTION, entry);
+    return new MutableCFA(machineModel, functions, nodes, entry, ImmutableList.of(), Language.C)
+        .makeImmutableCFA(Optional.empty(), Optional.empty());
+  }
+
+  private static CFANode newNode(SortedSetMultimap<String, CFANode> pNodes) {
+    CFANode node = new CFANode(FUNCTION);
+    pNodes.put(FUNCTION, node);
+    return node;
+  }
+
+  private static CFANode successor(CFANode pNode) {
+    return pNode.getLeavingEdge(0).getSuccessor();
+  }
+
+  private static CIdExpression declare(
+      String pName, CInitializer pInitializer, CFANode pPredecessor, CFANode pSuccessor) {
+    CVariableDeclaration decl =
+        new CVariableDeclaration(
+            FileLocation.DUMMY,
+            false,
+            CStorageClass.AUTO,
+            CNumericTypes.INT,
+            pName,
+            pName,
+            FUNCTION + "::" + pName,
+            pInitializer);
+    CFACreationUtils.addEdgeUnconditionallyToCFA(
+        new CDeclarationEdge(
+            decl.toASTString(), FileLocation.DUMMY, pPredecessor, pSuccessor, decl));
+    return new CIdExpression(FileLocation.DUMMY, decl);
+  }
+
+  private static void assign(
+      CIdExpression pVariable, int pValue, CFANode pPredecessor, CFANode pSuccessor) {
+    CExpressionAssignmentStatement statement =
+        new CExpressionAssignmentStatement(
+            FileLocation.DUMMY,
+            pVariable,
+            CIntegerLiteralExpression.createDummyLiteral(pValue, CNumericTypes.INT));
+    CFACreationUtils.addEdgeUnconditionallyToCFA(
+        new CStatementEdge(
+            statement.toASTString(), statement, FileLocation.DUMMY, pPredecessor, pSuccessor));
+  }
+
+  private static Configuration config(String pReachedSet, String... pOptions)
+      throws InvalidConfigurationException {
+    ConfigurationBuilder builder =
+        TestDataTools.configurationForTest()
+            .setOption("cpa", "cpa.arg.ARGCPA")
+            .setOption("ARGCPA.cpa", "cpa.composite.CompositeCPA")
+            .setOption(
+                "CompositeCPA.cpas",
+                "cpa.location.LocationCPA, cpa.callstack.CallstackCPA, cpa.value.ValueAnalysisCPA")
+            .setOption("analysis.reachedSet", pReachedSet)
+            .setOption("cpa.parallel.numberOfThreads", Integer.toString(THREADS));
+    for (int i = 0; i < pOptions.length; i += 2) {
+      builder.setOption(pOptions[i], pOptions[i + 1]);
+    }
+    return builder.build();
+  }
+
+  private ConfigurableProgramAnalysis createCPA(Configuration pConfig, ReachedSetFactory pFactory)
+      throws Exception {
+    return new CPABuilder(pConfig, logger, ShutdownNotifier.createDummy(), pFactory)
+        .buildCPAs(cfa, Specification.alwaysSatisfied(), new AggregatedReachedSets());
+  }
+
+  private ReachedSet createReachedSet(
+      ConfigurableProgramAnalysis pCpa, ReachedSetFactory pFactory) throws InterruptedException {
+    ReachedSet reached = pFactory.create();
+    CFANode start = cfa.getMainFunction();
+    reached.add(
+        pCpa.getInitialState(start, StateSpacePartition.getDefaultPartition()),
+        pCpa.getInitialPrecision(start, StateSpacePartition.getDefaultPartition()));
+    return reached;
+  }
+
+  /** Run the sequential {@link CPAAlgorithm} and return the explored locations and values. */
+  private Multiset<Pair<CFANode, ValueAnalysisState>> runSequentially() throws Exception {
+    Configuration config = config("PARTITIONED");
+    ReachedSetFactory factory = new ReachedSetFactory(config, logger);
+    ConfigurableProgramAnalysis cpa = createCPA(config, factory);
+    ReachedSet reached = createReachedSet(cpa, factory);
+    CPAAlgorithm.create(cpa, logger, config, ShutdownNotifier.createDummy()).run(reached);
+    assertThat(reached.hasWaitingState()).isFalse();
+    return exploredStates(reached);
+  }
+
+  private static Multiset<Pair<CFANode, ValueAnalysisState>> exploredStates(ReachedSet pReached) {
+    Multiset<Pair<CFANode, ValueAnalysisState>> result = HashMultiset.create();
+    for (AbstractState state : pReached) {
+      result.add(
+          Pair.of(
+              AbstractStates.extractLocation(state),
+              AbstractStates.extractStateByType(state, ValueAnalysisState.class)));
+    }
+    return result;
+  }
+
+  /**
+   * Check that the parents and children of all states are consistent, and that the ARG contains
+   * exactly the states of the reached set plus covered states.
+   */
+  private static void assertConsistentARG(ReachedSet pReached) {
+    ARGState root = (ARGState) pReached.getFirstState();
+    Set<ARGState> visited = new HashSet<>();
+    Deque<ARGState> waitlist = new ArrayDeque<>();
+    waitlist.add(root);
+    visited.add(root);
+    int uncovered = 0;
+    while (!waitlist.isEmpty()) {
+      ARGState state = waitlist.pop();
+      assertThat(state.isDestroyed()).isFalse();
+      if (state.isCovered()) {
+        assertThat(pReached.contains(state)).isFalse();
+        assertThat(pReached.contains(state.getCoveringState())).isTrue();
+        assertThat(state.getChildren()).isEmpty();
+      } else {
+        assertThat(pReached.contains(state)).isTrue();
+        uncovered++;
+      }
+      if (state != root) {
+        assertThat(state.getParents()).isNotEmpty();
+      }
+      for (ARGState child : state.getChildren()) {
+        assertThat(child.getParents()).contains(state);
+        if (visited.add(child)) {
+          waitlist.add(child);
+        }
+      }
+    }
+    assertThat(uncovered).isEqualTo(pReached.size());
+  }
+
+  private static String statistics(Statistics pStatistics, ReachedSet pReached) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (PrintStream out = new PrintStream(output, true, StandardCharsets.UTF_8.name())) {
+      pStatistics.printStatistics(out, null, pReached);
+    } catch (UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+    return new String(output.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private ReachedSet runInParallel(
+      String pReachedSet, boolean pExpectConcurrency, String... pOptions) throws Exception {
+    Configuration config = config(pReachedSet, pOptions);
+    ReachedSetFactory factory = new ReachedSetFactory(config, logger);
+    ConfigurableProgramAnalysis cpa = createCPA(config, factory);
+    ReachedSet reached = createReachedSet(cpa, factory);
+
+    ParallelCPAAlgorithm algorithm =
+        ParallelCPAAlgorithm.create(cpa, logger, config, ShutdownNotifier.createDummy());
+    AlgorithmStatus status = algorithm.run(reached);
+    assertThat(status.isSound()).isTrue();
+    assertThat(reached.hasWaitingState()).isFalse();
+
+    List<Statistics> stats = new ArrayList<>();
+    algorithm.collectStatistics(stats);
+    assertThat(statistics(stats.get(0), reached))
+        .containsMatch(
+            "CPA operators called concurrently:\\s*" + (pExpectConcurrency ? "yes" : "no"));
+    return reached;
+  }
+
+  @Test
+  public void testConcurrentExploration() throws Exception {
+    Multiset<Pair<CFANode, ValueAnalysisState>> expected = runSequentially();
+    // every path is explored separately
+    assertThat(expected.size()).isGreaterThan(1 << BRANCHINGS);
+
+    for (int run = 0; run < 5; run++) {
+      ReachedSet reached = runInParallel("CONCURRENTPARTITIONED", true);
+      assertThat(exploredStates(reached)).isEqualTo(expected);
+      assertConsistentARG(reached);
+    }
+  }
+
+  @Test
+  public void testSequentialFallbackWithoutConcurrentReachedSet() throws Exception {
+    Multiset<Pair<CFANode, ValueAnalysisState>> expected = runSequentially();
+
+    ReachedSet reached = runInParallel("PARTITIONED", false);
+    assertThat(exploredStates(reached)).isEqualTo(expected);
+    assertConsistentARG(reached);
+  }
+
+  @Test
+  public void testSequentialFallbackForUnsafeConfiguration() throws Exception {
+    // merging changes the ARG around states of other workers
+    ReachedSet reached =
+        runInParallel("CONCURRENTPARTITIONED", false, "cpa.value.merge", "JOIN");
+    assertThat(reached.getReached(cfa.getMainFunction().getExitNode())).isNotEmpty();
+    assertConsistentARG(reached);
+  }
+
+  @Test
+  public void testImpreciseStatus() throws Exception {
+    Configuration config = config("CONCURRENTPARTITIONED", "cpa.reportFalseAsUnknown", "true");
+    ReachedSetFactory factory = new ReachedSetFactory(config, logger);
+    ConfigurableProgramAnalysis cpa = createCPA(config, factory);
+    ReachedSet reached = createReachedSet(cpa, factory);
+
+    AlgorithmStatus status =
+        ParallelCPAAlgorithm.create(cpa, logger, config, ShutdownNotifier.createDummy())
+            .run(reached);
+    assertThat(status.isSound()).isTrue();
+    assertThat(status.isPrecise()).isFalse();
+  }
+}
@@ -0,0 +1,373 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * Scheduler for the analyses of a {@link ParallelAlgorithm} that run on a bounded number of
+ * threads.
+ *
+ * <p>The scheduler periodically samples the progress of all running analyses, i.e., whether their
+ * reached set has grown, shrunk or been replaced (e.g., after a refinement). If cancellation is
+ * enabled, an analysis that has not made progress for a given time is cancelled if there is another
+ * analysis that can use the CPU time instead: either an analysis that is still waiting for a free
+ * thread, or a running analysis that still makes progress. Analyses cannot be paused, because they
+ * can only be stopped cooperatively via their {@link ShutdownManager}. Note that the size of the
+ * reached set is only a heuristic signal: an analysis can also be busy with a long solver call or
+ * unrolling without changing its reached set, which is why cancellation is optional.
+ *
+ * <p>The scheduler also measures the wall and CPU time of each analysis in order to report how the
+ * available time was distributed over the analyses.
+ */
+final class PortfolioScheduler implements AutoCloseable {
+
+  enum TaskState {
+    QUEUED,
+    RUNNING,
+    FINISHED
+  }
+
+  /** Handle for one analysis that is managed by the scheduler. */
+  static final class Task {
+
+    private final String name;
+    private final ShutdownManager shutdownManager;
+    private final Supplier<ReachedSet> reachedSet;
+    private final boolean cancellable;
+
+    private final long queuedTime;
+    private volatile TaskState state = TaskState.QUEUED;
+    private volatile long startTime;
+    private volatile long endTime;
+    private volatile long threadId = -1;
+    private volatile long cpuTime = -1;
+    private volatile boolean cancelledAsStalled = false;
+
+    // only accessed by the thread that checks progress
+    private @Nullable ReachedSet lastReached = null;
+    private int lastSize = 0;
+    private long lastProgressTime;
+
+    private Task(
+        String pName,
+        ShutdownManager pShutdownManager,
+        Supplier<ReachedSet> pReachedSet,
+        boolean pCancellable,
+        long pQueuedTime) {
+      name = checkNotNull(pName);
+      shutdownManager = checkNotNull(pShutdownManager);
+      reachedSet = checkNotNull(pReachedSet);
+      cancellable = pCancellable;
+      queuedTime = pQueuedTime;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    TaskState getState() {
+      return state;
+    }
+
+    boolean wasCancelledAsStalled() {
+      return cancelledAsStalled;
+    }
+
+    @Override
+    public String toString() {
+      return name + " (" + state + ")";
+    }
+  }
+
+  private final LogManager logger;
+  private final Ticker ticker;
+  private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+  private final boolean cancelStalled;
+  private final long stallTimeout;
+  private final TimeSpan interval;
+  private final List<Task> tasks = new CopyOnWriteArrayList<>();
+
+  private @Nullable ScheduledExecutorService monitor = null;
+
+  /**
+   * Create a new scheduler.
+   *
+   * @param pInterval the interval in which the progress of the analyses is checked
+   * @param pCancelStalled whether stalled analyses are cancelled
+   * @param pStallTimeout the time without progress after which an analysis is stalled
+   * @param pLogger the logger
+   */
+  PortfolioScheduler(
+      TimeSpan pInterval, boolean pCancelStalled, TimeSpan pStallTimeout, LogManager pLogger) {
+    this(pInterval, pCancelStalled, pStallTimeout, pLogger, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  PortfolioScheduler(
+      TimeSpan pInterval,
+      boolean pCancelStalled,
+      TimeSpan pStallTimeout,
+      LogManager pLogger,
+      Ticker pTicker) {
+    checkArgument(pInterval.asNanos() > 0);
+    checkArgument(pStallTimeout.asNanos() > 0);
+    interval = pInterval;
+    cancelStalled = pCancelStalled;
+    stallTimeout = pStallTimeout.asNanos();
+    logger = checkNotNull(pLogger);
+    ticker = checkNotNull(pTicker);
+  }
+
+  /**
+   * Register a new analysis that is waiting for a thread.
+   *
+   * @param pName the name of the analysis
+   * @param pShutdownManager the shutdown manager that is used to cancel the analysis
+   * @param pReachedSet provides the current reached set of the analysis
+   * @param pCancellable whether the scheduler may cancel this analysis if it is stalled, this
+   *     should be false for example if other analyses depend on it
+   */
+  Task register(
+      String pName,
+      ShutdownManager pShutdownManager,
+      Supplier<ReachedSet> pReachedSet,
+      boolean pCancellable) {
+    Task task = new Task(pName, pShutdownManager, pReachedSet, pCancellable, ticker.read());
+    tasks.add(task);
+    return task;
+  }
+
+  /** Needs to be called by the thread that executes the analysis when the analysis starts. */
+  void started(Task pTask) {
+    checkState(pTask.state == TaskState.QUEUED);
+    pTask.threadId = Thread.currentThread().getId();
+    pTask.startTime = ticker.read();
+    pTask.state = TaskState.RUNNING;
+  }
+
+  /** Needs to be called by the thread that executes the analysis when the analysis finished. */
+  void finished(Task pTask) {
+    checkState(pTask.state == TaskState.RUNNING);
+    pTask.cpuTime = getCpuTime(pTask);
+    pTask.endTime = ticker.read();
+    pTask.state = TaskState.FINISHED;
+  }
+
+  /** Start checking the progress of the analyses periodically in a separate thread. */
+  void start() {
+    checkState(monitor == null);
+    monitor =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat("ParallelAlgorithm-scheduler-%d")
+                .setDaemon(true)
+                .build());
+    monitor.scheduleAtFixedRate(
+        this::monitorProgress, interval.asNanos(), interval.asNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Task of the monitor thread. An exception would silently stop all further executions of a
+   * periodic task, so we log it and continue with the next check.
+   */
+  @VisibleForTesting
+  void monitorProgress() {
+    try {
+      checkProgress();
+    } catch (RuntimeException e) {
+      logger.logUserException(
+          Level.WARNING, e, "Checking the progress of the parallel analyses failed");
+    }
+  }
+
+  @Override
+  public void close() {
+    if (monitor != null) {
+      monitor.shutdownNow();
+    }
+  }
+
+  /**
+   * Check the progress of all running analyses and cancel stalled analyses if other analyses can
+   * make use of their CPU time.
+   */
+  @VisibleForTesting
+  synchronized void checkProgress() {
+    long now = ticker.read();
+    List<Task> stalled = new ArrayList<>();
+    boolean othersCanProceed = false;
+
+    for (Task task : tasks) {
+      switch (task.state) {
+        case QUEUED:
+          othersCanProceed = true;
+          break;
+        case RUNNING:
+          if (task.cancelledAsStalled) {
+            break; // still shutting down
+          }
+          if (updateProgress(task, now)) {
+            othersCanProceed = true;
+          } else if (task.cancellable) {
+            stalled.add(task);
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    if (!cancelStalled || !othersCanProceed) {
+      return;
+    }
+    for (Task task : stalled) {
+      logger.log(
+          Level.INFO,
+          "Cancelling",
+          task.name,
+          "because it made no progress for",
+          TimeSpan.ofNanos(now - task.lastProgressTime).formatAs(TimeUnit.SECONDS));
+      task.cancelledAsStalled = true;
+      task.shutdownManager.requestShutdown("Analysis made no progress");
+    }
+  }
+
+  /**
+   * Check whether the given analysis has made progress recently.
+   *
+   * <p>The reached set is read without synchronization, which is fine because we only need a
+   * heuristic signal, and the size of a reached set is always a valid (if possibly outdated)
+   * value.
+   */
+  private boolean updateProgress(Task pTask, long pNow) {
+    ReachedSet reached = pTask.reachedSet.get();
+    int size = reached.size();
+    if (pTask.lastReached == null) {
+      // first sample, the analysis counts as progressing since its start
+      pTask.lastReached = reached;
+      pTask.lastSize = size;
+      pTask.lastProgressTime = pTask.startTime;
+    } else if (reached != pTask.lastReached || size != pTask.lastSize) {
+      pTask.lastReached = reached;
+      pTask.lastSize = size;
+      pTask.lastProgressTime = pNow;
+    }
+    return pNow - pTask.lastProgressTime < stallTimeout;
+  }
+
+  private long getCpuTime(Task pTask) {
+    if (pTask.state == TaskState.FINISHED) {
+      return pTask.cpuTime;
+    }
+    if (pTask.state != TaskState.RUNNING || !threadBean.isThreadCpuTimeSupported()) {
+      return -1;
+    }
+    if (pTask.threadId == Thread.currentThread().getId()) {
+      return threadBean.getCurrentThreadCpuTime();
+    }
+    return threadBean.getThreadCpuTime(pTask.threadId);
+  }
+
+  private long getWallTime(Task pTask) {
+    switch (pTask.state) {
+      case RUNNING:
+        return ticker.read() - pTask.startTime;
+      case FINISHED:
+        return pTask.endTime - pTask.startTime;
+      default:
+        return 0;
+    }
+  }
+
+  @VisibleForTesting
+  ImmutableList<Task> getTasks() {
+    return ImmutableList.copyOf(tasks);
+  }
+
+  /** Print the wall time, CPU time, and the share of the overall time of each analysis. */
+  void printStatistics(StatisticsWriter pWriter) {
+    ImmutableList<Task> allTasks = getTasks();
+    long[] cpuTimes = new long[allTasks.size()];
+    long[] wallTimes = new long[allTasks.size()];
+    long totalCpuTime = 0;
+    long totalWallTime = 0;
+    for (int i = 0; i < allTasks.size(); i++) {
+      cpuTimes[i] = Math.max(0, getCpuTime(allTasks.get(i)));
+      wallTimes[i] = getWallTime(allTasks.get(i));
+      totalCpuTime += cpuTimes[i];
+      totalWallTime += wallTimes[i];
+    }
+
+    pWriter.put(
+        "Number of analyses cancelled as stalled",
+        FluentIterable.from(allTasks).filter(Task::wasCancelledAsStalled).size());
+    for (int i = 0; i < allTasks.size(); i++) {
+      Task task = allTasks.get(i);
+      long waitTime =
+          (task.state == TaskState.QUEUED ? ticker.read() : task.startTime) - task.queuedTime;
+      pWriter.put(
+          "Time share of " + task.name,
+          String.format(
+              "%s wall (%s), %s CPU (%s), %s waiting, %s",
+              TimeSpan.ofNanos(wallTimes[i]).formatAs(TimeUnit.SECONDS),
+              formatShare(wallTimes[i], totalWallTime),
+              TimeSpan.ofNanos(cpuTimes[i]).formatAs(TimeUnit.SECONDS),
+              formatShare(cpuTimes[i], totalCpuTime),
+              TimeSpan.ofNanos(waitTime).formatAs(TimeUnit.SECONDS),
+              task.cancelledAsStalled ? "cancelled as stalled" : task.state));
+    }
+  }
+
+  private static String formatShare(long pPart, long pTotal) {
+    if (pTotal <= 0) {
+      return "-";
+    }
+    return String.format("%.1f%%", 100.0 * pPart / pTotal);
+  }
+}
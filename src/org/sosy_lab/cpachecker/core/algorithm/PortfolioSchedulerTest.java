@@ -0,0 +1,253 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.testing.FakeTicker;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.core.algorithm.PortfolioScheduler.Task;
+import org.sosy_lab.cpachecker.core.algorithm.PortfolioScheduler.TaskState;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+public class PortfolioSchedulerTest {
+
+  private static final TimeSpan STALL_TIMEOUT = TimeSpan.ofSeconds(10);
+
+  private static final class TestState implements AbstractState, Partitionable {
+
+    @Override
+    public Object getPartitionKey() {
+      return null;
+    }
+  }
+
+  private FakeTicker ticker;
+  private PortfolioScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    ticker = new FakeTicker();
+    scheduler = newScheduler(true);
+  }
+
+  private PortfolioScheduler newScheduler(boolean pCancelStalled) {
+    return new PortfolioScheduler(
+        TimeSpan.ofSeconds(1),
+        pCancelStalled,
+        STALL_TIMEOUT,
+        LogManager.createTestLogManager(),
+        ticker);
+  }
+
+  private static ReachedSet newReachedSet() {
+    ReachedSet reached = new PartitionedReachedSet(TraversalMethod.DFS);
+    addState(reached);
+    return reached;
+  }
+
+  private static void addState(ReachedSet pReached) {
+    pReached.add(new TestState(), SingletonPrecision.getInstance());
+  }
+
+  private void registerQueuedAnalysis() {
+    scheduler.register(
+        "queued", ShutdownManager.create(), PortfolioSchedulerTest::newReachedSet, true);
+  }
+
+  private void advance(long pSeconds) {
+    ticker.advance(pSeconds, TimeUnit.SECONDS);
+    scheduler.checkProgress();
+  }
+
+  @Test
+  public void testStalledAnalysisCancelledForQueuedAnalysis() {
+    ShutdownManager stalledManager = ShutdownManager.create();
+    ShutdownManager queuedManager = ShutdownManager.create();
+    ReachedSet reached = newReachedSet();
+    Task stalled = scheduler.register("stalled", stalledManager, () -> reached, true);
+    Task queued = scheduler.register("queued", queuedManager, () -> reached, true);
+    scheduler.started(stalled);
+
+    advance(5);
+    assertThat(stalledManager.getNotifier().shouldShutdown()).isFalse();
+    advance(10);
+    assertThat(stalledManager.getNotifier().shouldShutdown()).isTrue();
+    assertThat(stalled.wasCancelledAsStalled()).isTrue();
+    assertThat(queued.wasCancelledAsStalled()).isFalse();
+    assertThat(queuedManager.getNotifier().shouldShutdown()).isFalse();
+
+    scheduler.finished(stalled);
+    assertThat(stalled.getState()).isEqualTo(TaskState.FINISHED);
+  }
+
+  @Test
+  public void testProgressPreventsCancellation() {
+    ShutdownManager activeManager = ShutdownManager.create();
+    ReachedSet reached = newReachedSet();
+    Task active = scheduler.register("active", activeManager, () -> reached, true);
+    registerQueuedAnalysis();
+    scheduler.started(active);
+
+    for (int i = 0; i < 10; i++) {
+      addState(reached);
+      advance(5);
+    }
+    assertThat(activeManager.getNotifier().shouldShutdown()).isFalse();
+    advance(10);
+    assertThat(activeManager.getNotifier().shouldShutdown()).isTrue();
+  }
+
+  @Test
+  public void testOnlyStalledAnalysesAreNotCancelled() {
+    ShutdownManager manager1 = ShutdownManager.create();
+    ShutdownManager manager2 = ShutdownManager.create();
+    ReachedSet reached1 = newReachedSet();
+    ReachedSet reached2 = newReachedSet();
+    Task task1 = scheduler.register("first", manager1, () -> reached1, true);
+    Task task2 = scheduler.register("second", manager2, () -> reached2, true);
+    scheduler.started(task1);
+    scheduler.started(task2);
+
+    advance(30);
+    // nobody could make use of the freed CPU time
+    assertThat(manager1.getNotifier().shouldShutdown()).isFalse();
+    assertThat(manager2.getNotifier().shouldShutdown()).isFalse();
+
+    addState(reached2);
+    advance(1);
+    assertThat(manager1.getNotifier().shouldShutdown()).isTrue();
+    assertThat(manager2.getNotifier().shouldShutdown()).isFalse();
+  }
+
+  @Test
+  public void testReplacedReachedSetIsProgress() {
+    ShutdownManager manager = ShutdownManager.create();
+    ReachedSet[] reached = {newReachedSet()};
+    Task task = scheduler.register("refinable", manager, () -> reached[0], true);
+    registerQueuedAnalysis();
+    scheduler.started(task);
+
+    advance(8);
+    reached[0] = newReachedSet();
+    advance(8);
+    assertThat(manager.getNotifier().shouldShutdown()).isFalse();
+    advance(10);
+    assertThat(manager.getNotifier().shouldShutdown()).isTrue();
+  }
+
+  @Test
+  public void testNonCancellableAnalysis() {
+    ShutdownManager manager = ShutdownManager.create();
+    ReachedSet reached = newReachedSet();
+    Task task = scheduler.register("supplier", manager, () -> reached, false);
+    registerQueuedAnalysis();
+    scheduler.started(task);
+
+    advance(60);
+    assertThat(manager.getNotifier().shouldShutdown()).isFalse();
+    assertThat(task.wasCancelledAsStalled()).isFalse();
+  }
+
+  @Test
+  public void testNoCancellationByDefault() {
+    scheduler = newScheduler(false);
+    ShutdownManager stalledManager = ShutdownManager.create();
+    ReachedSet reached = newReachedSet();
+    Task stalled = scheduler.register("stalled", stalledManager, () -> reached, true);
+    registerQueuedAnalysis();
+    scheduler.started(stalled);
+
+    advance(60);
+    assertThat(stalledManager.getNotifier().shouldShutdown()).isFalse();
+    assertThat(stalled.wasCancelledAsStalled()).isFalse();
+  }
+
+  @Test
+  public void testMonitorSurvivesException() {
+    ShutdownManager stalledManager = ShutdownManager.create();
+    ReachedSet reached = newReachedSet();
+    AtomicBoolean fail = new AtomicBoolean(true);
+    Supplier<ReachedSet> supplier =
+        () -> {
+          if (fail.get()) {
+            throw new IllegalStateException("reached set not available");
+          }
+          return reached;
+        };
+    Task stalled = scheduler.register("stalled", stalledManager, supplier, true);
+    registerQueuedAnalysis();
+    scheduler.started(stalled);
+
+    scheduler.monitorProgress();
+    fail.set(false);
+    ticker.advance(5, TimeUnit.SECONDS);
+    scheduler.monitorProgress();
+    ticker.advance(10, TimeUnit.SECONDS);
+    scheduler.monitorProgress();
+    assertThat(stalled.wasCancelledAsStalled()).isTrue();
+  }
+
+  @Test
+  public void testStatistics() {
+    ReachedSet reached = newReachedSet();
+    Task task1 = scheduler.register("first", ShutdownManager.create(), () -> reached, true);
+    Task task2 = scheduler.register("second", ShutdownManager.create(), () -> reached, true);
+    scheduler.started(task1);
+    ticker.advance(3, TimeUnit.SECONDS);
+    scheduler.finished(task1);
+    scheduler.started(task2);
+    ticker.advance(1, TimeUnit.SECONDS);
+    scheduler.finished(task2);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8.name())) {
+      scheduler.printStatistics(StatisticsWriter.writingStatisticsTo(out));
+    } catch (UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+    String output = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    assertThat(output).contains("Time share of first");
+    assertThat(output).contains("(75.0%)");
+    assertThat(output).contains("(25.0%)");
+    assertThat(output).contains("FINISHED");
+  }
+}
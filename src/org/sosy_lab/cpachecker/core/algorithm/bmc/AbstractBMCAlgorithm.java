@@ -32,10 +32,12 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.extractLocation;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -55,6 +57,13 @@ import java.util.TreeSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownManager;
@@ -63,6 +72,7 @@ import org.sosy_lab.common.ShutdownNotifier.ShutdownRequestListener;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
 import org.sosy_lab.common.configuration.FileOption.Type;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -167,6 +177,14 @@ abstract class AbstractBMCAlgorithm
   )
   private boolean usePropertyDirection = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Number of threads that check candidate invariants by induction in parallel."
+              + " Each additional thread builds its own step case with a separate solver context.")
+  @IntegerOption(min = 1)
+  private int inductionThreads = 1;
+
   protected final BMCStatistics stats;
   private final Algorithm algorithm;
   private final ConfigurableProgramAnalysis cpa;
@@ -174,6 +192,10 @@ abstract class AbstractBMCAlgorithm
   private final @Nullable ConfigurableProgramAnalysis stepCaseCPA;
   private final @Nullable Algorithm stepCaseAlgorithm;
 
+  /** Step cases for the additional threads of the induction check, one per thread. */
+  private final ImmutableList<ConfigurableProgramAnalysis> additionalStepCaseCPAs;
+  private final ImmutableList<Algorithm> additionalStepCaseAlgorithms;
+
   protected final InvariantGenerator invariantGenerator;
   private final InvariantGeneratorHeadStart invariantGeneratorHeadStart;
 
@@ -242,9 +264,25 @@ abstract class AbstractBMCAlgorithm
       stepCaseCPA = builder.buildCPAs(cfa, pSpecification, new AggregatedReachedSets());
       stepCaseAlgorithm =
           CPAAlgorithm.create(stepCaseCPA, stepCaseLogger, pConfig, pShutdownManager.getNotifier());
+
+      // each step case has its own predicate CPA and thus its own solver context
+      ImmutableList.Builder<ConfigurableProgramAnalysis> cpas = ImmutableList.builder();
+      ImmutableList.Builder<Algorithm> algorithms = ImmutableList.builder();
+      for (int i = 1; i < inductionThreads; i++) {
+        ConfigurableProgramAnalysis additionalCPA =
+            builder.buildCPAs(cfa, pSpecification, new AggregatedReachedSets());
+        cpas.add(additionalCPA);
+        algorithms.add(
+            CPAAlgorithm.create(
+                additionalCPA, stepCaseLogger, pConfig, pShutdownManager.getNotifier()));
+      }
+      additionalStepCaseCPAs = cpas.build();
+      additionalStepCaseAlgorithms = algorithms.build();
     } else {
       stepCaseCPA = null;
       stepCaseAlgorithm = null;
+      additionalStepCaseCPAs = ImmutableList.of();
+      additionalStepCaseAlgorithms = ImmutableList.of();
       invariantGenerationStrategy = InvariantGeneratorFactory.DO_NOTHING;
       invariantGeneratorHeadStartStrategy = InvariantGeneratorHeadStartFactories.NONE;
     }
@@ -343,11 +381,21 @@ abstract class AbstractBMCAlgorithm
     }
 
     AlgorithmStatus status;
+    List<InductionWorker> inductionWorkers = new ArrayList<>();
 
     try (ProverEnvironmentWithFallback prover =
             new ProverEnvironmentWithFallback(solver, ProverOptions.GENERATE_MODELS);
         @SuppressWarnings("resource")
             KInductionProver kInductionProver = createInductionProver()) {
+      if (kInductionProver != null) {
+        inductionWorkers.add(new InductionWorker(kInductionProver, abstractionStrategy));
+        for (int i = 0; i < additionalStepCaseCPAs.size(); i++) {
+          inductionWorkers.add(
+              new InductionWorker(
+                  createAdditionalInductionProver(i),
+                  new PredicateAbstractionStrategy(cfa.getVarClassification())));
+        }
+      }
       invariantGeneratorHeadStart.waitForInvariantGenerator();
 
       do {
@@ -416,7 +464,7 @@ abstract class AbstractBMCAlgorithm
               }
             }
             sound =
-                checkStepCase(reachedSet, candidateGenerator, kInductionProver, ctiBlockingClauses);
+                checkStepCase(reachedSet, candidateGenerator, inductionWorkers, ctiBlockingClauses);
           }
           if (invariantGenerator.isProgramSafe()
               || (sound && !candidateGenerator.produceMoreCandidates())) {
@@ -430,6 +478,11 @@ abstract class AbstractBMCAlgorithm
         }
       }
       while (status.isSound() && adjustConditions());
+    } finally {
+      // the prover of the first worker is closed above
+      for (InductionWorker worker : Iterables.skip(inductionWorkers, 1)) {
+        worker.prover.close();
+      }
     }
 
     return AlgorithmStatus.UNSOUND_AND_PRECISE;
@@ -438,7 +491,7 @@ abstract class AbstractBMCAlgorithm
   private boolean checkStepCase(
       final ReachedSet reachedSet,
       final CandidateGenerator candidateGenerator,
-      KInductionProver kInductionProver,
+      List<InductionWorker> pInductionWorkers,
       Set<Obligation> pCtiBlockingClauses)
       throws InterruptedException, CPAException, SolverException {
 
@@ -454,6 +507,28 @@ abstract class AbstractBMCAlgorithm
 
     shutdownNotifier.shutdownIfNecessary();
 
+    if (pInductionWorkers.size() > 1) {
+      List<CandidateInvariant> candidatesToCheck = new ArrayList<>(candidates.size());
+      for (CandidateInvariant candidate : candidates) {
+        // No need to check the same clause twice
+        if (candidate instanceof Obligation) {
+          if (!checked.add(((Obligation) candidate).getBlockingClause())) {
+            continue;
+          }
+          pCtiBlockingClauses.remove(candidate);
+        }
+        candidatesToCheck.add(candidate);
+      }
+      return checkStepCaseInParallel(
+          candidatesToCheck,
+          candidateGenerator,
+          pInductionWorkers,
+          k,
+          checkedKeys,
+          pCtiBlockingClauses);
+    }
+
+    InductionWorker worker = pInductionWorkers.get(0);
     boolean sound = true;
     Iterable<CandidateInvariant> candidatesToCheck = candidates;
     for (CandidateInvariant candidate : candidatesToCheck) {
@@ -465,77 +540,220 @@ abstract class AbstractBMCAlgorithm
         pCtiBlockingClauses.remove(candidate);
       }
 
-      boolean extractCtiBlockingClauses = usePropertyDirection;
-
-      Lifting lifting =
-          extractCtiBlockingClauses
-              ? new AbstractionBasedLifting(
-                  abstractionStrategy, AbstractionBasedLifting.RefinementLAFStrategies.EAGER)
-              : StandardLiftings.NO_LIFTING;
-
-      InductionResult<CandidateInvariant> inductionResult =
-          kInductionProver.check(
-              Iterables.concat(confirmedCandidates, Collections.singleton(candidate)),
-              k,
-              candidate,
-              checkedKeys,
-              InvariantStrengthenings.noStrengthening(),
-              lifting);
-      if (inductionResult.isSuccessful()) {
-        Iterables.addAll(
-            confirmedCandidates,
-            CandidateInvariantCombination.getConjunctiveParts(candidate));
-        candidateGenerator.confirmCandidates(
-            CandidateInvariantCombination.getConjunctiveParts(candidate));
+      CandidateCheck check = checkCandidate(worker, candidate, candidateGenerator, k, checkedKeys);
+      if (check.proven) {
         if (candidate == TargetLocationCandidateInvariant.INSTANCE) {
           sound = true;
           break;
         }
       } else {
         sound = false;
+        addCtiBlockingClauses(candidate, check.lastResult, pCtiBlockingClauses);
+      }
+    }
+    return sound;
+  }
 
-        if (candidate instanceof Obligation) {
-          Obligation obligation = (Obligation) candidate;
-          List<SymbolicCandiateInvariant> weakenings = obligation.getWeakenings();
-          for (SymbolicCandiateInvariant weakening : weakenings) {
-            inductionResult =
-                kInductionProver.check(
-                    Iterables.concat(confirmedCandidates, Collections.singleton(weakening)),
-                    k,
-                    weakening,
-                    checkedKeys,
-                    InvariantStrengthenings.noStrengthening(),
-                    lifting);
-            if (inductionResult.isSuccessful()) {
-              Iterables.addAll(
-                  confirmedCandidates,
-                  CandidateInvariantCombination.getConjunctiveParts(weakening));
-              candidateGenerator.confirmCandidates(
-                  CandidateInvariantCombination.getConjunctiveParts(weakening));
-              break;
-            }
-          }
-        }
+  /**
+   * Check the candidates with all workers in parallel. Each worker takes the next unchecked
+   * candidate, and candidates that are proven are immediately available as assumptions for the
+   * checks of all workers. The results are merged in the order of the candidates.
+   */
+  private boolean checkStepCaseInParallel(
+      final List<CandidateInvariant> pCandidates,
+      final CandidateGenerator pCandidateGenerator,
+      List<InductionWorker> pInductionWorkers,
+      final int pK,
+      final Set<Object> pCheckedKeys,
+      Set<Obligation> pCtiBlockingClauses)
+      throws InterruptedException, CPAException, SolverException {
 
-        if (!inductionResult.isSuccessful() && extractCtiBlockingClauses) {
-          FluentIterable<? extends CandidateInvariant> causes =
-              from(CandidateInvariantCombination.getConjunctiveParts(candidate));
-          if (causes.anyMatch(Obligation.class::isInstance)) {
-            causes = causes.filter(Obligation.class);
-          }
-          if (!causes.isEmpty()) {
-            for (SymbolicCandiateInvariant badStateBlockingClause :
-                inductionResult.getBadStateBlockingClauses()) {
-              pCtiBlockingClauses.add(
-                  new Obligation(causes.iterator().next(), badStateBlockingClause));
-            }
+    final AtomicInteger nextCandidate = new AtomicInteger();
+    final AtomicBoolean targetProven = new AtomicBoolean();
+    final AtomicBoolean stop = new AtomicBoolean();
+    final AtomicReferenceArray<CandidateCheck> checks =
+        new AtomicReferenceArray<>(pCandidates.size());
+
+    stats.parallelInductionCheck.start();
+    ExecutorService pool =
+        Executors.newFixedThreadPool(
+            pInductionWorkers.size(),
+            new ThreadFactoryBuilder()
+                .setNameFormat("KInduction-worker-%d")
+                .setDaemon(true)
+                .build());
+    try {
+      List<Future<Void>> futures = new ArrayList<>(pInductionWorkers.size());
+      for (InductionWorker worker : pInductionWorkers) {
+        futures.add(
+            pool.submit(
+                () -> {
+                  int i;
+                  while (!stop.get() && (i = nextCandidate.getAndIncrement()) < checks.length()) {
+                    shutdownNotifier.shutdownIfNecessary();
+                    CandidateInvariant candidate = pCandidates.get(i);
+                    CandidateCheck check =
+                        checkCandidate(worker, candidate, pCandidateGenerator, pK, pCheckedKeys);
+                    checks.set(i, check);
+                    if (check.proven && candidate == TargetLocationCandidateInvariant.INSTANCE) {
+                      targetProven.set(true);
+                      stop.set(true);
+                    }
+                  }
+                  return null;
+                }));
+      }
+
+      // wait for all workers, because the provers must not be closed while they are in use
+      Throwable failure = null;
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          stop.set(true);
+          if (failure == null) {
+            failure = e.getCause();
           }
         }
       }
+      if (failure != null) {
+        Throwables.propagateIfPossible(failure, CPAException.class, SolverException.class);
+        Throwables.propagateIfPossible(failure, InterruptedException.class);
+        throw new AssertionError(failure);
+      }
+    } finally {
+      stop.set(true);
+      pool.shutdownNow();
+      stats.parallelInductionCheck.stop();
+    }
+
+    if (targetProven.get()) {
+      return true;
+    }
+    boolean sound = true;
+    for (int i = 0; i < checks.length(); i++) {
+      CandidateCheck check = checks.get(i);
+      if (!check.proven) {
+        sound = false;
+        addCtiBlockingClauses(pCandidates.get(i), check.lastResult, pCtiBlockingClauses);
+      }
     }
     return sound;
   }
 
+  /**
+   * Check a candidate invariant by induction and, if this fails for an obligation, its
+   * weakenings. The first of them that is proven is confirmed.
+   */
+  private CandidateCheck checkCandidate(
+      InductionWorker pWorker,
+      CandidateInvariant pCandidate,
+      CandidateGenerator pCandidateGenerator,
+      int pK,
+      Set<Object> pCheckedKeys)
+      throws CPAException, InterruptedException, SolverException {
+
+    Lifting lifting =
+        usePropertyDirection
+            ? new AbstractionBasedLifting(
+                pWorker.abstractionStrategy,
+                AbstractionBasedLifting.RefinementLAFStrategies.EAGER)
+            : StandardLiftings.NO_LIFTING;
+
+    InductionResult<CandidateInvariant> inductionResult =
+        pWorker.prover.check(
+            Iterables.concat(confirmedCandidates, Collections.singleton(pCandidate)),
+            pK,
+            pCandidate,
+            pCheckedKeys,
+            InvariantStrengthenings.noStrengthening(),
+            lifting);
+    if (inductionResult.isSuccessful()) {
+      confirmCandidate(pCandidate, pCandidateGenerator);
+      return new CandidateCheck(true, inductionResult);
+    }
+
+    if (pCandidate instanceof Obligation) {
+      Obligation obligation = (Obligation) pCandidate;
+      List<SymbolicCandiateInvariant> weakenings = obligation.getWeakenings();
+      for (SymbolicCandiateInvariant weakening : weakenings) {
+        inductionResult =
+            pWorker.prover.check(
+                Iterables.concat(confirmedCandidates, Collections.singleton(weakening)),
+                pK,
+                weakening,
+                pCheckedKeys,
+                InvariantStrengthenings.noStrengthening(),
+                lifting);
+        if (inductionResult.isSuccessful()) {
+          confirmCandidate(weakening, pCandidateGenerator);
+          break;
+        }
+      }
+    }
+    return new CandidateCheck(false, inductionResult);
+  }
+
+  private void confirmCandidate(
+      CandidateInvariant pCandidate, CandidateGenerator pCandidateGenerator) {
+    Iterables.addAll(
+        confirmedCandidates, CandidateInvariantCombination.getConjunctiveParts(pCandidate));
+    // the candidate generator is shared by all workers of a parallel induction check
+    synchronized (pCandidateGenerator) {
+      pCandidateGenerator.confirmCandidates(
+          CandidateInvariantCombination.getConjunctiveParts(pCandidate));
+    }
+  }
+
+  private void addCtiBlockingClauses(
+      CandidateInvariant pCandidate,
+      InductionResult<CandidateInvariant> pInductionResult,
+      Set<Obligation> pCtiBlockingClauses) {
+    if (!pInductionResult.isSuccessful() && usePropertyDirection) {
+      FluentIterable<? extends CandidateInvariant> causes =
+          from(CandidateInvariantCombination.getConjunctiveParts(pCandidate));
+      if (causes.anyMatch(Obligation.class::isInstance)) {
+        causes = causes.filter(Obligation.class);
+      }
+      if (!causes.isEmpty()) {
+        for (SymbolicCandiateInvariant badStateBlockingClause :
+            pInductionResult.getBadStateBlockingClauses()) {
+          pCtiBlockingClauses.add(new Obligation(causes.iterator().next(), badStateBlockingClause));
+        }
+      }
+    }
+  }
+
+  /** The result of checking a candidate invariant with {@link #checkCandidate}. */
+  private static final class CandidateCheck {
+
+    /** Whether the candidate itself (and not only a weakening of it) was proven. */
+    private final boolean proven;
+
+    /** The result of the last check, i.e., for the candidate or its last checked weakening. */
+    private final InductionResult<CandidateInvariant> lastResult;
+
+    private CandidateCheck(boolean pProven, InductionResult<CandidateInvariant> pLastResult) {
+      proven = pProven;
+      lastResult = pLastResult;
+    }
+  }
+
+  /**
+   * A k-induction prover with the abstraction strategy that is used for lifting its
+   * counterexamples to induction. Each worker uses its own solver context.
+   */
+  private static final class InductionWorker {
+
+    private final KInductionProver prover;
+    private final AbstractionStrategy abstractionStrategy;
+
+    private InductionWorker(KInductionProver pProver, AbstractionStrategy pAbstractionStrategy) {
+      prover = checkNotNull(pProver);
+      abstractionStrategy = checkNotNull(pAbstractionStrategy);
+    }
+  }
+
   /**
    * Gets all keys of loop-iteration reporting states that were reached by unrolling.
    *
@@ -781,6 +999,15 @@ abstract class AbstractBMCAlgorithm
     if (invariantGenerator instanceof StatisticsProvider) {
       ((StatisticsProvider)invariantGenerator).collectStatistics(pStatsCollection);
     }
+    if (!additionalStepCaseCPAs.isEmpty()) {
+      // with parallel induction checks, show how the work was distributed over the step cases
+      for (ConfigurableProgramAnalysis stepCase :
+          FluentIterable.of(stepCaseCPA).append(additionalStepCaseCPAs)) {
+        if (stepCase instanceof StatisticsProvider) {
+          ((StatisticsProvider) stepCase).collectStatistics(pStatsCollection);
+        }
+      }
+    }
   }
 
   protected @Nullable KInductionProver createInductionProver() {
@@ -799,6 +1026,20 @@ abstract class AbstractBMCAlgorithm
         : null;
   }
 
+  private KInductionProver createAdditionalInductionProver(int pIndex) {
+    return new KInductionProver(
+        cfa,
+        logger,
+        additionalStepCaseAlgorithms.get(pIndex),
+        additionalStepCaseCPAs.get(pIndex),
+        invariantGenerator,
+        stats,
+        reachedSetFactory,
+        shutdownNotifier,
+        getLoopHeads(),
+        usePropertyDirection);
+  }
+
   /**
    * Gets the potential target locations.
    *
@@ -28,6 +28,7 @@ import org.sosy_lab.common.time.Timer;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
 
 public class BMCStatistics implements Statistics {
 
@@ -36,8 +37,12 @@ public class BMCStatistics implements Statistics {
   final Timer errorPathCreation = new Timer();
   final Timer assertionsCheck = new Timer();
 
-  final Timer inductionPreparation = new Timer();
-  final Timer inductionCheck = new Timer();
+  // shared by the induction provers of all threads
+  final ThreadSafeTimerContainer inductionPreparation =
+      new ThreadSafeTimerContainer("Time for induction formula creation");
+  final ThreadSafeTimerContainer inductionCheck =
+      new ThreadSafeTimerContainer("Time for induction check");
+  final Timer parallelInductionCheck = new Timer();
 
   @Override
   public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
@@ -57,6 +62,9 @@ public class BMCStatistics implements Statistics {
       out.println("Time for induction formula creation: " + inductionPreparation);
       out.println("Time for induction check:            " + inductionCheck);
     }
+    if (parallelInductionCheck.getNumberOfIntervals() > 0) {
+      out.println("Time for parallel induction checks:  " + parallelInductionCheck);
+    }
   }
 
   @Override
@@ -100,6 +100,7 @@ import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
 import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.FunctionDeclaration;
@@ -135,7 +136,9 @@ class KInductionProver implements AutoCloseable {
 
   private final PredicateAbstractionManager pam;
 
-  private final BMCStatistics stats;
+  private final TimerWrapper inductionPreparationTimer;
+
+  private final TimerWrapper inductionCheckTimer;
 
   private final ReachedSetFactory reachedSetFactory;
 
@@ -172,7 +175,8 @@ class KInductionProver implements AutoCloseable {
     algorithm = checkNotNull(pAlgorithm);
     cpa = checkNotNull(pCPA);
     invariantGenerator  = checkNotNull(pInvariantGenerator);
-    stats = checkNotNull(pStats);
+    inductionPreparationTimer = pStats.inductionPreparation.getNewTimer();
+    inductionCheckTimer = pStats.inductionCheck.getNewTimer();
     reachedSetFactory = checkNotNull(pReachedSetFactory);
     shutdownNotifier = checkNotNull(pShutdownNotifier);
     reachedSet =
@@ -351,7 +355,7 @@ class KInductionProver implements AutoCloseable {
           Lifting pLifting)
           throws CPAException, InterruptedException, SolverException {
 
-    stats.inductionPreparation.start();
+    inductionPreparationTimer.start();
 
     // Proving program safety with induction consists of two parts:
     // 1) Prove all paths safe that go only one iteration through the loop.
@@ -419,7 +423,7 @@ class KInductionProver implements AutoCloseable {
 
     BooleanFormula loopHeadInv = inductiveLoopHeadInvariantAssertion(loopHeadStates);
     this.previousK = pK + 1;
-    stats.inductionPreparation.stop();
+    inductionPreparationTimer.stop();
 
     // Attempt the induction proofs
     shutdownNotifier.shutdownIfNecessary();
@@ -446,7 +450,7 @@ class KInductionProver implements AutoCloseable {
 
     logger.log(Level.INFO, "Starting induction check...");
 
-    stats.inductionCheck.start();
+    inductionCheckTimer.start();
 
     // Try to prove the invariance of the assertion
     Object successorExistsAssertionId = prover.push(successorExistsAssertion);
@@ -582,7 +586,7 @@ class KInductionProver implements AutoCloseable {
     prover.pop(); // Pop invariant predecessor assertion
     prover.pop(); // Pop end states
 
-    stats.inductionCheck.stop();
+    inductionCheckTimer.stop();
 
     logger.log(Level.FINER, "Soundness after induction check:", result.isSuccessful());
 
@@ -0,0 +1,81 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.bmc;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.cpachecker.util.test.CPATestRunner;
+import org.sosy_lab.cpachecker.util.test.TestDataTools;
+import org.sosy_lab.cpachecker.util.test.TestResults;
+
+/** Tests for checking candidate invariants by induction with several threads. */
+public class ParallelInductionTest {
+
+  private static final String CONFIG_FILE = "config/components/kInduction/kInduction.properties";
+
+  private static final String PROGRAM = "test/programs/induction/induction2.c";
+
+  private static Configuration getConfig(int pInductionThreads) throws Exception {
+    return TestDataTools.configurationForTest()
+        .loadFromFile(CONFIG_FILE)
+        .setOption("specification", "config/specification/default.spc")
+        .setOption("solver.solver", "SMTInterpol")
+        .setOption("cpa.predicate.encodeBitvectorAs", "INTEGER")
+        .setOption("bmc.inductionThreads", Integer.toString(pInductionThreads))
+        .build();
+  }
+
+  private static String getStatistics(TestResults pResults)
+      throws UnsupportedEncodingException {
+    ByteArrayOutputStream statistics = new ByteArrayOutputStream();
+    pResults
+        .getCheckerResult()
+        .printStatistics(new PrintStream(statistics, true, StandardCharsets.UTF_8.name()));
+    return statistics.toString(StandardCharsets.UTF_8.name());
+  }
+
+  @Test(timeout = 90000)
+  public void testSequentialInduction() throws Exception {
+    TestResults results = CPATestRunner.run(getConfig(1), PROGRAM);
+    results.assertIsSafe();
+    assertThat(getStatistics(results)).doesNotContain("Time for parallel induction checks");
+  }
+
+  @Test(timeout = 90000)
+  public void testParallelInduction() throws Exception {
+    TestResults results = CPATestRunner.run(getConfig(2), PROGRAM);
+    results.assertIsSafe();
+
+    String statistics = getStatistics(results);
+    assertThat(statistics).contains("Time for parallel induction checks");
+    // the induction provers of all threads contribute to the shared statistics
+    assertThat(statistics).contains("Time for induction check");
+  }
+}
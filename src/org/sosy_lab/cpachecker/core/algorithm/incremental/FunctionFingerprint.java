@@ -0,0 +1,148 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.incremental;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Ints;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CLabelNode;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+
+/**
+ * A fingerprint of the CFA of a single function that allows to detect whether a function was
+ * changed between two versions of a program, and to map the nodes of an unchanged function from
+ * one version to the other.
+ *
+ * <p>The fingerprint is a hash over the structure and the code of all edges of the function, but
+ * does not include node numbers and source-code locations, such that it stays the same if only
+ * other functions are changed. Calls to other functions are represented by the summary edges,
+ * i.e., the fingerprint does not depend on the callees.
+ */
+final class FunctionFingerprint implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String functionName;
+  private final String hash;
+
+  /** the node numbers of all nodes of the function in a canonical order */
+  private final int[] nodeNumbers;
+
+  /** the nodes of the function in the canonical order, only available for the current CFA */
+  private final transient ImmutableList<CFANode> nodes;
+
+  private FunctionFingerprint(String pFunctionName, String pHash, ImmutableList<CFANode> pNodes) {
+    functionName = pFunctionName;
+    hash = pHash;
+    nodes = pNodes;
+    nodeNumbers = pNodes.stream().mapToInt(CFANode::getNodeNumber).toArray();
+  }
+
+  static FunctionFingerprint of(FunctionEntryNode pEntry) {
+    String function = pEntry.getFunctionName();
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(pEntry.getFunctionDefinition().toASTString(), UTF_8);
+
+    // Breadth-first traversal, nodes are numbered in the order of their discovery.
+    Map<CFANode, Integer> indices = new HashMap<>();
+    ImmutableList.Builder<CFANode> nodes = ImmutableList.builder();
+    Queue<CFANode> waitlist = new ArrayDeque<>();
+    indices.put(pEntry, 0);
+    nodes.add(pEntry);
+    waitlist.add(pEntry);
+
+    while (!waitlist.isEmpty()) {
+      CFANode node = waitlist.poll();
+      hasher.putChar('\n').putString(node.getClass().getSimpleName(), UTF_8);
+      hasher.putBoolean(node.isLoopStart());
+      if (node instanceof CLabelNode) {
+        hasher.putString(((CLabelNode) node).getLabel(), UTF_8);
+      }
+
+      for (CFAEdge edge : CFAUtils.allLeavingEdges(node)) {
+        CFANode successor = edge.getSuccessor();
+        if (!successor.getFunctionName().equals(function)) {
+          // function call or return, handled by the summary edge
+          continue;
+        }
+        Integer index = indices.get(successor);
+        if (index == null) {
+          index = indices.size();
+          indices.put(successor, index);
+          nodes.add(successor);
+          waitlist.add(successor);
+        }
+        hasher.putChar(' ').putInt(index);
+        hasher.putString(edge.getEdgeType().name(), UTF_8).putString(edge.getCode(), UTF_8);
+      }
+    }
+
+    return new FunctionFingerprint(function, hasher.hash().toString(), nodes.build());
+  }
+
+  String getFunctionName() {
+    return functionName;
+  }
+
+  /** Whether the given fingerprint represents the same function (in a potentially other CFA). */
+  boolean matches(FunctionFingerprint pOther) {
+    return functionName.equals(pOther.functionName)
+        && hash.equals(pOther.hash)
+        && nodeNumbers.length == pOther.nodeNumbers.length;
+  }
+
+  /**
+   * Compute the mapping from the node numbers of this fingerprint to the nodes of a matching
+   * fingerprint of the current CFA.
+   */
+  void mapNodesTo(FunctionFingerprint pCurrent, Map<Integer, CFANode> pMapping) {
+    checkNotNull(pCurrent.nodes, "fingerprint does not belong to the current CFA");
+    for (int i = 0; i < nodeNumbers.length; i++) {
+      pMapping.put(nodeNumbers[i], pCurrent.nodes.get(i));
+    }
+  }
+
+  /** Return the node numbers of all nodes of the function in the CFA of this fingerprint. */
+  List<Integer> getNodeNumbers() {
+    return ImmutableList.copyOf(Ints.asList(nodeNumbers));
+  }
+
+  @Override
+  public String toString() {
+    return functionName + " (" + hash + ")";
+  }
+}
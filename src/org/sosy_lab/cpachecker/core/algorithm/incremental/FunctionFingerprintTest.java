@@ -0,0 +1,152 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.incremental;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.CFACreationUtils;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.ast.c.CExpressionStatement;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionDeclaration;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIntegerLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionExitNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CFunctionEntryNode;
+import org.sosy_lab.cpachecker.cfa.model.c.CStatementEdge;
+import org.sosy_lab.cpachecker.cfa.types.c.CFunctionType;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+
+public class FunctionFingerprintTest {
+
+  /**
+   * Create a function with a branching CFA whose edges contain the given constants as statements.
+   *
+   * @param pLine the line at which the function starts
+   * @param pNodes a list to which the nodes of the function are added
+   */
+  private static FunctionEntryNode createFunction(int pLine, List<CFANode> pNodes, int... pCode) {
+    FunctionExitNode exit = new FunctionExitNode("f");
+    FunctionEntryNode entry =
+        new CFunctionEntryNode(
+            location(pLine),
+            new CFunctionDeclaration(
+                location(pLine),
+                CFunctionType.functionTypeWithReturnType(CNumericTypes.INT),
+                "f",
+                Collections.emptyList()),
+            exit,
+            com.google.common.base.Optional.absent());
+    CFANode n1 = new CFANode("f");
+    CFANode n2 = new CFANode("f");
+    pNodes.addAll(ImmutableList.of(entry, n1, n2, exit));
+
+    addStatementEdge(pLine + 1, entry, n1, pCode[0]);
+    addStatementEdge(pLine + 2, n1, n2, pCode[1]);
+    addStatementEdge(pLine + 3, n1, exit, pCode[2]);
+    addStatementEdge(pLine + 4, n2, exit, pCode[3]);
+    return entry;
+  }
+
+  private static void addStatementEdge(int pLine, CFANode pFrom, CFANode pTo, int pCode) {
+    CExpressionStatement statement =
+        new CExpressionStatement(
+            location(pLine),
+            new CIntegerLiteralExpression(
+                location(pLine), CNumericTypes.INT, BigInteger.valueOf(pCode)));
+    CFACreationUtils.addEdgeUnconditionallyToCFA(
+        new CStatementEdge(pCode + ";", statement, location(pLine), pFrom, pTo));
+  }
+
+  private static FileLocation location(int pLine) {
+    return new FileLocation("test.c", pLine * 10, 5, pLine, pLine);
+  }
+
+  @Test
+  public void testUnchangedFunctionMatches() {
+    List<CFANode> oldNodes = new ArrayList<>();
+    List<CFANode> newNodes = new ArrayList<>();
+    FunctionFingerprint oldFingerprint =
+        FunctionFingerprint.of(createFunction(1, oldNodes, 1, 2, 3, 4));
+    // same code at a different location in the file, with different node numbers
+    FunctionFingerprint newFingerprint =
+        FunctionFingerprint.of(createFunction(42, newNodes, 1, 2, 3, 4));
+
+    assertThat(oldFingerprint.matches(newFingerprint)).isTrue();
+
+    Map<Integer, CFANode> mapping = new HashMap<>();
+    oldFingerprint.mapNodesTo(newFingerprint, mapping);
+    assertThat(mapping).hasSize(oldNodes.size());
+    for (int i = 0; i < oldNodes.size(); i++) {
+      assertThat(mapping.get(oldNodes.get(i).getNodeNumber())).isSameAs(newNodes.get(i));
+    }
+  }
+
+  @Test
+  public void testChangedFunctionDoesNotMatch() {
+    List<CFANode> nodes = new ArrayList<>();
+    FunctionFingerprint original = FunctionFingerprint.of(createFunction(1, nodes, 1, 2, 3, 4));
+
+    assertThat(original.matches(FunctionFingerprint.of(createFunction(1, nodes, 1, 2, 5, 4))))
+        .isFalse();
+    // swapped branches
+    assertThat(original.matches(FunctionFingerprint.of(createFunction(1, nodes, 1, 3, 2, 4))))
+        .isFalse();
+  }
+
+  @Test
+  public void testSerialization() throws Exception {
+    List<CFANode> oldNodes = new ArrayList<>();
+    FunctionFingerprint original = FunctionFingerprint.of(createFunction(1, oldNodes, 1, 2, 3, 4));
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(original);
+    }
+    FunctionFingerprint read;
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      read = (FunctionFingerprint) in.readObject();
+    }
+
+    List<CFANode> newNodes = new ArrayList<>();
+    FunctionFingerprint current = FunctionFingerprint.of(createFunction(7, newNodes, 1, 2, 3, 4));
+    assertThat(read.matches(current)).isTrue();
+    assertThat(read.getNodeNumbers())
+        .containsExactlyElementsIn(oldNodes.stream().map(CFANode::getNodeNumber).toArray())
+        .inOrder();
+  }
+}
@@ -0,0 +1,372 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.incremental;
+
+import static com.google.common.collect.FluentIterable.from;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.algorithm.Algorithm;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGCPA;
+import org.sosy_lab.cpachecker.cpa.arg.ARGReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.CPAs;
+import org.sosy_lab.cpachecker.util.globalinfo.CFAInfo;
+import org.sosy_lab.cpachecker.util.globalinfo.GlobalInfo;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * Algorithm for incremental verification of a changed program.
+ *
+ * <p>After a successful analysis, the ARG is stored together with a fingerprint of each function
+ * of the program (cf. {@link FunctionFingerprint}). If the ARG of a previous run is given, the
+ * CFA of the current program is compared against the stored fingerprints, the ARG is loaded with
+ * all CFA nodes of unchanged functions mapped to the nodes of the current CFA, and all subtrees
+ * of the ARG that start in a changed function are removed. The wrapped algorithm then continues
+ * the analysis from the resulting frontier, such that only the changed parts of the program need
+ * to be re-explored.
+ *
+ * <p>Like for proof-carrying code, all abstract states of the analysis need to be serializable,
+ * and the previous run needs to use the same configuration.
+ */
+@Options(prefix = "analysis.incremental")
+public class IncrementalAlgorithm implements Algorithm, StatisticsProvider {
+
+  private static final int FORMAT_VERSION = 1;
+
+  @Option(
+      secure = true,
+      description =
+          "File with the ARG of a previous analysis of an older version of the program"
+              + " that should be reused. If not given or not present, the analysis starts"
+              + " from scratch.")
+  @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
+  private @Nullable Path previousResult = null;
+
+  @Option(
+      secure = true,
+      description =
+          "File where the ARG is stored after a successful analysis"
+              + " for reusing it in the analysis of later versions of the program.")
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private @Nullable Path result = Paths.get("IncrementalARG.obj.gz");
+
+  private static class IncrementalStatistics implements Statistics {
+
+    private final StatTimer loadTimer = new StatTimer("Time for loading previous ARG");
+    private final StatTimer invalidationTimer = new StatTimer("Time for removing changed parts");
+    private final StatTimer writeTimer = new StatTimer("Time for writing ARG");
+    private final StatCounter unchangedFunctions = new StatCounter("Unchanged functions");
+    private final StatCounter changedFunctions = new StatCounter("Changed or removed functions");
+    private final StatInt loadedStates = new StatInt(StatKind.SUM, "Loaded states");
+    private final StatInt reusedStates = new StatInt(StatKind.SUM, "Reused states");
+    private final StatInt frontierStates = new StatInt(StatKind.SUM, "States to re-explore from");
+
+    @Override
+    public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+      StatisticsWriter.writingStatisticsTo(pOut)
+          .put(unchangedFunctions)
+          .put(changedFunctions)
+          .put(loadedStates)
+          .put(reusedStates)
+          .put(frontierStates)
+          .put(loadTimer)
+          .put(invalidationTimer)
+          .put(writeTimer);
+    }
+
+    @Override
+    public String getName() {
+      return "Incremental Analysis";
+    }
+  }
+
+  private final Algorithm algorithm;
+  private final CFA cfa;
+  private final LogManager logger;
+  private final IncrementalStatistics stats = new IncrementalStatistics();
+
+  private boolean previousResultProcessed = false;
+
+  public IncrementalAlgorithm(
+      Algorithm pAlgorithm,
+      ConfigurableProgramAnalysis pCpa,
+      CFA pCfa,
+      Configuration pConfig,
+      LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    CPAs.retrieveCPAOrFail(pCpa, ARGCPA.class, IncrementalAlgorithm.class);
+    algorithm = pAlgorithm;
+    cfa = pCfa;
+    logger = pLogger;
+  }
+
+  @Override
+  public AlgorithmStatus run(ReachedSet pReached) throws CPAException, InterruptedException {
+    if (!previousResultProcessed) {
+      // only the first call starts with a fresh reached set
+      previousResultProcessed = true;
+      if (previousResult != null && Files.exists(previousResult)) {
+        reusePreviousResult(pReached);
+      }
+    }
+
+    AlgorithmStatus status = algorithm.run(pReached);
+
+    if (result != null
+        && status.isSound()
+        && !pReached.hasWaitingState()
+        && !from(pReached).anyMatch(AbstractStates.IS_TARGET_STATE)) {
+      writeResult(pReached);
+    }
+    return status;
+  }
+
+  private Map<String, FunctionFingerprint> computeFingerprints() {
+    Map<String, FunctionFingerprint> fingerprints = new HashMap<>();
+    for (FunctionEntryNode entry : cfa.getAllFunctionHeads()) {
+      fingerprints.put(entry.getFunctionName(), FunctionFingerprint.of(entry));
+    }
+    return fingerprints;
+  }
+
+  private void writeResult(UnmodifiableReachedSet pReached) {
+    stats.writeTimer.start();
+    try (OutputStream out = Files.newOutputStream(result);
+        ObjectOutputStream o = new ObjectOutputStream(new GZIPOutputStream(out))) {
+      o.writeInt(FORMAT_VERSION);
+      o.writeObject(new ArrayList<>(computeFingerprints().values()));
+      o.writeObject(pReached.getFirstState());
+    } catch (NotSerializableException e) {
+      logger.logUserException(
+          Level.WARNING, e, "ARG cannot be stored for incremental analysis, not serializable");
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Could not write ARG for incremental analysis");
+    } finally {
+      stats.writeTimer.stop();
+    }
+  }
+
+  /**
+   * Load the ARG of the previous run, remove all parts that belong to changed functions, and
+   * replace the content of the reached set with the remaining ARG.
+   */
+  private void reusePreviousResult(ReachedSet pReached) throws InterruptedException {
+    Set<CFANode> obsoleteNodes = new HashSet<>();
+    ARGState root;
+
+    stats.loadTimer.start();
+    try {
+      root = loadPreviousARG(obsoleteNodes);
+    } finally {
+      stats.loadTimer.stop();
+    }
+    if (root == null) {
+      return;
+    }
+
+    AbstractState initialState = pReached.getFirstState();
+    CFANode rootLocation = AbstractStates.extractLocation(root);
+    if (rootLocation == null
+        || obsoleteNodes.contains(rootLocation)
+        || !rootLocation.equals(AbstractStates.extractLocation(initialState))) {
+      logger.log(Level.INFO, "Entry function changed, previous ARG cannot be reused.");
+      return;
+    }
+
+    stats.invalidationTimer.start();
+    try {
+      // The precisions are not stored, so we start with the initial precision.
+      Precision precision = pReached.getPrecision(initialState);
+      List<ARGState> states = collectStates(root);
+      pReached.clear();
+      for (ARGState state : states) {
+        if (!state.isCovered()) {
+          pReached.add(state, precision);
+          if (state.wasExpanded()) {
+            pReached.removeOnlyFromWaitlist(state);
+          }
+        }
+      }
+      stats.loadedStates.setNextValue(pReached.size());
+
+      ARGReachedSet argReached = new ARGReachedSet(pReached);
+      for (ARGState state : states) {
+        if (!state.isDestroyed() && obsoleteNodes.contains(AbstractStates.extractLocation(state))) {
+          argReached.removeSubtree(state);
+        }
+      }
+      stats.reusedStates.setNextValue(pReached.size());
+      stats.frontierStates.setNextValue(pReached.getWaitlist().size());
+    } finally {
+      stats.invalidationTimer.stop();
+    }
+
+    logger.log(
+        Level.INFO,
+        "Reusing",
+        pReached.size(),
+        "states of previous ARG,",
+        pReached.getWaitlist().size(),
+        "states need to be re-explored.");
+  }
+
+  /** Return all states of the ARG in breadth-first order. */
+  private static List<ARGState> collectStates(ARGState pRoot) {
+    Set<ARGState> visited = new LinkedHashSet<>();
+    Deque<ARGState> waitlist = new ArrayDeque<>();
+    visited.add(pRoot);
+    waitlist.add(pRoot);
+    while (!waitlist.isEmpty()) {
+      for (ARGState child : waitlist.poll().getChildren()) {
+        if (visited.add(child)) {
+          waitlist.add(child);
+        }
+      }
+    }
+    return new ArrayList<>(visited);
+  }
+
+  /**
+   * Load the ARG of the previous run.
+   *
+   * @param pObsoleteNodes a set to which all CFA nodes created for locations in changed functions
+   *     are added
+   * @return the root of the ARG or null if it cannot be loaded
+   */
+  private @Nullable ARGState loadPreviousARG(Set<CFANode> pObsoleteNodes) {
+    GlobalInfo globalInfo = GlobalInfo.getInstance();
+    CFAInfo cfaInfo = globalInfo.getCFAInfo().orElse(null);
+    if (cfaInfo == null) {
+      logger.log(Level.WARNING, "No CFA available, previous ARG cannot be reused.");
+      return null;
+    }
+
+    try (InputStream in = Files.newInputStream(previousResult);
+        ObjectInputStream o = new ObjectInputStream(new GZIPInputStream(in))) {
+      if (o.readInt() != FORMAT_VERSION) {
+        logger.log(Level.WARNING, "Previous ARG has an unsupported format and cannot be reused.");
+        return null;
+      }
+
+      @SuppressWarnings("unchecked")
+      Collection<FunctionFingerprint> previousFingerprints =
+          (Collection<FunctionFingerprint>) o.readObject();
+      Map<String, FunctionFingerprint> currentFingerprints = computeFingerprints();
+
+      // Nodes of changed functions are mapped to fresh nodes that are not part of the CFA.
+      Map<Integer, CFANode> nodeMapping = new HashMap<>();
+      for (FunctionFingerprint previous : previousFingerprints) {
+        FunctionFingerprint current = currentFingerprints.get(previous.getFunctionName());
+        if (current != null && previous.matches(current)) {
+          stats.unchangedFunctions.inc();
+          previous.mapNodesTo(current, nodeMapping);
+        } else {
+          stats.changedFunctions.inc();
+          logger.log(Level.FINE, "Function", previous.getFunctionName(), "has changed");
+          for (int nodeNumber : previous.getNodeNumbers()) {
+            CFANode obsolete = new CFANode(previous.getFunctionName());
+            pObsoleteNodes.add(obsolete);
+            nodeMapping.put(nodeNumber, obsolete);
+          }
+        }
+      }
+
+      globalInfo.storeCFAInfo(
+          cfaInfo.withNodeNumberMapping(
+              nodeNumber ->
+                  nodeMapping.computeIfAbsent(
+                      nodeNumber,
+                      n -> {
+                        CFANode unknown = new CFANode("__unknown_function");
+                        pObsoleteNodes.add(unknown);
+                        return unknown;
+                      })));
+      try {
+        return (ARGState) o.readObject();
+      } finally {
+        globalInfo.storeCFAInfo(cfaInfo);
+      }
+
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      logger.logUserException(
+          Level.WARNING, e, "Could not load previous ARG, analyzing program from scratch");
+      return null;
+    }
+  }
+
+  @Override
+  public void collectStatistics(Collection<Statistics> pStatsCollection) {
+    if (algorithm instanceof StatisticsProvider) {
+      ((StatisticsProvider) algorithm).collectStatistics(pStatsCollection);
+    }
+    pStatsCollection.add(stats);
+  }
+}
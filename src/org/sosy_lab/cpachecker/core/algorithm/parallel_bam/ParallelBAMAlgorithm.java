@@ -31,15 +31,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -58,6 +52,7 @@ import org.sosy_lab.common.log.LogManagerWithoutDuplicates;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.algorithm.Algorithm;
 import org.sosy_lab.cpachecker.core.algorithm.CPAAlgorithm.CPAAlgorithmFactory;
+import org.sosy_lab.cpachecker.core.algorithm.parallel_bam.ReachedSetExecutorScheduler.SchedulingStrategy;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
@@ -90,6 +85,24 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
   @FileOption(FileOption.Type.OUTPUT_FILE)
   private Path runningRSESeriesFile = Paths.get("RSESeries.csv");
 
+  @Option(
+    description =
+        "export the number of busy threads, idle threads, and ready RSE instances "
+            + "over time as CSV",
+    secure = true
+  )
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private Path threadUtilizationSeriesFile = Paths.get("ThreadUtilization.csv");
+
+  @Option(
+    description =
+        "order in which ready RSE instances are executed by the thread pool: "
+            + "FIFO in the order they become ready, DEEPEST_BLOCK_FIRST prefers nested blocks, "
+            + "MOST_WAITING_PARENTS prefers blocks whose results are needed by many parents",
+    secure = true
+  )
+  private SchedulingStrategy schedulingStrategy = SchedulingStrategy.DEEPEST_BLOCK_FIRST;
+
   private final ParallelBAMStatistics stats = new ParallelBAMStatistics();
   private final LogManager logger;
   private final LogManagerWithoutDuplicates oneTimeLogger;
@@ -129,7 +142,9 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
         new ConcurrentHashMap<>();
     final int numberOfCores = getNumberOfCores();
     oneTimeLogger.logfOnce(Level.INFO, "creating pool for %d threads", numberOfCores);
-    final ExecutorService pool = Executors.newFixedThreadPool(numberOfCores);
+    final ReachedSetExecutorScheduler scheduler =
+        new ReachedSetExecutorScheduler(
+            numberOfCores, schedulingStrategy, stats.threadUtilizationSeries, logger);
     final AtomicReference<Throwable> error = new AtomicReference<>(null);
     final AtomicBoolean terminateAnalysis = new AtomicBoolean(false);
 
@@ -145,8 +160,9 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
             mainReachedSet,
             bamcpa.getBlockPartitioning().getMainBlock(),
             true,
+            0,
             reachedSetMapping,
-            pool,
+            scheduler,
             algorithmFactory,
             shutdownNotifier,
             stats,
@@ -161,16 +177,16 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
     boolean isSound = true;
     try {
       // TODO set timelimit to global limit minus overhead?
-      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+      scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
 
     } finally {
-      if (!pool.isTerminated()) {
+      if (!scheduler.isTerminated()) {
         // in case of problems we must kill the thread pool,
         // otherwise we have a running daemon thread and CPAchecker does not terminate.
         logger.log(Level.WARNING, "threadpool did not terminate, killing threadpool now.");
         logger.log(Level.ALL, "remaining dependencies:\n", rse.getDependenciesAsDot());
         isSound = false;
-        pool.shutdownNow();
+        scheduler.shutdownNow();
       }
     }
 
@@ -204,8 +220,8 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
   }
 
   /**
-   * We check here whether an error occured in a CompletableFuture. We could also ignore this step,
-   * but that might be dangerous and error-prone.
+   * We check here whether an error occured in one of the RSEs and collect the results of all
+   * unfinished RSEs. We could also ignore this step, but that might be dangerous and error-prone.
    */
   private void collectExceptions(
       Map<ReachedSet, ReachedSetExecutor> pReachedSetMapping,
@@ -215,38 +231,25 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
 
     final AtomicBoolean mainRScontainsTarget = new AtomicBoolean(false);
     final AtomicBoolean otherRScontainsTarget = new AtomicBoolean(false);
-    final AtomicBoolean timeoutAlreadyLogged = new AtomicBoolean(false);
 
+    // the thread pool is terminated, thus no RSE is executed any more.
     pReachedSetMapping
         .entrySet()
         .parallelStream()
         .forEach(
             entry -> {
               ReachedSetExecutor rse = entry.getValue();
-              CompletableFuture<Void> job = rse.getWaitingTasks();
-              try {
-                job.get(5, TimeUnit.SECONDS);
-                stats.executionCounter.insertValue(entry.getValue().execCounter);
-                stats.unfinishedRSEcounter.inc();
-
-                if (rse.isTargetStateFound()) {
-                  if (entry.getKey() == mainReachedSet) {
-                    mainRScontainsTarget.set(true);
-                  } else {
-                    otherRScontainsTarget.set(true);
-                  }
-                }
-
-              } catch (RejectedExecutionException e) {
-                logger.log(Level.SEVERE, e);
-              } catch (InterruptedException | ExecutionException | TimeoutException e) {
-                boolean wasAlreadyLogged = timeoutAlreadyLogged.getAndSet(true);
-                if (!wasAlreadyLogged) {
-                  logger.log(Level.SEVERE, e);
-                  error.compareAndSet(null, e);
+              stats.executionCounter.insertValue(rse.execCounter);
+              stats.unfinishedRSEcounter.inc();
+
+              if (rse.isTargetStateFound()) {
+                if (entry.getKey() == mainReachedSet) {
+                  mainRScontainsTarget.set(true);
+                } else {
+                  otherRScontainsTarget.set(true);
                 }
               }
-              logger.log(Level.ALL, "finishing", rse, job.isCompletedExceptionally());
+              logger.log(Level.ALL, "finishing", rse, rse.hasWaitingTasks());
             });
 
     Throwable toThrow = error.get();
@@ -285,6 +288,10 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
 
     final StatisticsSeries<Integer> runningRSESeries =
         (runningRSESeriesFile == null) ? new NoopStatisticsSeries<>() : new StatisticsSeries<>();
+    final StatisticsSeries<String> threadUtilizationSeries =
+        (threadUtilizationSeriesFile == null)
+            ? new NoopStatisticsSeries<>()
+            : new StatisticsSeries<>();
 
     @Override
     public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
@@ -304,6 +311,15 @@ public class ParallelBAMAlgorithm implements Algorithm, StatisticsProvider {
           logger.logUserException(Level.WARNING, e, "Could not write data-series for RSEs to file");
         }
       }
+      if (threadUtilizationSeriesFile != null) {
+        try {
+          IO.writeFile(
+              threadUtilizationSeriesFile, Charset.defaultCharset(), threadUtilizationSeries);
+        } catch (IOException e) {
+          logger.logUserException(
+              Level.WARNING, e, "Could not write data-series for thread utilization to file");
+        }
+      }
     }
 
     @Override
@@ -41,15 +41,12 @@ import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Function;
 import java.util.logging.Level;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.log.LogManager;
@@ -69,6 +66,7 @@ import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
 import org.sosy_lab.cpachecker.exceptions.UnsupportedCodeException;
 import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
 /**
@@ -80,7 +78,6 @@ import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWra
 class ReachedSetExecutor {
 
   private static final Level level = Level.ALL;
-  private static final Runnable NOOP = () -> {};
 
   /** the working reached-set, single-threaded access. */
   private final ReachedSet rs;
@@ -97,10 +94,13 @@ class ReachedSetExecutor {
   /** main reached-set is used for checking termination of the algorithm. */
   private final boolean isMainReachedSet;
 
+  /** nesting depth of the block, the main reached-set has depth 0. */
+  private final int depth;
+
   /** important central data structure, shared over all threads, need to be synchronized. */
   private final ConcurrentMap<ReachedSet, ReachedSetExecutor> reachedSetMapping;
 
-  private final ExecutorService pool;
+  private final ReachedSetExecutorScheduler scheduler;
 
   private final BAMCPAWithBreakOnMissingBlock bamcpa;
   private final AlgorithmFactory algorithmFactory;
@@ -123,24 +123,29 @@ class ReachedSetExecutor {
   private final Set<AbstractState> dependsOn = new LinkedHashSet<>();
 
   /**
-   * This mapping contains all {@link ReachedSetExecutor}s (known as parents) that wait for the
+   * This queue contains all {@link ReachedSetExecutor}s (known as parents) that wait for the
    * current one. The abstract state is the non-reduced initial state of the parent reached-set, and
    * it must be re-added when the child terminates. The current reached-set has to be finished
-   * before parent reached-set. The state is unique, RSE is not. Synchronized access needed!
+   * before parent reached-set. The state is unique, RSE is not. Parents add themselves without
+   * locking, the current RSE removes them when it terminates.
    */
-  private final Multimap<ReachedSetExecutor, AbstractState> dependingFrom =
-      LinkedHashMultimap.create();
+  private final Queue<Pair<ReachedSetExecutor, AbstractState>> dependingFrom =
+      new ConcurrentLinkedQueue<>();
+
+  /** This queue contains the tasks to be executed with this RSE, one after another. */
+  private final Queue<Runnable> waitingTasks = new ConcurrentLinkedQueue<>();
 
-  /** This future contains the list of tasks to be executed with this RSE. */
-  private CompletableFuture<Void> waitingTask;
+  /** flag whether this RSE is queued in or executed by the scheduler. */
+  private final AtomicBoolean isScheduled = new AtomicBoolean(false);
 
   public ReachedSetExecutor(
       BAMCPAWithBreakOnMissingBlock pBamCpa,
       ReachedSet pRs,
       Block pBlock,
       boolean pIsMainReachedSet,
+      int pDepth,
       ConcurrentMap<ReachedSet, ReachedSetExecutor> pReachedSetMapping,
-      ExecutorService pPool,
+      ReachedSetExecutorScheduler pScheduler,
       AlgorithmFactory pAlgorithmFactory,
       ShutdownNotifier pShutdownNotifier,
       ParallelBAMStatistics pStats,
@@ -151,8 +156,9 @@ class ReachedSetExecutor {
     rs = pRs;
     block = pBlock;
     isMainReachedSet = pIsMainReachedSet;
+    depth = pDepth;
     reachedSetMapping = pReachedSetMapping;
-    pool = pPool;
+    scheduler = pScheduler;
     algorithmFactory = pAlgorithmFactory;
     shutdownNotifier = pShutdownNotifier;
     stats = pStats;
@@ -169,8 +175,6 @@ class ReachedSetExecutor {
     threadTimer = stats.threadTime.getNewTimer();
     addingStatesTimer = stats.addingStatesTime.getNewTimer();
     terminationCheckTimer = stats.terminationCheckTime.getNewTimer();
-
-    waitingTask = CompletableFuture.runAsync(NOOP, pool); // initialization
   }
 
   public Runnable asRunnable() {
@@ -183,13 +187,45 @@ class ReachedSetExecutor {
     return () -> apply(copy);
   }
 
-  synchronized void addNewTask(Runnable r) {
-    waitingTask = waitingTask.thenRunAsync(r, pool).exceptionally(new ExceptionHandler(this));
+  void addNewTask(Runnable r) {
+    waitingTasks.add(r);
+    if (isScheduled.compareAndSet(false, true)) {
+      scheduler.schedule(this);
+    }
   }
 
-  /** use only for debugging and exception handling */
-  CompletableFuture<Void> getWaitingTasks() {
-    return waitingTask;
+  /**
+   * Execute the next waiting task. This method is only called by the scheduler, which guarantees
+   * that at most one thread executes tasks of this RSE.
+   */
+  void executeNextTask() {
+    Runnable task = waitingTasks.poll();
+    if (task != null) {
+      task.run();
+    }
+    isScheduled.set(false);
+    // tasks might have been added after polling, when the RSE was still marked as scheduled.
+    if (!waitingTasks.isEmpty() && isScheduled.compareAndSet(false, true)) {
+      scheduler.schedule(this);
+    }
+  }
+
+  /** use only for debugging and statistics */
+  boolean hasWaitingTasks() {
+    return !waitingTasks.isEmpty();
+  }
+
+  int getDepth() {
+    return depth;
+  }
+
+  /** Return the number of parents waiting for this RSE, may be outdated in parallel context. */
+  int getNumberOfWaitingParents() {
+    return dependingFrom.size();
+  }
+
+  private Iterable<ReachedSetExecutor> getWaitingParents() {
+    return Collections2.transform(dependingFrom, Pair::getFirst);
   }
 
   /**
@@ -211,7 +247,7 @@ class ReachedSetExecutor {
 
       if (shutdownNotifier.shouldShutdown()) {
         terminateAnalysis.set(true);
-        pool.shutdownNow();
+        scheduler.shutdownNow();
         return;
       }
 
@@ -263,7 +299,7 @@ class ReachedSetExecutor {
       logger.logException(level, e, e.getClass().getName());
       terminateAnalysis.set(true);
       error.set(e);
-      pool.shutdownNow();
+      scheduler.shutdownNow();
     } finally {
       stats.numActiveThreads.decrementAndGet();
       threadTimer.stop();
@@ -338,7 +374,7 @@ class ReachedSetExecutor {
 
       if (isMainReachedSet) {
         logger.logf(level, "%s :: mainRS finished, shutdown threadpool", this);
-        pool.shutdown();
+        scheduler.shutdown();
       }
 
       // we never need to execute this RSE again,
@@ -392,15 +428,17 @@ class ReachedSetExecutor {
   }
 
   private void reAddStatesToDependingReachedSets() {
-    // first lock is only against deadlock of locks for 'reachedSetMapping' and 'dependingFrom'.
-    // TODO optimize lock/unlock behavior if performance is too bad
-    synchronized (dependingFrom) {
-      logger.logf(level, "%s :: %s -> %s", this, this, dependingFrom.keys());
-      for (Entry<ReachedSetExecutor, Collection<AbstractState>> parent :
-          dependingFrom.asMap().entrySet()) {
-        registerJob(parent.getKey(), parent.getKey().asRunnable(parent.getValue()));
-      }
-      dependingFrom.clear();
+    // Parents that register themselves after this point also schedule this RSE again,
+    // thus they are handled by a later execution of this method.
+    Multimap<ReachedSetExecutor, AbstractState> parents = LinkedHashMultimap.create();
+    Pair<ReachedSetExecutor, AbstractState> dependency;
+    while ((dependency = dependingFrom.poll()) != null) {
+      parents.put(dependency.getFirst(), dependency.getSecond());
+    }
+    logger.logf(level, "%s :: %s -> %s", this, this, parents.keys());
+    for (Entry<ReachedSetExecutor, Collection<AbstractState>> parent :
+        parents.asMap().entrySet()) {
+      registerJob(parent.getKey(), parent.getKey().asRunnable(parent.getValue()));
     }
   }
 
@@ -408,9 +446,7 @@ class ReachedSetExecutor {
       MissingBlockAbstractionState pBsme, final ReachedSetExecutor subRse) {
     logger.logf(level, "%s :: %s -> %s", this, this, subRse);
     dependsOn.add(pBsme.getState());
-    synchronized (subRse.dependingFrom) {
-      subRse.dependingFrom.put(this, pBsme.getState());
-    }
+    subRse.dependingFrom.add(Pair.of(this, pBsme.getState()));
   }
 
   /**
@@ -477,7 +513,7 @@ class ReachedSetExecutor {
   private boolean hasRecursion(CFANode pEntryLocation) {
     // TODO do we need a lock? we need to avoid crossover RSE-creation during traversal.
     return Iterables.any(
-        Traverser.<ReachedSetExecutor>forGraph(rse -> rse.dependingFrom.keys()).breadthFirst(this),
+        Traverser.<ReachedSetExecutor>forGraph(rse -> rse.getWaitingParents()).breadthFirst(this),
         rse -> rse.block.getCallNodes().contains(pEntryLocation));
   }
 
@@ -519,8 +555,9 @@ class ReachedSetExecutor {
             newRs,
             pBsme.getBlock(),
             false, // mainReachedSet is never nested in another reached-set
+            depth + 1,
             reachedSetMapping,
-            pool,
+            scheduler,
             algorithmFactory,
             shutdownNotifier,
             stats,
@@ -562,35 +599,11 @@ class ReachedSetExecutor {
   String getDependenciesAsDot() {
     final List<String> dependencies = new ArrayList<>();
     for (ReachedSetExecutor rse : reachedSetMapping.values()) {
-      for (ReachedSetExecutor dependentRse : rse.dependingFrom.keys()) {
+      for (ReachedSetExecutor dependentRse : rse.getWaitingParents()) {
         dependencies.add(String.format("\"%s\" -> \"%s\"", rse, dependentRse));
       }
     }
     Collections.sort(dependencies); // for deterministic dot-graphs
     return "digraph DEPENDENCIES {\n  " + Joiner.on(";\n  ").join(dependencies) + ";\n}\n";
   }
-
-  class ExceptionHandler implements Function<Throwable, Void> {
-
-    private final ReachedSetExecutor rse;
-
-    public ExceptionHandler(ReachedSetExecutor pRse) {
-      rse = pRse;
-    }
-
-    @Override
-    public Void apply(Throwable e) {
-      if (e instanceof RejectedExecutionException || e instanceof CompletionException) {
-        // pool will shutdown on forced termination after timeout and throw lots of them.
-        // we can ignore those exceptions.
-        logger.logException(level, e, e.getClass().getSimpleName());
-      } else {
-        logger.logException(Level.WARNING, e, e.getClass().getSimpleName());
-        error.compareAndSet(null, e);
-        rse.terminateAnalysis.set(true);
-      }
-
-      return null;
-    }
-  }
 }
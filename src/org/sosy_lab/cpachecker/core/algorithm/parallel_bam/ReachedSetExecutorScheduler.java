@@ -0,0 +1,180 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.algorithm.parallel_bam;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsSeries;
+
+/**
+ * Scheduler for {@link ReachedSetExecutor}s based on a {@link ForkJoinPool}.
+ *
+ * <p>Each RSE that has pending tasks is inserted once into a global priority queue of ready RSEs,
+ * ordered by the chosen {@link SchedulingStrategy}. For each ready RSE, a small job is submitted to
+ * the pool, which executes the ready RSE with the highest priority. All jobs are equal, so the
+ * order of execution is only determined by the priority queue and not by the pool. An RSE is never
+ * executed by two threads at the same time, because it is only re-inserted into the queue after its
+ * current task is finished.
+ */
+class ReachedSetExecutorScheduler {
+
+  enum SchedulingStrategy {
+    /** execute RSEs in the order in which they become ready. */
+    FIFO,
+    /** prefer RSEs of deeply nested blocks, because their parents wait for them. */
+    DEEPEST_BLOCK_FIRST,
+    /** prefer RSEs with the most parents waiting for their results. */
+    MOST_WAITING_PARENTS,
+  }
+
+  private final ForkJoinPool pool;
+  private final SchedulingStrategy strategy;
+  private final PriorityBlockingQueue<ReadyExecutor> readyExecutors =
+      new PriorityBlockingQueue<>();
+  private final AtomicLong sequence = new AtomicLong(0);
+  private final AtomicInteger busyThreads = new AtomicInteger(0);
+  private final int numberOfThreads;
+
+  /** series of 'busy threads, idle threads, ready RSEs' over time. */
+  private final StatisticsSeries<String> utilizationSeries;
+
+  private final LogManager logger;
+
+  ReachedSetExecutorScheduler(
+      int pNumberOfThreads,
+      SchedulingStrategy pStrategy,
+      StatisticsSeries<String> pUtilizationSeries,
+      LogManager pLogger) {
+    numberOfThreads = pNumberOfThreads;
+    pool = new ForkJoinPool(pNumberOfThreads);
+    strategy = pStrategy;
+    utilizationSeries = pUtilizationSeries;
+    logger = pLogger;
+  }
+
+  /** Insert the RSE into the queue of ready RSEs. The caller guarantees that it is not queued. */
+  void schedule(ReachedSetExecutor pRse) {
+    readyExecutors.add(new ReadyExecutor(pRse, getPriority(pRse), sequence.getAndIncrement()));
+    try {
+      pool.execute(this::executeNext);
+    } catch (RejectedExecutionException e) {
+      // pool will shutdown on termination of the main reached-set or on forced termination.
+      // we can ignore the remaining work.
+      logger.logException(Level.ALL, e, "RSE not scheduled");
+    }
+  }
+
+  private int getPriority(ReachedSetExecutor pRse) {
+    switch (strategy) {
+      case FIFO:
+        return 0;
+      case DEEPEST_BLOCK_FIRST:
+        return pRse.getDepth();
+      case MOST_WAITING_PARENTS:
+        return pRse.getNumberOfWaitingParents();
+      default:
+        throw new AssertionError("unhandled strategy " + strategy);
+    }
+  }
+
+  /** Execute the next task of the ready RSE with the highest priority. */
+  private void executeNext() {
+    // there is exactly one job per queued RSE, thus the queue is never empty here.
+    ReadyExecutor next = readyExecutors.poll();
+    if (next == null) {
+      return;
+    }
+    // The priority can change while the RSE is queued, e.g., if more parents wait for it.
+    // An outdated RSE is queued again with its current priority, but only once per job,
+    // such that concurrent changes of the priorities cannot delay the execution forever.
+    int currentPriority = getPriority(next.rse);
+    if (currentPriority != next.priority) {
+      readyExecutors.add(new ReadyExecutor(next.rse, currentPriority, next.sequenceNumber));
+      next = readyExecutors.poll();
+    }
+    recordUtilization(busyThreads.incrementAndGet());
+    try {
+      next.rse.executeNextTask();
+    } finally {
+      recordUtilization(busyThreads.decrementAndGet());
+    }
+  }
+
+  private void recordUtilization(int pBusyThreads) {
+    utilizationSeries.add(
+        pBusyThreads + ", " + (numberOfThreads - pBusyThreads) + ", " + readyExecutors.size());
+  }
+
+  void shutdown() {
+    pool.shutdown();
+  }
+
+  void shutdownNow() {
+    pool.shutdownNow();
+  }
+
+  boolean awaitTermination(long pTimeout, TimeUnit pUnit) throws InterruptedException {
+    return pool.awaitTermination(pTimeout, pUnit);
+  }
+
+  boolean isTerminated() {
+    return pool.isTerminated();
+  }
+
+  private static class ReadyExecutor implements Comparable<ReadyExecutor> {
+
+    private final ReachedSetExecutor rse;
+    private final int priority;
+    private final long sequenceNumber;
+
+    ReadyExecutor(ReachedSetExecutor pRse, int pPriority, long pSequenceNumber) {
+      rse = pRse;
+      priority = pPriority;
+      sequenceNumber = pSequenceNumber;
+    }
+
+    @Override
+    public int compareTo(ReadyExecutor pOther) {
+      // higher priority first, then FIFO
+      int result = Integer.compare(pOther.priority, priority);
+      return result != 0 ? result : Long.compare(sequenceNumber, pOther.sequenceNumber);
+    }
+
+    @Override
+    public boolean equals(Object pOther) {
+      return super.equals(pOther); // object identity
+    }
+
+    @Override
+    public int hashCode() {
+      return super.hashCode(); // object identity
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.defaults;
+
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+
+/**
+ * An optional index that an abstract domain can provide to {@link StopSepOperator} in order to
+ * avoid expensive calls to {@link
+ * org.sosy_lab.cpachecker.core.interfaces.AbstractDomain#isLessOrEqual(AbstractState,
+ * AbstractState)} for states that can not cover each other.
+ *
+ * <p>Each state is mapped to a key that should be cheap to retrieve (e.g., it can be computed once
+ * and cached in the state). The keys are compared with {@link #mayBeCoveredBy(Object, Object)}
+ * before the actual coverage check is done. The index has to be sound, i.e., it must never rule
+ * out a pair of states where one is less or equal than the other.
+ *
+ * @param <K> the type of the keys
+ */
+public interface CoverageIndex<K> {
+
+  /** Return the key for the given state. This method is called very often and should be fast. */
+  K getCoverageKey(AbstractState pState);
+
+  /**
+   * Check whether a state with key <code>pKey</code> may be less or equal than a state with key
+   * <code>pReachedKey</code>. If this method returns false, the states are not compared further.
+   */
+  boolean mayBeCoveredBy(K pKey, K pReachedKey);
+}
@@ -0,0 +1,75 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.defaults;
+
+import java.io.PrintStream;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * Statistics for the coverage checks of a {@link StopSepOperator} that uses a {@link
+ * CoverageIndex}. The counters are thread-safe, so one instance can be shared by all stop
+ * operators of a CPA.
+ */
+public class CoverageIndexStatistics implements Statistics {
+
+  private final String name;
+
+  final StatCounter checks = new StatCounter("Number of coverage checks");
+  final StatCounter hits = new StatCounter("Number of covered states (hits)");
+  final StatCounter misses = new StatCounter("Number of uncovered states (misses)");
+  final StatCounter candidates = new StatCounter("Number of compared candidate states");
+  final StatCounter pruned = new StatCounter("Number of candidates pruned by index");
+
+  public CoverageIndexStatistics(String pName) {
+    name = pName;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+    StatisticsWriter writer = StatisticsWriter.writingStatisticsTo(pOut);
+    writer
+        .put(checks)
+        .beginLevel()
+        .put(hits)
+        .put(misses)
+        .endLevel()
+        .put(candidates)
+        .put(pruned);
+    long considered = candidates.getValue() + pruned.getValue();
+    if (considered > 0) {
+      writer.put(
+          "Percentage of candidates pruned by index",
+          String.format("%.0f%%", 100.0 * pruned.getValue() / considered));
+    }
+  }
+}
@@ -23,8 +23,10 @@
  */
 package org.sosy_lab.cpachecker.core.defaults;
 
-import java.util.Collection;
+import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Collection;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractDomain;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
@@ -32,24 +34,48 @@ import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 
 /**
- * Standard stop-sep operator
+ * Standard stop-sep operator.
+ *
+ * <p>Optionally, a {@link CoverageIndex} can be given that is used to skip all reached states that
+ * can not cover the new state without calling the (potentially expensive) partial order of the
+ * domain.
  */
 public class StopSepOperator implements StopOperator {
 
   private final AbstractDomain domain;
 
+  private final @Nullable CoverageIndex<?> index;
+  private final @Nullable CoverageIndexStatistics stats;
+
   /**
    * Creates a stop-sep operator based on the given
    * partial order
    */
   public StopSepOperator(AbstractDomain d) {
     domain = d;
+    index = null;
+    stats = null;
+  }
+
+  /**
+   * Creates a stop-sep operator based on the given partial order that uses the given index to
+   * filter the candidates for coverage.
+   */
+  public StopSepOperator(
+      AbstractDomain d, CoverageIndex<?> pIndex, CoverageIndexStatistics pStats) {
+    domain = d;
+    index = checkNotNull(pIndex);
+    stats = checkNotNull(pStats);
   }
 
   @Override
   public boolean stop(AbstractState el, Collection<AbstractState> reached, Precision precision)
     throws CPAException, InterruptedException {
 
+    if (index != null) {
+      return stopWithIndex(index, el, reached);
+    }
+
     for (AbstractState reachedState : reached) {
       if (domain.isLessOrEqual(el, reachedState)) {
         return true;
@@ -57,4 +83,25 @@ public class StopSepOperator implements StopOperator {
     }
     return false;
   }
+
+  private <K> boolean stopWithIndex(
+      CoverageIndex<K> pIndex, AbstractState el, Collection<AbstractState> reached)
+      throws CPAException, InterruptedException {
+    stats.checks.inc();
+    K key = pIndex.getCoverageKey(el);
+
+    for (AbstractState reachedState : reached) {
+      if (!pIndex.mayBeCoveredBy(key, pIndex.getCoverageKey(reachedState))) {
+        stats.pruned.inc();
+        continue;
+      }
+      stats.candidates.inc();
+      if (domain.isLessOrEqual(el, reachedState)) {
+        stats.hits.inc();
+        return true;
+      }
+    }
+    stats.misses.inc();
+    return false;
+  }
 }
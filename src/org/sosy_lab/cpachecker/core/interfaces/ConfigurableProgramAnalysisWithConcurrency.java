@@ -0,0 +1,54 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.interfaces;
+
+import org.sosy_lab.cpachecker.core.reachedset.ConcurrentPartitionedReachedSet;
+
+/**
+ * A CPA whose operators may be used by several threads at the same time, e.g., by the
+ * multi-threaded {@link org.sosy_lab.cpachecker.core.algorithm.ParallelCPAAlgorithm}.
+ *
+ * <p>If {@link #allowsConcurrentOperators()} returns true, the CPA guarantees the following:
+ *
+ * <ul>
+ *   <li>Transfer relations and precision adjustments that were returned by different calls to
+ *       {@link #getTransferRelation()} and {@link #getPrecisionAdjustment()} can be used
+ *       concurrently, as long as each instance is used by only one thread. They only read the
+ *       given reached set, which has to be thread-safe (cf. {@link
+ *       ConcurrentPartitionedReachedSet}).
+ *   <li>One instance of the merge and the stop operator can be used concurrently for states in
+ *       different partitions of the reached set. Calls for states in the same partition are
+ *       serialized by the caller.
+ *   <li>The operators do not modify abstract states that are in the reached set, except for the
+ *       states in the partition for which merge or stop was called.
+ * </ul>
+ */
+public interface ConfigurableProgramAnalysisWithConcurrency extends ConfigurableProgramAnalysis {
+
+  /**
+   * Return whether the operators of this CPA (with its current configuration) can be used
+   * concurrently. Wrapper CPAs need to ask their wrapped CPAs.
+   */
+  boolean allowsConcurrentOperators();
+}
@@ -0,0 +1,518 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.FluentIterable.from;
+import static org.sosy_lab.cpachecker.util.AbstractStates.IS_TARGET_STATE;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.Striped;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Property;
+import org.sosy_lab.cpachecker.core.interfaces.Targetable;
+import org.sosy_lab.cpachecker.core.waitlist.AbstractSortedWaitlist;
+import org.sosy_lab.cpachecker.core.waitlist.SynchronizedWaitlist;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.WaitlistFactory;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.statistics.AbstractStatValue;
+
+/**
+ * Thread-safe implementation of a reached set that is partitioned like {@link
+ * PartitionedReachedSet} (by the key returned by {@link Partitionable#getPartitionKey()}).
+ *
+ * <p>Modifications of a partition are guarded by a lock that is striped by the partition key, so
+ * threads that work on different partitions do not block each other. Read accesses, e.g., {@link
+ * #getReached(AbstractState)}, {@link #getPrecision(AbstractState)} and {@link
+ * #contains(AbstractState)}, do not need any lock: each partition is stored in a concurrent map
+ * ordered by insertion, and the views returned by {@link #getReached(AbstractState)} are weakly
+ * consistent like the iteration over the whole reached set.
+ *
+ * <p>Iteration over the whole reached set is done in insertion order and is weakly consistent,
+ * i.e., it reflects some of the modifications made concurrently to the iteration. The waitlist is
+ * wrapped with a {@link SynchronizedWaitlist}.
+ */
+public class ConcurrentPartitionedReachedSet implements ReachedSet, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int NUMBER_OF_LOCK_STRIPES = 256;
+
+  /** Insertion index and precision of a state in the reached set. */
+  private static final class ReachedEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long index;
+
+    @SuppressFBWarnings("SE_BAD_FIELD")
+    private volatile Precision precision;
+
+    private ReachedEntry(long pIndex, Precision pPrecision) {
+      index = pIndex;
+      precision = pPrecision;
+    }
+  }
+
+  /**
+   * One partition of the reached set. The object is an unmodifiable, weakly consistent view on the
+   * content of the partition, ordered by insertion. Modifications need to hold the lock for the
+   * partition key, so they never run concurrently to each other, but to reads.
+   */
+  private final class Partition extends AbstractCollection<AbstractState>
+      implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @SuppressFBWarnings("SE_BAD_FIELD")
+    private final ConcurrentNavigableMap<Long, AbstractState> states =
+        new ConcurrentSkipListMap<>();
+
+    // ConcurrentSkipListMap.size() is linear in the size of the map
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    private void addState(long pIndex, AbstractState pState) {
+      if (states.put(pIndex, pState) == null) {
+        size.incrementAndGet();
+      }
+    }
+
+    private void removeState(long pIndex) {
+      if (states.remove(pIndex) != null) {
+        size.decrementAndGet();
+      }
+    }
+
+    @Override
+    public Iterator<AbstractState> iterator() {
+      return Iterators.unmodifiableIterator(states.values().iterator());
+    }
+
+    @Override
+    public int size() {
+      return size.get();
+    }
+
+    @Override
+    public boolean contains(Object pO) {
+      ReachedEntry entry = reached.get(pO);
+      return entry != null && pO.equals(states.get(entry.index));
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return states.isEmpty();
+    }
+  }
+
+  /** The result of {@link #getReached(AbstractState)} for partitions that do not exist yet. */
+  private static final Collection<AbstractState> EMPTY_PARTITION = ImmutableSet.of();
+
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final ConcurrentMap<AbstractState, ReachedEntry> reached = new ConcurrentHashMap<>();
+
+  /** All states in the reached set, indexed by the order of insertion. */
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final ConcurrentNavigableMap<Long, AbstractState> insertionOrder =
+      new ConcurrentSkipListMap<>();
+
+  @SuppressFBWarnings("SE_BAD_FIELD")
+  private final ConcurrentMap<Object, Partition> partitions = new ConcurrentHashMap<>();
+
+  private final AtomicLong nextIndex = new AtomicLong(0);
+  private final AtomicReference<AbstractState> firstState = new AtomicReference<>();
+  private final AtomicReference<AbstractState> lastState = new AtomicReference<>();
+  private final SynchronizedWaitlist waitlist;
+
+  private transient Striped<Lock> partitionLocks = Striped.lock(NUMBER_OF_LOCK_STRIPES);
+  private transient Set<AbstractState> unmodifiableReached = new ReachedView();
+
+  public ConcurrentPartitionedReachedSet(WaitlistFactory waitlistFactory) {
+    waitlist = new SynchronizedWaitlist(waitlistFactory.createWaitlistInstance());
+  }
+
+  /**
+   * Return the key of the partition to which the given state belongs. Two states are contained in
+   * the result of {@link #getReached(AbstractState)} for each other iff their keys are equal.
+   */
+  public Object getPartitionKeyOf(AbstractState pState) {
+    checkNotNull(pState);
+    assert pState instanceof Partitionable
+        : "Partitionable states necessary for ConcurrentPartitionedReachedSet";
+    Object key = ((Partitionable) pState).getPartitionKey();
+    // ConcurrentHashMap does not support null keys
+    return key == null ? NullKey.INSTANCE : key;
+  }
+
+  private enum NullKey {
+    INSTANCE
+  }
+
+  @Override
+  public void add(AbstractState state, Precision precision) throws IllegalArgumentException {
+    add0(state, precision, true);
+  }
+
+  /**
+   * Add a state like {@link #add(AbstractState, Precision)}, but do not put it into the waitlist.
+   * This is for callers that schedule the exploration of states on their own. They are
+   * responsible for putting unexplored states back into the waitlist with {@link
+   * #reAddToWaitlist(AbstractState)}.
+   */
+  public void addWithoutWaitlist(AbstractState state, Precision precision)
+      throws IllegalArgumentException {
+    add0(state, precision, false);
+  }
+
+  private void add0(AbstractState state, Precision precision, boolean addToWaitlist) {
+    checkNotNull(state);
+    checkNotNull(precision);
+
+    Object key = getPartitionKeyOf(state);
+    Lock lock = partitionLocks.get(key);
+    lock.lock();
+    try {
+      ReachedEntry newEntry = new ReachedEntry(nextIndex.getAndIncrement(), precision);
+      ReachedEntry previous = reached.putIfAbsent(state, newEntry);
+
+      if (previous == null) {
+        // State wasn't already in the reached set.
+        firstState.compareAndSet(null, state);
+        insertionOrder.put(newEntry.index, state);
+        partitions.computeIfAbsent(key, k -> new Partition()).addState(newEntry.index, state);
+        lastState.set(state);
+        if (addToWaitlist) {
+          waitlist.add(state);
+        }
+
+      } else if (!precision.equals(previous.precision)) {
+        // State was already in the reached set (cf. DefaultReachedSet#add),
+        // but the new and the old precisions differ.
+        throw new IllegalArgumentException(
+            "State added to reached set which is already contained, but with a different precision");
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void addAll(Iterable<Pair<AbstractState, Precision>> toAdd) {
+    for (Pair<AbstractState, Precision> pair : toAdd) {
+      add(pair.getFirst(), pair.getSecond());
+    }
+  }
+
+  @Override
+  public void reAddToWaitlist(AbstractState s) {
+    checkNotNull(s);
+    Preconditions.checkArgument(reached.containsKey(s), "State has to be in the reached set");
+    waitlist.addIfAbsent(s);
+  }
+
+  @Override
+  public void updatePrecision(AbstractState s, Precision newPrecision) {
+    checkNotNull(s);
+    checkNotNull(newPrecision);
+
+    ReachedEntry entry = reached.get(s);
+    if (entry == null) {
+      throw new IllegalArgumentException(
+          "State needs to be in the reached set in order to change the precision.");
+    }
+    entry.precision = newPrecision;
+  }
+
+  @Override
+  public void remove(AbstractState state) {
+    checkNotNull(state);
+
+    Object key = getPartitionKeyOf(state);
+    Lock lock = partitionLocks.get(key);
+    lock.lock();
+    try {
+      waitlist.remove(state);
+      ReachedEntry entry = reached.remove(state);
+      if (entry != null) {
+        insertionOrder.remove(entry.index);
+        Partition partition = partitions.get(key);
+        if (partition != null) {
+          partition.removeState(entry.index);
+        }
+        clearIfEqual(firstState, state);
+        clearIfEqual(lastState, state);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static void clearIfEqual(AtomicReference<AbstractState> pRef, AbstractState pState) {
+    AbstractState current = pRef.get();
+    if (current != null && current.equals(pState)) {
+      pRef.compareAndSet(current, null);
+    }
+  }
+
+  @Override
+  public void removeAll(Iterable<? extends AbstractState> toRemove) {
+    for (AbstractState state : toRemove) {
+      remove(state);
+    }
+  }
+
+  @Override
+  public void removeOnlyFromWaitlist(AbstractState state) {
+    checkNotNull(state);
+    waitlist.remove(state);
+  }
+
+  /** Remove all states. This method must not be called concurrently to other modifications. */
+  @Override
+  public void clear() {
+    firstState.set(null);
+    lastState.set(null);
+    waitlist.clear();
+    reached.clear();
+    insertionOrder.clear();
+    partitions.clear();
+  }
+
+  @Override
+  public Set<AbstractState> asCollection() {
+    return unmodifiableReached;
+  }
+
+  @Override
+  public Iterator<AbstractState> iterator() {
+    return unmodifiableReached.iterator();
+  }
+
+  @Override
+  public Collection<Precision> getPrecisions() {
+    ImmutableList.Builder<Precision> precisions = ImmutableList.builder();
+    forEach((state, precision) -> precisions.add(precision));
+    return precisions.build();
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(AbstractState state) {
+    Partition partition = partitions.get(getPartitionKeyOf(state));
+    return partition == null ? EMPTY_PARTITION : partition;
+  }
+
+  @Override
+  public Collection<AbstractState> getReached(CFANode location) {
+    checkNotNull(location);
+    return asCollection();
+  }
+
+  @Override
+  public AbstractState getFirstState() {
+    AbstractState first = firstState.get();
+    Preconditions.checkState(first != null);
+    return first;
+  }
+
+  @Override
+  public @Nullable AbstractState getLastState() {
+    return lastState.get();
+  }
+
+  @Override
+  public boolean hasWaitingState() {
+    return !waitlist.isEmpty();
+  }
+
+  @Override
+  public Collection<AbstractState> getWaitlist() {
+    return new AbstractCollection<AbstractState>() {
+
+      @Override
+      public Iterator<AbstractState> iterator() {
+        return waitlist.iterator();
+      }
+
+      @Override
+      public boolean contains(Object obj) {
+        if (!(obj instanceof AbstractState)) {
+          return false;
+        }
+        return waitlist.contains((AbstractState) obj);
+      }
+
+      @Override
+      public boolean isEmpty() {
+        return waitlist.isEmpty();
+      }
+
+      @Override
+      public int size() {
+        return waitlist.size();
+      }
+
+      @Override
+      public String toString() {
+        return waitlist.toString();
+      }
+    };
+  }
+
+  @Override
+  public AbstractState popFromWaitlist() {
+    return waitlist.pop();
+  }
+
+  /**
+   * Remove and return the next state from the waitlist, or return null if the waitlist is empty.
+   * In contrast to calling {@link #hasWaitingState()} and {@link #popFromWaitlist()} this is
+   * atomic.
+   */
+  public @Nullable AbstractState pollFromWaitlist() {
+    return waitlist.popIfNotEmpty();
+  }
+
+  @Override
+  public Precision getPrecision(AbstractState state) {
+    checkNotNull(state);
+    ReachedEntry entry = reached.get(state);
+    Preconditions.checkArgument(entry != null, "State not in reached set:\n%s", state);
+    return entry.precision;
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super AbstractState, ? super Precision> pAction) {
+    checkNotNull(pAction);
+    for (AbstractState state : insertionOrder.values()) {
+      ReachedEntry entry = reached.get(state);
+      if (entry != null) {
+        pAction.accept(state, entry.precision);
+      }
+    }
+  }
+
+  @Override
+  public boolean contains(AbstractState state) {
+    checkNotNull(state);
+    return reached.containsKey(state);
+  }
+
+  @Override
+  public int size() {
+    return reached.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return reached.isEmpty();
+  }
+
+  public int getNumberOfPartitions() {
+    return (int) partitions.values().stream().filter(p -> !p.isEmpty()).count();
+  }
+
+  public Map<String, ? extends AbstractStatValue> getStatistics() {
+    if (waitlist.getDelegate() instanceof AbstractSortedWaitlist) {
+      return ((AbstractSortedWaitlist<?>) waitlist.getDelegate()).getDelegationCounts();
+    } else {
+      return ImmutableMap.of();
+    }
+  }
+
+  @Override
+  public boolean hasViolatedProperties() {
+    return from(unmodifiableReached).anyMatch(IS_TARGET_STATE);
+  }
+
+  @Override
+  public Collection<Property> getViolatedProperties() {
+    return from(unmodifiableReached)
+        .filter(IS_TARGET_STATE)
+        .filter(Targetable.class)
+        .transformAndConcat(Targetable::getViolatedProperties)
+        .toSet();
+  }
+
+  @Override
+  public String toString() {
+    return ImmutableList.copyOf(insertionOrder.values()).toString();
+  }
+
+  /** Unmodifiable view on the states of the reached set, in insertion order. */
+  private class ReachedView extends AbstractSet<AbstractState> {
+
+    @Override
+    public Iterator<AbstractState> iterator() {
+      return Iterators.unmodifiableIterator(insertionOrder.values().iterator());
+    }
+
+    @Override
+    public boolean contains(Object pO) {
+      return reached.containsKey(pO);
+    }
+
+    @Override
+    public int size() {
+      return reached.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return reached.isEmpty();
+    }
+  }
+
+  private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+    s.defaultReadObject();
+    partitionLocks = Striped.lock(NUMBER_OF_LOCK_STRIPES);
+    unmodifiableReached = new ReachedView();
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.reachedset;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Partitionable;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+
+public class ConcurrentPartitionedReachedSetTest {
+
+  private static final int THREADS = 8;
+  private static final int STATES_PER_THREAD = 2000;
+  private static final int PARTITIONS = 17;
+
+  private static final Precision PRECISION = SingletonPrecision.getInstance();
+
+  private static final class TestState implements AbstractState, Partitionable {
+
+    private final int id;
+    private final int partition;
+
+    private TestState(int pId, int pPartition) {
+      id = pId;
+      partition = pPartition;
+    }
+
+    @Override
+    public Object getPartitionKey() {
+      return partition;
+    }
+
+    @Override
+    public String toString() {
+      return "S" + id + "@" + partition;
+    }
+  }
+
+  private ExecutorService pool;
+
+  @Before
+  public void setUp() {
+    pool = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    pool.shutdownNow();
+    pool.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  private static List<TestState> createStates(int count) {
+    List<TestState> states = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      states.add(new TestState(i, i % PARTITIONS));
+    }
+    return states;
+  }
+
+  @Test
+  public void testSequentialBehaviorMatchesPartitionedReachedSet() {
+    ReachedSet sequential = new PartitionedReachedSet(TraversalMethod.DFS);
+    ReachedSet concurrent = new ConcurrentPartitionedReachedSet(TraversalMethod.DFS);
+    List<TestState> states = createStates(200);
+
+    for (TestState s : states) {
+      sequential.add(s, PRECISION);
+      concurrent.add(s, PRECISION);
+    }
+    for (int i = 1; i < states.size(); i += 3) {
+      sequential.remove(states.get(i));
+      concurrent.remove(states.get(i));
+    }
+    AbstractState popped = null;
+    for (int i = 0; i < 10; i++) {
+      popped = sequential.popFromWaitlist();
+      assertThat(concurrent.popFromWaitlist()).isSameAs(popped);
+    }
+    sequential.reAddToWaitlist(popped);
+    concurrent.reAddToWaitlist(popped);
+
+    assertThat(concurrent.asCollection()).containsExactlyElementsIn(sequential.asCollection())
+        .inOrder();
+    assertThat(concurrent.getWaitlist()).containsExactlyElementsIn(sequential.getWaitlist());
+    assertThat(concurrent.getFirstState()).isSameAs(sequential.getFirstState());
+    assertThat(concurrent.getLastState()).isSameAs(sequential.getLastState());
+    assertThat(concurrent.size()).isEqualTo(sequential.size());
+    for (TestState s : states) {
+      assertThat(concurrent.contains(s)).isEqualTo(sequential.contains(s));
+      assertThat(concurrent.getReached(s))
+          .containsExactlyElementsIn(sequential.getReached(s))
+          .inOrder();
+    }
+  }
+
+  @Test
+  public void testGetReachedIsView() {
+    ReachedSet reached = new ConcurrentPartitionedReachedSet(TraversalMethod.BFS);
+    TestState s1 = new TestState(1, 0);
+    TestState s2 = new TestState(2, 0);
+
+    // looking up an unknown partition does not create it
+    assertThat(reached.getReached(s1)).isEmpty();
+    reached.add(s1, PRECISION);
+    Collection<AbstractState> partition = reached.getReached(s1);
+    reached.add(s2, PRECISION);
+    assertThat(partition).containsExactly(s1, s2).inOrder();
+    assertThat(partition.contains(s2)).isTrue();
+    reached.remove(s1);
+    assertThat(partition).containsExactly(s2);
+    assertThat(partition.contains(s1)).isFalse();
+    assertThat(reached.getReached(s2)).isSameAs(partition);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddWithDifferentPrecision() {
+    ReachedSet reached = new ConcurrentPartitionedReachedSet(TraversalMethod.BFS);
+    TestState s = new TestState(1, 0);
+    reached.add(s, PRECISION);
+    reached.add(s, new Precision() {});
+  }
+
+  @Test
+  public void testConcurrentAdd() throws Exception {
+    List<TestState> states = createStates(THREADS * STATES_PER_THREAD);
+    ConcurrentPartitionedReachedSet concurrent =
+        new ConcurrentPartitionedReachedSet(TraversalMethod.DFS);
+
+    runConcurrently(
+        thread -> {
+          for (int i = thread; i < states.size(); i += THREADS) {
+            TestState s = states.get(i);
+            concurrent.add(s, PRECISION);
+            // lock-free reads while other threads are writing
+            assertThat(concurrent.getReached(s)).contains(s);
+            assertThat(concurrent.getPrecision(s)).isSameAs(PRECISION);
+          }
+        });
+
+    ReachedSet sequential = new PartitionedReachedSet(TraversalMethod.DFS);
+    for (TestState s : states) {
+      sequential.add(s, PRECISION);
+    }
+    assertSameContent(concurrent, sequential, states);
+    assertThat(concurrent.getNumberOfPartitions()).isEqualTo(PARTITIONS);
+  }
+
+  @Test
+  public void testConcurrentAddRemoveAndPop() throws Exception {
+    List<TestState> states = createStates(THREADS * STATES_PER_THREAD);
+    ConcurrentPartitionedReachedSet concurrent =
+        new ConcurrentPartitionedReachedSet(TraversalMethod.BFS);
+
+    runConcurrently(
+        thread -> {
+          for (int i = thread; i < states.size(); i += THREADS) {
+            concurrent.add(states.get(i), PRECISION);
+            if (i % 4 == 0) {
+              concurrent.remove(states.get(i));
+            }
+            if (i % 5 == 0) {
+              concurrent.pollFromWaitlist();
+            }
+          }
+        });
+
+    ReachedSet sequential = new PartitionedReachedSet(TraversalMethod.BFS);
+    for (int i = 0; i < states.size(); i++) {
+      if (i % 4 != 0) {
+        sequential.add(states.get(i), PRECISION);
+      }
+    }
+    assertSameContent(concurrent, sequential, states);
+
+    assertThat(concurrent.asCollection()).containsAllIn(concurrent.getWaitlist());
+    AbstractState next;
+    do {
+      next = concurrent.pollFromWaitlist();
+    } while (next != null);
+    assertThat(concurrent.hasWaitingState()).isFalse();
+  }
+
+  /** Compare the content of both reached sets, ignoring the order of insertion. */
+  private static void assertSameContent(
+      ReachedSet concurrent, ReachedSet sequential, List<TestState> states) {
+    assertThat(concurrent.size()).isEqualTo(sequential.size());
+    assertThat(concurrent.asCollection()).containsExactlyElementsIn(sequential.asCollection());
+    assertThat(ImmutableList.copyOf(concurrent)).hasSize(sequential.size());
+    for (TestState s : states) {
+      assertThat(concurrent.contains(s)).isEqualTo(sequential.contains(s));
+      assertThat(concurrent.getReached(s)).containsExactlyElementsIn(sequential.getReached(s));
+    }
+  }
+
+  private interface ThreadBody {
+    void run(int thread) throws Exception;
+  }
+
+  /** Run the given body in all threads at the same time and propagate failures. */
+  private void runConcurrently(ThreadBody body) throws Exception {
+    CyclicBarrier barrier = new CyclicBarrier(THREADS);
+    List<Future<Void>> futures = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      final int thread = t;
+      futures.add(
+          pool.submit(
+              () -> {
+                barrier.await();
+                body.run(thread);
+                return null;
+              }));
+    }
+    for (Future<Void> f : futures) {
+      f.get(1, TimeUnit.MINUTES);
+    }
+  }
+}
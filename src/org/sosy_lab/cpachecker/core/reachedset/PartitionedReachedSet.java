@@ -108,6 +108,14 @@ public class PartitionedReachedSet extends DefaultReachedSet {
     return maxPartition;
   }
 
+  /**
+   * Return the key of the partition to which the given state belongs. Two states are contained in
+   * the result of {@link #getReached(AbstractState)} for each other iff their keys are equal.
+   */
+  public final Object getPartitionKeyOf(AbstractState pState) {
+    return getPartitionKey(pState);
+  }
+
   protected Object getPartitionKey(AbstractState pState) {
     checkNotNull(pState);
     assert pState instanceof Partitionable : "Partitionable states necessary for PartitionedReachedSet";
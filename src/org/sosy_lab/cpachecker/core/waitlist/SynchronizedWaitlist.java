@@ -0,0 +1,123 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.core.waitlist;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import java.io.Serializable;
+import java.util.Iterator;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+
+/**
+ * Thread-safe wrapper around an arbitrary waitlist. All operations synchronize on this instance,
+ * so the strategy of the wrapped waitlist is preserved. Iterators work on a snapshot of the
+ * waitlist and are unmodifiable.
+ */
+public class SynchronizedWaitlist implements Waitlist, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Waitlist delegate;
+
+  public SynchronizedWaitlist(Waitlist pDelegate) {
+    delegate = checkNotNull(pDelegate);
+  }
+
+  public static WaitlistFactory factory(final WaitlistFactory pDelegateFactory) {
+    checkNotNull(pDelegateFactory);
+    return () -> new SynchronizedWaitlist(pDelegateFactory.createWaitlistInstance());
+  }
+
+  /** Return the wrapped waitlist, e.g., for statistics. It must not be modified directly. */
+  public Waitlist getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public synchronized void add(AbstractState pState) {
+    delegate.add(pState);
+  }
+
+  /**
+   * Add a state if it is not yet contained. In contrast to calling {@link #contains} and {@link
+   * #add} this is atomic.
+   */
+  public synchronized void addIfAbsent(AbstractState pState) {
+    if (!delegate.contains(pState)) {
+      delegate.add(pState);
+    }
+  }
+
+  @Override
+  public synchronized void clear() {
+    delegate.clear();
+  }
+
+  @Override
+  public synchronized boolean contains(AbstractState pState) {
+    return delegate.contains(pState);
+  }
+
+  @Override
+  public synchronized boolean isEmpty() {
+    return delegate.isEmpty();
+  }
+
+  @Override
+  public synchronized AbstractState pop() {
+    return delegate.pop();
+  }
+
+  /**
+   * Remove and return the next state if the waitlist is not empty. In contrast to calling {@link
+   * #isEmpty} and {@link #pop} this is atomic.
+   *
+   * @return the next state or null if the waitlist is empty
+   */
+  public synchronized @Nullable AbstractState popIfNotEmpty() {
+    return delegate.isEmpty() ? null : delegate.pop();
+  }
+
+  @Override
+  public synchronized boolean remove(AbstractState pState) {
+    return delegate.remove(pState);
+  }
+
+  @Override
+  public synchronized int size() {
+    return delegate.size();
+  }
+
+  @Override
+  public synchronized Iterator<AbstractState> iterator() {
+    return ImmutableList.copyOf(delegate).iterator();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return delegate.toString();
+  }
+}
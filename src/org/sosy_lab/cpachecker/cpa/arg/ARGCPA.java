@@ -51,6 +51,7 @@ import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.CPAFactory;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysisWithBAM;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysisWithConcurrency;
 import org.sosy_lab.cpachecker.core.interfaces.ForcedCoveringStopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
 import org.sosy_lab.cpachecker.core.interfaces.PrecisionAdjustment;
@@ -64,7 +65,9 @@ import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 
 @Options(prefix = "cpa.arg")
 public class ARGCPA extends AbstractSingleWrapperCPA
-    implements ConfigurableProgramAnalysisWithBAM, ProofChecker {
+    implements ConfigurableProgramAnalysisWithBAM,
+        ConfigurableProgramAnalysisWithConcurrency,
+        ProofChecker {
 
   public static CPAFactory factory() {
     return AutomaticCPAFactory.forType(ARGCPA.class);
@@ -192,6 +195,19 @@ public class ARGCPA extends AbstractSingleWrapperCPA
     return stats;
   }
 
+  @Override
+  public boolean allowsConcurrentOperators() {
+    // Without merging, the operators only link new states to the state they are computed from
+    // and cover them by states of their own partition. Merging, the CPA-enabled analysis and
+    // exporting the ARG in each iteration access states all over the ARG.
+    ConfigurableProgramAnalysis cpa = getWrappedCpa();
+    return cpa instanceof ConfigurableProgramAnalysisWithConcurrency
+        && ((ConfigurableProgramAnalysisWithConcurrency) cpa).allowsConcurrentOperators()
+        && getMergeOperator() == MergeSepOperator.getInstance()
+        && !inCPAEnabledAnalysis
+        && !stats.isExportingInEachIteration();
+  }
+
   @Override
   public boolean areAbstractSuccessors(AbstractState pElement, CFAEdge pCfaEdge,
       Collection<? extends AbstractState> pSuccessors) throws CPATransferException, InterruptedException {
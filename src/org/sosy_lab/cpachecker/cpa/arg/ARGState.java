@@ -31,6 +31,8 @@ import static org.sosy_lab.cpachecker.util.AbstractStates.extractStateByType;
 
 import com.google.common.collect.Sets;
 import com.google.common.graph.Traverser;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -74,7 +76,7 @@ public class ARGState extends AbstractSingleWrapperState
 
   private ARGState mergedWith = null;
 
-  private final int stateId;
+  private int stateId; // not final because of deserialization
 
   // If this is a target state, we may store additional information here.
   private transient CounterexampleInfo counterexample;
@@ -371,6 +373,13 @@ public class ARGState extends AbstractSingleWrapperState
     return (stateId < other.stateId);
   }
 
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    // State ids need to be unique within the current run,
+    // but a deserialized state may have been created by a previous run.
+    in.defaultReadObject();
+    stateId = idGenerator.getFreshId();
+  }
+
   @Override
   public boolean isTarget() {
     return !hasCoveredParent && !isCovered() && super.isTarget();
@@ -0,0 +1,66 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.arg;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import org.junit.Test;
+
+public class ARGStateTest {
+
+  private static ARGState serializeAndDeserialize(ARGState pState) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(pState);
+    }
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      return (ARGState) in.readObject();
+    }
+  }
+
+  @Test
+  public void testDeserializedStatesGetFreshIds() throws Exception {
+    ARGState root = new ARGState(null, null);
+    ARGState child = new ARGState(null, root);
+
+    ARGState reusedRoot = serializeAndDeserialize(root);
+    ARGState reusedChild = reusedRoot.getChildren().iterator().next();
+    ARGState fresh = new ARGState(null, null);
+
+    // the reused states must not clash with states of the current run
+    assertThat(reusedRoot.getStateId()).isNotEqualTo(root.getStateId());
+    assertThat(reusedChild.getStateId()).isNotEqualTo(child.getStateId());
+    assertThat(reusedRoot.getStateId()).isNotEqualTo(reusedChild.getStateId());
+    assertThat(reusedRoot.getStateId()).isNotEqualTo(fresh.getStateId());
+    assertThat(reusedChild.getStateId()).isNotEqualTo(fresh.getStateId());
+    assertThat(reusedRoot.compareTo(root)).isNotEqualTo(0);
+    assertThat(reusedRoot.isOlderThan(fresh)).isTrue();
+    assertThat(reusedChild.isOlderThan(fresh)).isTrue();
+  }
+}
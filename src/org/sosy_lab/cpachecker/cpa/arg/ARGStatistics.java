@@ -513,6 +513,11 @@ public class ARGStatistics implements Statistics {
     }
   }
 
+  /** Whether {@link #printIterationStatistics} exports the ARG from the current reached set. */
+  boolean isExportingInEachIteration() {
+    return dumpArgInEachCpaIteration;
+  }
+
   public void printIterationStatistics(UnmodifiableReachedSet pReached) {
     if (dumpArgInEachCpaIteration) {
       exportARG(pReached, getAllCounterexamples(pReached), CPAcheckerResult.Result.UNKNOWN);
@@ -71,7 +71,6 @@ import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import javax.xml.parsers.ParserConfigurationException;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.ast.AExpression;
@@ -130,11 +129,11 @@ import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.AssumeCase;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.ElementType;
-import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlBuilder;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeFlag;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeType;
 import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.WitnessType;
+import org.sosy_lab.cpachecker.util.automaton.GraphMlWriter;
 import org.sosy_lab.cpachecker.util.automaton.VerificationTaskMetaData;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTree;
 import org.sosy_lab.cpachecker.util.expressions.ExpressionTreeFactory;
@@ -142,7 +141,6 @@ import org.sosy_lab.cpachecker.util.expressions.ExpressionTrees;
 import org.sosy_lab.cpachecker.util.expressions.LeafExpression;
 import org.sosy_lab.cpachecker.util.expressions.Or;
 import org.sosy_lab.cpachecker.util.expressions.Simplifier;
-import org.w3c.dom.Element;
 
 class WitnessWriter implements EdgeAppender {
 
@@ -1190,14 +1188,7 @@ class WitnessWriter implements EdgeAppender {
     mergeRedundantSinkEdges();
 
     // Write elements
-    final GraphMlBuilder doc;
-    try {
-      doc = new GraphMlBuilder(graphType, defaultSourcefileName, cfa, verificationTaskMetaData);
-    } catch (ParserConfigurationException e) {
-      throw new IOException(e);
-    }
-    writeElementsOfGraphToDoc(doc, entryStateNodeId);
-    doc.appendTo(pTarget);
+    writeElementsOfGraph(pTarget, entryStateNodeId);
   }
 
   /**
@@ -1317,30 +1308,69 @@ class WitnessWriter implements EdgeAppender {
     }
   }
 
-  private void writeElementsOfGraphToDoc(GraphMlBuilder doc, String entryStateNodeId) {
-    Map<String, Element> nodes = Maps.newHashMap();
+  /**
+   * Write the nodes and edges that are reachable from the entry node. Edges may add data to their
+   * target node after the node was visited, so the data of all nodes is collected first and the
+   * elements are streamed to the target afterwards, in the order in which they were visited.
+   */
+  private void writeElementsOfGraph(Appendable pTarget, String entryStateNodeId)
+      throws IOException {
+    Map<String, List<Map.Entry<KeyDef, String>>> nodes = Maps.newHashMap();
+    List<Edge> edges = new ArrayList<>();
+    Set<KeyDef> usedKeys = EnumSet.noneOf(KeyDef.class);
     Deque<String> waitlist = Queues.newArrayDeque();
     waitlist.push(entryStateNodeId);
-    Element entryNode = createNewNode(doc, entryStateNodeId);
-    addInvariantsData(doc, entryNode, entryStateNodeId);
+    List<Map.Entry<KeyDef, String>> entryNode = createNewNode(entryStateNodeId);
+    addInvariantsData(entryNode, entryStateNodeId);
     nodes.put(entryStateNodeId, entryNode);
     while (!waitlist.isEmpty()) {
       String source = waitlist.pop();
       for (Edge edge : leavingEdges.get(source)) {
         setLoopHeadInvariantIfApplicable(edge.getTarget());
 
-        Element targetNode = nodes.get(edge.getTarget());
+        List<Map.Entry<KeyDef, String>> targetNode = nodes.get(edge.getTarget());
         if (targetNode == null) {
-          targetNode = createNewNode(doc, edge.getTarget());
+          targetNode = createNewNode(edge.getTarget());
           if (!ExpressionTrees.getFalse()
-              .equals(addInvariantsData(doc, targetNode, edge.getTarget()))) {
+              .equals(addInvariantsData(targetNode, edge.getTarget()))) {
             waitlist.push(edge.getTarget());
           }
           nodes.put(edge.getTarget(), targetNode);
         }
-        createNewEdge(doc, edge, targetNode);
+        for (Map.Entry<KeyDef, String> entry : edge.getLabel().getMapping().entrySet()) {
+          if (entry.getKey().keyFor.equals(ElementType.EDGE)) {
+            usedKeys.add(entry.getKey());
+          } else if (entry.getKey().keyFor.equals(ElementType.NODE)) {
+            targetNode.add(entry);
+          }
+        }
+        edges.add(edge);
+      }
+    }
+    for (List<Map.Entry<KeyDef, String>> nodeData : nodes.values()) {
+      for (Map.Entry<KeyDef, String> entry : nodeData) {
+        usedKeys.add(entry.getKey());
       }
     }
+
+    GraphMlWriter writer =
+        new GraphMlWriter(
+            pTarget, graphType, defaultSourcefileName, cfa, verificationTaskMetaData, usedKeys);
+    writer.writeNode(entryStateNodeId, NodeType.ONPATH, nodes.get(entryStateNodeId));
+    Set<String> writtenNodes = new HashSet<>();
+    writtenNodes.add(entryStateNodeId);
+    for (Edge edge : edges) {
+      if (writtenNodes.add(edge.getTarget())) {
+        writer.writeNode(edge.getTarget(), NodeType.ONPATH, nodes.get(edge.getTarget()));
+      }
+      writer.writeEdge(
+          edge.getSource(),
+          edge.getTarget(),
+          Maps.filterKeys(
+                  edge.getLabel().getMapping(), keyDef -> keyDef.keyFor.equals(ElementType.EDGE))
+              .entrySet());
+    }
+    writer.finish();
   }
 
   private void setLoopHeadInvariantIfApplicable(String pTarget) {
@@ -1379,16 +1409,16 @@ class WitnessWriter implements EdgeAppender {
   }
 
   private ExpressionTree<Object> addInvariantsData(
-      GraphMlBuilder pDoc, Element pNode, String pStateId) {
+      List<Map.Entry<KeyDef, String>> pNodeData, String pStateId) {
     if (!invariantExportStates.contains(pStateId)) {
       return ExpressionTrees.getTrue();
     }
     ExpressionTree<Object> tree = getStateInvariant(pStateId);
     if (!tree.equals(ExpressionTrees.getTrue())) {
-      pDoc.addDataElementChild(pNode, KeyDef.INVARIANT, tree.toString());
+      pNodeData.add(Maps.immutableEntry(KeyDef.INVARIANT, tree.toString()));
       String scope = stateScopes.get(pStateId);
       if (scope != null && !scope.isEmpty() && !tree.equals(ExpressionTrees.getFalse())) {
-        pDoc.addDataElementChild(pNode, KeyDef.INVARIANTSCOPE, scope);
+        pNodeData.add(Maps.immutableEntry(KeyDef.INVARIANTSCOPE, scope));
       }
     }
     return tree;
@@ -1665,38 +1695,24 @@ class WitnessWriter implements EdgeAppender {
     return false;
   }
 
-  private Element createNewEdge(GraphMlBuilder pDoc, Edge pEdge, Element pTargetNode) {
-    Element edge = pDoc.createEdgeElement(pEdge.getSource(), pEdge.getTarget());
-    for (Map.Entry<KeyDef, String> entry : pEdge.getLabel().getMapping().entrySet()) {
-      KeyDef keyDef = entry.getKey();
-      String value = entry.getValue();
-      if (keyDef.keyFor.equals(ElementType.EDGE)) {
-        pDoc.addDataElementChild(edge, keyDef, value);
-      } else if (keyDef.keyFor.equals(ElementType.NODE)) {
-        pDoc.addDataElementChild(pTargetNode, keyDef, value);
-      }
-    }
-    return edge;
-  }
-
-  private Element createNewNode(GraphMlBuilder pDoc, String pEntryStateNodeId) {
-    Element result = pDoc.createNodeElement(pEntryStateNodeId, NodeType.ONPATH);
+  private List<Map.Entry<KeyDef, String>> createNewNode(String pEntryStateNodeId) {
+    List<Map.Entry<KeyDef, String>> result = new ArrayList<>(2);
 
     if (witnessOptions.exportNodeLabel()) {
       // add a printable label that for example is shown in yEd
-      pDoc.addDataElementChild(result, KeyDef.LABEL, pEntryStateNodeId);
+      result.add(Maps.immutableEntry(KeyDef.LABEL, pEntryStateNodeId));
     }
 
     for (NodeFlag f : nodeFlags.get(pEntryStateNodeId)) {
-      pDoc.addDataElementChild(result, f.key, "true");
+      result.add(Maps.immutableEntry(f.key, "true"));
     }
     for (Property violation : violatedProperties.get(pEntryStateNodeId)) {
-      pDoc.addDataElementChild(result, KeyDef.VIOLATEDPROPERTY, violation.toString());
+      result.add(Maps.immutableEntry(KeyDef.VIOLATEDPROPERTY, violation.toString()));
     }
 
     if(stateQuasiInvariants.containsKey(pEntryStateNodeId)) {
       ExpressionTree<Object> tree = getQuasiInvariant(pEntryStateNodeId);
-        pDoc.addDataElementChild(result, KeyDef.INVARIANT, tree.toString());
+      result.add(Maps.immutableEntry(KeyDef.INVARIANT, tree.toString()));
     }
 
     return result;
@@ -418,6 +418,10 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    String getFunctionName() {
+      return functionName;
+    }
+
     @Override
     public String toString() {
       return "MATCH FUNCTION CALL \"" + functionName + "\"";
@@ -475,6 +479,10 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    MatchAssumeCase getMatchAssumeCase() {
+      return matchAssumeCase;
+    }
+
     @Override
     public boolean equals(Object pOther) {
       if (this == pOther) {
@@ -809,6 +817,10 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
       return CONST_FALSE;
     }
 
+    boolean matchesPositiveCase() {
+      return matchPositiveCase;
+    }
+
     @Override
     public String toString() {
       return "MATCH ASSUME CASE " + matchPositiveCase;
@@ -1019,7 +1031,9 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
 
     @Override
     public ResultValue<Boolean> eval(AutomatonExpressionArguments pArgs) {
-      return eval(pArgs.getCfaEdge()) ? CONST_TRUE : CONST_FALSE;
+      return pArgs.getFileLocationsOfCfaEdge(mainEntry).stream().anyMatch(matchDescriptor)
+          ? CONST_TRUE
+          : CONST_FALSE;
     }
 
     protected boolean eval(CFAEdge edge) {
@@ -1028,6 +1042,14 @@ interface AutomatonBoolExpr extends AutomatonExpression<Boolean> {
           .anyMatch(matchDescriptor);
     }
 
+    FunctionEntryNode getMainEntry() {
+      return mainEntry;
+    }
+
+    java.util.function.Predicate<FileLocation> getMatchDescriptor() {
+      return matchDescriptor;
+    }
+
     @Override
     public String toString() {
       return "MATCH " + matchDescriptor;
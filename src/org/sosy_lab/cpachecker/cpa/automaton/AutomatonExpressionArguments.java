@@ -29,12 +29,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.ast.AAstNode;
 import org.sosy_lab.cpachecker.cfa.ast.AExpression;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
 import org.sosy_lab.cpachecker.cfa.ast.c.CArraySubscriptExpression;
 import org.sosy_lab.cpachecker.cfa.ast.c.CAstNode;
 import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression;
@@ -44,10 +47,12 @@ import org.sosy_lab.cpachecker.cfa.ast.c.CIdExpression;
 import org.sosy_lab.cpachecker.cfa.ast.c.CIntegerLiteralExpression;
 import org.sosy_lab.cpachecker.cfa.ast.c.SubstitutingCAstNodeVisitor;
 import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
 import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
 import org.sosy_lab.cpachecker.cfa.types.c.CProblemType;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.cpa.automaton.AutomatonVariable.AutomatonSetVariable;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon;
 
 class AutomatonExpressionArguments {
 
@@ -61,6 +66,10 @@ class AutomatonExpressionArguments {
   private CFAEdge cfaEdge;
   private LogManager logger;
 
+  // file locations of the CFA edge, computed once because many transitions match on them
+  private @Nullable FunctionEntryNode fileLocationsMainEntry = null;
+  private @Nullable Set<FileLocation> fileLocations = null;
+
   /**
    * In this String all print messages of the Transition are collected.
    * They are logged (INFO-level) together at the end of the transition actions.
@@ -112,6 +121,18 @@ class AutomatonExpressionArguments {
   LogManager getLogger() {
     return logger;
   }
+
+  /**
+   * Return the file locations of the current CFA edge, as computed by {@link
+   * AutomatonGraphmlCommon#getFileLocationsFromCfaEdge(CFAEdge, FunctionEntryNode)}.
+   */
+  Set<FileLocation> getFileLocationsOfCfaEdge(FunctionEntryNode pMainEntry) {
+    if (fileLocations == null || pMainEntry != fileLocationsMainEntry) {
+      fileLocations = AutomatonGraphmlCommon.getFileLocationsFromCfaEdge(cfaEdge, pMainEntry);
+      fileLocationsMainEntry = pMainEntry;
+    }
+    return fileLocations;
+  }
   void appendToLogMessage(String message) {
     this.transitionLogMessages = transitionLogMessages  + message;
   }
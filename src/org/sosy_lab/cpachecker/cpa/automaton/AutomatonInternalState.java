@@ -27,6 +27,7 @@ import com.google.common.collect.ImmutableList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.UniqueIdGenerator;
 import org.sosy_lab.cpachecker.cpa.automaton.AutomatonExpression.StringExpression;
 
@@ -89,6 +90,9 @@ public class AutomatonInternalState {
   /** Outgoing transitions of this state. */
   private final ImmutableList<AutomatonTransition> transitions;
 
+  /** Index for finding matching transitions, only present for states with many transitions. */
+  private final @Nullable AutomatonTransitionIndex transitionIndex;
+
   private final boolean mIsTarget;
 
   /**
@@ -106,6 +110,10 @@ public class AutomatonInternalState {
       boolean pIsCycleStart) {
     this.name = pName;
     this.transitions = ImmutableList.copyOf(pTransitions);
+    this.transitionIndex =
+        transitions.size() >= AutomatonTransitionIndex.MIN_TRANSITIONS
+            ? new AutomatonTransitionIndex(transitions)
+            : null;
     this.mIsTarget = pIsTarget;
     this.mAllTransitions = pAllTransitions;
     this.isCycleStart = pIsCycleStart;
@@ -176,6 +184,10 @@ public class AutomatonInternalState {
     return transitions;
   }
 
+  @Nullable AutomatonTransitionIndex getTransitionIndex() {
+    return transitionIndex;
+  }
+
   @Override
   public String toString() {
     return this.name;
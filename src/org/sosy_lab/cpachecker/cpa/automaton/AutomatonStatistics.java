@@ -28,6 +28,7 @@ import org.sosy_lab.common.time.TimeSpan;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
 import org.sosy_lab.cpachecker.util.statistics.StatIntHist;
 import org.sosy_lab.cpachecker.util.statistics.StatKind;
 import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
@@ -41,7 +42,9 @@ class AutomatonStatistics implements Statistics {
   ThreadSafeTimerContainer assertionsTime      = new ThreadSafeTimerContainer("Time for transition assertions");
   ThreadSafeTimerContainer actionTime          = new ThreadSafeTimerContainer("Time for transition actions");
   ThreadSafeTimerContainer totalStrengthenTime = new ThreadSafeTimerContainer("Total time for strengthen operator");
+  ThreadSafeTimerContainer indexTime           = new ThreadSafeTimerContainer("Time for transition index lookups");
   StatIntHist automatonSuccessors = new StatIntHist(StatKind.AVG, "Automaton transfer successors");
+  StatInt skippedTransitions = new StatInt(StatKind.SUM, "Transitions skipped by index");
 
   public AutomatonStatistics(ControlAutomatonCPA pCpa) {
     mCpa = pCpa;
@@ -63,6 +66,9 @@ class AutomatonStatistics implements Statistics {
       put(out, 1, matchTime);
       put(out, 1, assertionsTime);
       put(out, 1, actionTime);
+      if (indexTime.getUpdateCount() > 0) {
+        put(out, 1, indexTime);
+      }
     }
 
     if (totalStrengthenTime.getUpdateCount() > 0) {
@@ -75,5 +81,8 @@ class AutomatonStatistics implements Statistics {
             - automatonSuccessors.getTimesWithValue(1);
     put(out, 0, "Automaton transfers with branching", stateBranchings);
     put(out, 0, automatonSuccessors);
+    if (skippedTransitions.getUpdateCount() > 0) {
+      put(out, 0, skippedTransitions);
+    }
   }
 }
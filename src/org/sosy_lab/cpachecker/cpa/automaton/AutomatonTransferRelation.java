@@ -35,6 +35,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -45,6 +46,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.ast.AAstNode;
 import org.sosy_lab.cpachecker.cfa.ast.AExpression;
@@ -62,6 +64,7 @@ import org.sosy_lab.cpachecker.cpa.threading.ThreadingState;
 import org.sosy_lab.cpachecker.cpa.threading.ThreadingTransferRelation;
 import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
 import org.sosy_lab.cpachecker.util.statistics.StatIntHist;
 import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
@@ -79,7 +82,9 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
   private final TimerWrapper assertionsTime;
   private final TimerWrapper actionTime;
   private final TimerWrapper totalStrengthenTime;
+  private final TimerWrapper indexTime;
   private final StatIntHist automatonSuccessors;
+  private final StatInt skippedTransitions;
 
   public AutomatonTransferRelation(
       ControlAutomatonCPA pCpa, LogManager pLogger, MachineModel pMachineModel) {
@@ -92,7 +97,9 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
     assertionsTime = pCpa.stats.assertionsTime.getNewTimer();
     actionTime = pCpa.stats.actionTime.getNewTimer();
     totalStrengthenTime = pCpa.stats.totalStrengthenTime.getNewTimer();
+    indexTime = pCpa.stats.indexTime.getNewTimer();
     automatonSuccessors = pCpa.stats.automatonSuccessors;
+    skippedTransitions = pCpa.stats.skippedTransitions;
   }
 
   @Override
@@ -183,7 +190,20 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
     List<Pair<AutomatonTransition, Map<Integer, AAstNode>>> transitionsToBeTaken =
         new ArrayList<>(2);
 
-    for (AutomatonTransition t : state.getInternalState().getTransitions()) {
+    List<AutomatonTransition> transitions = state.getInternalState().getTransitions();
+    AutomatonTransitionIndex index = state.getInternalState().getTransitionIndex();
+    BitSet candidates = null;
+    if (index != null) {
+      indexTime.start();
+      candidates = index.getCandidates(exprArgs);
+      indexTime.stop();
+      skippedTransitions.setNextValue(transitions.size() - candidates.cardinality());
+    }
+
+    // transitions that are not candidates of the index do not match, count them as failed
+    int position = -1;
+    while ((position = nextTransition(position, transitions, candidates)) >= 0) {
+      AutomatonTransition t = transitions.get(position);
       exprArgs.clearTransitionVariables();
 
       matchTime.start();
@@ -244,6 +264,9 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
 
           if (!nonDetState) {
             // not a nondet State, break on the first matching edge
+            if (candidates != null) {
+              failedMatches += position - candidates.get(0, position).cardinality();
+            }
             break;
           }
         } else {
@@ -253,6 +276,10 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
       }
     }
 
+    if (candidates != null && (nonDetState || !edgeMatched)) {
+      failedMatches += transitions.size() - candidates.cardinality();
+    }
+
     if (edgeMatched) {
       // execute Transitions
       for (Pair<AutomatonTransition, Map<Integer, AAstNode>> pair : transitionsToBeTaken) {
@@ -301,6 +328,18 @@ class AutomatonTransferRelation extends SingleEdgeTransferRelation {
     }
   }
 
+  /**
+   * Return the position of the next transition that needs to be evaluated after the given position,
+   * or -1 if there is none.
+   */
+  private static int nextTransition(
+      int pPosition, List<AutomatonTransition> pTransitions, @Nullable BitSet pCandidates) {
+    if (pCandidates != null) {
+      return pCandidates.nextSetBit(pPosition + 1);
+    }
+    return pPosition + 1 < pTransitions.size() ? pPosition + 1 : -1;
+  }
+
   private static Map<String, AutomatonVariable> deepCloneVars(Map<String, AutomatonVariable> pOld) {
     Map<String, AutomatonVariable> result = Maps.newHashMapWithExpectedSize(pOld.size());
     for (Entry<String, AutomatonVariable> e : pOld.entrySet()) {
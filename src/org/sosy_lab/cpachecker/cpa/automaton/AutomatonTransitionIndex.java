@@ -0,0 +1,234 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.model.AssumeEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.And;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchAssumeCase;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchFunctionCall;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchFunctionPointerAssumeCase;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchLocationDescriptor;
+import org.sosy_lab.cpachecker.cpa.automaton.SourceLocationMatcher.LineMatcher;
+import org.sosy_lab.cpachecker.cpa.automaton.SourceLocationMatcher.OffsetMatcher;
+
+/**
+ * Index over the outgoing transitions of an automaton state, which determines for a CFA edge the
+ * transitions whose trigger may match this edge. The triggers of all other transitions are
+ * guaranteed to evaluate to false for the edge, so they do not need to be evaluated.
+ *
+ * <p>The index is built from necessary conditions of the triggers that are cheap to check: the
+ * source lines or character offsets of the edge (as matched by witness automata), the name of the
+ * entered function, and whether the edge is an assume edge. Transitions without such a condition
+ * are always candidates.
+ */
+final class AutomatonTransitionIndex {
+
+  /** States with fewer outgoing transitions are not indexed. */
+  static final int MIN_TRANSITIONS = 8;
+
+  private final int numTransitions;
+
+  /** Transitions without an indexed condition. */
+  private final BitSet unindexed = new BitSet();
+
+  /** Whether transitions are indexed by the file locations of edges. */
+  private boolean indexesLocations = false;
+
+  /** The main entry for computing the file locations of edges. */
+  private @Nullable FunctionEntryNode mainEntry = null;
+
+  private final IntervalIndex originLines = new IntervalIndex();
+  private final IntervalIndex lines = new IntervalIndex();
+  private final IntervalIndex offsets = new IntervalIndex();
+  private final Map<String, BitSet> enteredFunctions = new HashMap<>();
+  private final BitSet assumeEdgesOnly = new BitSet();
+
+  AutomatonTransitionIndex(List<AutomatonTransition> pTransitions) {
+    numTransitions = pTransitions.size();
+    for (int i = 0; i < numTransitions; i++) {
+      if (!addToIndex(pTransitions.get(i).getTrigger(), i)) {
+        unindexed.set(i);
+      }
+    }
+    originLines.build();
+    lines.build();
+    offsets.build();
+  }
+
+  /**
+   * Return the positions of all transitions that may match the given edge. The transitions at all
+   * other positions do not match.
+   */
+  BitSet getCandidates(AutomatonExpressionArguments pArgs) {
+    BitSet result = (BitSet) unindexed.clone();
+    CFAEdge edge = pArgs.getCfaEdge();
+    if (indexesLocations) {
+      for (FileLocation location : pArgs.getFileLocationsOfCfaEdge(mainEntry)) {
+        originLines.collect(
+            location.getStartingLineInOrigin(), location.getEndingLineInOrigin(), result);
+        lines.collect(location.getStartingLineNumber(), location.getEndingLineNumber(), result);
+        offsets.collect(
+            location.getNodeOffset(),
+            location.getNodeOffset() + location.getNodeLength() - 1,
+            result);
+      }
+    }
+    BitSet entered = enteredFunctions.get(edge.getSuccessor().getFunctionName());
+    if (entered != null) {
+      result.or(entered);
+    }
+    if (edge instanceof AssumeEdge) {
+      result.or(assumeEdgesOnly);
+    }
+    return result;
+  }
+
+  int getNumberOfTransitions() {
+    return numTransitions;
+  }
+
+  /**
+   * Add the transition at the given position to the index based on a necessary condition of its
+   * trigger. Conditions on locations are preferred because they are the most selective ones.
+   *
+   * @return whether a necessary condition was found
+   */
+  private boolean addToIndex(AutomatonBoolExpr pTrigger, int pPosition) {
+    return addLocationToIndex(pTrigger, pPosition) || addEdgeToIndex(pTrigger, pPosition);
+  }
+
+  private boolean addLocationToIndex(AutomatonBoolExpr pTrigger, int pPosition) {
+    if (pTrigger instanceof And) {
+      // a conjunction is false if one of its operands is false, even if the other one is unknown
+      And and = (And) pTrigger;
+      return addLocationToIndex(and.a, pPosition) || addLocationToIndex(and.b, pPosition);
+    }
+    if (!(pTrigger instanceof MatchLocationDescriptor)) {
+      return false;
+    }
+    MatchLocationDescriptor descriptor = (MatchLocationDescriptor) pTrigger;
+    if (indexesLocations && mainEntry != descriptor.getMainEntry()) {
+      return false;
+    }
+    Predicate<FileLocation> matcher = descriptor.getMatchDescriptor();
+    if (matcher instanceof LineMatcher) {
+      LineMatcher lineMatcher = (LineMatcher) matcher;
+      (lineMatcher.isOrigin() ? originLines : lines)
+          .add(lineMatcher.getStartLineNumber(), lineMatcher.getEndLineNumber(), pPosition);
+    } else if (matcher instanceof OffsetMatcher) {
+      OffsetMatcher offsetMatcher = (OffsetMatcher) matcher;
+      offsets.add(offsetMatcher.getStartOffset(), offsetMatcher.getEndOffset(), pPosition);
+    } else {
+      return false;
+    }
+    mainEntry = descriptor.getMainEntry();
+    indexesLocations = true;
+    return true;
+  }
+
+  private boolean addEdgeToIndex(AutomatonBoolExpr pTrigger, int pPosition) {
+    if (pTrigger instanceof And) {
+      And and = (And) pTrigger;
+      return addEdgeToIndex(and.a, pPosition) || addEdgeToIndex(and.b, pPosition);
+    }
+    if (pTrigger instanceof MatchFunctionCall) {
+      String function = ((MatchFunctionCall) pTrigger).getFunctionName();
+      enteredFunctions.computeIfAbsent(function, k -> new BitSet()).set(pPosition);
+      return true;
+    }
+    if (pTrigger instanceof MatchFunctionPointerAssumeCase) {
+      pTrigger = ((MatchFunctionPointerAssumeCase) pTrigger).getMatchAssumeCase();
+    }
+    if (pTrigger instanceof MatchAssumeCase
+        && !((MatchAssumeCase) pTrigger).matchesPositiveCase()) {
+      // the positive case also matches some blank edges, cf. treatAsWhileTrue
+      assumeEdgesOnly.set(pPosition);
+      return true;
+    }
+    return false;
+  }
+
+  /** Closed integer intervals, each associated with the position of a transition. */
+  private static final class IntervalIndex {
+
+    private List<int[]> entries = new ArrayList<>();
+    private int[] starts = new int[0];
+    private int[] ends = new int[0];
+    private int[] positions = new int[0];
+    private int maxLength = 0;
+
+    void add(int pStart, int pEnd, int pPosition) {
+      entries.add(new int[] {pStart, pEnd, pPosition});
+    }
+
+    void build() {
+      entries.sort(Comparator.comparingInt(e -> e[0]));
+      int size = entries.size();
+      starts = new int[size];
+      ends = new int[size];
+      positions = new int[size];
+      for (int i = 0; i < size; i++) {
+        int[] entry = entries.get(i);
+        starts[i] = entry[0];
+        ends[i] = entry[1];
+        positions[i] = entry[2];
+        maxLength = Math.max(maxLength, entry[1] - entry[0]);
+      }
+      entries = null;
+    }
+
+    /** Add the positions of all intervals that overlap with the given interval to the result. */
+    void collect(int pStart, int pEnd, BitSet pResult) {
+      if (starts.length == 0) {
+        return;
+      }
+      // intervals starting before this index are too short to reach pStart
+      int i = Arrays.binarySearch(starts, pStart - maxLength);
+      if (i < 0) {
+        i = -i - 1;
+      } else {
+        while (i > 0 && starts[i - 1] == starts[i]) {
+          i--;
+        }
+      }
+      for (; i < starts.length && starts[i] <= pEnd; i++) {
+        if (ends[i] >= pStart) {
+          pResult.set(positions[i]);
+        }
+      }
+    }
+  }
+}
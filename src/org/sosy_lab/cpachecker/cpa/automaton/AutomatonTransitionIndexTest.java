@@ -0,0 +1,148 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Test;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.ast.c.CIntegerLiteralExpression;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.c.CAssumeEdge;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.And;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchAssumeCase;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.MatchLocationDescriptor;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonBoolExpr.Negation;
+import org.sosy_lab.cpachecker.cpa.automaton.SourceLocationMatcher.LineMatcher;
+import org.sosy_lab.cpachecker.cpa.automaton.SourceLocationMatcher.OffsetMatcher;
+import org.sosy_lab.cpachecker.exceptions.CPATransferException;
+
+public class AutomatonTransitionIndexTest {
+
+  private static final int LINES = 50;
+  private static final int CHARS_PER_LINE = 20;
+
+  private final LogManager logger = LogManager.createTestLogManager();
+
+  private static AutomatonTransition transition(AutomatonBoolExpr pTrigger) {
+    return new AutomatonTransition(
+        pTrigger, ImmutableList.of(), ImmutableList.of(), AutomatonInternalState.BOTTOM);
+  }
+
+  private static AutomatonBoolExpr matchLines(int pStart, int pEnd) {
+    return new MatchLocationDescriptor(null, new LineMatcher(Optional.empty(), pStart, pEnd));
+  }
+
+  private static AutomatonBoolExpr matchOffsets(int pStart, int pEnd) {
+    return new MatchLocationDescriptor(null, new OffsetMatcher(Optional.empty(), pStart, pEnd));
+  }
+
+  private static CFAEdge assumeEdge(int pStartLine, int pEndLine, boolean pTruth) {
+    int offset = (pStartLine - 1) * CHARS_PER_LINE;
+    int length = (pEndLine - pStartLine + 1) * CHARS_PER_LINE;
+    FileLocation location =
+        new FileLocation(
+            "test.c", "test.c", offset, length, pStartLine, pEndLine, pStartLine, pEndLine);
+    return new CAssumeEdge(
+        "x",
+        location,
+        new CFANode("main"),
+        new CFANode("main"),
+        CIntegerLiteralExpression.ONE,
+        pTruth);
+  }
+
+  private List<AutomatonTransition> createTransitions() {
+    List<AutomatonTransition> transitions = new ArrayList<>();
+    for (int line = 1; line <= LINES; line++) {
+      AutomatonBoolExpr trigger = matchLines(line, line);
+      if (line % 3 == 0) {
+        // the location matcher is not the first operand
+        trigger = new And(new MatchAssumeCase(true), trigger);
+      }
+      transitions.add(transition(trigger));
+    }
+    transitions.add(transition(matchLines(10, 20)));
+    transitions.add(transition(matchOffsets(5 * CHARS_PER_LINE, 5 * CHARS_PER_LINE + 3)));
+    transitions.add(transition(new MatchAssumeCase(false)));
+    transitions.add(transition(new Negation(matchLines(1, 1))));
+    transitions.add(transition(AutomatonBoolExpr.TRUE));
+    return transitions;
+  }
+
+  @Test
+  public void testCandidatesContainAllMatchingTransitions() throws CPATransferException {
+    List<AutomatonTransition> transitions = createTransitions();
+    AutomatonTransitionIndex index = new AutomatonTransitionIndex(transitions);
+    assertThat(index.getNumberOfTransitions()).isEqualTo(transitions.size());
+
+    for (int start = 1; start <= LINES; start++) {
+      for (int end = start; end <= Math.min(start + 3, LINES); end++) {
+        for (boolean truth : new boolean[] {true, false}) {
+          AutomatonExpressionArguments args =
+              new AutomatonExpressionArguments(
+                  null, null, null, assumeEdge(start, end, truth), logger);
+          BitSet candidates = index.getCandidates(args);
+          for (int i = 0; i < transitions.size(); i++) {
+            if (!candidates.get(i)) {
+              assertThat(transitions.get(i).match(args).getValue()).isFalse();
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testCandidatesAreSelective() {
+    List<AutomatonTransition> transitions = createTransitions();
+    AutomatonTransitionIndex index = new AutomatonTransitionIndex(transitions);
+
+    AutomatonExpressionArguments args =
+        new AutomatonExpressionArguments(null, null, null, assumeEdge(30, 30, true), logger);
+    // line 30, the negative assume case, the negation and TRUE
+    assertThat(toList(index.getCandidates(args)))
+        .containsExactly(29, LINES + 2, LINES + 3, LINES + 4)
+        .inOrder();
+
+    args = new AutomatonExpressionArguments(null, null, null, assumeEdge(6, 6, false), logger);
+    // line 6, the offset of line 6, the negative assume case, the negation and TRUE
+    assertThat(toList(index.getCandidates(args)))
+        .containsExactly(5, LINES + 1, LINES + 2, LINES + 3, LINES + 4)
+        .inOrder();
+  }
+
+  private static List<Integer> toList(BitSet pBits) {
+    List<Integer> result = new ArrayList<>();
+    pBits.stream().forEach(result::add);
+    return result;
+  }
+}
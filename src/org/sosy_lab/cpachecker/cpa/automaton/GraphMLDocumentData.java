@@ -0,0 +1,356 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonGraphmlParser.WitnessParseException;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.ElementType;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMLTag;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeFlag;
+
+/**
+ * The graph, nodes, and edges of a GraphML witness. The document is read with a streaming XML
+ * parser and only the attributes and data values of these elements are kept, which needs much less
+ * memory than a DOM of the whole document. The whole document needs to be read before the automaton
+ * can be built, because edges may refer to nodes that are defined later on.
+ */
+class GraphMLDocumentData {
+
+  static final String TOO_MANY_GRAPHS_ERROR_MESSAGE =
+      "The witness file must describe exactly one witness automaton.";
+
+  /** Key of the data element that was used instead of {@link KeyDef#WITNESS_TYPE} in the past. */
+  private static final String LEGACY_WITNESS_TYPE_KEY = "type";
+
+  private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+  /**
+   * A graph, node, or edge element of the document, with its attributes and the data elements
+   * contained in it (at any depth), in document order.
+   */
+  static final class GraphMLElement {
+
+    private final String tagName;
+    private final ImmutableMap<String, String> attributes;
+    private final List<String> dataKeys = new ArrayList<>(2);
+    private final List<String> dataValues = new ArrayList<>(2);
+
+    private GraphMLElement(String pTagName, ImmutableMap<String, String> pAttributes) {
+      tagName = pTagName;
+      attributes = pAttributes;
+    }
+
+    @Nullable String getAttribute(String pName) {
+      return attributes.get(pName);
+    }
+
+    @Override
+    public String toString() {
+      return tagName + attributes;
+    }
+  }
+
+  private final GraphMLElement graph;
+
+  final ImmutableMap<String, GraphMLElement> idToNodeMap;
+
+  private final ImmutableList<GraphMLElement> transitions;
+
+  private GraphMLDocumentData(
+      GraphMLElement pGraph,
+      ImmutableMap<String, GraphMLElement> pIdToNodeMap,
+      ImmutableList<GraphMLElement> pTransitions) {
+    graph = pGraph;
+    idToNodeMap = pIdToNodeMap;
+    transitions = pTransitions;
+  }
+
+  /**
+   * Read a GraphML witness.
+   *
+   * @param pInputStream the (uncompressed) witness.
+   * @param pGraphOnly whether only the graph element and its data are of interest, such that nodes
+   *     and edges do not need to be kept.
+   */
+  static GraphMLDocumentData parse(InputStream pInputStream, boolean pGraphOnly)
+      throws WitnessParseException, IOException {
+    XMLStreamReader reader;
+    try {
+      reader = INPUT_FACTORY.createXMLStreamReader(pInputStream);
+    } catch (XMLStreamException e) {
+      throw toException(e);
+    }
+    try {
+      return parse(reader, pGraphOnly);
+    } catch (XMLStreamException e) {
+      throw toException(e);
+    } finally {
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        // nothing left to read, ignore
+      }
+    }
+  }
+
+  private static GraphMLDocumentData parse(XMLStreamReader pReader, boolean pGraphOnly)
+      throws XMLStreamException, WitnessParseException {
+    final String graphTag = GraphMLTag.GRAPH.toString();
+    final String nodeTag = GraphMLTag.NODE.toString();
+    final String edgeTag = GraphMLTag.EDGE.toString();
+    final String dataTag = GraphMLTag.DATA.toString();
+    final Set<String> graphKeys = getGraphKeys();
+
+    // The same keys and attribute names occur over and over again, so share the strings.
+    Map<String, String> sharedStrings = new HashMap<>();
+
+    GraphMLElement graph = null;
+    ImmutableMap.Builder<String, GraphMLElement> idToNodeMapBuilder = ImmutableMap.builder();
+    ImmutableList.Builder<GraphMLElement> transitionsBuilder = ImmutableList.builder();
+
+    // the open graph, node, and edge elements, and for each open element whether it is one of them
+    Deque<GraphMLElement> openElements = new ArrayDeque<>();
+    Deque<Boolean> isRecorded = new ArrayDeque<>();
+    StringBuilder text = new StringBuilder();
+
+    while (pReader.hasNext()) {
+      int event = pReader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        String tagName = getQualifiedName(pReader.getName());
+        if (tagName.equals(dataTag)) {
+          String key = getAttributeValue(pReader, "key");
+          Preconditions.checkNotNull(key, "Every data element must have a key attribute!");
+          key = sharedStrings.computeIfAbsent(key, k -> k);
+          String value = readText(pReader, text);
+          for (GraphMLElement element : openElements) {
+            if (element != graph || graphKeys.contains(key)) {
+              element.dataKeys.add(key);
+              element.dataValues.add(value);
+            }
+          }
+          // readText consumed the end of the data element
+          continue;
+        }
+        GraphMLElement element = null;
+        if (tagName.equals(graphTag)) {
+          checkParsable(graph == null, TOO_MANY_GRAPHS_ERROR_MESSAGE);
+          element = graph = new GraphMLElement(graphTag, getAttributes(pReader, sharedStrings));
+        } else if (!pGraphOnly && tagName.equals(nodeTag)) {
+          element = new GraphMLElement(nodeTag, getAttributes(pReader, sharedStrings));
+          String stateId =
+              getAttributeValue(element, "id", "Every state needs an ID!");
+          idToNodeMapBuilder.put(stateId, element);
+        } else if (!pGraphOnly && tagName.equals(edgeTag)) {
+          element = new GraphMLElement(edgeTag, getAttributes(pReader, sharedStrings));
+          transitionsBuilder.add(element);
+        }
+        if (element != null) {
+          openElements.push(element);
+        }
+        isRecorded.push(element != null);
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        if (isRecorded.pop()) {
+          openElements.pop();
+        }
+      }
+    }
+    checkParsable(graph != null, TOO_MANY_GRAPHS_ERROR_MESSAGE);
+
+    return new GraphMLDocumentData(
+        graph, idToNodeMapBuilder.build(), transitionsBuilder.build());
+  }
+
+  /** Read the text content of the current element, including the text of nested elements. */
+  private static String readText(XMLStreamReader pReader, StringBuilder pBuffer)
+      throws XMLStreamException {
+    pBuffer.setLength(0);
+    int depth = 1;
+    while (depth > 0) {
+      int event = pReader.next();
+      switch (event) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+        case XMLStreamConstants.ENTITY_REFERENCE:
+          pBuffer.append(pReader.getText());
+          break;
+        default:
+          // comments and processing instructions are not part of the text content
+      }
+    }
+    return pBuffer.toString();
+  }
+
+  private static ImmutableMap<String, String> getAttributes(
+      XMLStreamReader pReader, Map<String, String> pSharedStrings) {
+    int count = pReader.getAttributeCount();
+    if (count == 0) {
+      return ImmutableMap.of();
+    }
+    ImmutableMap.Builder<String, String> result = ImmutableMap.builder();
+    for (int i = 0; i < count; i++) {
+      String name = getQualifiedName(pReader.getAttributeName(i));
+      result.put(pSharedStrings.computeIfAbsent(name, n -> n), pReader.getAttributeValue(i));
+    }
+    return result.build();
+  }
+
+  private static @Nullable String getAttributeValue(XMLStreamReader pReader, String pName) {
+    for (int i = 0; i < pReader.getAttributeCount(); i++) {
+      if (getQualifiedName(pReader.getAttributeName(i)).equals(pName)) {
+        return pReader.getAttributeValue(i);
+      }
+    }
+    return null;
+  }
+
+  /** Names are compared including their prefix, as it was done when witnesses were read as DOM. */
+  private static String getQualifiedName(QName pName) {
+    String prefix = pName.getPrefix();
+    if (prefix == null || prefix.isEmpty()) {
+      return pName.getLocalPart();
+    }
+    return prefix + ":" + pName.getLocalPart();
+  }
+
+  private static Set<String> getGraphKeys() {
+    Set<String> result = Sets.newHashSet(LEGACY_WITNESS_TYPE_KEY);
+    for (KeyDef keyDef : KeyDef.values()) {
+      if (keyDef.keyFor == ElementType.GRAPH) {
+        result.add(keyDef.id);
+      }
+    }
+    return result;
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return factory;
+  }
+
+  /** Unwrap I/O errors, such that reading a plain witness is retried if it is not gzipped. */
+  private static IOException toException(XMLStreamException pException)
+      throws WitnessParseException {
+    Throwable cause = pException.getNestedException();
+    if (cause == null) {
+      cause = pException.getCause();
+    }
+    if (cause instanceof IOException) {
+      return (IOException) cause;
+    }
+    throw new WitnessParseException(pException);
+  }
+
+  private static void checkParsable(boolean pParsable, String pMessage)
+      throws WitnessParseException {
+    if (!pParsable) {
+      throw new WitnessParseException(pMessage);
+    }
+  }
+
+  GraphMLElement getGraph() {
+    return graph;
+  }
+
+  Iterable<GraphMLElement> getTransitions() {
+    return transitions;
+  }
+
+  EnumSet<NodeFlag> getNodeFlags(GraphMLElement pStateNode) {
+    EnumSet<NodeFlag> result = EnumSet.noneOf(NodeFlag.class);
+    for (String key : pStateNode.dataKeys) {
+      NodeFlag flag = NodeFlag.getNodeFlagByKey(key);
+      if (flag != null) {
+        result.add(flag);
+      }
+    }
+    return result;
+  }
+
+  static String getAttributeValue(
+      GraphMLElement of, String attributeName, String exceptionMessage)
+      throws WitnessParseException {
+    String attribute = of.getAttribute(attributeName);
+    if (attribute == null) {
+      throw new WitnessParseException(exceptionMessage);
+    }
+    return attribute;
+  }
+
+  @Nullable GraphMLElement getNodeWithId(String nodeId) {
+    return idToNodeMap.get(nodeId);
+  }
+
+  static Set<String> getDataOnNode(GraphMLElement node, final KeyDef dataKey) {
+    Preconditions.checkNotNull(node);
+    Set<String> result = Sets.newHashSet();
+    Set<String> alternative = null;
+    for (int i = 0; i < node.dataKeys.size(); i++) {
+      String nodeKey = node.dataKeys.get(i);
+      if (nodeKey.equals(dataKey.id)) {
+        result.add(node.dataValues.get(i));
+        alternative = null;
+      }
+      // Backwards-compatibility: type/graph-type
+      if (alternative == null
+          && result.isEmpty()
+          && dataKey.equals(KeyDef.WITNESS_TYPE)
+          && nodeKey.equals(LEGACY_WITNESS_TYPE_KEY)) {
+        alternative = Sets.newHashSet();
+        alternative.add(node.dataValues.get(i));
+      }
+    }
+    if (result.isEmpty() && alternative != null) {
+      return alternative;
+    }
+    return result;
+  }
+}
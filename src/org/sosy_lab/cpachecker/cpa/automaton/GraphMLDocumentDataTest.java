@@ -0,0 +1,114 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.automaton;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.Iterables;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cpa.automaton.AutomatonGraphmlParser.WitnessParseException;
+import org.sosy_lab.cpachecker.cpa.automaton.GraphMLDocumentData.GraphMLElement;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeFlag;
+
+public class GraphMLDocumentDataTest {
+
+  private static final String HEADER =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n"
+          + "<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n";
+
+  private static InputStream toStream(String pDocument) {
+    return new ByteArrayInputStream(pDocument.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testElementsAndData() throws Exception {
+    String witness =
+        HEADER
+            + " <graph edgedefault=\"directed\" name=\"w\">\n"
+            + "  <data key=\"type\">violation_witness</data>\n"
+            + "  <data key=\"witness-type\">correctness_witness</data>\n"
+            + "  <data key=\"producer\">some &amp; <![CDATA[tool]]></data>\n"
+            + "  <node id=\"N0\">\n"
+            + "   <data key=\"entry\">true</data>\n"
+            + "   <data key=\"invariant\">x &lt; 1</data>\n"
+            + "  </node>\n"
+            + "  <!-- comment -->\n"
+            + "  <node id=\"N1\"/>\n"
+            + "  <edge source=\"N0\" target=\"N1\" id=\"E0\">\n"
+            + "   <data key=\"startline\">7</data>\n"
+            + "   <data key=\"startline\">8</data>\n"
+            + "  </edge>\n"
+            + " </graph>\n"
+            + "</graphml>\n";
+    GraphMLDocumentData doc = GraphMLDocumentData.parse(toStream(witness), false);
+
+    GraphMLElement graph = doc.getGraph();
+    assertThat(graph.getAttribute("name")).isEqualTo("w");
+    assertThat(GraphMLDocumentData.getDataOnNode(graph, KeyDef.WITNESS_TYPE))
+        .containsExactly("correctness_witness");
+    assertThat(GraphMLDocumentData.getDataOnNode(graph, KeyDef.PRODUCER))
+        .containsExactly("some & tool");
+    // data of nodes and edges is not attached to the graph
+    assertThat(GraphMLDocumentData.getDataOnNode(graph, KeyDef.INVARIANT)).isEmpty();
+
+    assertThat(doc.idToNodeMap.keySet()).containsExactly("N0", "N1").inOrder();
+    GraphMLElement entry = doc.getNodeWithId("N0");
+    assertThat(doc.getNodeFlags(entry)).containsExactly(NodeFlag.ISENTRY);
+    assertThat(GraphMLDocumentData.getDataOnNode(entry, KeyDef.INVARIANT)).containsExactly("x < 1");
+    assertThat(doc.getNodeFlags(doc.getNodeWithId("N1"))).isEmpty();
+    assertThat(doc.getNodeWithId("E0")).isNull();
+
+    GraphMLElement edge = Iterables.getOnlyElement(doc.getTransitions());
+    assertThat(GraphMLDocumentData.getAttributeValue(edge, "source", "")).isEqualTo("N0");
+    assertThat(GraphMLDocumentData.getAttributeValue(edge, "target", "")).isEqualTo("N1");
+    assertThat(GraphMLDocumentData.getDataOnNode(edge, KeyDef.STARTLINE))
+        .containsExactly("7", "8");
+  }
+
+  @Test
+  public void testLegacyWitnessType() throws Exception {
+    String witness =
+        HEADER
+            + "<graph><data key=\"type\">correctness_witness</data><node id=\"A\"/></graph>"
+            + "</graphml>";
+    GraphMLDocumentData doc = GraphMLDocumentData.parse(toStream(witness), true);
+    assertThat(GraphMLDocumentData.getDataOnNode(doc.getGraph(), KeyDef.WITNESS_TYPE))
+        .containsExactly("correctness_witness");
+    assertThat(doc.idToNodeMap).isEmpty();
+  }
+
+  @Test(expected = WitnessParseException.class)
+  public void testTwoGraphs() throws Exception {
+    GraphMLDocumentData.parse(toStream(HEADER + "<graph/><graph/></graphml>"), false);
+  }
+
+  @Test(expected = WitnessParseException.class)
+  public void testMalformed() throws Exception {
+    GraphMLDocumentData.parse(toStream(HEADER + "<graph><node id=\"A\"></graph>"), false);
+  }
+}
@@ -25,9 +25,14 @@ package org.sosy_lab.cpachecker.cpa.bam;
 
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collection;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -43,12 +48,13 @@ import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.CPAFactory;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysis;
 import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
 import org.sosy_lab.cpachecker.core.interfaces.StopOperator;
 import org.sosy_lab.cpachecker.core.interfaces.pcc.ProofChecker;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSetFactory;
 import org.sosy_lab.cpachecker.cpa.arg.ARGState;
-import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMBlockSummaryStore;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheAggressiveImpl;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheImpl;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMDataManager;
@@ -67,6 +73,7 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
   private final ProofChecker wrappedProofChecker;
   private final BAMDataManager data;
   private final BAMPCCManager bamPccManager;
+  private final @Nullable BAMBlockSummaryStore summaryStore;
 
   @Option(name = "handleRecursiveProcedures", secure = true,
       description = "BAM allows to analyse recursive procedures. This strongly depends on the underlying CPA. "
@@ -83,6 +90,17 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
   @Option(description = "Should the nested CPA-algorithm be wrapped with CEGAR within BAM?")
   private boolean useCEGAR = false;
 
+  @Option(
+    name = "summaryStore.directory",
+    description =
+        "Directory for a persistent store of block summaries that is reused across runs "
+            + "(disabled if not set). Summaries are only reused for unchanged blocks "
+            + "and the same configuration. In order to share the store between runs "
+            + "with different output directories, specify an absolute path."
+  )
+  @FileOption(FileOption.Type.OUTPUT_DIRECTORY)
+  private @Nullable Path summaryStoreDirectory = null;
+
   private BAMCPA(
       ConfigurableProgramAnalysis pCpa,
       Configuration config,
@@ -101,7 +119,7 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
       this.wrappedProofChecker = null;
     }
 
-    final BAMCache cache;
+    final BAMCacheImpl cache;
     if (aggressiveCaching) {
       cache = new BAMCacheAggressiveImpl(config, getReducer(), logger);
     } else {
@@ -109,6 +127,44 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
     }
     data = new BAMDataManagerImpl(cache, pReachedSetFactory, pLogger);
 
+    if (cache.isBounded()) {
+      // evicted blocks have no ARG and need to be re-analyzed for counterexamples
+      if (handleRecursiveProcedures || useCopyOnWriteRefinement()) {
+        throw new InvalidConfigurationException(
+            "A bounded BAM cache cannot be used for recursive procedures "
+                + "or with copy-on-write refinement.");
+      }
+      // Only the BAM-based refiners re-analyze evicted blocks. Without refinement, the
+      // counterexample of a violation through an evicted block could not be exported.
+      if (!Boolean.parseBoolean(config.getProperty("analysis.algorithm.CEGAR"))) {
+        throw new InvalidConfigurationException(
+            "A bounded BAM cache (cpa.bam.cache.maxStates) requires CEGAR "
+                + "with a BAM-based refiner, which re-analyzes evicted blocks.");
+      }
+    }
+
+    if (summaryStoreDirectory != null) {
+      if (handleRecursiveProcedures) {
+        throw new InvalidConfigurationException(
+            "Persistent block summaries are not supported for recursive procedures.");
+      }
+      if (useCopyOnWriteRefinement()) {
+        // loaded summaries have no ARG and need to be re-analyzed for counterexamples
+        throw new InvalidConfigurationException(
+            "Persistent block summaries cannot be used with copy-on-write refinement.");
+      }
+      try {
+        summaryStore =
+            new BAMBlockSummaryStore(
+                summaryStoreDirectory, getConfigurationDescription(config), logger);
+      } catch (IOException e) {
+        throw new InvalidConfigurationException(
+            "Cannot create directory for block summaries: " + e.getMessage(), e);
+      }
+    } else {
+      summaryStore = null;
+    }
+
     bamPccManager = new BAMPCCManager(
         wrappedProofChecker,
         config,
@@ -122,6 +178,15 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
       factory = new CEGARAlgorithmFactory(factory, this, logger, config);
     }
 
+    if (summaryStore != null && bamPccManager.isPCCEnabled()) {
+      throw new InvalidConfigurationException(
+          "Persistent block summaries cannot be used for proof generation.");
+    }
+    if (cache.isBounded() && bamPccManager.isPCCEnabled()) {
+      throw new InvalidConfigurationException(
+          "A bounded BAM cache cannot be used for proof generation.");
+    }
+
     if (handleRecursiveProcedures) {
       transfer =
           new BAMTransferRelationWithFixPointForRecursion(
@@ -131,6 +196,17 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
     }
   }
 
+  /** The configuration without output options, which do not influence the block summaries. */
+  private static String getConfigurationDescription(Configuration pConfig) {
+    StringBuilder result = new StringBuilder();
+    for (String line : Splitter.on('\n').split(pConfig.asPropertiesString())) {
+      if (!line.startsWith("output.") && !line.startsWith("cpa.bam.summaryStore.")) {
+        result.append(line).append('\n');
+      }
+    }
+    return result.toString();
+  }
+
   @Override
   public MergeOperator getMergeOperator() {
     return new BAMMergeOperator(getWrappedCpa().getMergeOperator(), bamPccManager);
@@ -165,6 +241,18 @@ public class BAMCPA extends AbstractBAMCPA implements StatisticsProvider, ProofC
     return bamPccManager;
   }
 
+  @Nullable BAMBlockSummaryStore getSummaryStore() {
+    return summaryStore;
+  }
+
+  @Override
+  public void collectStatistics(Collection<Statistics> pStatsCollection) {
+    if (summaryStore != null) {
+      pStatsCollection.add(summaryStore);
+    }
+    super.collectStatistics(pStatsCollection);
+  }
+
   @Override
   public boolean areAbstractSuccessors(AbstractState pState, CFAEdge pCfaEdge,
       Collection<? extends AbstractState> pSuccessors) throws CPATransferException, InterruptedException {
@@ -29,6 +29,9 @@ import java.util.List;
 import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheImpl;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCacheImpl.EvictionStatistics;
 
 /**
  * Prints some BAM related statistics
@@ -61,6 +64,17 @@ class BAMCPAStatistics implements Statistics {
     put(out, 0, cpa.reducerStatistics.reducePrecisionTime);
     put(out, 0, cpa.reducerStatistics.expandPrecisionTime);
 
+    BAMCache cache = cpa.getData().getCache();
+    if (cache instanceof BAMCacheImpl) {
+      EvictionStatistics evictionStats = ((BAMCacheImpl) cache).getEvictionStatistics();
+      if (evictionStats != null) {
+        put(out, 0, evictionStats.evictedBlocks);
+        put(out, 0, evictionStats.evictedStates);
+        put(out, 0, evictionStats.recomputedBlocks);
+        put(out, 0, evictionStats.evictionTime);
+      }
+    }
+
     for (BAMBasedRefiner refiner : refiners) {
       // TODO We print these statistics also for use-cases of BAM-refiners, that never use timers. Can we ignore them?
       out.println("\n" + refiner.getClass().getSimpleName() + ":");
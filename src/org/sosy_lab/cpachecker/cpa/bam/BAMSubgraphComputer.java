@@ -255,6 +255,18 @@ public class BAMSubgraphComputer {
       final ReachedSet reachedSet = entry.getKey();
       final BackwardARGState newInnerRoot;
       try {
+        if (BlockSummaryExitState.isLoadedSummary(reachedSet)) {
+          // the summary was loaded from a previous run, there is no ARG for the block
+          logger.log(Level.FINE, "Target state refers to a stored block summary, re-analyzing it.");
+          BlockSummaryExitState.removeLoadedSummary(reachedSet);
+          throw new MissingBlockException();
+        }
+        if (data.getCache().isEvicted(reachedSet)) {
+          // the ARG of the block was evicted from the cache to save memory
+          logger.log(Level.FINE, "Target state refers to an evicted block, re-analyzing it.");
+          data.getCache().prepareRecomputation(reachedSet);
+          throw new MissingBlockException();
+        }
         newInnerRoot =
             computeCounterexampleSubgraph(
                 new ARGReachedSet(reachedSet), newExpandedToNewInnerTargets.values());
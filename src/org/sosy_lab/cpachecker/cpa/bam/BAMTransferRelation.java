@@ -26,6 +26,8 @@ package org.sosy_lab.cpachecker.cpa.bam;
 import static org.sosy_lab.cpachecker.util.AbstractStates.isTargetState;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Iterables;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -48,6 +50,7 @@ import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMBlockSummaryStore;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache;
 import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
 import org.sosy_lab.cpachecker.cpa.callstack.CallstackCPA;
@@ -66,6 +69,7 @@ public class BAMTransferRelation extends AbstractBAMTransferRelation<CPAExceptio
 
   private final AlgorithmFactory algorithmFactory;
   protected final BAMPCCManager bamPccManager;
+  private final @Nullable BAMBlockSummaryStore summaryStore;
 
   // Callstack-CPA is used for additional recursion handling
   private final CallstackTransferRelation callstackTransfer;
@@ -85,6 +89,7 @@ public class BAMTransferRelation extends AbstractBAMTransferRelation<CPAExceptio
         CPAs.retrieveCPAOrFail(bamCpa, CallstackCPA.class, BAMTransferRelation.class)
             .getTransferRelation();
     bamPccManager = pBamPccManager;
+    summaryStore = bamCpa.getSummaryStore();
   }
 
   @Override
@@ -290,11 +295,18 @@ public class BAMTransferRelation extends AbstractBAMTransferRelation<CPAExceptio
       entry =
           data.createAndRegisterNewReachedSet(
               reducedInitialState, reducedInitialPrecision, innerSubtree);
-      logger.log(
-          Level.FINEST,
-          "Cache miss: starting recursive CPAAlgorithm with new initial reached-set.");
       reached = entry.getReachedSet();
-      reducedResult = performCompositeAnalysisWithCPAAlgorithm(reached, innerSubtree);
+      List<AbstractState> storedResult = loadSummary(reached, innerSubtree);
+      if (storedResult != null) {
+        logger.log(Level.FINEST, "Cache miss: reusing stored block summary of a previous run.");
+        reducedResult = storedResult;
+      } else {
+        logger.log(
+            Level.FINEST,
+            "Cache miss: starting recursive CPAAlgorithm with new initial reached-set.");
+        reducedResult = performCompositeAnalysisWithCPAAlgorithm(entry, innerSubtree);
+        storeSummary(reached, innerSubtree, reducedResult);
+      }
       assert reducedResult != null;
       statesForFurtherAnalysis = filterResultStatesForFurtherAnalysis(reducedResult, null);
 
@@ -319,8 +331,9 @@ public class BAMTransferRelation extends AbstractBAMTransferRelation<CPAExceptio
             Level.FINEST,
             "Partial cache hit: starting recursive CPAAlgorithm with partial reached-set with root",
             reached.getFirstState());
-        reducedResult = performCompositeAnalysisWithCPAAlgorithm(reached, innerSubtree);
+        reducedResult = performCompositeAnalysisWithCPAAlgorithm(entry, innerSubtree);
         Preconditions.checkNotNull(reducedResult);
+        storeSummary(reached, innerSubtree, reducedResult);
         statesForFurtherAnalysis =
             filterResultStatesForFurtherAnalysis(reducedResult, cachedReturnStates);
       }
@@ -346,6 +359,55 @@ public class BAMTransferRelation extends AbstractBAMTransferRelation<CPAExceptio
     return Pair.of(statesForFurtherAnalysis, reached);
   }
 
+  /**
+   * Fill the new reached-set of a block with the exit states of a summary from the persistent
+   * store, if available. The exit states are added as direct children of the root.
+   *
+   * @return the exit states or null if no summary is available
+   */
+  private @Nullable List<AbstractState> loadSummary(
+      final ReachedSet reached, final Block innerSubtree) {
+    if (summaryStore == null) {
+      return null;
+    }
+    final ARGState root = (ARGState) reached.getFirstState();
+    final Precision precision = reached.getPrecision(root);
+    final List<AbstractState> exitStates =
+        summaryStore.load(root.getWrappedState(), precision, innerSubtree);
+    if (exitStates == null) {
+      return null;
+    }
+
+    reached.removeOnlyFromWaitlist(root);
+    final List<AbstractState> result = new ArrayList<>(exitStates.size());
+    for (AbstractState exitState : exitStates) {
+      ARGState state = new BlockSummaryExitState(exitState, root);
+      reached.add(state, precision);
+      reached.removeOnlyFromWaitlist(state);
+      result.add(state);
+    }
+    return result;
+  }
+
+  /**
+   * Add the result of a completely analyzed block to the persistent store. Blocks with property
+   * violations are not stored, because the counterexample would need the ARG of the block.
+   */
+  private void storeSummary(
+      final ReachedSet reached, final Block innerSubtree, final List<AbstractState> exitStates) {
+    if (summaryStore == null
+        || reached.hasWaitingState()
+        || FluentIterable.from(reached).anyMatch(AbstractStates::isTargetState)) {
+      return;
+    }
+    final ARGState root = (ARGState) reached.getFirstState();
+    summaryStore.store(
+        root.getWrappedState(),
+        reached.getPrecision(root),
+        innerSubtree,
+        Collections2.transform(exitStates, s -> ((ARGState) s).getWrappedState()));
+  }
+
   /**
    * We try to get a smaller set of states for further analysis.
    *
@@ -362,20 +424,28 @@ public class BAMTransferRelation extends AbstractBAMTransferRelation<CPAExceptio
   }
 
   /**
-   * Analyse the block with a recursive call to the {@link CPAAlgorithm} on {@code reached}. May set
-   * {@code breakAnalysis} to indicate that the recursively forked analysis is wishing to break.
+   * Analyse the block with a recursive call to the {@link CPAAlgorithm} on the reached-set of the
+   * given cache entry. May set {@code breakAnalysis} to indicate that the recursively forked
+   * analysis is wishing to break. While the analysis runs, the entry is marked as active, such that
+   * the cache does not evict it.
    *
    * @return return states associated with the analysis.
    *     <p>NB: return states will be either {@link
    *     org.sosy_lab.cpachecker.core.interfaces.Targetable}, or associated with the block end.
    */
   private List<AbstractState> performCompositeAnalysisWithCPAAlgorithm(
-      final ReachedSet reached, final Block innerSubtree)
+      final BAMCacheEntry entry, final Block innerSubtree)
       throws InterruptedException, CPAException {
 
+    final ReachedSet reached = entry.getReachedSet();
     // CPAAlgorithm is not re-entrant due to statistics
     final Algorithm algorithm = algorithmFactory.newInstance();
-    algorithm.run(reached);
+    entry.enterAnalysis();
+    try {
+      algorithm.run(reached);
+    } finally {
+      entry.leaveAnalysis();
+    }
 
     // if the element is an error element
     final List<AbstractState> returnStates;
@@ -0,0 +1,66 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam;
+
+import com.google.common.collect.ImmutableList;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMBlockSummaryStore;
+
+/**
+ * An exit state of a block whose summary was loaded from the {@link BAMBlockSummaryStore}. Such a
+ * state is a direct child of the root of the reached-set of the block, i.e., there is no ARG for
+ * the block and no CFA edge between the root and this state. Before a counterexample through such
+ * a block can be reconstructed, the block has to be analyzed again.
+ */
+final class BlockSummaryExitState extends ARGState {
+
+  private static final long serialVersionUID = 1L;
+
+  BlockSummaryExitState(AbstractState pWrappedState, ARGState pRoot) {
+    super(pWrappedState, pRoot);
+  }
+
+  /** Check whether the reached-set of a block contains a summary instead of an ARG. */
+  static boolean isLoadedSummary(UnmodifiableReachedSet pReached) {
+    return pReached.getLastState() instanceof BlockSummaryExitState;
+  }
+
+  /**
+   * Remove the loaded summary from the reached-set of a block, such that the block is analyzed
+   * again starting from its root.
+   */
+  static void removeLoadedSummary(ReachedSet pReached) {
+    ARGState root = (ARGState) pReached.getFirstState();
+    for (ARGState child : ImmutableList.copyOf(root.getChildren())) {
+      if (child instanceof BlockSummaryExitState) {
+        pReached.remove(child);
+        child.removeFromARG();
+      }
+    }
+    pReached.reAddToWaitlist(root);
+  }
+}
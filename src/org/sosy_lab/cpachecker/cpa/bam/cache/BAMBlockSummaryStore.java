@@ -0,0 +1,365 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.model.CFAEdge;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.cfa.model.FunctionEntryNode;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.util.CFAUtils;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * A persistent store for block summaries of BAM that is kept in a directory and reused across
+ * several runs of CPAchecker. A summary maps a reduced entry state and a reduced precision of a
+ * block to the reduced exit states of this block.
+ *
+ * <p>There is one file per block, which is read when the block is analyzed for the first time and
+ * (re-)written at the end of the analysis if new summaries were added. Each file contains a
+ * fingerprint of the block, i.e., a hash over the configuration and over all nodes and edges of
+ * the block (including node numbers, because the stored states refer to CFA nodes by their
+ * number). If the fingerprint does not match the current block, all summaries of the block are
+ * discarded.
+ *
+ * <p>States and precisions are stored with Java serialization, thus summaries are only stored for
+ * analyses whose states and precisions are serializable. The key of a summary is a hash of the
+ * serialized entry state and precision.
+ */
+public class BAMBlockSummaryStore implements Statistics {
+
+  private static final int FORMAT_VERSION = 1;
+
+  /** The summaries of a single block, as stored in the file of the block. */
+  private static final class BlockSummaries implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String fingerprint;
+
+    /** key hash to serialized exit states (each state is serialized separately) */
+    private final LinkedHashMap<String, ArrayList<byte[]>> summaries = new LinkedHashMap<>();
+
+    private transient boolean modified = false;
+
+    private BlockSummaries(String pFingerprint) {
+      fingerprint = pFingerprint;
+    }
+  }
+
+  private final Path directory;
+  private final String configurationHash;
+  private final LogManager logger;
+
+  private final Map<Block, BlockSummaries> loadedBlocks = new HashMap<>();
+  private final Map<BlockSummaries, Path> files = new LinkedHashMap<>();
+
+  private final StatTimer loadTime = new StatTimer("Time for loading summaries");
+  private final StatTimer storeTime = new StatTimer("Time for storing summaries");
+  private final StatCounter hits = new StatCounter("Reused summaries");
+  private final StatCounter misses = new StatCounter("Summaries not available");
+  private final StatCounter stored = new StatCounter("New summaries");
+  private final StatCounter notStorable = new StatCounter("Summaries not storable");
+  private final StatCounter invalidatedBlocks = new StatCounter("Blocks with changed fingerprint");
+  private final StatCounter unusable = new StatCounter("Unusable summaries");
+
+  /**
+   * Create a store in the given directory.
+   *
+   * @param pDirectory the directory of the store, created if necessary
+   * @param pConfiguration a description of the configuration of the analysis, summaries that were
+   *     computed with another configuration are not reused
+   */
+  public BAMBlockSummaryStore(Path pDirectory, String pConfiguration, LogManager pLogger)
+      throws IOException {
+    directory = checkNotNull(pDirectory);
+    configurationHash = Hashing.sha256().hashString(pConfiguration, UTF_8).toString();
+    logger = checkNotNull(pLogger);
+    Files.createDirectories(directory);
+  }
+
+  /**
+   * Return the reduced exit states of a summary for the given reduced entry state and precision,
+   * or null if there is no such summary. The returned states are freshly deserialized.
+   */
+  public @Nullable List<AbstractState> load(
+      AbstractState pReducedState, Precision pReducedPrecision, Block pBlock) {
+    loadTime.start();
+    try {
+      String key = computeKey(pReducedState, pReducedPrecision);
+      List<byte[]> serializedStates = key == null ? null : getSummaries(pBlock).summaries.get(key);
+      if (serializedStates == null) {
+        misses.inc();
+        return null;
+      }
+
+      List<AbstractState> exitStates = new ArrayList<>(serializedStates.size());
+      for (byte[] serializedState : serializedStates) {
+        try (ObjectInputStream in =
+            new ObjectInputStream(new ByteArrayInputStream(serializedState))) {
+          exitStates.add((AbstractState) in.readObject());
+        } catch (IOException
+            | ClassNotFoundException
+            | ClassCastException
+            | NoSuchElementException e) {
+          // deserialization needs the CFA, which could also be missing
+          logger.logDebugException(e, "Could not load block summary");
+          unusable.inc();
+          misses.inc();
+          return null;
+        }
+      }
+      hits.inc();
+      return exitStates;
+    } finally {
+      loadTime.stop();
+    }
+  }
+
+  /**
+   * Add a summary for the given reduced entry state and precision to the store. Only summaries
+   * that do not contain any property violation should be stored.
+   */
+  public void store(
+      AbstractState pReducedState,
+      Precision pReducedPrecision,
+      Block pBlock,
+      Collection<AbstractState> pExitStates) {
+    storeTime.start();
+    try {
+      String key = computeKey(pReducedState, pReducedPrecision);
+      if (key == null) {
+        notStorable.inc();
+        return;
+      }
+      ArrayList<byte[]> serializedStates = new ArrayList<>(pExitStates.size());
+      for (AbstractState exitState : pExitStates) {
+        byte[] serializedState = serialize(exitState);
+        if (serializedState == null) {
+          notStorable.inc();
+          return;
+        }
+        serializedStates.add(serializedState);
+      }
+      BlockSummaries summaries = getSummaries(pBlock);
+      summaries.summaries.put(key, serializedStates);
+      summaries.modified = true;
+      stored.inc();
+    } finally {
+      storeTime.stop();
+    }
+  }
+
+  private @Nullable String computeKey(AbstractState pState, Precision pPrecision) {
+    byte[] state = serialize(pState);
+    byte[] precision = serialize(pPrecision);
+    if (state == null || precision == null) {
+      return null;
+    }
+    return Hashing.sha256()
+        .newHasher()
+        .putInt(state.length)
+        .putBytes(state)
+        .putBytes(precision)
+        .hash()
+        .toString();
+  }
+
+  private @Nullable byte[] serialize(Object pObject) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(pObject);
+    } catch (IOException e) {
+      // typically NotSerializableException
+      logger.logDebugException(e, "Could not serialize object for block summary");
+      return null;
+    }
+    return bytes.toByteArray();
+  }
+
+  /** Return the summaries of a block, loading the file of the block if necessary. */
+  private BlockSummaries getSummaries(Block pBlock) {
+    BlockSummaries summaries = loadedBlocks.get(pBlock);
+    if (summaries != null) {
+      return summaries;
+    }
+
+    String fingerprint = computeFingerprint(pBlock);
+    Path file = directory.resolve(computeFileName(pBlock));
+    if (Files.exists(file)) {
+      try (InputStream in = Files.newInputStream(file);
+          ObjectInputStream o = new ObjectInputStream(new GZIPInputStream(in))) {
+        if (o.readInt() == FORMAT_VERSION) {
+          BlockSummaries loaded = (BlockSummaries) o.readObject();
+          if (loaded.fingerprint.equals(fingerprint)) {
+            summaries = loaded;
+          } else {
+            logger.log(Level.FINE, "Block", pBlock.getCallNodes(), "has changed");
+            invalidatedBlocks.inc();
+          }
+        }
+      } catch (IOException | ClassNotFoundException | ClassCastException e) {
+        logger.logDebugException(e, "Could not read block summary file " + file);
+      }
+    }
+    if (summaries == null) {
+      summaries = new BlockSummaries(fingerprint);
+    }
+
+    loadedBlocks.put(pBlock, summaries);
+    files.put(summaries, file);
+    return summaries;
+  }
+
+  /**
+   * The file of a block is determined by the function name and location of its entries, such that
+   * it stays the same if the block is changed.
+   */
+  private static String computeFileName(Block pBlock) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (CFANode callNode : pBlock.getCallNodes()) {
+      hasher.putString(callNode.getFunctionName(), UTF_8).putChar('@');
+      hasher.putString(
+          callNode instanceof FunctionEntryNode ? "entry" : callNode.describeFileLocation(), UTF_8);
+      hasher.putChar('\n');
+    }
+    return hasher.hash().toString() + ".ser.gz";
+  }
+
+  private String computeFingerprint(Block pBlock) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(configurationHash, UTF_8);
+    for (CFANode node : pBlock.getCallNodes()) {
+      hasher.putString(" call ", UTF_8).putInt(node.getNodeNumber());
+    }
+    for (CFANode node : pBlock.getReturnNodes()) {
+      hasher.putString(" return ", UTF_8).putInt(node.getNodeNumber());
+    }
+    // nodes are sorted by their number
+    for (CFANode node : pBlock.getNodes()) {
+      hasher.putChar('\n').putInt(node.getNodeNumber());
+      hasher.putString(node.getClass().getSimpleName(), UTF_8);
+      hasher.putString(node.getFunctionName(), UTF_8).putBoolean(node.isLoopStart());
+      for (CFAEdge edge : CFAUtils.allLeavingEdges(node)) {
+        hasher.putChar(' ').putInt(edge.getSuccessor().getNodeNumber());
+        hasher.putString(edge.getEdgeType().name(), UTF_8).putString(edge.getCode(), UTF_8);
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  /** Write the summaries of all blocks with new summaries to their files. */
+  private void writeModifiedBlocks() {
+    for (Map.Entry<BlockSummaries, Path> entry : files.entrySet()) {
+      BlockSummaries summaries = entry.getKey();
+      if (!summaries.modified) {
+        continue;
+      }
+      Path file = entry.getValue();
+      Path tmpFile = null;
+      try {
+        tmpFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmpFile);
+            ObjectOutputStream o = new ObjectOutputStream(new GZIPOutputStream(out))) {
+          o.writeInt(FORMAT_VERSION);
+          o.writeObject(summaries);
+        }
+        Files.move(
+            tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        tmpFile = null;
+        summaries.modified = false;
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Could not write block summaries");
+      } finally {
+        if (tmpFile != null) {
+          try {
+            Files.deleteIfExists(tmpFile);
+          } catch (IOException e) {
+            logger.logDebugException(e);
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+    StatisticsWriter.writingStatisticsTo(pOut)
+        .put("Directory", directory)
+        .put("Loaded blocks", loadedBlocks.size())
+        .put(hits)
+        .put(misses)
+        .put(stored)
+        .put(notStorable)
+        .put(invalidatedBlocks)
+        .put(unusable)
+        .put(loadTime)
+        .put(storeTime);
+  }
+
+  @Override
+  public void writeOutputFiles(Result pResult, UnmodifiableReachedSet pReached) {
+    writeModifiedBlocks();
+  }
+
+  @Override
+  public String getName() {
+    return "BAM block summary store";
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+
+public class BAMBlockSummaryStoreTest {
+
+  private static final String CONFIGURATION = "cpa = cpa.bam.BAMCPA";
+
+  private static final Precision PRECISION = SingletonPrecision.getInstance();
+
+  private static final LogManager logger = LogManager.createTestLogManager();
+
+  @SuppressWarnings("serial")
+  private static final class TestState implements AbstractState, Serializable {
+
+    private final int value;
+
+    private TestState(int pValue) {
+      value = pValue;
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      return pObj instanceof TestState && ((TestState) pObj).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+      return value;
+    }
+  }
+
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private Path directory;
+  private CFANode entry;
+  private CFANode exit;
+  private Block block;
+
+  @Before
+  public void setUp() throws IOException {
+    directory = tempFolder.newFolder().toPath();
+    entry = new CFANode("f");
+    exit = new CFANode("f");
+    block = newBlock(ImmutableSet.of(entry, exit));
+  }
+
+  private Block newBlock(Set<CFANode> pNodes) {
+    return new Block(ImmutableSet.of(), ImmutableSet.of(entry), ImmutableSet.of(exit), pNodes);
+  }
+
+  /** Simulate the end of a run, such that the summaries are written. */
+  private static void finish(BAMBlockSummaryStore pStore) {
+    pStore.writeOutputFiles(null, null);
+  }
+
+  @Test
+  public void testStoreAndLoadInSameRun() throws IOException {
+    BAMBlockSummaryStore store = new BAMBlockSummaryStore(directory, CONFIGURATION, logger);
+    assertThat(store.load(new TestState(1), PRECISION, block)).isNull();
+
+    store.store(new TestState(1), PRECISION, block, ImmutableList.of(new TestState(2)));
+    assertThat(store.load(new TestState(1), PRECISION, block)).containsExactly(new TestState(2));
+    assertThat(store.load(new TestState(2), PRECISION, block)).isNull();
+  }
+
+  @Test
+  public void testLoadInNextRun() throws IOException {
+    BAMBlockSummaryStore store = new BAMBlockSummaryStore(directory, CONFIGURATION, logger);
+    store.store(
+        new TestState(1), PRECISION, block, ImmutableList.of(new TestState(2), new TestState(3)));
+    store.store(new TestState(4), PRECISION, block, ImmutableList.of());
+    finish(store);
+
+    BAMBlockSummaryStore nextStore = new BAMBlockSummaryStore(directory, CONFIGURATION, logger);
+    assertThat(nextStore.load(new TestState(1), PRECISION, newBlock(block.getNodes())))
+        .containsExactly(new TestState(2), new TestState(3))
+        .inOrder();
+    assertThat(nextStore.load(new TestState(4), PRECISION, block)).isEmpty();
+  }
+
+  @Test
+  public void testInvalidationForChangedBlock() throws IOException {
+    BAMBlockSummaryStore store = new BAMBlockSummaryStore(directory, CONFIGURATION, logger);
+    store.store(new TestState(1), PRECISION, block, ImmutableList.of(new TestState(2)));
+    finish(store);
+
+    // same entry, but an additional node
+    Block changedBlock = newBlock(ImmutableSet.of(entry, new CFANode("f"), exit));
+    BAMBlockSummaryStore nextStore = new BAMBlockSummaryStore(directory, CONFIGURATION, logger);
+    assertThat(nextStore.load(new TestState(1), PRECISION, changedBlock)).isNull();
+  }
+
+  @Test
+  public void testInvalidationForChangedConfiguration() throws IOException {
+    BAMBlockSummaryStore store = new BAMBlockSummaryStore(directory, CONFIGURATION, logger);
+    store.store(new TestState(1), PRECISION, block, ImmutableList.of(new TestState(2)));
+    finish(store);
+
+    BAMBlockSummaryStore nextStore =
+        new BAMBlockSummaryStore(directory, CONFIGURATION + "\nfoo = bar", logger);
+    assertThat(nextStore.load(new TestState(1), PRECISION, block)).isNull();
+  }
+
+  @Test
+  public void testNotSerializablePrecision() throws IOException {
+    Precision precision = new Precision() {};
+    BAMBlockSummaryStore store = new BAMBlockSummaryStore(directory, CONFIGURATION, logger);
+    store.store(new TestState(1), precision, block, ImmutableList.of(new TestState(2)));
+    assertThat(store.load(new TestState(1), precision, block)).isNull();
+  }
+}
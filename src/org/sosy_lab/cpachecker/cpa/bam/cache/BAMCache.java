@@ -75,10 +75,28 @@ public interface BAMCache extends Statistics {
    *  then there is a way to clear all caches and to restore ARG completely. */
   void clear();
 
+  /**
+   * Check whether the ARG of a cached reached-set was evicted to save memory. An evicted
+   * reached-set only contains its root and its exit-states, which are direct children of the root.
+   * It can be used for cache hits, but not for reconstructing counterexamples.
+   */
+  boolean isEvicted(ReachedSet reached);
+
+  /**
+   * Remove the remaining states of an evicted reached-set and re-add its root to the waitlist, such
+   * that the block is analyzed again and its ARG is available afterwards. This may only be called
+   * if {@link #isEvicted(ReachedSet)} returns true for the reached-set.
+   */
+  void prepareRecomputation(ReachedSet reached);
+
   class BAMCacheEntry {
     private final ReachedSet rs;
     private List<AbstractState> exitStates;
     private ARGState rootOfBlock;
+    /** logical time of the last access, used for choosing entries for eviction */
+    long lastAccess = 0;
+    /** number of nested analyses currently running on the reached-set, e.g., on the BAM stack */
+    private int activeAnalyses = 0;
 
     protected BAMCacheEntry(ReachedSet pRs) {
       rs = Preconditions.checkNotNull(pRs);
@@ -111,6 +129,23 @@ public interface BAMCache extends Statistics {
           id(rs.getLastState()));
     }
 
+    /**
+     * Mark the reached-set as being analyzed. An active reached-set is incomplete and can be
+     * modified at any time, so it must not be evicted until {@link #leaveAnalysis()} is called.
+     */
+    public void enterAnalysis() {
+      activeAnalyses++;
+    }
+
+    public void leaveAnalysis() {
+      Preconditions.checkState(activeAnalyses > 0, "reached-set is not being analyzed");
+      activeAnalyses--;
+    }
+
+    public boolean isInAnalysis() {
+      return activeAnalyses > 0;
+    }
+
     public void setRootOfBlock(ARGState pRootOfBlock) {
       rootOfBlock = pRootOfBlock;
     }
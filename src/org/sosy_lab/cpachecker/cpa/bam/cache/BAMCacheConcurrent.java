@@ -0,0 +1,311 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
+
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableList;
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.Reducer;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
+
+/**
+ * Thread-safe implementation of {@link BAMCache} without a global lock, intended for parallel BAM.
+ * The entries are stored in a {@link ConcurrentHashMap}, such that threads accessing different
+ * keys do not block each other in the cache. Note that {@link BAMDataManagerSynchronized} still
+ * serializes the other operations of the data manager, only the cache lookups in the transfer
+ * relation bypass its lock.
+ *
+ * <p>Each entry is tagged with the time of its insertion, and {@link #getAllCachedReachedStates()}
+ * returns the reached-sets in this order, such that statistics and exports are as deterministic
+ * as with {@link BAMCacheImpl}.
+ *
+ * <p>In contrast to {@link BAMCacheImpl}, the last analyzed block is stored per thread.
+ */
+@Options(prefix = "cpa.bam")
+public class BAMCacheConcurrent implements BAMCache {
+
+  @Option(secure=true, description = "If enabled, the reached set cache is analysed "
+      + "for each cache miss to find the cause of the miss.")
+  private boolean gatherCacheMissStatistics = false;
+
+  private final ConcurrentMap<CacheKey, SequencedEntry> preciseReachedCache =
+      new ConcurrentHashMap<>();
+  private final AtomicLong insertions = new AtomicLong();
+
+  private final ThreadLocal<BAMCacheEntry> lastAnalyzedEntry = new ThreadLocal<>();
+  private final Reducer reducer;
+  private final LogManager logger;
+
+  // statistics
+  private final LongAdder cacheMisses = new LongAdder();
+  private final LongAdder partialCacheHits = new LongAdder();
+  private final LongAdder fullCacheHits = new LongAdder();
+  private final LongAdder replacedEntries = new LongAdder();
+  private final LongAdder abstractionCausedMisses = new LongAdder();
+  private final LongAdder precisionCausedMisses = new LongAdder();
+  private final LongAdder noSimilarCausedMisses = new LongAdder();
+  private final ThreadSafeTimerContainer getTimer =
+      new ThreadSafeTimerContainer("Time for cache lookups");
+  private final ThreadSafeTimerContainer putTimer =
+      new ThreadSafeTimerContainer("Time for cache insertions");
+
+  // creating a new timer needs a lock, thus we keep one timer per thread
+  private final ThreadLocal<TimerWrapper> threadGetTimer =
+      ThreadLocal.withInitial(getTimer::getNewTimer);
+  private final ThreadLocal<TimerWrapper> threadPutTimer =
+      ThreadLocal.withInitial(putTimer::getNewTimer);
+
+  public BAMCacheConcurrent(Configuration pConfig, Reducer pReducer, LogManager pLogger)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    reducer = checkNotNull(pReducer);
+    logger = checkNotNull(pLogger);
+  }
+
+  @Override
+  public BAMCacheEntry put(
+      AbstractState stateKey, Precision precisionKey, Block context, ReachedSet rs) {
+    TimerWrapper timer = threadPutTimer.get();
+    timer.start();
+    try {
+      CacheKey key = new CacheKey(stateKey, precisionKey, context);
+      BAMCacheEntry entry = new BAMCacheEntry(rs);
+      SequencedEntry previous =
+          preciseReachedCache.put(key, new SequencedEntry(insertions.getAndIncrement(), entry));
+      if (previous != null) {
+        replacedEntries.increment();
+      }
+      return entry;
+    } finally {
+      timer.stop();
+    }
+  }
+
+  @Override
+  public @Nullable BAMCacheEntry get(
+      AbstractState stateKey, Precision precisionKey, Block context) {
+    TimerWrapper timer = threadGetTimer.get();
+    timer.start();
+    try {
+      CacheKey key = new CacheKey(stateKey, precisionKey, context);
+      SequencedEntry result = preciseReachedCache.get(key);
+      if (result == null) {
+        cacheMisses.increment();
+        if (gatherCacheMissStatistics) {
+          findCacheMissCause(key);
+        }
+        lastAnalyzedEntry.remove();
+        logger.log(Level.FINEST, "CACHE_ACCESS: entry not available");
+        return null;
+      }
+      if (result.entry.getExitStates() == null) {
+        // we have cached a partly computed reached-set
+        partialCacheHits.increment();
+      } else {
+        fullCacheHits.increment();
+      }
+      lastAnalyzedEntry.set(result.entry);
+      logger.log(Level.FINEST, "CACHE_ACCESS: precise entry");
+      return result.entry;
+    } finally {
+      timer.stop();
+    }
+  }
+
+  /**
+   * Analogous to {@link BAMCacheImpl}, but the cache may be modified concurrently, so only the keys
+   * present at the time of the iteration are compared.
+   */
+  private void findCacheMissCause(CacheKey pSearchKey) {
+    for (CacheKey cacheKey : preciseReachedCache.keySet()) {
+      // check whether it is the same if we ignore the precision
+      CacheKey ignorePrecisionSearchKey =
+          new CacheKey(pSearchKey.stateKey, cacheKey.precisionKey, pSearchKey.context);
+      if (ignorePrecisionSearchKey.equals(cacheKey)) {
+        precisionCausedMisses.increment();
+        return;
+      }
+
+      // Precision was not the cause. Check abstraction.
+      CacheKey ignoreAbsSearchKey =
+          new CacheKey(cacheKey.stateKey, pSearchKey.precisionKey, pSearchKey.context);
+      if (ignoreAbsSearchKey.equals(cacheKey)) {
+        abstractionCausedMisses.increment();
+        return;
+      }
+    }
+    noSimilarCausedMisses.increment();
+  }
+
+  @Override
+  @Deprecated
+  public @Nullable ARGState getLastAnalyzedBlock() {
+    BAMCacheEntry entry = lastAnalyzedEntry.get();
+    return entry == null ? null : entry.getRootOfBlock();
+  }
+
+  @Override
+  public boolean containsPreciseKey(AbstractState stateKey, Precision precisionKey, Block context) {
+    return preciseReachedCache.containsKey(new CacheKey(stateKey, precisionKey, context));
+  }
+
+  /** Return a snapshot of all cached reached-sets in the order of their insertion. */
+  @Override
+  public Collection<ReachedSet> getAllCachedReachedStates() {
+    return Collections2.transform(
+        ImmutableList.sortedCopyOf(
+            Comparator.comparingLong((SequencedEntry e) -> e.sequenceNumber),
+            preciseReachedCache.values()),
+        e -> e.entry.getReachedSet());
+  }
+
+  @Override
+  public void clear() {
+    preciseReachedCache.clear();
+    lastAnalyzedEntry.remove();
+  }
+
+  /** This cache is not bounded, so no reached-set is ever evicted. */
+  @Override
+  public boolean isEvicted(ReachedSet pReached) {
+    return false;
+  }
+
+  @Override
+  public void prepareRecomputation(ReachedSet pReached) {
+    throw new IllegalStateException("reached-set was not evicted: " + pReached);
+  }
+
+  @Override
+  public void printStatistics(PrintStream out, Result pResult, UnmodifiableReachedSet pReached) {
+    long misses = cacheMisses.sum();
+    long partialHits = partialCacheHits.sum();
+    long fullHits = fullCacheHits.sum();
+    long sumCalls = misses + partialHits + fullHits;
+
+    out.println("Number of cached reached-sets:                       " + preciseReachedCache.size());
+    out.println("Total number of recursive CPA calls:                 " + sumCalls);
+    out.println("  Number of cache misses:                            " + misses + " (" + toPercent(misses, sumCalls) + " of all calls)");
+    out.println("  Number of partial cache hits:                      " + partialHits + " (" + toPercent(partialHits, sumCalls) + " of all calls)");
+    out.println("  Number of full cache hits:                         " + fullHits + " (" + toPercent(fullHits, sumCalls) + " of all calls)");
+    if (gatherCacheMissStatistics) {
+      long abstractionMisses = abstractionCausedMisses.sum();
+      long precisionMisses = precisionCausedMisses.sum();
+      long noSimilarMisses = noSimilarCausedMisses.sum();
+      out.println("Cause for cache misses:                              ");
+      out.println("  Number of abstraction caused misses:               " + abstractionMisses + " (" + toPercent(abstractionMisses, misses) + " of all misses)");
+      out.println("  Number of precision caused misses:                 " + precisionMisses + " (" + toPercent(precisionMisses, misses) + " of all misses)");
+      out.println("  Number of misses with no similar elements:         " + noSimilarMisses + " (" + toPercent(noSimilarMisses, misses) + " of all misses)");
+    }
+    out.println("Number of replaced cache entries:                    " + replacedEntries.sum());
+    out.println(getTimer.getTitle() + ":                              " + getTimer);
+    out.println(putTimer.getTitle() + ":                           " + putTimer);
+  }
+
+  @Override
+  public String getName() {
+    return "BAMCache (concurrent)";
+  }
+
+  private static final class SequencedEntry {
+
+    private final long sequenceNumber;
+    private final BAMCacheEntry entry;
+
+    private SequencedEntry(long pSequenceNumber, BAMCacheEntry pEntry) {
+      sequenceNumber = pSequenceNumber;
+      entry = pEntry;
+    }
+  }
+
+  /**
+   * Key of the cache, analogous to {@link BAMCacheImpl.AbstractStateHash}. The hash code is
+   * computed only once, because the reduced states can be expensive to hash.
+   */
+  private final class CacheKey {
+
+    private final AbstractState stateKey;
+    private final Precision precisionKey;
+    private final Object wrappedHash;
+    private final Block context;
+    private final int hashCode;
+
+    private CacheKey(AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
+      stateKey = pStateKey;
+      precisionKey = pPrecisionKey;
+      wrappedHash = reducer.getHashCodeForState(pStateKey, pPrecisionKey);
+      context = checkNotNull(pContext);
+      hashCode = wrappedHash.hashCode() * 17 + context.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      if (pObj == this) {
+        return true;
+      }
+      if (!(pObj instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey other = (CacheKey) pObj;
+      return hashCode == other.hashCode
+          && context.equals(other.context)
+          && wrappedHash.equals(other.wrappedHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public String toString() {
+      return "CacheKey [hash=" + hashCode + ", wrappedHash=" + wrappedHash + ", context=" + context
+          + "]";
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.defaults.NoOpReducer;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
+
+public class BAMCacheConcurrentTest {
+
+  private static final int THREADS = 8;
+  private static final int KEYS_PER_THREAD = 1000;
+
+  private static final Precision PRECISION = SingletonPrecision.getInstance();
+
+  /** State with value-based equality, such that equal keys can be constructed independently. */
+  private static final class TestState implements AbstractState {
+
+    private final int id;
+
+    private TestState(int pId) {
+      id = pId;
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      return pObj instanceof TestState && ((TestState) pObj).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public String toString() {
+      return "S" + id;
+    }
+  }
+
+  private BAMCacheConcurrent cache;
+  private Block block;
+
+  @Before
+  public void setUp() throws InvalidConfigurationException {
+    cache = newCache(Configuration.defaultConfiguration());
+    CFANode node = new CFANode("main");
+    block =
+        new Block(
+            ImmutableSet.of(), ImmutableSet.of(node), ImmutableSet.of(node), ImmutableSet.of(node));
+  }
+
+  private static BAMCacheConcurrent newCache(Configuration pConfig)
+      throws InvalidConfigurationException {
+    return new BAMCacheConcurrent(
+        pConfig, NoOpReducer.getInstance(), LogManager.createTestLogManager());
+  }
+
+  private static ReachedSet newReachedSet() {
+    return new PartitionedReachedSet(TraversalMethod.DFS);
+  }
+
+  @Test
+  public void testPutAndGet() {
+    ReachedSet reached = newReachedSet();
+    assertThat(cache.get(new TestState(1), PRECISION, block)).isNull();
+    assertThat(cache.containsPreciseKey(new TestState(1), PRECISION, block)).isFalse();
+
+    BAMCacheEntry entry = cache.put(new TestState(1), PRECISION, block, reached);
+    assertThat(entry.getReachedSet()).isSameAs(reached);
+    assertThat(cache.get(new TestState(1), PRECISION, block)).isSameAs(entry);
+    assertThat(cache.containsPreciseKey(new TestState(1), PRECISION, block)).isTrue();
+    assertThat(cache.get(new TestState(2), PRECISION, block)).isNull();
+
+    cache.clear();
+    assertThat(cache.get(new TestState(1), PRECISION, block)).isNull();
+    assertThat(cache.getAllCachedReachedStates()).isEmpty();
+  }
+
+  @Test
+  public void testCachedReachedSetsInInsertionOrder() {
+    List<ReachedSet> reachedSets = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      ReachedSet reached = newReachedSet();
+      reachedSets.add(reached);
+      // use decreasing ids to ensure that the order does not depend on the hash codes
+      cache.put(new TestState(100 - i), PRECISION, block, reached);
+    }
+    assertThat(cache.getAllCachedReachedStates()).containsExactlyElementsIn(reachedSets).inOrder();
+
+    // replacing an entry moves it to the end
+    ReachedSet replacement = newReachedSet();
+    cache.put(new TestState(100), PRECISION, block, replacement);
+    reachedSets.remove(0);
+    reachedSets.add(replacement);
+    assertThat(cache.getAllCachedReachedStates()).containsExactlyElementsIn(reachedSets).inOrder();
+  }
+
+  @Test
+  public void testCacheMissCauses() throws InvalidConfigurationException {
+    cache =
+        newCache(
+            Configuration.builder().setOption("cpa.bam.gatherCacheMissStatistics", "true").build());
+    assertThat(cache.get(new TestState(1), PRECISION, block)).isNull();
+    cache.put(new TestState(1), PRECISION, block, newReachedSet());
+    // the reducer ignores the precision, so a different state is the only possible cause
+    assertThat(cache.get(new TestState(2), PRECISION, block)).isNull();
+
+    ByteArrayOutputStream statistics = new ByteArrayOutputStream();
+    cache.printStatistics(new PrintStream(statistics, true), Result.NOT_YET_STARTED, null);
+    assertThat(statistics.toString()).containsMatch("Number of abstraction caused misses: +1 ");
+    assertThat(statistics.toString())
+        .containsMatch("Number of misses with no similar elements: +1 ");
+  }
+
+  @Test
+  public void testConcurrentPutAndGet() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      CyclicBarrier barrier = new CyclicBarrier(THREADS);
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        final int thread = t;
+        futures.add(
+            pool.submit(
+                () -> {
+                  barrier.await();
+                  for (int i = thread; i < THREADS * KEYS_PER_THREAD; i += THREADS) {
+                    BAMCacheEntry entry =
+                        cache.put(new TestState(i), PRECISION, block, newReachedSet());
+                    assertThat(cache.get(new TestState(i), PRECISION, block)).isSameAs(entry);
+                    // lookups of keys inserted by other threads must not fail
+                    cache.get(new TestState(i + 1), PRECISION, block);
+                  }
+                  return null;
+                }));
+      }
+      for (Future<Void> f : futures) {
+        f.get(1, TimeUnit.MINUTES);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertThat(cache.getAllCachedReachedStates()).hasSize(THREADS * KEYS_PER_THREAD);
+    assertThat(ImmutableSet.copyOf(cache.getAllCachedReachedStates()))
+        .hasSize(THREADS * KEYS_PER_THREAD);
+    for (int i = 0; i < THREADS * KEYS_PER_THREAD; i++) {
+      assertThat(cache.containsPreciseKey(new TestState(i), PRECISION, block)).isTrue();
+    }
+  }
+}
@@ -24,15 +24,25 @@
 package org.sosy_lab.cpachecker.cpa.bam.cache;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
 
 import com.google.common.collect.Collections2;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -46,7 +56,11 @@ import org.sosy_lab.cpachecker.core.interfaces.Reducer;
 import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 import org.sosy_lab.cpachecker.util.statistics.StatHist;
+import org.sosy_lab.cpachecker.util.statistics.StatInt;
+import org.sosy_lab.cpachecker.util.statistics.StatKind;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
 
 @Options(prefix = "cpa.bam")
 public class BAMCacheImpl implements BAMCache {
@@ -55,6 +69,25 @@ public class BAMCacheImpl implements BAMCache {
       + "for each cache miss to find the cause of the miss.")
   private boolean gatherCacheMissStatistics = false;
 
+  @Option(
+    secure = true,
+    name = "cache.maxStates",
+    description =
+        "Maximal number of abstract states in all cached reached-sets (0 for no limit). "
+            + "If the limit is exceeded, the ARGs of rarely used large blocks are evicted and "
+            + "only their entry- and exit-states are kept for reuse. An evicted block is "
+            + "analyzed again if a counterexample or refinement needs its ARG. "
+            + "A limit requires CEGAR with a BAM-based refiner."
+  )
+  @IntegerOption(min = 0)
+  private int maxCachedStates = 0;
+
+  /** number of insertions after which the size of the cache is checked again */
+  private static final int EVICTION_CHECK_INTERVAL = 64;
+
+  /** after an eviction, the cache contains at most this fraction of the allowed states */
+  private static final double EVICTION_TARGET_RATIO = 0.8;
+
   private final Timer hashingTimer = new Timer();
   private final Timer equalsTimer = new Timer();
 
@@ -66,6 +99,21 @@ public class BAMCacheImpl implements BAMCache {
   private int precisionCausedMisses = 0;
   private int noSimilarCausedMisses = 0;
 
+  private long accessCounter = 0;
+  private int putsSinceEvictionCheck = 0;
+  private final Set<ReachedSet> evictedReachedSets = Sets.newIdentityHashSet();
+
+  private final EvictionStatistics evictionStats = new EvictionStatistics();
+
+  /** Statistics about evicted blocks, only relevant if the cache is bounded. */
+  public static class EvictionStatistics {
+    public final StatCounter evictedBlocks = new StatCounter("Number of evicted blocks");
+    public final StatInt evictedStates = new StatInt(StatKind.SUM, "Number of evicted states");
+    public final StatCounter recomputedBlocks =
+        new StatCounter("Number of re-computed evicted blocks");
+    public final StatTimer evictionTime = new StatTimer("Time for evicting blocks");
+  }
+
   // we use LinkedHashMaps to avoid non-determinism
   protected final Map<AbstractStateHash, BAMCacheEntry> preciseReachedCache = new LinkedHashMap<>();
 
@@ -91,11 +139,127 @@ public class BAMCacheImpl implements BAMCache {
       AbstractState stateKey, Precision precisionKey, Block context, ReachedSet rs) {
     AbstractStateHash hash = getHashCode(stateKey, precisionKey, context);
     BAMCacheEntry entry = new BAMCacheEntry(rs);
+    entry.lastAccess = ++accessCounter;
     // assert !preciseReachedCache.containsKey(hash);
     preciseReachedCache.put(hash, entry);
+    if (maxCachedStates > 0 && ++putsSinceEvictionCheck >= EVICTION_CHECK_INTERVAL) {
+      putsSinceEvictionCheck = 0;
+      evictIfNecessary();
+    }
     return entry;
   }
 
+  /**
+   * Evict reached-sets if the cache contains too many abstract states. Old and large reached-sets
+   * are evicted first. Only completely analyzed reached-sets can be evicted.
+   */
+  private void evictIfNecessary() {
+    evictionStats.evictionTime.start();
+    try {
+      long cachedStates = 0;
+      for (BAMCacheEntry entry : preciseReachedCache.values()) {
+        cachedStates += entry.getReachedSet().size();
+      }
+      if (cachedStates <= maxCachedStates) {
+        return;
+      }
+
+      final long target = (long) (maxCachedStates * EVICTION_TARGET_RATIO);
+      List<BAMCacheEntry> candidates =
+          FluentIterable.from(preciseReachedCache.values())
+              .filter(this::isEvictable)
+              .toSortedList(Comparator.comparingLong(this::getEvictionScore).reversed());
+      for (BAMCacheEntry entry : candidates) {
+        if (cachedStates <= target) {
+          break;
+        }
+        cachedStates -= evict(entry);
+      }
+      logger.log(
+          Level.FINE, "BAM cache contains", cachedStates, "states after evicting blocks.");
+    } finally {
+      evictionStats.evictionTime.stop();
+    }
+  }
+
+  private boolean isEvictable(BAMCacheEntry entry) {
+    ReachedSet rs = entry.getReachedSet();
+    List<AbstractState> exitStates = entry.getExitStates();
+    return entry != lastAnalyzedEntry
+        && !entry.isInAnalysis()
+        && exitStates != null
+        && !rs.hasWaitingState()
+        && !evictedReachedSets.contains(rs)
+        && rs.size() > exitStates.size() + 1;
+  }
+
+  /** The score is higher for entries that were not accessed for a long time and are large. */
+  private long getEvictionScore(BAMCacheEntry entry) {
+    return (accessCounter - entry.lastAccess + 1) * entry.getReachedSet().size();
+  }
+
+  /**
+   * Remove all states except the root and the exit-states from the reached-set of the given entry
+   * and connect the exit-states directly to the root.
+   *
+   * @return the number of removed states
+   */
+  private int evict(BAMCacheEntry entry) {
+    ReachedSet rs = entry.getReachedSet();
+    ARGState root = (ARGState) rs.getFirstState();
+    Set<AbstractState> statesToKeep = Sets.newIdentityHashSet();
+    statesToKeep.add(root);
+    statesToKeep.addAll(entry.getExitStates());
+    List<AbstractState> statesToRemove = new ArrayList<>();
+    for (AbstractState state : rs) {
+      if (!statesToKeep.contains(state)) {
+        statesToRemove.add(state);
+      }
+    }
+
+    rs.removeAll(statesToRemove);
+    for (AbstractState state : statesToRemove) {
+      ((ARGState) state).removeFromARG();
+    }
+    for (AbstractState exitState : entry.getExitStates()) {
+      if (exitState != root) {
+        ((ARGState) exitState).addParent(root);
+      }
+    }
+
+    evictedReachedSets.add(rs);
+    evictionStats.evictedBlocks.inc();
+    evictionStats.evictedStates.setNextValue(statesToRemove.size());
+    return statesToRemove.size();
+  }
+
+  @Override
+  public boolean isEvicted(ReachedSet pReached) {
+    return evictedReachedSets.contains(pReached);
+  }
+
+  @Override
+  public void prepareRecomputation(ReachedSet pReached) {
+    checkState(evictedReachedSets.remove(pReached), "reached-set was not evicted");
+    ARGState root = (ARGState) pReached.getFirstState();
+    for (ARGState child : ImmutableList.copyOf(root.getChildren())) {
+      pReached.remove(child);
+      child.removeFromARG();
+    }
+    pReached.reAddToWaitlist(root);
+    evictionStats.recomputedBlocks.inc();
+  }
+
+  /** Check whether the number of cached states is bounded, i.e., blocks may be evicted. */
+  public boolean isBounded() {
+    return maxCachedStates > 0;
+  }
+
+  /** Return the statistics about evictions, or null if the cache is not bounded. */
+  public @Nullable EvictionStatistics getEvictionStatistics() {
+    return isBounded() ? evictionStats : null;
+  }
+
   protected static boolean allStatesContainedInReachedSet(Collection<AbstractState> pElements, ReachedSet reached) {
     return reached.asCollection().containsAll(pElements);
   }
@@ -113,6 +277,7 @@ public class BAMCacheImpl implements BAMCache {
         findCacheMissCause(stateKey, precisionKey, context);
       }
     } else {
+      entry.lastAccess = ++accessCounter;
       if (entry.getExitStates() == null) {
         // we have cached a partly computed reached-set
         partialCacheHits++;
@@ -279,6 +444,7 @@ public class BAMCacheImpl implements BAMCache {
   @Override
   public void clear() {
     preciseReachedCache.clear();
+    evictedReachedSets.clear();
     lastAnalyzedEntry = null;
   }
 }
@@ -0,0 +1,201 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.bam.cache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.blocks.Block;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.defaults.NoOpReducer;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.reachedset.PartitionedReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.waitlist.Waitlist.TraversalMethod;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.bam.cache.BAMCache.BAMCacheEntry;
+
+public class BAMCacheImplTest {
+
+  /** number of insertions after which the cache checks its size, see {@link BAMCacheImpl} */
+  private static final int ENTRIES = 64;
+
+  /** each cached reached-set consists of a root, two inner states and an exit state */
+  private static final int STATES_PER_ENTRY = 4;
+
+  private static final Precision PRECISION = SingletonPrecision.getInstance();
+
+  /** State with value-based equality, such that equal keys can be constructed independently. */
+  private static final class TestState implements AbstractState {
+
+    private final int id;
+
+    private TestState(int pId) {
+      id = pId;
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      return pObj instanceof TestState && ((TestState) pObj).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public String toString() {
+      return "S" + id;
+    }
+  }
+
+  private Block block;
+
+  @Before
+  public void setUp() {
+    CFANode node = new CFANode("main");
+    block =
+        new Block(
+            ImmutableSet.of(), ImmutableSet.of(node), ImmutableSet.of(node), ImmutableSet.of(node));
+  }
+
+  private static BAMCacheImpl createCache(int maxStates) throws InvalidConfigurationException {
+    Configuration config =
+        Configuration.builder()
+            .setOption("cpa.bam.cache.maxStates", Integer.toString(maxStates))
+            .build();
+    return new BAMCacheImpl(config, NoOpReducer.getInstance(), LogManager.createTestLogManager());
+  }
+
+  /** Insert a completely analyzed block with a linear ARG. */
+  private BAMCacheEntry putBlock(BAMCache cache, int id) {
+    ARGState root = new ARGState(new TestState(id), null);
+    ARGState inner1 = new ARGState(new TestState(id), root);
+    ARGState inner2 = new ARGState(new TestState(id), inner1);
+    ARGState exit = new ARGState(new TestState(id), inner2);
+    ReachedSet reached = new PartitionedReachedSet(TraversalMethod.DFS);
+    for (ARGState state : ImmutableList.of(root, inner1, inner2, exit)) {
+      reached.add(state, PRECISION);
+      reached.removeOnlyFromWaitlist(state);
+    }
+    BAMCacheEntry entry = cache.put(new TestState(id), PRECISION, block, reached);
+    entry.setExitStates(ImmutableList.of(exit));
+    return entry;
+  }
+
+  private static int countStates(BAMCache cache) {
+    int states = 0;
+    for (ReachedSet reached : cache.getAllCachedReachedStates()) {
+      states += reached.size();
+    }
+    return states;
+  }
+
+  @Test
+  public void testUnboundedCacheDoesNotEvict() throws InvalidConfigurationException {
+    BAMCacheImpl cache = createCache(0);
+    for (int i = 0; i < 2 * ENTRIES; i++) {
+      putBlock(cache, i);
+    }
+    assertThat(cache.isBounded()).isFalse();
+    assertThat(cache.getEvictionStatistics()).isNull();
+    assertThat(countStates(cache)).isEqualTo(2 * ENTRIES * STATES_PER_ENTRY);
+  }
+
+  @Test
+  public void testEvictOldEntries() throws InvalidConfigurationException {
+    int maxStates = ENTRIES * STATES_PER_ENTRY * 3 / 4;
+    BAMCacheImpl cache = createCache(maxStates);
+    List<BAMCacheEntry> entries = new ArrayList<>();
+    for (int i = 0; i < ENTRIES; i++) {
+      entries.add(putBlock(cache, i));
+      if (i == ENTRIES - 2) {
+        // a recently used entry is not evicted
+        assertThat(cache.get(new TestState(0), PRECISION, block)).isSameAs(entries.get(0));
+      }
+    }
+
+    assertThat(countStates(cache)).isAtMost(maxStates);
+    assertThat(cache.getEvictionStatistics().evictedBlocks.getValue()).isGreaterThan(0L);
+    assertThat(cache.isEvicted(entries.get(0).getReachedSet())).isFalse();
+    assertThat(cache.isEvicted(entries.get(1).getReachedSet())).isTrue();
+    assertThat(cache.isEvicted(entries.get(ENTRIES - 1).getReachedSet())).isFalse();
+
+    // the evicted reached-set still provides its exit-states for cache hits
+    BAMCacheEntry evicted = cache.get(new TestState(1), PRECISION, block);
+    ReachedSet reached = evicted.getReachedSet();
+    ARGState root = (ARGState) reached.getFirstState();
+    AbstractState exit = evicted.getExitStates().get(0);
+    assertThat(reached.asCollection()).containsExactly(root, exit);
+    assertThat(root.getChildren()).containsExactly(exit);
+    assertThat(reached.hasWaitingState()).isFalse();
+  }
+
+  @Test
+  public void testActiveEntriesAreNotEvicted() throws InvalidConfigurationException {
+    BAMCacheImpl cache = createCache(ENTRIES);
+    BAMCacheEntry active = putBlock(cache, 0);
+    // e.g., an outer block that is re-analyzed after a partial cache hit
+    active.enterAnalysis();
+    for (int i = 1; i < ENTRIES; i++) {
+      putBlock(cache, i);
+    }
+    assertThat(cache.getEvictionStatistics().evictedBlocks.getValue()).isGreaterThan(0L);
+    assertThat(cache.isEvicted(active.getReachedSet())).isFalse();
+    assertThat(active.getReachedSet().size()).isEqualTo(STATES_PER_ENTRY);
+
+    active.leaveAnalysis();
+    assertThat(active.isInAnalysis()).isFalse();
+  }
+
+  @Test
+  public void testPrepareRecomputation() throws InvalidConfigurationException {
+    BAMCacheImpl cache = createCache(ENTRIES);
+    List<BAMCacheEntry> entries = new ArrayList<>();
+    for (int i = 0; i < ENTRIES; i++) {
+      entries.add(putBlock(cache, i));
+    }
+    ReachedSet reached = entries.get(0).getReachedSet();
+    assertThat(cache.isEvicted(reached)).isTrue();
+    ARGState exit = (ARGState) entries.get(0).getExitStates().get(0);
+
+    cache.prepareRecomputation(reached);
+    assertThat(cache.isEvicted(reached)).isFalse();
+    assertThat(reached.asCollection()).containsExactly(reached.getFirstState());
+    assertThat(reached.getWaitlist()).containsExactly(reached.getFirstState());
+    assertThat(exit.isDestroyed()).isTrue();
+    assertThat(cache.getEvictionStatistics().recomputedBlocks.getValue()).isEqualTo(1L);
+  }
+}
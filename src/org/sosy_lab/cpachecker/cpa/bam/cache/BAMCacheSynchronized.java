@@ -38,13 +38,21 @@ import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
 import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.arg.ARGState;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
-/** A wrapper for a fully synchronized cache access. */
-// TODO we should use more fine-grained locking implementation
+/**
+ * A wrapper for a fully synchronized cache access. For many threads, {@link BAMCacheConcurrent}
+ * avoids the contention on the single lock.
+ */
 public class BAMCacheSynchronized implements BAMCache {
 
   private final BAMCache cache;
   private final StatTimer timer = new StatTimer("Time for cache-access");
+  private final ThreadSafeTimerContainer waitTimer =
+      new ThreadSafeTimerContainer("Time for waiting for cache-lock");
+  private final ThreadLocal<TimerWrapper> threadWaitTimer =
+      ThreadLocal.withInitial(waitTimer::getNewTimer);
 
   public BAMCacheSynchronized(Configuration pConfig, Reducer pReducer, LogManager pLogger)
       throws InvalidConfigurationException {
@@ -56,6 +64,7 @@ public class BAMCacheSynchronized implements BAMCache {
     synchronized (this) {
       cache.printStatistics(pOut, pResult, pReached);
       pOut.println(timer.getTitle() + ":                           " + timer + " (count=" + timer.getUpdateCount() + ")");
+      pOut.println(waitTimer.getTitle() + ":                 " + waitTimer.prettyFormat());
     }
   }
 
@@ -74,7 +83,10 @@ public class BAMCacheSynchronized implements BAMCache {
   @Override
   public BAMCacheEntry put(
       AbstractState pStateKey, Precision pPrecisionKey, Block pContext, ReachedSet pItem) {
+    TimerWrapper lockTimer = threadWaitTimer.get();
+    lockTimer.start();
     synchronized (this) {
+      lockTimer.stop();
       timer.start();
       try {
         return cache.put(pStateKey, pPrecisionKey, pContext, pItem);
@@ -86,7 +98,10 @@ public class BAMCacheSynchronized implements BAMCache {
 
   @Override
   public BAMCacheEntry get(AbstractState pStateKey, Precision pPrecisionKey, Block pContext) {
+    TimerWrapper lockTimer = threadWaitTimer.get();
+    lockTimer.start();
     synchronized (this) {
+      lockTimer.stop();
       try {
         timer.start();
         return cache.get(pStateKey, pPrecisionKey, pContext);
@@ -135,4 +150,18 @@ public class BAMCacheSynchronized implements BAMCache {
       cache.clear();
     }
   }
+
+  @Override
+  public boolean isEvicted(ReachedSet pReached) {
+    synchronized (this) {
+      return cache.isEvicted(pReached);
+    }
+  }
+
+  @Override
+  public void prepareRecomputation(ReachedSet pReached) {
+    synchronized (this) {
+      cache.prepareRecomputation(pReached);
+    }
+  }
 }
@@ -226,6 +226,7 @@ public class ConstraintsCPA
 
   @Override
   public void close() {
+    constraintsSolver.close();
     solver.close();
   }
 }
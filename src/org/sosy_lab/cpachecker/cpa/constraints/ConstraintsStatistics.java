@@ -55,6 +55,14 @@ public class ConstraintsStatistics implements Statistics {
       new StatTimer(StatKind.SUM, "Time for model re-use attempts");
   public final StatTimer timeForSatCheck = new StatTimer(StatKind.SUM, "Time for SMT check");
   public final StatCounter modelReuseSuccesses = new StatCounter("Successful model re-uses");
+  public final StatCounter proverSessionsCreated =
+      new StatCounter("Number of created prover sessions");
+  public final StatCounter proverSessionsClosed =
+      new StatCounter("Number of closed prover sessions");
+  public final StatInt constraintsReusedFromSession =
+      new StatInt(StatKind.SUM, "Constraints re-used from prover sessions");
+  public final StatInt constraintsPushedToSession =
+      new StatInt(StatKind.SUM, "Constraints pushed to prover sessions");
 
   public StatCounter cacheLookups = new StatCounter("Cache lookups");
   public StatTimer directCacheLookupTime = new StatTimer(StatKind.SUM, "Direct cache lookup time");
@@ -103,6 +111,10 @@ public class ConstraintsStatistics implements Statistics {
         .putIfUpdatedAtLeastOnce(timeForDefinitesComputation)
         .endLevel()
         .putIfUpdatedAtLeastOnce(modelReuseSuccesses)
+        .putIfUpdatedAtLeastOnce(proverSessionsCreated)
+        .putIfUpdatedAtLeastOnce(proverSessionsClosed)
+        .putIfUpdatedAtLeastOnce(constraintsReusedFromSession)
+        .putIfUpdatedAtLeastOnce(constraintsPushedToSession)
         .spacer() // Direct constraints solver cache
         .putIf(cacheLookups.getUpdateCount() > 0, cacheLookups)
         .putIf(cacheLookups.getUpdateCount() > 0, directCacheHits)
@@ -32,9 +32,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -42,7 +44,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -65,7 +69,7 @@ import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
 
 @Options(prefix = "cpa.constraints")
-public class ConstraintsSolver {
+public class ConstraintsSolver implements AutoCloseable {
 
   @Option(
     secure = true,
@@ -101,9 +105,34 @@ public class ConstraintsSolver {
       name = "useLastModel")
   private boolean useLastModel = true;
 
+  @Option(
+      secure = true,
+      description =
+          "Keep the constraints of previous checks on the stacks of incremental prover sessions,"
+              + " such that a check only has to push the constraints that were added since a"
+              + " previous check along the same path. This checks all constraints of a state,"
+              + " so minimalSatCheck is ignored.",
+      name = "incrementalSolving")
+  private boolean incrementalSolving = false;
+
+  @Option(
+      secure = true,
+      description =
+          "Maximum number of prover sessions that are kept alive for incremental solving."
+              + " If more are needed, the least recently used session is closed.",
+      name = "maxProverSessions")
+  @IntegerOption(min = 1)
+  private int maxProverSessions = 4;
+
   private ConstraintsCache cache;
   private Solver solver;
   private ProverEnvironment prover;
+
+  /** Prover sessions for incremental solving, the most recently used one first. */
+  private final Deque<ProverSession> proverSessions = new ArrayDeque<>();
+
+  /** The prover session that {@link #prover} belongs to, if incremental solving is used. */
+  private @Nullable ProverSession currentSession;
   private FormulaManagerView formulaManager;
   private BooleanFormulaManagerView booleanFormulaManager;
 
@@ -174,7 +203,7 @@ public class ConstraintsSolver {
       Boolean unsat = null; // assign null to fail fast if assignment is missed
       Set<Constraint> relevantConstraints = getRelevantConstraints(pConstraints);
 
-      Collection<BooleanFormula> constraintsAsFormulas =
+      List<BooleanFormula> constraintsAsFormulas =
           getFullFormula(relevantConstraints, pFunctionName);
       CacheResult res = cache.getCachedResult(constraintsAsFormulas);
 
@@ -185,11 +214,21 @@ public class ConstraintsSolver {
         unsat = false;
         pConstraints.setModel(res.getModelAssignment());
 
+      } else if (incrementalSolving) {
+        currentSession = getProverSession(constraintsAsFormulas);
+        prover = currentSession.prover;
+        BooleanFormula definites = getDefAssignmentsFormula(pConstraints);
+        if (!booleanFormulaManager.isTrue(definites)) {
+          pushTemporarily(definites);
+        }
       } else {
         prover = solver.newProverEnvironment(ProverOptions.GENERATE_MODELS);
         BooleanFormula definitesAndConstraints =
             combineWithDefinites(constraintsAsFormulas, pConstraints);
         prover.push(definitesAndConstraints);
+      }
+
+      if (unsat == null) {
 
         ImmutableList<ValueAssignment> newModelAsAssignment;
         ImmutableList<ValueAssignment> modelAsAssignment = pConstraints.getModel();
@@ -204,7 +243,7 @@ public class ConstraintsSolver {
                     .map(ValueAssignment::getAssignmentAsFormula)
                     .collect(booleanFormulaManager.toConjunction());
             modelFormula = createLiteralLabel(literalForModel, modelFormula);
-            prover.push(modelFormula);
+            pushTemporarily(modelFormula);
             unsat = prover.isUnsatWithAssumptions(
                 ImmutableList.of(literalForModel));
             if (!unsat) {
@@ -281,7 +320,9 @@ public class ConstraintsSolver {
 
   private Set<Constraint> getRelevantConstraints(ConstraintsState pConstraints) {
     Set<Constraint> relevantConstraints = new HashSet<>();
-    if (performMinimalSatCheck && pConstraints.getLastAddedConstraint().isPresent()) {
+    if (performMinimalSatCheck
+        && !incrementalSolving
+        && pConstraints.getLastAddedConstraint().isPresent()) {
       try {
         stats.timeForIndependentComputation.start();
         Constraint lastConstraint = pConstraints.getLastAddedConstraint().get();
@@ -319,12 +360,72 @@ public class ConstraintsSolver {
   }
 
   private void closeProver() {
-    if (prover != null) {
+    if (currentSession != null) {
+      // keep the session for the next check, but remove everything that belongs to this check
+      currentSession.popTemporaryLevels();
+      currentSession = null;
+      prover = null;
+    } else if (prover != null) {
       prover.close();
       prover = null;
     }
   }
 
+  /**
+   * Push a formula that is only valid for the current check. For incremental solving, the formula
+   * is removed from the prover session after the check.
+   */
+  private void pushTemporarily(BooleanFormula pFormula) throws InterruptedException {
+    prover.push(pFormula);
+    if (currentSession != null) {
+      currentSession.temporaryLevels++;
+    }
+  }
+
+  /**
+   * Returns the prover session whose stack has the longest common prefix with the given formulas
+   * and aligns its stack with them. A new session is only created if no session shares a prefix
+   * with the formulas. If the maximum number of sessions is reached, the least recently used
+   * session is closed, such that the formulas on its stack can be freed.
+   */
+  private ProverSession getProverSession(List<BooleanFormula> pFormulas)
+      throws InterruptedException {
+    ProverSession best = null;
+    int bestPrefix = 0;
+    for (ProverSession session : proverSessions) {
+      int prefix = session.getCommonPrefixLength(pFormulas);
+      if (best == null || prefix > bestPrefix) {
+        best = session;
+        bestPrefix = prefix;
+      }
+    }
+    if (best == null || bestPrefix == 0) {
+      if (proverSessions.size() >= maxProverSessions) {
+        proverSessions.removeLast().close();
+        stats.proverSessionsClosed.inc();
+      }
+      best = new ProverSession(solver.newProverEnvironment(ProverOptions.GENERATE_MODELS));
+      stats.proverSessionsCreated.inc();
+    } else {
+      proverSessions.remove(best);
+    }
+    proverSessions.addFirst(best);
+
+    int reused = best.alignWith(pFormulas);
+    stats.constraintsReusedFromSession.setNextValue(reused);
+    stats.constraintsPushedToSession.setNextValue(pFormulas.size() - reused);
+    return best;
+  }
+
+  /** Close all prover sessions that are kept for incremental solving. */
+  @Override
+  public void close() {
+    for (ProverSession session : proverSessions) {
+      session.close();
+    }
+    proverSessions.clear();
+  }
+
   private ImmutableCollection<ValueAssignment> resolveDefiniteAssignments(
       ConstraintsState pConstraints, List<ValueAssignment> pModel)
       throws InterruptedException, SolverException {
@@ -382,7 +483,7 @@ public class ConstraintsSolver {
    * @throws UnrecognizedCodeException see {@link FormulaCreator#createFormula(Constraint)}
    * @throws InterruptedException see {@link FormulaCreator#createFormula(Constraint)}
    */
-  private Collection<BooleanFormula> getFullFormula(
+  private List<BooleanFormula> getFullFormula(
       Collection<Constraint> pConstraints, String pFunctionName)
       throws UnrecognizedCodeException, InterruptedException {
 
@@ -406,6 +507,61 @@ public class ConstraintsSolver {
     return getFormulaCreator(pFunctionName).createFormula(pConstraint);
   }
 
+  /**
+   * An incremental prover whose stack contains the formulas of a sequence of constraints, one
+   * constraint per level, followed by the temporary levels of the current check.
+   */
+  private static final class ProverSession {
+
+    private final ProverEnvironment prover;
+    private final List<BooleanFormula> stack = new ArrayList<>();
+    private int temporaryLevels = 0;
+
+    private ProverSession(ProverEnvironment pProver) {
+      prover = pProver;
+    }
+
+    private int getCommonPrefixLength(List<BooleanFormula> pFormulas) {
+      int max = Math.min(stack.size(), pFormulas.size());
+      int i = 0;
+      while (i < max && stack.get(i).equals(pFormulas.get(i))) {
+        i++;
+      }
+      return i;
+    }
+
+    /**
+     * Pop all levels that do not match the given formulas and push the missing ones.
+     *
+     * @return the number of formulas that were already on the stack
+     */
+    private int alignWith(List<BooleanFormula> pFormulas) throws InterruptedException {
+      checkState(temporaryLevels == 0);
+      int prefix = getCommonPrefixLength(pFormulas);
+      while (stack.size() > prefix) {
+        prover.pop();
+        stack.remove(stack.size() - 1);
+      }
+      for (BooleanFormula formula : pFormulas.subList(prefix, pFormulas.size())) {
+        prover.push(formula);
+        // update only after a successful push, such that the stack stays consistent
+        stack.add(formula);
+      }
+      return prefix;
+    }
+
+    private void popTemporaryLevels() {
+      for (; temporaryLevels > 0; temporaryLevels--) {
+        prover.pop();
+      }
+    }
+
+    private void close() {
+      prover.close();
+      stack.clear();
+    }
+  }
+
   private interface ConstraintsCache {
     CacheResult getCachedResult(Collection<BooleanFormula> pConstraints);
 
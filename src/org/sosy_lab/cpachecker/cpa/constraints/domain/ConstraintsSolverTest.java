@@ -0,0 +1,210 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.constraints.domain;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.Type;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.core.AnalysisDirection;
+import org.sosy_lab.cpachecker.cpa.constraints.ConstraintsStatistics;
+import org.sosy_lab.cpachecker.cpa.constraints.constraint.Constraint;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicExpression;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.type.SymbolicValueFactory;
+import org.sosy_lab.cpachecker.cpa.value.symbolic.util.SymbolicValues;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.ctoformula.CtoFormulaConverter;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.ctoformula.CtoFormulaTypeHandler;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.ctoformula.FormulaEncodingOptions;
+import org.sosy_lab.cpachecker.util.predicates.smt.SolverViewBasedTest0;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+/**
+ * Tests that incremental solving in {@link ConstraintsSolver} gives the same results as solving
+ * each state on its own, while prover sessions are re-aligned and evicted.
+ */
+public class ConstraintsSolverTest extends SolverViewBasedTest0 {
+
+  private static final String FUNCTION_NAME = "main";
+  private static final int MAX_PROVER_SESSIONS = 2;
+
+  private final SymbolicValueFactory factory = SymbolicValueFactory.getInstance();
+  private final Type defType = CNumericTypes.INT;
+
+  private final SymbolicExpression x = variable("x");
+  private final SymbolicExpression y = variable("y");
+  private final SymbolicExpression z = variable("z");
+
+  private ConstraintsStatistics incrementalStats;
+  private ConstraintsSolver incrementalSolver;
+  private ConstraintsSolver referenceSolver;
+
+  @Before
+  public void setUp() throws InvalidConfigurationException {
+    SymbolicValues.initialize();
+    incrementalStats = new ConstraintsStatistics();
+    incrementalSolver =
+        createSolver(
+            Configuration.builder()
+                .copyFrom(config)
+                .setOption("cpa.constraints.cache", "false")
+                .setOption("cpa.constraints.incrementalSolving", "true")
+                .setOption(
+                    "cpa.constraints.maxProverSessions", Integer.toString(MAX_PROVER_SESSIONS))
+                .build(),
+            incrementalStats);
+    referenceSolver =
+        createSolver(
+            Configuration.builder()
+                .copyFrom(config)
+                .setOption("cpa.constraints.cache", "false")
+                .setOption("cpa.constraints.minimalSatCheck", "false")
+                .build(),
+            new ConstraintsStatistics());
+  }
+
+  @After
+  public void closeSolvers() {
+    incrementalSolver.close();
+    referenceSolver.close();
+  }
+
+  private ConstraintsSolver createSolver(Configuration pConfig, ConstraintsStatistics pStats)
+      throws InvalidConfigurationException {
+    MachineModel machineModel = MachineModel.LINUX32;
+    CtoFormulaConverter converter =
+        new CtoFormulaConverter(
+            new FormulaEncodingOptions(pConfig),
+            mgrv,
+            machineModel,
+            Optional.empty(),
+            logger,
+            ShutdownNotifier.createDummy(),
+            new CtoFormulaTypeHandler(logger, machineModel),
+            AnalysisDirection.FORWARD);
+    return new ConstraintsSolver(pConfig, solver, mgrv, converter, pStats);
+  }
+
+  private SymbolicExpression variable(String pName) {
+    return factory.asConstant(factory.newIdentifier(MemoryLocation.valueOf(pName)), defType);
+  }
+
+  private SymbolicExpression number(long pValue) {
+    return factory.asConstant(new NumericValue(pValue), defType);
+  }
+
+  private Constraint greaterThan(SymbolicExpression pLeft, SymbolicExpression pRight) {
+    return (Constraint) factory.greaterThan(pLeft, pRight, defType, defType);
+  }
+
+  private Constraint lessThan(SymbolicExpression pLeft, SymbolicExpression pRight) {
+    return (Constraint) factory.lessThan(pLeft, pRight, defType, defType);
+  }
+
+  private Constraint equal(SymbolicExpression pLeft, SymbolicExpression pRight) {
+    return factory.equal(pLeft, pRight, defType, defType);
+  }
+
+  /**
+   * Checks the given path with both solvers and asserts that both give the expected result. The
+   * state for the incremental solver starts with the model of the given predecessor, if any, such
+   * that the check also pushes temporary levels onto the prover session.
+   */
+  private ConstraintsState checkPath(
+      List<Constraint> pPath, @Nullable ConstraintsState pPredecessor, boolean pExpectUnsat)
+      throws Exception {
+    ConstraintsState incrementalState = new ConstraintsState();
+    incrementalState.addAll(pPath);
+    if (pPredecessor != null) {
+      incrementalState.setModel(pPredecessor.getModel());
+    }
+    ConstraintsState referenceState = new ConstraintsState();
+    referenceState.addAll(pPath);
+
+    assertThat(referenceSolver.isUnsat(referenceState, FUNCTION_NAME)).isEqualTo(pExpectUnsat);
+    assertThat(incrementalSolver.isUnsat(incrementalState, FUNCTION_NAME))
+        .isEqualTo(pExpectUnsat);
+    return incrementalState;
+  }
+
+  private void assertSessions(int pCreated, int pClosed) {
+    assertThat(incrementalStats.proverSessionsCreated.getValue()).isEqualTo(pCreated);
+    assertThat(incrementalStats.proverSessionsClosed.getValue()).isEqualTo(pClosed);
+  }
+
+  private static List<Constraint> extend(List<Constraint> pPrefix, Constraint... pConstraints) {
+    List<Constraint> result = new ArrayList<>(pPrefix);
+    result.addAll(ImmutableList.copyOf(pConstraints));
+    return result;
+  }
+
+  @Test
+  public void testBacktrackingAndEviction() throws Exception {
+    List<Constraint> prefix = ImmutableList.of(greaterThan(x, number(0)), greaterThan(y, x));
+
+    // x > 0, y > x, z > y
+    List<Constraint> path = extend(prefix, greaterThan(z, y));
+    ConstraintsState longPath = checkPath(path, null, false);
+
+    // backtrack to a shorter prefix, the model of the longer path is reused
+    ConstraintsState shortPath = checkPath(prefix, longPath, false);
+
+    // extend the prefix with a different constraint: y < 0 contradicts x > 0, y > x
+    checkPath(extend(prefix, lessThan(y, number(0))), shortPath, true);
+
+    // extend the original path again after the unsatisfiable check
+    checkPath(extend(path, lessThan(z, number(1))), longPath, true);
+    checkPath(extend(path, equal(z, number(3))), longPath, false);
+    assertSessions(1, 0);
+
+    // unrelated paths need new sessions, until the least recently used one is closed
+    checkPath(ImmutableList.of(lessThan(x, number(0))), null, false);
+    assertSessions(2, 0);
+    List<Constraint> otherPath = ImmutableList.of(equal(y, number(5)), lessThan(y, number(5)));
+    checkPath(otherPath, null, true);
+    assertSessions(3, 1);
+
+    // the session of the first paths was closed, so they are checked from scratch
+    checkPath(extend(path, equal(z, number(3))), longPath, false);
+    checkPath(extend(prefix, lessThan(y, number(0))), shortPath, true);
+    assertSessions(4, 2);
+
+    // the session of the other path was kept and is re-aligned
+    checkPath(ImmutableList.of(equal(y, number(5)), greaterThan(y, number(0))), null, false);
+    checkPath(otherPath, null, true);
+    assertSessions(4, 2);
+  }
+}
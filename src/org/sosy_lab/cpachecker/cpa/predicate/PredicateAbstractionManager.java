@@ -43,7 +43,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -69,6 +68,7 @@ import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantSupplier;
 import org.sosy_lab.cpachecker.core.algorithm.invariants.InvariantSupplier.TrivialInvariantSupplier;
 import org.sosy_lab.cpachecker.cpa.callstack.CallstackStateEqualsWrapper;
+import org.sosy_lab.cpachecker.cpa.predicate.persistence.PersistentAbstractionCache;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateAbstractionsStorage;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateAbstractionsStorage.AbstractionNode;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicatePersistenceUtils.PredicateParsingFailedException;
@@ -84,10 +84,12 @@ import org.sosy_lab.cpachecker.util.predicates.regions.Region;
 import org.sosy_lab.cpachecker.util.predicates.regions.RegionCreator;
 import org.sosy_lab.cpachecker.util.predicates.regions.RegionCreator.RegionBuilder;
 import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.BoundedFormulaCache;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
 import org.sosy_lab.cpachecker.util.predicates.weakening.InductiveWeakeningManager;
 import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.ProverEnvironment;
@@ -177,6 +179,31 @@ public class PredicateAbstractionManager {
   @Option(secure=true, name = "abs.useCache", description = "use caching of abstractions")
   private boolean useCache = true;
 
+  @Option(
+      secure = true,
+      name = "abs.cache.maxEntries",
+      description =
+          "Maximal number of entries in each of the caches of abstractions"
+              + " (0 for no limit). The least-recently used entries are evicted.")
+  private int maxCacheEntries = 0;
+
+  @Option(
+      secure = true,
+      name = "abs.cache.maxFormulaSize",
+      description =
+          "Maximal sum of the DAG sizes of the formulas stored in each of the caches"
+              + " of abstractions (0 for no limit). The least-recently used entries are evicted.")
+  private long maxCacheFormulaSize = 0;
+
+  @Option(
+      name = "abs.persistentCache.directory",
+      description =
+          "Directory for a persistent cache of abstraction results that is reused across runs"
+              + " (disabled if not set). In order to share the cache between runs"
+              + " with different output directories, specify an absolute path.")
+  @FileOption(FileOption.Type.OUTPUT_DIRECTORY)
+  private @Nullable Path persistentCacheDirectory = null;
+
   @Option(secure=true, name="refinement.splitItpAtoms",
       description="split each arithmetic equality into two inequalities when extracting predicates from interpolants")
   private boolean splitItpAtoms = false;
@@ -193,17 +220,20 @@ public class PredicateAbstractionManager {
 
   private boolean abstractionReuseDisabledBecauseOfAmbiguity = false;
 
-  private final Map<Pair<BooleanFormula, ImmutableSet<BooleanFormula>>, AbstractionFormula>
+  private final BoundedFormulaCache<
+          Pair<BooleanFormula, ImmutableSet<BooleanFormula>>, AbstractionFormula>
       abstractionCache;
 
   // Cache for satisfiability queries: if formula is contained, it is unsat
-  private final Set<BooleanFormula> unsatisfiabilityCache;
+  private final BoundedFormulaCache<BooleanFormula, Boolean> unsatisfiabilityCache;
 
   //cache for cartesian abstraction queries. For each predicate, the values
   // are -1: predicate is false, 0: predicate is don't care,
   // 1: predicate is true
   private final Map<Pair<BooleanFormula, AbstractionPredicate>, Byte> cartesianAbstractionCache;
 
+  private final @Nullable PersistentAbstractionCache persistentCache;
+
   public PredicateAbstractionManager(
       AbstractionManager pAmgr,
       PathFormulaManager pPfmgr,
@@ -240,8 +270,13 @@ public class PredicateAbstractionManager {
     }
 
     if (useCache) {
-      abstractionCache = new HashMap<>();
-      unsatisfiabilityCache = new HashSet<>();
+      abstractionCache =
+          new BoundedFormulaCache<>(
+              maxCacheEntries,
+              maxCacheFormulaSize,
+              key -> fmgr.getDagSize(key.getFirst()) + key.getSecond().size());
+      unsatisfiabilityCache =
+          new BoundedFormulaCache<>(maxCacheEntries, maxCacheFormulaSize, fmgr::getDagSize);
     } else {
       abstractionCache = null;
       unsatisfiabilityCache = null;
@@ -254,6 +289,23 @@ public class PredicateAbstractionManager {
     }
 
     abstractionStorage = new PredicateAbstractionsStorage(reuseAbstractionsFrom, logger, fmgr, null);
+
+    if (persistentCacheDirectory != null) {
+      if (invariantSupplier != TrivialInvariantSupplier.INSTANCE) {
+        // invariants are added to abstractions, but are not part of the cache key
+        throw new InvalidConfigurationException(
+            "Persistent abstraction cache cannot be used together with invariants.");
+      }
+      try {
+        persistentCache =
+            new PersistentAbstractionCache(persistentCacheDirectory, fmgr, amgr, logger);
+      } catch (IOException e) {
+        throw new InvalidConfigurationException(
+            "Cannot create directory for persistent abstraction cache: " + e.getMessage(), e);
+      }
+    } else {
+      persistentCache = null;
+    }
   }
 
   /**
@@ -297,6 +349,19 @@ public class PredicateAbstractionManager {
       unsatisfiabilityCache.clear();
     }
   }
+
+  void printCacheStatistics(StatisticsWriter pWriter) {
+    if (useCache) {
+      pWriter.put("Abstraction cache", abstractionCache.size() + " entries");
+      abstractionCache.printStatistics(pWriter.beginLevel());
+      pWriter.put("Abstraction unsat cache", unsatisfiabilityCache.size() + " entries");
+      unsatisfiabilityCache.printStatistics(pWriter.beginLevel());
+    }
+    if (persistentCache != null) {
+      pWriter.put("Persistent abstraction cache", persistentCacheDirectory);
+      persistentCache.printStatistics(pWriter.beginLevel());
+    }
+  }
   /**
    * Compute an abstraction of the conjunction of an AbstractionFormula and
    * a PathFormula. The AbstractionFormula will be used in its instantiated form,
@@ -385,8 +450,8 @@ public class PredicateAbstractionManager {
         return result;
       }
 
-      boolean unsatisfiable = unsatisfiabilityCache.contains(symbFormula)
-                            || unsatisfiabilityCache.contains(f);
+      boolean unsatisfiable = unsatisfiabilityCache.containsKey(symbFormula)
+                            || unsatisfiabilityCache.containsKey(f);
       if (unsatisfiable) {
         // block is infeasible
         logger.log(Level.FINEST, "Block feasibility of abstraction", stats.numCallsAbstraction, "was cached and is false.");
@@ -397,6 +462,22 @@ public class PredicateAbstractionManager {
       }
     }
 
+    PersistentAbstractionCache.Key persistentKey = null;
+    if (persistentCache != null) {
+      persistentKey =
+          persistentCache.computeKey(f, remainingPredicates, instantiator, abstractionType);
+      Optional<Region> stored = persistentCache.load(persistentKey);
+      if (stored.isPresent()) {
+        AbstractionFormula result = makeAbstractionFormula(stored.get(), ssa, pathFormula);
+        if (useCache) {
+          abstractionCache.put(absKey, result);
+        }
+        logger.log(Level.FINEST, "Abstraction", stats.numCallsAbstraction, "was stored on disk");
+        logger.log(Level.ALL, "Abstraction result is", result.asFormula());
+        stats.numCallsAbstractionCached++;
+        return result;
+      }
+    }
 
     // Compute result for those predicates
     // where we can trivially identify their truthness in the result
@@ -442,7 +523,7 @@ public class PredicateAbstractionManager {
       abstractionCache.put(absKey, result);
 
       if (result.isFalse()) {
-        unsatisfiabilityCache.add(f);
+        unsatisfiabilityCache.put(f, true);
       }
     }
 
@@ -450,6 +531,9 @@ public class PredicateAbstractionManager {
                                         stats.abstractionEnumTime.getLengthOfLastOuterInterval())
                                    .asMillis();
     logger.log(Level.FINEST, "Computing abstraction took", abstractionTime, "ms");
+    if (persistentCache != null) {
+      persistentCache.store(persistentKey, abs, TimeSpan.ofMillis(abstractionTime));
+    }
     logger.log(Level.ALL, "Abstraction result is", result.asFormula());
 
     if (dumpHardAbstractions && abstractionTime > 10000) {
@@ -484,7 +568,7 @@ public class PredicateAbstractionManager {
       return bfmgr.makeTrue();
     }
 
-    if (unsatisfiabilityCache.contains(pF)) {
+    if (unsatisfiabilityCache.containsKey(pF)) {
       stats.numCallsAbstractionCached++;
       return bfmgr.makeFalse();
     }
@@ -503,7 +587,7 @@ public class PredicateAbstractionManager {
     }
 
     if (bfmgr.isFalse(symbolicAbs)) {
-      unsatisfiabilityCache.add(pF);
+      unsatisfiabilityCache.put(pF, true);
     }
 
     return symbolicAbs;
@@ -0,0 +1,416 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sosy_lab.cpachecker.cpa.predicate.PredicateAbstractState.getPredicateState;
+import static org.sosy_lab.cpachecker.util.statistics.StatisticsWriter.writingStatisticsTo;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.counterexample.CounterexampleInfo;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Refiner;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.interfaces.StatisticsProvider;
+import org.sosy_lab.cpachecker.core.reachedset.ReachedSet;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGBasedRefiner;
+import org.sosy_lab.cpachecker.cpa.arg.ARGCPA;
+import org.sosy_lab.cpachecker.cpa.arg.ARGReachedSet;
+import org.sosy_lab.cpachecker.cpa.arg.ARGState;
+import org.sosy_lab.cpachecker.cpa.arg.ARGUtils;
+import org.sosy_lab.cpachecker.exceptions.CPAException;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * This class provides a global refinement for predicate abstraction that checks the paths to all
+ * target states in the reached set concurrently.
+ *
+ * <p>Each path is checked for feasibility and interpolated by one of several worker threads, each
+ * of which has its own solver instance. The formulas are translated from and to the solver of the
+ * analysis. The interpolants of all infeasible paths are then given to a {@link
+ * GlobalRefinementStrategy}, which merges them into a single update of the precision and the ARG.
+ * In order to have several target states in the reached set, this refiner should be used together
+ * with cegar.globalRefinement.
+ *
+ * <p>If one of the paths is feasible, it is handed to the sequential refiner of the predicate
+ * analysis, which performs the usual checks (e.g., for repeated counterexamples and precise
+ * paths) and creates the counterexample information.
+ */
+@Options(prefix = "cpa.predicate.refinement.parallel")
+public class PredicateCPAParallelRefiner
+    implements Refiner, StatisticsProvider, AutoCloseable {
+
+  @Option(
+      secure = true,
+      description =
+          "Number of threads, each with a separate solver instance,"
+              + " that check counterexamples in parallel.")
+  @IntegerOption(min = 1)
+  private int threads = 2;
+
+  @Option(
+      secure = true,
+      description =
+          "Maximal number of paths to target states that are checked per refinement"
+              + " (0 for no limit).")
+  @IntegerOption(min = 0)
+  private int maxPaths = 0;
+
+  // statistics
+  private final StatTimer totalTime = new StatTimer("Time for refinement");
+  private final StatTimer checkTime = new StatTimer("Time for parallel path checks");
+  private final StatTimer updateTime = new StatTimer("Time for precision and ARG update");
+  private final StatCounter checkedPaths = new StatCounter("Number of checked paths");
+  private final StatCounter infeasiblePaths = new StatCounter("Number of infeasible paths");
+  private final StatCounter delegatedPaths =
+      new StatCounter("Number of feasible paths given to sequential refiner");
+
+  private final LogManager logger;
+  private final GlobalRefinementStrategy strategy;
+  private final FormulaManagerView fmgr;
+  private final ARGCPA argCPA;
+  private final ARGBasedRefiner sequentialRefiner;
+
+  /** all solver instances of the workers */
+  private final List<Solver> solvers;
+
+  /** the solver instances that are currently not used by a worker */
+  private final BlockingQueue<Solver> idleSolvers;
+
+  private final ExecutorService pool;
+
+  public PredicateCPAParallelRefiner(
+      final LogManager pLogger,
+      final ShutdownNotifier pShutdownNotifier,
+      final FormulaManagerView pFmgr,
+      final GlobalRefinementStrategy pStrategy,
+      final ARGCPA pArgcpa,
+      final ARGBasedRefiner pSequentialRefiner,
+      final Configuration pConfig)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+
+    logger = pLogger;
+    fmgr = pFmgr;
+    strategy = pStrategy;
+    argCPA = pArgcpa;
+    sequentialRefiner = checkNotNull(pSequentialRefiner);
+
+    solvers = new ArrayList<>(threads);
+    for (int i = 0; i < threads; i++) {
+      solvers.add(Solver.create(pConfig, pLogger, pShutdownNotifier));
+    }
+    idleSolvers = new ArrayBlockingQueue<>(threads, false, solvers);
+    pool =
+        Executors.newFixedThreadPool(
+            threads,
+            new ThreadFactoryBuilder()
+                .setNameFormat("PredicateCPAParallelRefiner-worker-%d")
+                .setDaemon(true)
+                .build());
+
+    logger.log(
+        Level.INFO,
+        "Using parallel refinement for predicate analysis with",
+        threads,
+        "threads and",
+        strategy.getClass().getSimpleName(),
+        "strategy.");
+  }
+
+  @Override
+  public boolean performRefinement(final ReachedSet pReached)
+      throws CPAException, InterruptedException {
+    totalTime.start();
+    try {
+      FluentIterable<AbstractState> targets =
+          FluentIterable.from(pReached).filter(AbstractStates.IS_TARGET_STATE);
+      if (maxPaths > 0) {
+        targets = targets.limit(maxPaths);
+      }
+      assert !targets.isEmpty();
+
+      List<ARGState> targetStates = targets.filter(ARGState.class).toList();
+      List<List<ARGState>> traces = new ArrayList<>(targetStates.size());
+      for (ARGState target : targetStates) {
+        traces.add(getAbstractionStatesTrace(target));
+      }
+      logger.log(Level.FINE, "Checking", traces.size(), "paths in parallel.");
+
+      List<Optional<List<BooleanFormula>>> results;
+      checkTime.start();
+      try {
+        results = checkPaths(traces);
+      } finally {
+        checkTime.stop();
+      }
+
+      ARGReachedSet argReachedSet = new ARGReachedSet(pReached, argCPA);
+      for (int i = 0; i < traces.size(); i++) {
+        if (!results.get(i).isPresent()) {
+          logger.log(Level.FINE, "Found feasible path to target state", targetStates.get(i));
+          return handleFeasiblePath(argReachedSet, targetStates.get(i));
+        }
+      }
+
+      updateTime.start();
+      try {
+        strategy.initializeGlobalRefinement();
+        for (int i = 0; i < traces.size(); i++) {
+          infeasiblePaths.inc();
+          strategy.performRefinement(argReachedSet, traces.get(i), results.get(i).get(), false);
+        }
+        strategy.updatePrecisionAndARG();
+      } finally {
+        updateTime.stop();
+      }
+      return true;
+
+    } finally {
+      totalTime.stop();
+    }
+  }
+
+  /**
+   * Give a path that was found to be feasible to the sequential refiner, and attach the resulting
+   * counterexample to the target state (like {@link
+   * org.sosy_lab.cpachecker.cpa.arg.AbstractARGBasedRefiner}).
+   *
+   * @return whether the sequential refiner has refined the path nevertheless
+   */
+  private boolean handleFeasiblePath(ARGReachedSet pReached, ARGState pTarget)
+      throws CPAException, InterruptedException {
+    delegatedPaths.inc();
+    CounterexampleInfo counterexample =
+        sequentialRefiner.performRefinementForPath(pReached, ARGUtils.getOnePathTo(pTarget));
+    if (counterexample.isSpurious()) {
+      return true;
+    }
+    pTarget.addCounterexampleInformation(counterexample);
+    argCPA.getARGExporter().exportCounterexampleOnTheFly(pTarget, counterexample);
+    return false;
+  }
+
+  /**
+   * Return the abstraction states on the path from the root (exclusive) to the given target state
+   * (inclusive).
+   */
+  private static List<ARGState> getAbstractionStatesTrace(ARGState pTarget) {
+    List<ARGState> trace = new ArrayList<>();
+    ARGState current = pTarget;
+    while (!current.getParents().isEmpty()) {
+      if (getPredicateState(current).isAbstractionState()) {
+        trace.add(current);
+      }
+      current = current.getParents().iterator().next();
+    }
+    return Lists.reverse(trace);
+  }
+
+  /**
+   * Check the given paths concurrently.
+   *
+   * @return for each path either the interpolants for all states of the path except the last one
+   *     (if the path is infeasible), or an empty optional (if the path is feasible)
+   */
+  private List<Optional<List<BooleanFormula>>> checkPaths(List<List<ARGState>> pTraces)
+      throws CPAException, InterruptedException {
+    List<Future<Optional<List<BooleanFormula>>>> futures = new ArrayList<>(pTraces.size());
+    try {
+      for (List<ARGState> trace : pTraces) {
+        List<BooleanFormula> blockFormulas = new ArrayList<>(trace.size());
+        for (ARGState state : trace) {
+          blockFormulas.add(
+              getPredicateState(state).getAbstractionFormula().getBlockFormula().getFormula());
+        }
+        futures.add(pool.submit(() -> checkPath(blockFormulas)));
+      }
+
+      List<Optional<List<BooleanFormula>>> results = new ArrayList<>(pTraces.size());
+      for (Future<Optional<List<BooleanFormula>>> future : futures) {
+        try {
+          results.add(future.get());
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          Throwables.propagateIfPossible(cause, CPAException.class, InterruptedException.class);
+          if (cause instanceof SolverException) {
+            throw new CPAException("Solver Exception", cause);
+          }
+          throw new AssertionError(cause);
+        }
+      }
+      return results;
+
+    } finally {
+      for (Future<?> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  /** Check one path with one of the worker solvers, called by the worker threads. */
+  private Optional<List<BooleanFormula>> checkPath(List<BooleanFormula> pBlockFormulas)
+      throws InterruptedException, SolverException {
+    checkedPaths.inc();
+    Solver solver = idleSolvers.take();
+    try {
+      FormulaManagerView workerFmgr = solver.getFormulaManager();
+
+      // The solver of the analysis is not thread-safe,
+      // so we translate formulas only while holding its lock.
+      List<BooleanFormula> formulas = new ArrayList<>(pBlockFormulas.size());
+      synchronized (fmgr) {
+        for (BooleanFormula f : pBlockFormulas) {
+          formulas.add(workerFmgr.translateFrom(f, fmgr));
+        }
+      }
+
+      List<BooleanFormula> interpolants;
+      try (InterpolatingProverEnvironment<?> itpProver =
+          solver.newProverEnvironmentWithInterpolation()) {
+        interpolants = interpolate(formulas, itpProver);
+      }
+      if (interpolants == null) {
+        return Optional.empty();
+      }
+
+      List<BooleanFormula> result = new ArrayList<>(interpolants.size());
+      synchronized (fmgr) {
+        for (BooleanFormula itp : interpolants) {
+          result.add(fmgr.translateFrom(itp, workerFmgr));
+        }
+      }
+      return Optional.of(result);
+
+    } finally {
+      idleSolvers.add(solver);
+    }
+  }
+
+  /**
+   * Compute the interpolants for all prefixes of the given path.
+   *
+   * @return the interpolants or null if the path is feasible
+   */
+  private static <T> List<BooleanFormula> interpolate(
+      List<BooleanFormula> pFormulas, InterpolatingProverEnvironment<T> itpProver)
+      throws InterruptedException, SolverException {
+    List<T> itpStack = new ArrayList<>(pFormulas.size());
+    for (BooleanFormula f : pFormulas) {
+      itpStack.add(itpProver.push(checkNotNull(f)));
+    }
+    if (!itpProver.isUnsat()) {
+      return null;
+    }
+
+    List<BooleanFormula> interpolants = new ArrayList<>(pFormulas.size() - 1);
+    for (int i = 1; i < pFormulas.size(); i++) {
+      interpolants.add(itpProver.getInterpolant(itpStack.subList(0, i)));
+    }
+    return interpolants;
+  }
+
+  /** Stop the worker threads and close their solvers. */
+  @Override
+  public void close() {
+    pool.shutdownNow();
+    try {
+      if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+        logger.log(Level.WARNING, "Worker threads of parallel refinement did not terminate.");
+        return; // do not close solvers that might still be in use
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    for (Solver solver : solvers) {
+      solver.close();
+    }
+  }
+
+  @Override
+  public void collectStatistics(Collection<Statistics> pStatsCollection) {
+    pStatsCollection.add(new Stats());
+    if (sequentialRefiner instanceof StatisticsProvider) {
+      ((StatisticsProvider) sequentialRefiner).collectStatistics(pStatsCollection);
+    }
+  }
+
+  private class Stats implements Statistics {
+
+    @Override
+    public void printStatistics(PrintStream out, Result result, UnmodifiableReachedSet reached) {
+      StatisticsWriter w0 = writingStatisticsTo(out);
+      int numberOfRefinements = totalTime.getUpdateCount();
+      w0.put("Number of predicate refinements", numberOfRefinements);
+      if (numberOfRefinements > 0) {
+        w0.put("Number of worker threads", threads)
+            .put(checkedPaths)
+            .put(infeasiblePaths)
+            .put(delegatedPaths)
+            .put(totalTime)
+            .put(checkTime)
+            .put(updateTime);
+      }
+    }
+
+    @Override
+    public String getName() {
+      return "Predicate Parallel Refiner";
+    }
+  }
+}
@@ -29,6 +29,8 @@ import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.toPercent;
 import static org.sosy_lab.cpachecker.util.statistics.StatisticsUtils.valueWithPercentage;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
@@ -60,14 +62,18 @@ import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.LoopInvariantsWriter;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateAbstractionsWriter;
 import org.sosy_lab.cpachecker.cpa.predicate.persistence.PredicateMapWriter;
+import org.sosy_lab.cpachecker.util.AbstractStates;
 import org.sosy_lab.cpachecker.util.Precisions;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
 import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
 import org.sosy_lab.cpachecker.util.predicates.BlockOperator;
 import org.sosy_lab.cpachecker.util.predicates.pathformula.PathFormulaManager;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMap;
+import org.sosy_lab.cpachecker.util.predicates.pathformula.SSAMapInterner;
 import org.sosy_lab.cpachecker.util.predicates.regions.RegionManager;
 import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
 import org.sosy_lab.cpachecker.util.predicates.smt.Solver;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 
 @Options(prefix = "cpa.predicate")
 class PredicateCPAStatistics implements Statistics {
@@ -312,6 +318,9 @@ class PredicateCPAStatistics implements Statistics {
     out.println("Number of SMT sat checks:          " + solver.satChecks);
     out.println("  trivial:                         " + solver.trivialSatChecks);
     out.println("  cached:                          " + solver.cachedSatChecks);
+    StatisticsWriter writer = StatisticsWriter.writingStatisticsTo(out);
+    solver.printCacheStatistics(writer);
+    amgr.printCacheStatistics(writer);
     out.println();
     out.println("Max ABE block size:                       " + statistics.maxBlockSize);
     out.println("Number of predicates discovered:          " + allDistinctPreds);
@@ -400,7 +409,19 @@ class PredicateCPAStatistics implements Statistics {
     }
     out.println();
     pfmgr.printStatistics(out);
+    SSAMapInterner.printMemoryStatistics(
+        getSSAMaps(reached), StatisticsWriter.writingStatisticsTo(out));
     out.println();
     rmgr.printStatistics(out);
   }
+
+  /** Return the SSA maps of the path formulas and block formulas of all states in reached. */
+  private static FluentIterable<SSAMap> getSSAMaps(UnmodifiableReachedSet reached) {
+    return AbstractStates.projectToType(reached, PredicateAbstractState.class)
+        .transformAndConcat(
+            state ->
+                ImmutableList.of(
+                    state.getPathFormula().getSsa(),
+                    state.getAbstractionFormula().getBlockFormula().getSsa()));
+  }
 }
@@ -0,0 +1,558 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate.persistence;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionManager;
+import org.sosy_lab.cpachecker.util.predicates.AbstractionPredicate;
+import org.sosy_lab.cpachecker.util.predicates.regions.Region;
+import org.sosy_lab.cpachecker.util.predicates.regions.RegionCreator;
+import org.sosy_lab.cpachecker.util.predicates.smt.BooleanFormulaManagerView;
+import org.sosy_lab.cpachecker.util.predicates.smt.FormulaManagerView;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.QuantifiedFormulaManager.Quantifier;
+import org.sosy_lab.java_smt.api.visitors.BooleanFormulaVisitor;
+
+/**
+ * A persistent cache for results of predicate abstractions that is stored in a directory and can
+ * be shared across several runs of CPAchecker (also concurrently).
+ *
+ * <p>The cache is content-addressed: the key of an abstraction is a hash of a canonical
+ * representation of the formula to abstract and of the set of (instantiated) predicates. In the
+ * canonical representation, all variables and functions are renamed in the order of their
+ * occurrence in the formula, such that the key stays the same if, e.g., SSA indices or variable
+ * names change between two program revisions. The result is stored as a boolean combination of
+ * the predicates, identified by their position in the canonical order, and thus does not depend
+ * on the names either.
+ *
+ * <p>Each entry is stored in its own file whose name is the hash of the key, and an independent
+ * second hash is stored in the file to detect collisions. Files are written atomically, and
+ * unreadable files are ignored.
+ */
+public class PersistentAbstractionCache {
+
+  private static final String FILE_HEADER = "# CPAchecker predicate abstraction cache, format 1";
+
+  private static final Splitter LINE_SPLITTER = Splitter.on('\n').omitEmptyStrings();
+  private static final Splitter SPACE_SPLITTER = Splitter.on(' ').omitEmptyStrings();
+
+  /** The key of an abstraction query. */
+  public static final class Key {
+
+    private final String hash;
+    private final String checksum;
+
+    /** the predicates in canonical order, as uninstantiated predicates */
+    private final ImmutableList<AbstractionPredicate> predicates;
+
+    private Key(String pCanonicalQuery, ImmutableList<AbstractionPredicate> pPredicates) {
+      hash = Hashing.sha256().hashString(pCanonicalQuery, UTF_8).toString();
+      checksum = Hashing.murmur3_128().hashString(pCanonicalQuery, UTF_8).toString();
+      predicates = pPredicates;
+    }
+  }
+
+  private final Path directory;
+  private final FormulaManagerView fmgr;
+  private final BooleanFormulaManagerView bfmgr;
+  private final AbstractionManager amgr;
+  private final RegionCreator rmgr;
+  private final LogManager logger;
+
+  private final StatTimer keyTime = new StatTimer("Time for computing keys");
+  private final StatTimer loadTime = new StatTimer("Time for loading abstractions");
+  private final StatTimer storeTime = new StatTimer("Time for storing abstractions");
+  private final StatCounter hits = new StatCounter("Cache hits");
+  private final StatCounter misses = new StatCounter("Cache misses");
+  private final StatCounter stored = new StatCounter("Stored abstractions");
+  private final StatCounter notStorable =
+      new StatCounter("Abstractions not storable (unknown predicates)");
+  private final StatCounter unusable = new StatCounter("Unusable cache files");
+  private long savedMillis = 0;
+
+  public PersistentAbstractionCache(
+      Path pDirectory, FormulaManagerView pFmgr, AbstractionManager pAmgr, LogManager pLogger)
+      throws IOException {
+    directory = checkNotNull(pDirectory);
+    fmgr = checkNotNull(pFmgr);
+    bfmgr = pFmgr.getBooleanFormulaManager();
+    amgr = checkNotNull(pAmgr);
+    rmgr = pAmgr.getRegionCreator();
+    logger = checkNotNull(pLogger);
+    Files.createDirectories(directory);
+  }
+
+  /**
+   * Compute the key for an abstraction query.
+   *
+   * @param pFormula the instantiated formula to abstract
+   * @param pPredicates the predicates for the abstraction
+   * @param pInstantiator the function used for instantiating the predicates
+   * @param pAbstractionKind a description of the abstraction computation, e.g., the abstraction
+   *     type, results for queries with different kinds are stored separately
+   */
+  public Key computeKey(
+      BooleanFormula pFormula,
+      Collection<AbstractionPredicate> pPredicates,
+      Function<BooleanFormula, BooleanFormula> pInstantiator,
+      Object pAbstractionKind) {
+    keyTime.start();
+    try {
+      Canonicalizer canonicalizer = new Canonicalizer();
+      String formula = canonicalizer.add(fmgr.dumpFormula(pFormula).toString());
+
+      // Sort the predicates by their canonical representation with respect to the formula,
+      // then compute their final representation in this order.
+      Map<AbstractionPredicate, String> dumps = new HashMap<>();
+      Map<AbstractionPredicate, String> preliminary = new HashMap<>();
+      for (AbstractionPredicate pred : pPredicates) {
+        String dump = fmgr.dumpFormula(pInstantiator.apply(pred.getSymbolicAtom())).toString();
+        dumps.put(pred, dump);
+        preliminary.put(pred, canonicalizer.copy().add(dump));
+      }
+      List<AbstractionPredicate> sortedPredicates = new ArrayList<>(pPredicates);
+      sortedPredicates.sort(Comparator.comparing(preliminary::get));
+
+      StringBuilder query = new StringBuilder();
+      query.append(pAbstractionKind).append('\n').append(formula).append('\n');
+      for (AbstractionPredicate pred : sortedPredicates) {
+        query.append("(predicate ").append(canonicalizer.add(dumps.get(pred))).append(")\n");
+      }
+      query.append(canonicalizer.getDeclarations());
+
+      return new Key(query.toString(), ImmutableList.copyOf(sortedPredicates));
+    } finally {
+      keyTime.stop();
+    }
+  }
+
+  /** Return the stored abstraction for the given key, if present. */
+  public Optional<Region> load(Key pKey) {
+    loadTime.start();
+    try {
+      Path file = getFile(pKey);
+      if (!Files.exists(file)) {
+        misses.inc();
+        return Optional.empty();
+      }
+
+      Optional<Region> result = Optional.empty();
+      try {
+        result = parseAbstraction(new String(Files.readAllBytes(file), UTF_8), pKey);
+      } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+        logger.logDebugException(e, "Could not read abstraction cache file " + file);
+      }
+      if (result.isPresent()) {
+        hits.inc();
+      } else {
+        unusable.inc();
+        misses.inc();
+      }
+      return result;
+    } finally {
+      loadTime.stop();
+    }
+  }
+
+  /**
+   * Store an abstraction in the cache. Abstractions that contain predicates other than those
+   * given for computing the key are not stored.
+   *
+   * @param pComputationTime the time that was necessary for computing the abstraction
+   */
+  public void store(Key pKey, Region pAbstraction, TimeSpan pComputationTime) {
+    storeTime.start();
+    try {
+      Optional<String> serialized = serializeAbstraction(pAbstraction, pKey);
+      if (!serialized.isPresent()) {
+        notStorable.inc();
+        return;
+      }
+
+      Path file = getFile(pKey);
+      Path tmpFile = null;
+      try {
+        Files.createDirectories(file.getParent());
+        tmpFile = Files.createTempFile(file.getParent(), pKey.hash, ".tmp");
+        try (Writer w = Files.newBufferedWriter(tmpFile, UTF_8)) {
+          w.append(FILE_HEADER).append('\n');
+          w.append("checksum ").append(pKey.checksum).append('\n');
+          w.append("time ").append(Long.toString(pComputationTime.asMillis())).append('\n');
+          w.append(serialized.get());
+        }
+        Files.move(
+            tmpFile,
+            file,
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        tmpFile = null;
+        stored.inc();
+      } catch (IOException e) {
+        logger.logUserException(
+            Level.WARNING, e, "Could not write abstraction to persistent cache");
+      } finally {
+        if (tmpFile != null) {
+          try {
+            Files.deleteIfExists(tmpFile);
+          } catch (IOException e) {
+            logger.logDebugException(e);
+          }
+        }
+      }
+    } finally {
+      storeTime.stop();
+    }
+  }
+
+  private Path getFile(Key pKey) {
+    return directory.resolve(pKey.hash.substring(0, 2)).resolve(pKey.hash.substring(2));
+  }
+
+  /**
+   * Serialize an abstraction as a list of nodes (one per line), where each node refers to
+   * previous nodes by their index and the last node is the root.
+   */
+  private Optional<String> serializeAbstraction(Region pAbstraction, Key pKey) {
+    Map<BooleanFormula, Integer> predicateIndices = new HashMap<>();
+    for (int i = 0; i < pKey.predicates.size(); i++) {
+      predicateIndices.put(pKey.predicates.get(i).getSymbolicAtom(), i);
+    }
+
+    AbstractionSerializer serializer = new AbstractionSerializer(predicateIndices);
+    bfmgr.visit(amgr.convertRegionToFormula(pAbstraction), serializer);
+    if (serializer.failed) {
+      return Optional.empty();
+    }
+    return Optional.of(serializer.out.toString());
+  }
+
+  private Optional<Region> parseAbstraction(String pContent, Key pKey) {
+    List<String> lines = LINE_SPLITTER.splitToList(pContent);
+    if (lines.size() < 4
+        || !lines.get(0).equals(FILE_HEADER)
+        || !lines.get(1).equals("checksum " + pKey.checksum)
+        || !lines.get(2).startsWith("time ")) {
+      return Optional.empty();
+    }
+    long time = Long.parseLong(lines.get(2).substring("time ".length()));
+
+    List<Region> nodes = new ArrayList<>(lines.size() - 3);
+    for (String line : lines.subList(3, lines.size())) {
+      List<String> parts = SPACE_SPLITTER.splitToList(line);
+      List<Region> args = new ArrayList<>(parts.size() - 1);
+      if (!parts.get(0).equals("P")) {
+        for (String arg : parts.subList(1, parts.size())) {
+          args.add(nodes.get(Integer.parseInt(arg)));
+        }
+      }
+
+      final Region node;
+      switch (parts.get(0)) {
+        case "T":
+          node = rmgr.makeTrue();
+          break;
+        case "F":
+          node = rmgr.makeFalse();
+          break;
+        case "P":
+          node = pKey.predicates.get(Integer.parseInt(parts.get(1))).getAbstractVariable();
+          break;
+        case "N":
+          node = rmgr.makeNot(args.get(0));
+          break;
+        case "A":
+          node = args.stream().reduce(rmgr.makeTrue(), rmgr::makeAnd);
+          break;
+        case "O":
+          node = args.stream().reduce(rmgr.makeFalse(), rmgr::makeOr);
+          break;
+        case "E":
+          node = rmgr.makeEqual(args.get(0), args.get(1));
+          break;
+        case "X":
+          node = rmgr.makeUnequal(args.get(0), args.get(1));
+          break;
+        case "I":
+          node = rmgr.makeIte(args.get(0), args.get(1), args.get(2));
+          break;
+        default:
+          return Optional.empty();
+      }
+      nodes.add(node);
+    }
+
+    savedMillis += time;
+    return Optional.of(nodes.get(nodes.size() - 1));
+  }
+
+  private class AbstractionSerializer implements BooleanFormulaVisitor<Integer> {
+
+    private final Map<BooleanFormula, Integer> predicateIndices;
+    private final Map<BooleanFormula, Integer> visited = new HashMap<>();
+    private final StringBuilder out = new StringBuilder();
+    private int nodes = 0;
+    private boolean failed = false;
+
+    private AbstractionSerializer(Map<BooleanFormula, Integer> pPredicateIndices) {
+      predicateIndices = pPredicateIndices;
+    }
+
+    private int node(String pOperator, Object... pArgs) {
+      out.append(pOperator);
+      for (Object arg : pArgs) {
+        out.append(' ').append(arg);
+      }
+      out.append('\n');
+      return nodes++;
+    }
+
+    private int visitChild(BooleanFormula pChild) {
+      Integer id = visited.get(pChild);
+      if (id == null) {
+        id = bfmgr.visit(pChild, this);
+        visited.put(pChild, id);
+      }
+      return id;
+    }
+
+    @Override
+    public Integer visitConstant(boolean pValue) {
+      return node(pValue ? "T" : "F");
+    }
+
+    @Override
+    public Integer visitBoundVar(BooleanFormula pVar, int pDeBruijnIdx) {
+      failed = true;
+      return node("F");
+    }
+
+    @Override
+    public Integer visitNot(BooleanFormula pOperand) {
+      return node("N", visitChild(pOperand));
+    }
+
+    @Override
+    public Integer visitAnd(List<BooleanFormula> pOperands) {
+      return node("A", visitChildren(pOperands));
+    }
+
+    @Override
+    public Integer visitOr(List<BooleanFormula> pOperands) {
+      return node("O", visitChildren(pOperands));
+    }
+
+    private Object[] visitChildren(List<BooleanFormula> pOperands) {
+      Object[] ids = new Object[pOperands.size()];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = visitChild(pOperands.get(i));
+      }
+      return ids;
+    }
+
+    @Override
+    public Integer visitXor(BooleanFormula pOperand1, BooleanFormula pOperand2) {
+      return node("X", visitChild(pOperand1), visitChild(pOperand2));
+    }
+
+    @Override
+    public Integer visitEquivalence(BooleanFormula pOperand1, BooleanFormula pOperand2) {
+      return node("E", visitChild(pOperand1), visitChild(pOperand2));
+    }
+
+    @Override
+    public Integer visitImplication(BooleanFormula pOperand1, BooleanFormula pOperand2) {
+      int negated = node("N", visitChild(pOperand1));
+      return node("O", negated, visitChild(pOperand2));
+    }
+
+    @Override
+    public Integer visitIfThenElse(
+        BooleanFormula pCondition, BooleanFormula pThen, BooleanFormula pElse) {
+      return node("I", visitChild(pCondition), visitChild(pThen), visitChild(pElse));
+    }
+
+    @Override
+    public Integer visitQuantifier(
+        Quantifier pQuantifier,
+        BooleanFormula pQuantifiedAST,
+        List<Formula> pBoundVars,
+        BooleanFormula pBody) {
+      failed = true;
+      return node("F");
+    }
+
+    @Override
+    public Integer visitAtom(BooleanFormula pAtom, FunctionDeclaration<BooleanFormula> pDecl) {
+      Integer index = predicateIndices.get(pAtom);
+      if (index == null) {
+        failed = true;
+        return node("F");
+      }
+      return node("P", index);
+    }
+  }
+
+  /**
+   * Computes a canonical representation of formulas in SMT-LIB2 format, where all declared
+   * symbols are renamed in the order of their occurrence. Several formulas can be added, and
+   * symbols are renamed consistently across all of them.
+   */
+  @VisibleForTesting
+  static final class Canonicalizer {
+
+    private static final String DECLARE = "(declare-fun ";
+
+    private final Map<String, String> renaming;
+
+    /** canonical declarations of renamed symbols, sorted by their new names */
+    private final Map<String, String> declarations;
+
+    Canonicalizer() {
+      renaming = new HashMap<>();
+      declarations = new TreeMap<>(Comparator.comparing(String::length).thenComparing(s -> s));
+    }
+
+    private Canonicalizer(Canonicalizer pOther) {
+      renaming = new HashMap<>(pOther.renaming);
+      declarations = new TreeMap<>(pOther.declarations);
+    }
+
+    Canonicalizer copy() {
+      return new Canonicalizer(this);
+    }
+
+    /** Add a dump of a formula and return its canonical representation (without declarations). */
+    String add(String pDump) {
+      Map<String, String> declared = new HashMap<>();
+      StringBuilder body = new StringBuilder();
+      for (String line : LINE_SPLITTER.split(pDump)) {
+        line = line.trim();
+        if (line.startsWith(DECLARE)) {
+          List<String> tokens = tokenize(line.substring(DECLARE.length()));
+          String name = tokens.get(0);
+          declared.put(name, String.join("", tokens.subList(1, tokens.size())));
+        } else {
+          body.append(line).append('\n');
+        }
+      }
+
+      StringBuilder result = new StringBuilder();
+      for (String token : tokenize(body.toString())) {
+        String rest = declared.get(token);
+        if (rest != null) {
+          String newName = renaming.get(token);
+          if (newName == null) {
+            newName = "v" + renaming.size();
+            renaming.put(token, newName);
+            declarations.put(newName, DECLARE + newName + rest);
+          }
+          result.append(newName);
+        } else {
+          result.append(token);
+        }
+      }
+      return result.toString().trim();
+    }
+
+    String getDeclarations() {
+      return String.join("\n", declarations.values());
+    }
+
+    /**
+     * Split a string in SMT-LIB2 format into tokens, such that concatenating the tokens yields the
+     * original string. Whitespace and parentheses are separate tokens, quoted symbols and string
+     * literals are single tokens.
+     */
+    @VisibleForTesting
+    static List<String> tokenize(String pInput) {
+      List<String> tokens = new ArrayList<>();
+      int i = 0;
+      while (i < pInput.length()) {
+        char c = pInput.charAt(i);
+        int end = i + 1;
+        if (c == '|' || c == '"') {
+          end = pInput.indexOf(c, i + 1) + 1;
+          if (end == 0) {
+            end = pInput.length();
+          }
+        } else if (!isDelimiter(c)) {
+          while (end < pInput.length() && !isDelimiter(pInput.charAt(end))) {
+            end++;
+          }
+        }
+        tokens.add(pInput.substring(i, end));
+        i = end;
+      }
+      return tokens;
+    }
+
+    private static boolean isDelimiter(char c) {
+      return c == '(' || c == ')' || c == '|' || c == '"' || Character.isWhitespace(c);
+    }
+  }
+
+  public void printStatistics(StatisticsWriter pWriter) {
+    pWriter
+        .put(hits)
+        .put(misses)
+        .put(stored)
+        .put(notStorable)
+        .put(unusable)
+        .put(
+            "Saved time for abstractions",
+            TimeSpan.ofMillis(savedMillis).formatAs(TimeUnit.SECONDS))
+        .put(keyTime)
+        .put(loadTime)
+        .put(storeTime);
+  }
+}
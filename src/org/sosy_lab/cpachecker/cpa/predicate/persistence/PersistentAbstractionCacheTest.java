@@ -0,0 +1,94 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.predicate.persistence;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Joiner;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cpa.predicate.persistence.PersistentAbstractionCache.Canonicalizer;
+
+public class PersistentAbstractionCacheTest {
+
+  private static String dump(String... pLines) {
+    return Joiner.on('\n').join(pLines);
+  }
+
+  @Test
+  public void testTokenize() {
+    String input = "(assert (= |x@1| \"a b\"))";
+    assertThat(Canonicalizer.tokenize(input))
+        .containsExactly("(", "assert", " ", "(", "=", " ", "|x@1|", " ", "\"a b\"", ")", ")")
+        .inOrder();
+    assertThat(String.join("", Canonicalizer.tokenize(input))).isEqualTo(input);
+  }
+
+  @Test
+  public void testRenamingIsStable() {
+    String f1 =
+        dump(
+            "(declare-fun |main::x@2| () Int)",
+            "(declare-fun |main::y@1| () Int)",
+            "(assert (< |main::x@2| |main::y@1|))");
+    String f2 =
+        dump(
+            "(declare-fun |main::y@7| () Int)",
+            "(declare-fun |main::a@3| () Int)",
+            "(assert (< |main::a@3| |main::y@7|))");
+
+    Canonicalizer c1 = new Canonicalizer();
+    Canonicalizer c2 = new Canonicalizer();
+    assertThat(c1.add(f1)).isEqualTo("(assert (< v0 v1))");
+    assertThat(c2.add(f2)).isEqualTo(c1.add(f1));
+    assertThat(c2.getDeclarations()).isEqualTo(c1.getDeclarations());
+  }
+
+  @Test
+  public void testDifferentSortsAreDistinguished() {
+    Canonicalizer c1 = new Canonicalizer();
+    Canonicalizer c2 = new Canonicalizer();
+    c1.add(dump("(declare-fun x () Int)", "(assert (= x 0))"));
+    c2.add(dump("(declare-fun x () Real)", "(assert (= x 0))"));
+    assertThat(c1.getDeclarations()).isNotEqualTo(c2.getDeclarations());
+  }
+
+  @Test
+  public void testConsistentRenamingAcrossFormulas() {
+    Canonicalizer c = new Canonicalizer();
+    c.add(dump("(declare-fun a () Int)", "(declare-fun b () Int)", "(assert (< a b))"));
+    Canonicalizer copy = c.copy();
+
+    assertThat(c.add(dump("(declare-fun b () Int)", "(declare-fun z () Int)", "(assert (= b z))")))
+        .isEqualTo("(assert (= v1 v2))");
+    assertThat(copy.add(dump("(declare-fun z () Int)", "(assert (= z 1))")))
+        .isEqualTo("(assert (= v2 1))");
+  }
+
+  @Test
+  public void testUndeclaredSymbolsAreKept() {
+    Canonicalizer c = new Canonicalizer();
+    assertThat(c.add(dump("(declare-fun x () Int)", "(assert (and (<= 0 x) true))")))
+        .isEqualTo("(assert (and (<= 0 v0) true))");
+  }
+}
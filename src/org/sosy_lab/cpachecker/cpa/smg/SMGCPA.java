@@ -30,6 +30,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.UniqueIdGenerator;
 import org.sosy_lab.common.configuration.Configuration;
@@ -47,6 +48,7 @@ import org.sosy_lab.cpachecker.core.counterexample.CFAEdgeWithAdditionalInfo;
 import org.sosy_lab.cpachecker.core.counterexample.CFAPathWithAdditionalInfo;
 import org.sosy_lab.cpachecker.core.counterexample.ConcreteStatePath;
 import org.sosy_lab.cpachecker.core.defaults.AutomaticCPAFactory;
+import org.sosy_lab.cpachecker.core.defaults.CoverageIndexStatistics;
 import org.sosy_lab.cpachecker.core.defaults.DelegateAbstractDomain;
 import org.sosy_lab.cpachecker.core.defaults.MergeJoinOperator;
 import org.sosy_lab.cpachecker.core.defaults.MergeSepOperator;
@@ -92,6 +94,13 @@ public class SMGCPA
       description="which merge operator to use for the SMGCPA")
   private String mergeType = "SEP";
 
+  @Option(
+      secure = true,
+      description =
+          "use an index for the stop operators SEP and END_BLOCK that filters the reached states"
+              + " that can not cover a new state before their SMGs are compared with it")
+  private boolean coverageIndex = false;
+
   private final SMGPredicateManager smgPredicateManager;
   private final BlockOperator blockOperator;
   private final MachineModel machineModel;
@@ -104,7 +113,8 @@ public class SMGCPA
   private final AssumptionToEdgeAllocator assumptionToEdgeAllocator;
   private final SMGOptions options;
   private final SMGExportDotOption exportOptions;
-  private final SMGStatistics stats = new SMGStatistics();
+  private final SMGStatistics stats;
+  private final @Nullable CoverageIndexStatistics coverageIndexStatistics;
 
   // flag whether we perform CEGAR or static analysis.
   private SMGTransferRelationKind kind = SMGTransferRelationKind.STATIC;
@@ -124,6 +134,7 @@ public class SMGCPA
 
     options = new SMGOptions(config);
     exportOptions = new SMGExportDotOption(options.getExportSMGFilePattern(), options.getExportSMGLevel());
+    stats = new SMGStatistics(options.isMeasureAllocatedMemory());
 
     assumptionToEdgeAllocator = AssumptionToEdgeAllocator.create(config, logger, machineModel);
 
@@ -134,6 +145,12 @@ public class SMGCPA
     precision = SMGPrecision.createStaticPrecision(options.isHeapAbstractionEnabled());
 
     smgPredicateManager = new SMGPredicateManager(config, logger, pShutdownNotifier);
+
+    if (coverageIndex && (stopType.equals("SEP") || stopType.equals("END_BLOCK"))) {
+      coverageIndexStatistics = new CoverageIndexStatistics("SMGCPA coverage index");
+    } else {
+      coverageIndexStatistics = null;
+    }
   }
 
   /**
@@ -179,16 +196,28 @@ public class SMGCPA
   public StopOperator getStopOperator() {
     switch (stopType) {
       case "END_BLOCK":
+        if (coverageIndexStatistics != null) {
+          return new SMGStopOperator(
+              getAbstractDomain(), createCoverageIndex(), coverageIndexStatistics);
+        }
         return new SMGStopOperator(getAbstractDomain());
       case "NEVER":
         return StopNeverOperator.getInstance();
       case "SEP":
+        if (coverageIndexStatistics != null) {
+          return new StopSepOperator(
+              getAbstractDomain(), createCoverageIndex(), coverageIndexStatistics);
+        }
         return new StopSepOperator(getAbstractDomain());
       default:
         throw new AssertionError("unknown stoptype for SMGCPA");
     }
   }
 
+  private SMGCoverageIndex createCoverageIndex() {
+    return new SMGCoverageIndex(options.isHeapAbstractionEnabled());
+  }
+
   @Override
   public PrecisionAdjustment getPrecisionAdjustment() {
     return new SMGPrecisionAdjustment(logger, exportOptions, blockOperator);
@@ -258,6 +287,9 @@ public class SMGCPA
   @Override
   public void collectStatistics(Collection<Statistics> pStatsCollection) {
     pStatsCollection.add(stats);
+    if (coverageIndexStatistics != null) {
+      pStatsCollection.add(coverageIndexStatistics);
+    }
   }
 
   @Override
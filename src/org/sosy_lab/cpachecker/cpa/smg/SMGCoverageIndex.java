@@ -0,0 +1,131 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg;
+
+import java.util.Iterator;
+import org.sosy_lab.cpachecker.core.defaults.CoverageIndex;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.UnmodifiableCLangSMG;
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentStack;
+
+/**
+ * Coverage index for {@link SMGState}.
+ *
+ * <p>The key of a state is a fingerprint of its SMG that can be computed without traversing the
+ * graph: whether error predicates exist, the number of heap objects and global variables, and the
+ * stack frames. A reached state is only compared with a new state if the fingerprints are
+ * compatible with the check done by {@link SMGState#isLessOrEqual(UnmodifiableSMGState)}:
+ *
+ * <ul>
+ *   <li>States with error predicates are never covered and never cover another state.
+ *   <li>Without heap abstraction, {@link
+ *       org.sosy_lab.cpachecker.cpa.smg.join.SMGIsLessOrEqual} requires the same number of heap
+ *       objects and stack frames, the same functions on the stack, and at most as many global
+ *       variables in the reached state.
+ *   <li>With heap abstraction, the join of both SMGs is only EQUAL or RIGHT_ENTAIL if the
+ *       functions on the stack match (as far as both stacks reach) and the globals of the new
+ *       state are a subset of the globals of the reached state. The number of heap objects is not
+ *       compared, because abstract objects of the reached state may represent any number of
+ *       objects.
+ * </ul>
+ */
+final class SMGCoverageIndex implements CoverageIndex<SMGCoverageIndex.Key> {
+
+  private final boolean heapAbstraction;
+
+  SMGCoverageIndex(boolean pHeapAbstraction) {
+    heapAbstraction = pHeapAbstraction;
+  }
+
+  static final class Key {
+
+    private final boolean hasErrorPredicates;
+    private final int heapObjects;
+    private final int globals;
+    private final PersistentStack<CLangStackFrame> stackFrames;
+
+    private Key(UnmodifiableSMGState pState) {
+      UnmodifiableCLangSMG heap = pState.getHeap();
+      hasErrorPredicates = !pState.getErrorPredicateRelation().isEmpty();
+      heapObjects = heap.getHeapObjects().size();
+      globals = heap.getGlobalObjects().size();
+      stackFrames = heap.getStackFrames();
+    }
+  }
+
+  @Override
+  public Key getCoverageKey(AbstractState pState) {
+    return new Key((UnmodifiableSMGState) pState);
+  }
+
+  @Override
+  public boolean mayBeCoveredBy(Key pKey, Key pReachedKey) {
+    if (pKey.hasErrorPredicates || pReachedKey.hasErrorPredicates) {
+      return false;
+    }
+    if (heapAbstraction) {
+      return pKey.globals <= pReachedKey.globals
+          && haveSameFunctions(pKey.stackFrames, pReachedKey.stackFrames, false);
+    } else {
+      return pKey.heapObjects == pReachedKey.heapObjects
+          && pReachedKey.globals <= pKey.globals
+          && pKey.stackFrames.size() == pReachedKey.stackFrames.size()
+          && haveSameFunctions(pKey.stackFrames, pReachedKey.stackFrames, true);
+    }
+  }
+
+  /**
+   * Compare the functions of the stack frames pairwise in the same order as the SMG join does.
+   *
+   * @param pByName whether only the original names of the functions have to match (as in {@link
+   *     org.sosy_lab.cpachecker.cpa.smg.join.SMGIsLessOrEqual}) or their declarations (as in
+   *     {@link org.sosy_lab.cpachecker.cpa.smg.join.SMGJoin})
+   */
+  private static boolean haveSameFunctions(
+      PersistentStack<CLangStackFrame> pStack1,
+      PersistentStack<CLangStackFrame> pStack2,
+      boolean pByName) {
+    if (pStack1 == pStack2) {
+      return true;
+    }
+    Iterator<CLangStackFrame> it1 = pStack1.iterator();
+    Iterator<CLangStackFrame> it2 = pStack2.iterator();
+    while (it1.hasNext() && it2.hasNext()) {
+      CLangStackFrame frame1 = it1.next();
+      CLangStackFrame frame2 = it2.next();
+      if (frame1 == frame2) {
+        continue;
+      }
+      if (pByName
+          ? !frame1
+              .getFunctionDeclaration()
+              .getOrigName()
+              .equals(frame2.getFunctionDeclaration().getOrigName())
+          : !frame1.getFunctionDeclaration().equals(frame2.getFunctionDeclaration())) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.smg;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionDeclaration;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CFunctionType;
+import org.sosy_lab.cpachecker.cfa.types.c.CVoidType;
+
+public class SMGCoverageIndexTest {
+
+  private static final LogManager logger = LogManager.createTestLogManager();
+
+  private static final CFunctionType functionType =
+      CFunctionType.functionTypeWithReturnType(CVoidType.VOID);
+  private static final CFunctionDeclaration mainDeclaration =
+      new CFunctionDeclaration(FileLocation.DUMMY, functionType, "main", ImmutableList.of());
+  private static final CFunctionDeclaration fooDeclaration =
+      new CFunctionDeclaration(FileLocation.DUMMY, functionType, "foo", ImmutableList.of());
+
+  private static SMGOptions createOptions(boolean pHeapAbstraction, boolean pCacheNegativeJoins)
+      throws InvalidConfigurationException {
+    return new SMGOptions(
+        Configuration.builder()
+            .setOption("cpa.smg.enableHeapAbstraction", Boolean.toString(pHeapAbstraction))
+            .setOption("cpa.smg.cacheNegativeJoins", Boolean.toString(pCacheNegativeJoins))
+            .build());
+  }
+
+  /** Create states that differ in globals, heap objects, and stack frames. */
+  private static List<SMGState> createStates(SMGOptions pOptions) throws Exception {
+    SMGState base = new SMGState(logger, MachineModel.LINUX32, pOptions);
+    base.addStackFrame(mainDeclaration);
+    base.addGlobalVariable(32, "g");
+
+    SMGState withGlobal = base.copyOf();
+    withGlobal.addGlobalVariable(32, "h");
+
+    SMGState withHeapObject = base.copyOf();
+    withHeapObject.addNewHeapAllocation(64, "malloc_1");
+
+    SMGState withFrame = base.copyOf();
+    withFrame.addStackFrame(fooDeclaration);
+
+    SMGState otherFunction = new SMGState(logger, MachineModel.LINUX32, pOptions);
+    otherFunction.addStackFrame(fooDeclaration);
+    otherFunction.addGlobalVariable(32, "g");
+
+    return ImmutableList.of(
+        base, base.copyOf(), withGlobal, withHeapObject, withFrame, otherFunction);
+  }
+
+  private static int checkIndexIsSound(boolean pHeapAbstraction) throws Exception {
+    SMGCoverageIndex index = new SMGCoverageIndex(pHeapAbstraction);
+    List<SMGState> states = createStates(createOptions(pHeapAbstraction, false));
+    int pruned = 0;
+    for (SMGState state : states) {
+      for (SMGState reached : states) {
+        if (!index.mayBeCoveredBy(index.getCoverageKey(state), index.getCoverageKey(reached))) {
+          pruned++;
+          if (pHeapAbstraction && haveDifferentFunctions(state, reached)) {
+            // SMGJoin cannot handle such stacks, this is exactly what the index has to avoid
+            continue;
+          }
+          assertWithMessage("pruned pair %s <= %s", state.getId(), reached.getId())
+              .that(state.isLessOrEqual(reached))
+              .isFalse();
+        }
+      }
+    }
+    return pruned;
+  }
+
+  private static boolean haveDifferentFunctions(SMGState pState1, SMGState pState2) {
+    Iterator<CLangStackFrame> it1 = pState1.getHeap().getStackFrames().iterator();
+    Iterator<CLangStackFrame> it2 = pState2.getHeap().getStackFrames().iterator();
+    while (it1.hasNext() && it2.hasNext()) {
+      if (!it1.next().getFunctionDeclaration().equals(it2.next().getFunctionDeclaration())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void testIndexWithoutAbstraction() throws Exception {
+    assertThat(checkIndexIsSound(false)).isGreaterThan(0);
+  }
+
+  @Test
+  public void testIndexWithAbstraction() throws Exception {
+    assertThat(checkIndexIsSound(true)).isGreaterThan(0);
+  }
+
+  @Test
+  public void testEqualStatesAreNotPruned() throws Exception {
+    for (boolean heapAbstraction : new boolean[] {false, true}) {
+      SMGCoverageIndex index = new SMGCoverageIndex(heapAbstraction);
+      for (SMGState state : createStates(createOptions(heapAbstraction, false))) {
+        SMGState copy = state.copyOf();
+        assertThat(index.mayBeCoveredBy(index.getCoverageKey(copy), index.getCoverageKey(state)))
+            .isTrue();
+        assertThat(copy.isLessOrEqual(state)).isTrue();
+      }
+    }
+  }
+
+  @Test
+  public void testNegativeJoinIsRemembered() throws Exception {
+    List<SMGState> states = createStates(createOptions(true, true));
+    SMGState base = states.get(0);
+    SMGState withGlobal = states.get(2);
+
+    // the state has more globals than the reached state, so it is not covered
+    long hitsBefore = SMGState.negativeJoinCacheHits.getValue();
+    withGlobal.join(base);
+    assertThat(withGlobal.isLessOrEqual(base)).isFalse();
+    assertThat(SMGState.negativeJoinCacheHits.getValue()).isEqualTo(hitsBefore + 1);
+
+    // positive results are not remembered
+    base.join(withGlobal);
+    assertThat(base.isLessOrEqual(withGlobal)).isTrue();
+    assertThat(SMGState.negativeJoinCacheHits.getValue()).isEqualTo(hitsBefore + 1);
+  }
+
+  @Test
+  public void testNegativeJoinIsNotRememberedWithoutAbstraction() throws Exception {
+    List<SMGState> states = createStates(createOptions(false, true));
+    SMGState base = states.get(0);
+    SMGState withGlobal = states.get(2);
+
+    // without heap abstraction the cache is never consulted, so nothing is recorded
+    long joinsBefore = SMGState.negativeJoins.getValue();
+    withGlobal.join(base);
+    withGlobal.isLessOrEqual(base);
+    assertThat(SMGState.negativeJoins.getValue()).isEqualTo(joinsBefore);
+  }
+}
@@ -159,6 +159,21 @@ public class SMGOptions {
       description = "with this option enabled, heap abstraction will be enabled.")
   private boolean enableHeapAbstraction = false;
 
+  @Option(
+      secure = true,
+      description =
+          "with this option enabled, each state remembers the reached states whose join with it"
+              + " did not show coverage, such that the stop operator does not repeat the join"
+              + " after the merge operator. Only relevant with heap abstraction.")
+  private boolean cacheNegativeJoins = false;
+
+  @Option(
+      secure = true,
+      description =
+          "measure the memory allocated by the transfer relation and report it in the"
+              + " statistics, if supported by the JVM.")
+  private boolean measureAllocatedMemory = false;
+
   @Option(
       secure = true,
       name = "memoryErrors",
@@ -280,6 +295,14 @@ public class SMGOptions {
     return enableHeapAbstraction;
   }
 
+  public boolean isCacheNegativeJoins() {
+    return cacheNegativeJoins;
+  }
+
+  public boolean isMeasureAllocatedMemory() {
+    return measureAllocatedMemory;
+  }
+
   public boolean isMemoryErrorTarget() {
     return memoryErrors;
   }
@@ -26,7 +26,6 @@ package org.sosy_lab.cpachecker.cpa.smg;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.BiMap;
-import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import java.util.ArrayList;
@@ -39,6 +38,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
@@ -86,8 +86,10 @@ import org.sosy_lab.cpachecker.cpa.smg.join.SMGIsLessOrEqual;
 import org.sosy_lab.cpachecker.cpa.smg.join.SMGJoin;
 import org.sosy_lab.cpachecker.cpa.smg.join.SMGJoinStatus;
 import org.sosy_lab.cpachecker.cpa.smg.refiner.SMGMemoryPath;
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentBiMap;
 import org.sosy_lab.cpachecker.exceptions.InvalidQueryException;
 import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
 
 public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, Graphable {
 
@@ -106,7 +108,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
   private final int predecessorId;
   private final int id;
 
-  private final BiMap<SMGKnownSymbolicValue, SMGKnownExpValue> explicitValues = HashBiMap.create();
+  private PersistentBiMap<SMGKnownSymbolicValue, SMGKnownExpValue> explicitValues;
   private final CLangSMG heap;
 
   private final boolean blockEnded;
@@ -116,6 +118,19 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
   private final LogManager logger;
   private final SMGOptions options;
 
+  static final StatCounter negativeJoins =
+      new StatCounter("Number of remembered joins without coverage");
+  static final StatCounter negativeJoinCacheHits =
+      new StatCounter("Number of coverage checks answered by remembered joins");
+
+  /**
+   * Reached states for which the join with this state has shown that they do not cover this
+   * state, see {@link SMGOptions#isCacheNegativeJoins()}. The set is weak, such that it does not
+   * keep states alive that were removed from the reached set, and created lazily, because most
+   * states are never compared.
+   */
+  private @Nullable Set<UnmodifiableSMGState> notCoveringStates = null;
+
   private void issueMemoryError(String pMessage, boolean pUndefinedBehavior) {
     if (options.isMemoryErrorTarget()) {
       logger.log(Level.FINE, pMessage);
@@ -166,7 +181,14 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
       CLangSMG pHeap,
       int pPredId,
       Map<SMGKnownSymbolicValue, SMGKnownExpValue> pMergedExplicitValues) {
-    this(pLogger, pOptions, pHeap, pPredId, pMergedExplicitValues, SMGErrorInfo.of(), false);
+    this(
+        pLogger,
+        pOptions,
+        pHeap,
+        pPredId,
+        PersistentBiMap.copyOf(pMergedExplicitValues),
+        SMGErrorInfo.of(),
+        false);
   }
 
   /** Copy constructor. */
@@ -175,7 +197,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
       SMGOptions pOptions,
       CLangSMG pHeap,
       int pPredId,
-      Map<SMGKnownSymbolicValue, SMGKnownExpValue> pExplicitValues,
+      PersistentBiMap<SMGKnownSymbolicValue, SMGKnownExpValue> pExplicitValues,
       SMGErrorInfo pErrorInfo,
       boolean pBlockEnded) {
     options = pOptions;
@@ -183,9 +205,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     logger = pLogger;
     predecessorId = pPredId;
     id = ID_COUNTER.getAndIncrement();
-    Preconditions.checkArgument(!pExplicitValues.containsKey(null));
-    Preconditions.checkArgument(!pExplicitValues.containsValue(null));
-    explicitValues.putAll(pExplicitValues);
+    explicitValues = Preconditions.checkNotNull(pExplicitValues);
     errorInfo = pErrorInfo;
     blockEnded = pBlockEnded;
   }
@@ -196,7 +216,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     options = pOriginalState.options;
     predecessorId = pOriginalState.getId();
     id = ID_COUNTER.getAndIncrement();
-    explicitValues.putAll(pOriginalState.explicitValues);
+    explicitValues = pOriginalState.explicitValues;
     blockEnded = pOriginalState.blockEnded;
     errorInfo = pOriginalState.errorInfo.withProperty(pProperty);
   }
@@ -208,7 +228,8 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
 
   @Override
   public SMGState copyWith(CLangSMG pSmg, BiMap<SMGKnownSymbolicValue, SMGKnownExpValue> pValues) {
-    return new SMGState(logger, options, pSmg, id, pValues, errorInfo, blockEnded);
+    return new SMGState(
+        logger, options, pSmg, id, PersistentBiMap.copyOf(pValues), errorInfo, blockEnded);
   }
 
   @Override
@@ -222,7 +243,14 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
       return this;
     }
     SMGState result =
-        new SMGState(logger, options, heap, ID_COUNTER.getAndIncrement(), explicitValues);
+        new SMGState(
+            logger,
+            options,
+            heap,
+            ID_COUNTER.getAndIncrement(),
+            explicitValues,
+            SMGErrorInfo.of(),
+            false);
     result.errorInfo = result.errorInfo.mergeWith(pOther.errorInfo);
     return result;
   }
@@ -368,7 +396,7 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
   @Override
   public String toDot(String pName, String pLocation) {
     SMGPlotter plotter = new SMGPlotter();
-    return plotter.smgAsDot(heap, pName, pLocation, explicitValues);
+    return plotter.smgAsDot(heap, pName, pLocation, explicitValues.asMap());
   }
 
   /**
@@ -1318,6 +1346,14 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
 
     SMGJoin join = new SMGJoin(this.heap, reachedState.getHeap(), this, reachedState);
 
+    // the stop operator would compute the same join again, but it only consults the cache
+    // with heap abstraction
+    if (options.isHeapAbstractionEnabled()
+        && options.isCacheNegativeJoins()
+        && !isCoveringJoin(join)) {
+      rememberNotCoveredBy(reachedState);
+    }
+
     if (!(join.getStatus() == SMGJoinStatus.INCOMPARABLE && join.isDefined())) {
       return reachedState;
     }
@@ -1326,7 +1362,8 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
 
     // join explicit values
     Map<SMGKnownSymbolicValue, SMGKnownExpValue> mergedExplicitValues = new HashMap<>();
-    for (Entry<SMGKnownSymbolicValue, SMGKnownExpValue> entry : explicitValues.entrySet()) {
+    for (Entry<SMGKnownSymbolicValue, SMGKnownExpValue> entry :
+        explicitValues.asMap().entrySet()) {
       if (destHeap.getValues().contains(entry.getKey())) {
         mergedExplicitValues.put(entry.getKey(), entry.getValue());
       }
@@ -1356,14 +1393,17 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     }
 
     if (options.isHeapAbstractionEnabled()) {
-      SMGJoin join = new SMGJoin(heap, reachedState.getHeap(), this, reachedState);
-
-      if (!join.isDefined()) {
+      if (options.isCacheNegativeJoins() && isKnownNotCoveredBy(reachedState)) {
+        negativeJoinCacheHits.inc();
         return false;
       }
 
-      SMGJoinStatus jss = join.getStatus();
-      if (jss != SMGJoinStatus.EQUAL && jss != SMGJoinStatus.RIGHT_ENTAIL) {
+      SMGJoin join = new SMGJoin(heap, reachedState.getHeap(), this, reachedState);
+
+      if (!isCoveringJoin(join)) {
+        if (options.isCacheNegativeJoins()) {
+          rememberNotCoveredBy(reachedState);
+        }
         return false;
       }
 
@@ -1381,6 +1421,27 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     }
   }
 
+  /** Returns whether the join of this state with a reached state shows coverage. */
+  private static boolean isCoveringJoin(SMGJoin pJoin) {
+    SMGJoinStatus jss = pJoin.getStatus();
+    return pJoin.isDefined()
+        && (jss == SMGJoinStatus.EQUAL || jss == SMGJoinStatus.RIGHT_ENTAIL);
+  }
+
+  private synchronized boolean isKnownNotCoveredBy(UnmodifiableSMGState pReachedState) {
+    return notCoveringStates != null && notCoveringStates.contains(pReachedState);
+  }
+
+  private synchronized void rememberNotCoveredBy(UnmodifiableSMGState pReachedState) {
+    if (notCoveringStates == null) {
+      // SMGState does not override equals, so the set is based on identity
+      notCoveringStates = Collections.newSetFromMap(new WeakHashMap<>());
+    }
+    if (notCoveringStates.add(pReachedState)) {
+      negativeJoins.inc();
+    }
+  }
+
   @Override
   public String getCPAName() {
     return "SMGCPA";
@@ -1753,9 +1814,9 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     }
 
     heap.replaceValue(pKnownVal1, pKnownVal2);
-    SMGKnownExpValue expVal = explicitValues.remove(pKnownVal2);
+    SMGKnownExpValue expVal = explicitValues.get(pKnownVal2);
     if (expVal != null) {
-      explicitValues.put(pKnownVal1, expVal);
+      explicitValues = explicitValues.removeAndCopy(pKnownVal2).putAndCopy(pKnownVal1, expVal);
     }
   }
 
@@ -1838,30 +1899,30 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
     Preconditions.checkNotNull(pKey);
     Preconditions.checkNotNull(pValue);
 
-    if (explicitValues.inverse().containsKey(pValue)) {
-      SMGKnownSymbolicValue symValue = explicitValues.inverse().get(pValue);
+    if (explicitValues.containsValue(pValue)) {
+      SMGKnownSymbolicValue symValue = explicitValues.getKey(pValue);
 
       if (!pKey.equals(symValue)) {
-        explicitValues.remove(symValue);
+        explicitValues = explicitValues.removeAndCopy(symValue);
         if (symValue.isZero()) { // swap values, we prefer ZERO in the SMG.
           heap.replaceValue(symValue, pKey);
         } else {
           heap.replaceValue(pKey, symValue);
         }
-        explicitValues.put(pKey, pValue);
+        explicitValues = explicitValues.putAndCopy(pKey, pValue);
         return symValue;
       }
 
       return null;
     }
 
-    explicitValues.put(pKey, pValue);
+    explicitValues = explicitValues.putAndCopy(pKey, pValue);
     return null;
   }
 
   @Deprecated // unused
   public void clearExplicit(SMGKnownSymbolicValue pKey) {
-    explicitValues.remove(pKey);
+    explicitValues = explicitValues.removeAndCopy(pKey);
   }
 
   @Override
@@ -2124,6 +2185,6 @@ public class SMGState implements UnmodifiableSMGState, AbstractQueryableState, G
 
   @Override
   public Set<Entry<SMGKnownSymbolicValue, SMGKnownExpValue>> getExplicitValues() {
-    return Collections.unmodifiableSet(explicitValues.entrySet());
+    return explicitValues.asMap().entrySet();
   }
 }
@@ -38,6 +38,7 @@ import org.sosy_lab.common.configuration.ConfigurationBuilder;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.ast.FileLocation;
+import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
 import org.sosy_lab.cpachecker.cfa.ast.c.CFunctionDeclaration;
 import org.sosy_lab.cpachecker.cfa.types.MachineModel;
 import org.sosy_lab.cpachecker.cfa.types.c.CBasicType;
@@ -48,6 +49,7 @@ import org.sosy_lab.cpachecker.cfa.types.c.CSimpleType;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
 import org.sosy_lab.cpachecker.cpa.smg.evaluator.SMGAbstractObjectAndState.SMGAddressValueAndState;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.CLangSMG;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.PredRelation;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.UnmodifiableSMG;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.edge.SMGEdgeHasValueFilter;
@@ -58,6 +60,7 @@ import org.sosy_lab.cpachecker.cpa.smg.graphs.object.SMGRegion;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.dll.SMGDoublyLinkedList;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.object.sll.SMGSingleLinkedList;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGAddressValue;
+import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownExpValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownSymValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownSymbolicValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGSymbolicValue;
@@ -618,6 +621,33 @@ public class SMGStateTest {
     Assert.assertEquals(copy.getPredecessorId(), original.getId());
   }
 
+  @Test
+  public void CopyIsIndependentTest() throws InvalidConfigurationException {
+    SMGState original =
+        new SMGState(
+            logger, MachineModel.LINUX64, new SMGOptions(Configuration.defaultConfiguration()));
+    SMGKnownSymbolicValue value1 = SMGKnownSymValue.valueOf(SMGCPA.getNewValue());
+    SMGKnownSymbolicValue value2 = SMGKnownSymValue.valueOf(SMGCPA.getNewValue());
+    original.putExplicit(value1, SMGKnownExpValue.valueOf(1));
+    original.getPathPredicateRelation().addRelation(value1, value2, BinaryOperator.LESS_THAN);
+
+    SMGState copy = original.copyOf();
+    copy.putExplicit(value2, SMGKnownExpValue.valueOf(2));
+    copy.getPathPredicateRelation().addRelation(value1, value2, BinaryOperator.NOT_EQUALS);
+    copy.getPathPredicateRelation().removeValue(value1);
+
+    Truth.assertThat(original.getExplicit(value1)).isEqualTo(SMGKnownExpValue.valueOf(1));
+    Truth.assertThat(original.isExplicit(value2)).isFalse();
+    Truth.assertThat(original.getPathPredicateRelation().getValuesRelations()).hasSize(2);
+    Truth.assertThat(copy.getExplicit(value1)).isEqualTo(SMGKnownExpValue.valueOf(1));
+    Truth.assertThat(copy.getExplicit(value2)).isEqualTo(SMGKnownExpValue.valueOf(2));
+    Truth.assertThat(copy.getPathPredicateRelation().isEmpty()).isTrue();
+    PredRelation originalRelation = original.getPathPredicateRelation();
+    PredRelation copyRelation = copy.getPathPredicateRelation();
+    Truth.assertThat(copyRelation.isLessOrEqual(originalRelation)).isTrue();
+    Truth.assertThat(originalRelation.isLessOrEqual(copyRelation)).isFalse();
+  }
+
   @Test
   public void WriteReinterpretationTest() throws SMGInconsistentException, InvalidConfigurationException {
     // Empty state
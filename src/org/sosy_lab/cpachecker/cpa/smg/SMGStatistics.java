@@ -32,12 +32,31 @@ import org.sosy_lab.cpachecker.cpa.smg.join.SMGIsLessOrEqual;
 
 public class SMGStatistics implements Statistics {
 
+  private final boolean measureAllocatedMemory;
+
+  SMGStatistics(boolean pMeasureAllocatedMemory) {
+    measureAllocatedMemory = pMeasureAllocatedMemory;
+  }
+
   @Override
   public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
     put(pOut, 0, SMGIsLessOrEqual.isLEQTimer);
     put(pOut, 1, SMGIsLessOrEqual.globalsTimer);
     put(pOut, 1, SMGIsLessOrEqual.stackTimer);
     put(pOut, 1, SMGIsLessOrEqual.heapTimer);
+    put(pOut, 0, SMGState.negativeJoins);
+    put(pOut, 1, SMGState.negativeJoinCacheHits);
+    put(pOut, 0, SMGTransferRelation.transferTimer);
+    if (measureAllocatedMemory && SMGTransferRelation.isAllocationMeasured()) {
+      long allocatedBytes = SMGTransferRelation.transferAllocatedBytes.sum();
+      int transfers = SMGTransferRelation.transferTimer.getNumberOfIntervals();
+      put(pOut, 1, "Memory allocated by transfer relation", (allocatedBytes >> 20) + " MiB");
+      put(
+          pOut,
+          1,
+          "Avg. memory allocated per transfer",
+          (transfers == 0 ? 0 : allocatedBytes / transfers) + " bytes");
+    }
   }
 
   @Override
@@ -24,6 +24,8 @@
 package org.sosy_lab.cpachecker.cpa.smg;
 
 import java.util.Collection;
+import org.sosy_lab.cpachecker.core.defaults.CoverageIndex;
+import org.sosy_lab.cpachecker.core.defaults.CoverageIndexStatistics;
 import org.sosy_lab.cpachecker.core.defaults.StopSepOperator;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractDomain;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
@@ -38,6 +40,15 @@ public class SMGStopOperator extends StopSepOperator{
     super(d);
   }
 
+  /**
+   * Creates a stop-sep operator based on the given partial order that uses the given index to
+   * filter the candidates for coverage.
+   */
+  public SMGStopOperator(
+      AbstractDomain d, CoverageIndex<?> pIndex, CoverageIndexStatistics pStats) {
+    super(d, pIndex, pStats);
+  }
+
   @Override
   public boolean stop(AbstractState el, Collection<AbstractState> reached, Precision precision)
       throws CPAException, InterruptedException {
@@ -31,6 +31,8 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -41,7 +43,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.common.log.LogManagerWithoutDuplicates;
 import org.sosy_lab.cpachecker.cfa.ast.c.CArrayDesignator;
@@ -116,6 +120,8 @@ import org.sosy_lab.cpachecker.exceptions.CPATransferException;
 import org.sosy_lab.cpachecker.exceptions.UnrecognizedCodeException;
 import org.sosy_lab.cpachecker.util.Pair;
 import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.SolverException;
 
@@ -124,9 +130,19 @@ public class SMGTransferRelation
 
   private final static AtomicInteger ID_COUNTER = new AtomicInteger(0);
 
+  public static final ThreadSafeTimerContainer transferTimer =
+      new ThreadSafeTimerContainer("Time for transfer relation");
+
+  /** bytes allocated by the transfer relation, only measured if supported by the JVM */
+  public static final LongAdder transferAllocatedBytes = new LongAdder();
+
+  private static final com.sun.management.@Nullable ThreadMXBean threadBean =
+      getAllocationMeasuringThreadBean();
+
   private final LogManagerWithoutDuplicates logger;
   private final MachineModel machineModel;
   private final SMGOptions options;
+  private final boolean measureAllocatedMemory;
   private final SMGExportDotOption exportSMGOptions;
   private final SMGPredicateManager smgPredicateManager;
 
@@ -148,9 +164,45 @@ public class SMGTransferRelation
         new SMGRightHandSideEvaluator(logger, machineModel, pOptions, kind, pExportOptions);
     smgPredicateManager = pSMGPredicateManager;
     options = pOptions;
+    measureAllocatedMemory = threadBean != null && options.isMeasureAllocatedMemory();
     exportSMGOptions = pExportOptions;
   }
 
+  private static com.sun.management.@Nullable ThreadMXBean getAllocationMeasuringThreadBean() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+      if (allocationBean.isThreadAllocatedMemorySupported()
+          && allocationBean.isThreadAllocatedMemoryEnabled()) {
+        return allocationBean;
+      }
+    }
+    return null;
+  }
+
+  static boolean isAllocationMeasured() {
+    return threadBean != null;
+  }
+
+  @Override
+  public Collection<SMGState> getAbstractSuccessorsForEdge(
+      AbstractState pState, Precision pPrecision, CFAEdge pCfaEdge) throws CPATransferException {
+    TimerWrapper timer = transferTimer.getNewTimer();
+    long threadId = Thread.currentThread().getId();
+    long allocatedBytesBefore =
+        measureAllocatedMemory ? threadBean.getThreadAllocatedBytes(threadId) : 0;
+    timer.start();
+    try {
+      return super.getAbstractSuccessorsForEdge(pState, pPrecision, pCfaEdge);
+    } finally {
+      timer.stop();
+      if (measureAllocatedMemory) {
+        transferAllocatedBytes.add(
+            threadBean.getThreadAllocatedBytes(threadId) - allocatedBytesBefore);
+      }
+    }
+  }
+
   @Override
   protected Collection<SMGState> postProcessing(Collection<SMGState> pSuccessors, CFAEdge edge) {
     plotWhenConfigured(pSuccessors, edge.getDescription(), SMGExportLevel.INTERESTING);
@@ -23,38 +23,48 @@
  */
 package org.sosy_lab.cpachecker.cpa.smg.graphs;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
+import org.sosy_lab.common.collect.PersistentMap;
 import org.sosy_lab.cpachecker.cfa.ast.c.CBinaryExpression.BinaryOperator;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGExplicitValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGKnownAddressValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGSymbolicValue;
 import org.sosy_lab.cpachecker.cpa.smg.graphs.value.SMGValue;
+import org.sosy_lab.cpachecker.cpa.smg.util.PersistentMultimap;
 import org.sosy_lab.cpachecker.util.Pair;
 
+/**
+ * Predicates over symbolic values of an SMG. The relations are stored in persistent data
+ * structures, so copying is cheap and a copy shares all unchanged parts with the original.
+ */
 public class PredRelation {
-  /** The Multimap is used as Bi-Map, i.e. each pair (K,V) is also inserted as pair (V,K). */
-  private final SetMultimap<Pair<SMGValue, SMGValue>, SymbolicRelation> smgValuesRelation =
-      HashMultimap.create();
-
-  private final SetMultimap<SMGValue, SMGValue> smgValuesDependency = HashMultimap.create();
-  private final SetMultimap<SMGValue, ExplicitRelation> smgExplicitValueRelation =
-      HashMultimap.create();
-  private final Map<SMGValue, Integer> smgValueSizeInBits = new HashMap<>();
-
-  /** Copy PredRelation */
-  public void putAll(PredRelation pPred) {
-    smgValuesRelation.putAll(pPred.smgValuesRelation);
-    smgValuesDependency.putAll(pPred.smgValuesDependency);
-    smgExplicitValueRelation.putAll(pPred.smgExplicitValueRelation);
-    smgValueSizeInBits.putAll(pPred.smgValueSizeInBits);
+  /**
+   * Relations between two symbolic values, indexed by both values. Each relation for a pair (A,B)
+   * is also inserted for (B,A).
+   */
+  private PersistentMap<SMGValue, PersistentMultimap<SMGValue, SymbolicRelation>>
+      smgValuesRelation = PathCopyingPersistentTreeMap.of();
+
+  private PersistentMultimap<SMGValue, SMGValue> smgValuesDependency = PersistentMultimap.of();
+  private PersistentMultimap<SMGValue, ExplicitRelation> smgExplicitValueRelation =
+      PersistentMultimap.of();
+  private PersistentMap<SMGValue, Integer> smgValueSizeInBits = PathCopyingPersistentTreeMap.of();
+
+  /** Copy PredRelation, the copy shares all data with this instance. */
+  public PredRelation copyOf() {
+    PredRelation copy = new PredRelation();
+    copy.smgValuesRelation = smgValuesRelation;
+    copy.smgValuesDependency = smgValuesDependency;
+    copy.smgExplicitValueRelation = smgExplicitValueRelation;
+    copy.smgValueSizeInBits = smgValueSizeInBits;
+    return copy;
   }
 
   public void addRelation(SMGSymbolicValue pOne, int pCType1,
@@ -73,21 +83,45 @@ public class PredRelation {
 
   private void addValueSize(SMGValue pValue, Integer pCType2) {
     if (!smgValueSizeInBits.containsKey(pValue)) {
-      smgValueSizeInBits.put(pValue, pCType2);
+      smgValueSizeInBits = smgValueSizeInBits.putAndCopy(pValue, pCType2);
     }
   }
 
   public void addRelation(SMGValue pOne, SMGValue pTwo, BinaryOperator pOperator) {
     SymbolicRelation relation = new SymbolicRelation(pOne, pTwo, pOperator);
-    if (!smgValuesDependency.containsEntry(pOne, pTwo)) {
-      smgValuesRelation.put(Pair.of(pOne, pTwo), relation);
-      smgValuesRelation.put(Pair.of(pTwo, pOne), relation);
-      smgValuesDependency.put(pOne, pTwo);
-      smgValuesDependency.put(pTwo, pOne);
+    if (!smgValuesDependency.contains(pOne, pTwo)) {
+      putRelation(pOne, pTwo, relation);
+      putRelation(pTwo, pOne, relation);
+      smgValuesDependency = smgValuesDependency.putAndCopy(pOne, pTwo).putAndCopy(pTwo, pOne);
     } else {
-      if (!smgValuesRelation.containsEntry(Pair.of(pOne, pTwo), relation)) {
-        smgValuesRelation.put(Pair.of(pOne, pTwo), relation);
-        smgValuesRelation.put(Pair.of(pTwo, pOne), relation);
+      if (!getRelations(pOne, pTwo).contains(relation)) {
+        putRelation(pOne, pTwo, relation);
+        putRelation(pTwo, pOne, relation);
+      }
+    }
+  }
+
+  private Set<SymbolicRelation> getRelations(SMGValue pOne, SMGValue pTwo) {
+    PersistentMultimap<SMGValue, SymbolicRelation> relations = smgValuesRelation.get(pOne);
+    return relations == null ? ImmutableSet.of() : relations.get(pTwo);
+  }
+
+  private void putRelation(SMGValue pOne, SMGValue pTwo, SymbolicRelation pRelation) {
+    PersistentMultimap<SMGValue, SymbolicRelation> relations = smgValuesRelation.get(pOne);
+    if (relations == null) {
+      relations = PersistentMultimap.of();
+    }
+    smgValuesRelation = smgValuesRelation.putAndCopy(pOne, relations.putAndCopy(pTwo, pRelation));
+  }
+
+  private void removeRelations(SMGValue pOne, SMGValue pTwo) {
+    PersistentMultimap<SMGValue, SymbolicRelation> relations = smgValuesRelation.get(pOne);
+    if (relations != null) {
+      relations = relations.removeAndCopy(pTwo);
+      if (relations.size() == 0) {
+        smgValuesRelation = smgValuesRelation.removeAndCopy(pOne);
+      } else {
+        smgValuesRelation = smgValuesRelation.putAndCopy(pOne, relations);
       }
     }
   }
@@ -103,36 +137,40 @@ public class PredRelation {
   public void addExplicitRelation(
       SMGValue pSymbolicValue, SMGExplicitValue pExplicitValue, BinaryOperator pOp) {
     ExplicitRelation relation = new ExplicitRelation(pSymbolicValue, pExplicitValue, pOp);
-    if (!smgExplicitValueRelation.containsEntry(pSymbolicValue, relation)) {
-      smgExplicitValueRelation.put(pSymbolicValue, relation);
+    if (!smgExplicitValueRelation.contains(pSymbolicValue, relation)) {
+      smgExplicitValueRelation = smgExplicitValueRelation.putAndCopy(pSymbolicValue, relation);
     }
   }
 
   public void removeValue(SMGValue pValue) {
-    for (SMGValue pOposit : smgValuesDependency.removeAll(pValue)) {
+    for (SMGValue pOposit : smgValuesDependency.get(pValue)) {
 
-      smgValuesDependency.remove(pOposit, pValue);
+      smgValuesDependency = smgValuesDependency.removeAndCopy(pOposit, pValue);
 
-      smgValuesRelation.removeAll(Pair.of(pOposit, pValue));
-      smgValuesRelation.removeAll(Pair.of(pValue, pOposit));
+      removeRelations(pOposit, pValue);
+      removeRelations(pValue, pOposit);
     }
-    smgExplicitValueRelation.removeAll(pValue);
-    smgValueSizeInBits.remove(pValue);
+    smgValuesDependency = smgValuesDependency.removeAndCopy(pValue);
+    smgExplicitValueRelation = smgExplicitValueRelation.removeAndCopy(pValue);
+    smgValueSizeInBits = smgValueSizeInBits.removeAndCopy(pValue);
   }
 
   /** replace the old value with a fresh value. */
   public void replace(SMGValue fresh, SMGValue old) {
-    for (SMGValue relatedValue : smgValuesDependency.removeAll(old)) {
-      smgValuesDependency.remove(relatedValue, old);
-      smgValuesRelation.removeAll(Pair.of(old, relatedValue));
+    for (SMGValue relatedValue : smgValuesDependency.get(old)) {
+      smgValuesDependency = smgValuesDependency.removeAndCopy(relatedValue, old);
+      removeRelations(old, relatedValue);
         //TODO: modify predicates on merge values
-      smgValuesRelation.removeAll(Pair.of(relatedValue, old));
+      removeRelations(relatedValue, old);
     }
-    for (ExplicitRelation explicitRelation: smgExplicitValueRelation.removeAll(old)) {
+    smgValuesDependency = smgValuesDependency.removeAndCopy(old);
+    Set<ExplicitRelation> oldExplicitRelations = smgExplicitValueRelation.get(old);
+    smgExplicitValueRelation = smgExplicitValueRelation.removeAndCopy(old);
+    for (ExplicitRelation explicitRelation : oldExplicitRelations) {
       addExplicitRelation(fresh, explicitRelation.explicitValue, explicitRelation.getOperator());
       addValueSize(fresh, getSymbolicSize(old));
     }
-    smgValueSizeInBits.remove(old);
+    smgValueSizeInBits = smgValueSizeInBits.removeAndCopy(old);
   }
 
   public Integer getSymbolicSize(SMGValue pSymbolic) {
@@ -142,12 +180,13 @@ public class PredRelation {
   /** Returns closure list of symbolic values which affects pRelation */
   public Set<SMGValue> closureDependencyFor(PredRelation pRelation) {
     Set<SMGValue> toAdd = new HashSet<>();
-    for (Entry<SMGValue, SMGValue> entry : pRelation.smgValuesDependency.entries()) {
+    for (Entry<SMGValue, ImmutableSet<SMGValue>> entry : pRelation.smgValuesDependency.entries()) {
       SMGValue key = entry.getKey();
-      SMGValue value = entry.getValue();
-      if (key.compareTo(value) > 0) {
-        toAdd.add(key);
-        toAdd.add(value);
+      for (SMGValue value : entry.getValue()) {
+        if (key.compareTo(value) > 0) {
+          toAdd.add(key);
+          toAdd.add(value);
+        }
       }
     }
     Set<SMGValue> result = new HashSet<>();
@@ -164,7 +203,7 @@ public class PredRelation {
   }
 
   public boolean isEmpty() {
-    return smgExplicitValueRelation.isEmpty() && smgValuesRelation.isEmpty();
+    return smgExplicitValueRelation.size() == 0 && smgValuesRelation.isEmpty();
   }
 
   @Override
@@ -196,7 +235,18 @@ public class PredRelation {
   }
 
   public Set<Entry<Pair<SMGValue, SMGValue>, SymbolicRelation>> getValuesRelations() {
-    return smgValuesRelation.entries();
+    ImmutableSet.Builder<Entry<Pair<SMGValue, SMGValue>, SymbolicRelation>> result =
+        ImmutableSet.builder();
+    for (Entry<SMGValue, PersistentMultimap<SMGValue, SymbolicRelation>> first :
+        smgValuesRelation.entrySet()) {
+      for (Entry<SMGValue, ImmutableSet<SymbolicRelation>> second : first.getValue().entries()) {
+        Pair<SMGValue, SMGValue> key = Pair.of(first.getKey(), second.getKey());
+        for (SymbolicRelation relation : second.getValue()) {
+          result.add(Maps.immutableEntry(key, relation));
+        }
+      }
+    }
+    return result.build();
   }
 
   public boolean isLessOrEqual(PredRelation pPathPredicateRelation) {
@@ -206,17 +256,52 @@ public class PredRelation {
     if (smgExplicitValueRelation.size() > pPathPredicateRelation.smgExplicitValueRelation.size()) {
       return false;
     }
-    if (smgValuesRelation.size() > pPathPredicateRelation.smgValuesDependency.size()) {
+    if (countRelations() > countEntries(pPathPredicateRelation.smgValuesDependency)) {
       return false;
     }
-    if (!pPathPredicateRelation.smgValuesDependency.entries().containsAll(smgValuesDependency.entries())) {
+    if (!containsAll(pPathPredicateRelation.smgValuesDependency, smgValuesDependency)) {
       return false;
     }
-    if (!pPathPredicateRelation.smgExplicitValueRelation.entries().containsAll(smgExplicitValueRelation.entries())) {
+    if (!containsAll(
+        pPathPredicateRelation.smgExplicitValueRelation, smgExplicitValueRelation)) {
       return false;
     }
-    if (!pPathPredicateRelation.smgValuesRelation.entries().containsAll(smgValuesRelation.entries())) {
-      return false;
+    for (Entry<SMGValue, PersistentMultimap<SMGValue, SymbolicRelation>> entry :
+        smgValuesRelation.entrySet()) {
+      PersistentMultimap<SMGValue, SymbolicRelation> otherRelations =
+          pPathPredicateRelation.smgValuesRelation.get(entry.getKey());
+      if (otherRelations == null || !containsAll(otherRelations, entry.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int countRelations() {
+    int count = 0;
+    for (PersistentMultimap<SMGValue, SymbolicRelation> relations : smgValuesRelation.values()) {
+      count += countEntries(relations);
+    }
+    return count;
+  }
+
+  private static int countEntries(PersistentMultimap<?, ?> pMultimap) {
+    int count = 0;
+    for (Entry<?, ? extends Set<?>> entry : pMultimap.entries()) {
+      count += entry.getValue().size();
+    }
+    return count;
+  }
+
+  private static <K, V> boolean containsAll(
+      PersistentMultimap<K, V> pContainer, PersistentMultimap<K, V> pContained) {
+    if (pContainer == pContained) {
+      return true;
+    }
+    for (Entry<K, ImmutableSet<V>> entry : pContained.entries()) {
+      if (!pContainer.get(entry.getKey()).containsAll(entry.getValue())) {
+        return false;
+      }
     }
     return true;
   }
@@ -330,8 +415,8 @@ public class PredRelation {
   }
 
   public void clear() {
-    smgExplicitValueRelation.clear();
-    smgValuesDependency.clear();
-    smgValuesRelation.clear();
+    smgExplicitValueRelation = PersistentMultimap.of();
+    smgValuesDependency = PersistentMultimap.of();
+    smgValuesRelation = PathCopyingPersistentTreeMap.of();
   }
 }
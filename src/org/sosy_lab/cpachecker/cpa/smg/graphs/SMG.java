@@ -62,7 +62,7 @@ public class SMG implements UnmodifiableSMG {
   private PersistentSet<SMGObject> externalObjectAllocation;
   private NeqRelation neq = new NeqRelation();
 
-  private final PredRelation pathPredicate = new PredRelation();
+  private PredRelation pathPredicate = new PredRelation();
   private PredRelation errorPredicate = new PredRelation();
 
 
@@ -103,8 +103,8 @@ public class SMG implements UnmodifiableSMG {
     hv_edges = pHeap.hv_edges;
     pt_edges = pHeap.pt_edges;
     neq = pHeap.neq;
-    pathPredicate.putAll(pHeap.pathPredicate);
-    errorPredicate.putAll(pHeap.errorPredicate);
+    pathPredicate = pHeap.pathPredicate.copyOf();
+    errorPredicate = pHeap.errorPredicate.copyOf();
     validObjects = pHeap.validObjects;
     externalObjectAllocation = pHeap.externalObjectAllocation;
     objects = pHeap.objects;
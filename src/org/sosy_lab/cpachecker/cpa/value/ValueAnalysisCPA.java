@@ -37,6 +37,7 @@ import java.util.Map;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
@@ -49,11 +50,14 @@ import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.core.counterexample.ConcreteStatePath;
 import org.sosy_lab.cpachecker.core.defaults.AbstractCPA;
 import org.sosy_lab.cpachecker.core.defaults.AutomaticCPAFactory;
+import org.sosy_lab.cpachecker.core.defaults.CoverageIndexStatistics;
 import org.sosy_lab.cpachecker.core.defaults.DelegateAbstractDomain;
+import org.sosy_lab.cpachecker.core.defaults.StopSepOperator;
 import org.sosy_lab.cpachecker.core.defaults.precision.VariableTrackingPrecision;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.CPAFactory;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysisWithBAM;
+import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysisWithConcurrency;
 import org.sosy_lab.cpachecker.core.interfaces.ConfigurableProgramAnalysisWithConcreteCex;
 import org.sosy_lab.cpachecker.core.interfaces.MergeOperator;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
@@ -80,6 +84,7 @@ import org.sosy_lab.cpachecker.util.states.MemoryLocationValueHandler;
 @Options(prefix = "cpa.value")
 public class ValueAnalysisCPA extends AbstractCPA
     implements ConfigurableProgramAnalysisWithBAM,
+        ConfigurableProgramAnalysisWithConcurrency,
         StatisticsProvider,
         ProofCheckerCPA,
         ConfigurableProgramAnalysisWithConcreteCex {
@@ -96,6 +101,20 @@ public class ValueAnalysisCPA extends AbstractCPA
       description = "which stop operator to use for ValueAnalysisCPA")
   private String stopType = "SEP";
 
+  @Option(
+      secure = true,
+      description =
+          "use an index for the stop operator SEP that filters the reached states"
+              + " that can not cover a new state before they are compared with it")
+  private boolean coverageIndex = false;
+
+  @Option(
+      secure = true,
+      description =
+          "Share the assignments of equal states. This reduces memory consumption and speeds up"
+              + " the comparison of states if many paths lead to the same assignments.")
+  private boolean internStates = false;
+
   @Option(secure=true, description="get an initial precision from file")
   @FileOption(FileOption.Type.OPTIONAL_INPUT_FILE)
   private Path initialPrecisionFile = null;
@@ -129,6 +148,8 @@ public class ValueAnalysisCPA extends AbstractCPA
   private final PrecAdjustmentOptions precisionAdjustmentOptions;
   private final PrecAdjustmentStatistics precisionAdjustmentStatistics;
   private final SymbolicStatistics symbolicStats;
+  private final @Nullable CoverageIndexStatistics coverageIndexStatistics;
+  private final @Nullable ValueAnalysisStateInterner stateInterner;
 
   private ValueAnalysisCPA(Configuration config, LogManager logger,
       ShutdownNotifier pShutdownNotifier, CFA cfa) throws InvalidConfigurationException {
@@ -158,6 +179,13 @@ public class ValueAnalysisCPA extends AbstractCPA
     transferOptions = new ValueTransferOptions(config);
     precisionAdjustmentOptions = new PrecAdjustmentOptions(config, cfa);
     precisionAdjustmentStatistics = new PrecAdjustmentStatistics();
+
+    if (coverageIndex && stopType.equals("SEP")) {
+      coverageIndexStatistics = new CoverageIndexStatistics("ValueAnalysisCPA coverage index");
+    } else {
+      coverageIndexStatistics = null;
+    }
+    stateInterner = internStates ? new ValueAnalysisStateInterner() : null;
   }
 
   private VariableTrackingPrecision initializePrecision(Configuration pConfig, CFA pCfa) throws InvalidConfigurationException {
@@ -239,6 +267,10 @@ public class ValueAnalysisCPA extends AbstractCPA
 
   @Override
   public StopOperator getStopOperator() {
+    if (coverageIndexStatistics != null) {
+      return new StopSepOperator(
+          getAbstractDomain(), ValueAnalysisCoverageIndex.INSTANCE, coverageIndexStatistics);
+    }
     return buildStopOperator(stopType);
   }
 
@@ -250,7 +282,8 @@ public class ValueAnalysisCPA extends AbstractCPA
         transferOptions,
         unknownValueHandler,
         constraintsStrengthenOperator,
-        statistics);
+        statistics,
+        stateInterner);
   }
 
   @Override
@@ -278,6 +311,14 @@ public class ValueAnalysisCPA extends AbstractCPA
     }
   }
 
+  @Override
+  public boolean allowsConcurrentOperators() {
+    // Transfer relation and precision adjustment are created per call and share only
+    // thread-safe statistics and the interner. The symbolic precision adjustment and
+    // the ConstraintsCPA that is needed for symbolic values are not thread-safe.
+    return !useSymbolicValues;
+  }
+
   public Configuration getConfiguration() {
     return config;
   }
@@ -307,6 +348,12 @@ public class ValueAnalysisCPA extends AbstractCPA
       pStatsCollection.add(symbolicStats);
     }
     pStatsCollection.add(constraintsStrengthenOperator);
+    if (coverageIndexStatistics != null) {
+      pStatsCollection.add(coverageIndexStatistics);
+    }
+    if (stateInterner != null) {
+      pStatsCollection.add(stateInterner);
+    }
     writer.collectStatistics(pStatsCollection);
   }
 
@@ -0,0 +1,90 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.value;
+
+import java.util.Map.Entry;
+import org.sosy_lab.common.collect.PersistentMap;
+import org.sosy_lab.cpachecker.core.defaults.CoverageIndex;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState.ValueAndType;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+/**
+ * Coverage index for {@link ValueAnalysisState}.
+ *
+ * <p>A state is less or equal than a reached state iff all assignments of the reached state are
+ * also present in the state (types are ignored, cf. {@link
+ * ValueAnalysisState#isLessOrEqual(ValueAnalysisState)}). The key of a state is a signature of
+ * its assignments: the number of assignments and a bit set in which each assignment sets one bit
+ * based on its hash code. A reached state can only cover a state if it has at most as many
+ * assignments and its bits are a subset of the bits of the state.
+ */
+final class ValueAnalysisCoverageIndex implements CoverageIndex<ValueAnalysisCoverageIndex.Key> {
+
+  static final ValueAnalysisCoverageIndex INSTANCE = new ValueAnalysisCoverageIndex();
+
+  private ValueAnalysisCoverageIndex() {}
+
+  static final class Key {
+
+    /** the map for which this key was computed, used to detect outdated keys */
+    private final PersistentMap<MemoryLocation, ValueAndType> source;
+
+    private final int size;
+    private final long bits;
+
+    private Key(PersistentMap<MemoryLocation, ValueAndType> pSource) {
+      source = pSource;
+      size = pSource.size();
+      long b = 0;
+      for (Entry<MemoryLocation, ValueAndType> entry : pSource.entrySet()) {
+        int hash = 31 * entry.getKey().hashCode() + entry.getValue().getValue().hashCode();
+        // spread the hash, otherwise similar locations and values would set the same bits
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        b |= 1L << (hash & 63);
+      }
+      bits = b;
+    }
+
+    boolean isFor(PersistentMap<MemoryLocation, ValueAndType> pMap) {
+      return source == pMap;
+    }
+  }
+
+  static Key computeKey(PersistentMap<MemoryLocation, ValueAndType> pConstantsMap) {
+    return new Key(pConstantsMap);
+  }
+
+  @Override
+  public Key getCoverageKey(AbstractState pState) {
+    return ((ValueAnalysisState) pState).getCoverageKey();
+  }
+
+  @Override
+  public boolean mayBeCoveredBy(Key pKey, Key pReachedKey) {
+    return pReachedKey.size <= pKey.size && (pReachedKey.bits & ~pKey.bits) == 0;
+  }
+}
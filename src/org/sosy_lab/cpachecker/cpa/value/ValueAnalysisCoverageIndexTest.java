@@ -0,0 +1,112 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.value;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.core.defaults.CoverageIndexStatistics;
+import org.sosy_lab.cpachecker.core.defaults.DelegateAbstractDomain;
+import org.sosy_lab.cpachecker.core.defaults.SingletonPrecision;
+import org.sosy_lab.cpachecker.core.defaults.StopSepOperator;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+public class ValueAnalysisCoverageIndexTest {
+
+  private static final ValueAnalysisCoverageIndex INDEX = ValueAnalysisCoverageIndex.INSTANCE;
+
+  private static ValueAnalysisState createState(int... pAssignments) {
+    ValueAnalysisState state = new ValueAnalysisState(MachineModel.LINUX32);
+    for (int i = 0; i < pAssignments.length; i += 2) {
+      state.assignConstant(
+          MemoryLocation.valueOf("main", "x" + pAssignments[i]),
+          new NumericValue(pAssignments[i + 1]),
+          CNumericTypes.INT);
+    }
+    return state;
+  }
+
+  private static boolean mayBeCoveredBy(ValueAnalysisState pState, ValueAnalysisState pReached) {
+    return INDEX.mayBeCoveredBy(INDEX.getCoverageKey(pState), INDEX.getCoverageKey(pReached));
+  }
+
+  @Test
+  public void testIndexIsSound() {
+    Random random = new Random(0);
+    List<ValueAnalysisState> states = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      int[] assignments = new int[2 * random.nextInt(6)];
+      for (int j = 0; j < assignments.length; j += 2) {
+        assignments[j] = random.nextInt(8);
+        assignments[j + 1] = random.nextInt(3);
+      }
+      states.add(createState(assignments));
+    }
+
+    for (ValueAnalysisState state : states) {
+      for (ValueAnalysisState reached : states) {
+        if (state.isLessOrEqual(reached)) {
+          assertThat(mayBeCoveredBy(state, reached)).isTrue();
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testKeyIsUpdatedAfterModification() {
+    ValueAnalysisState state = createState(1, 1);
+    ValueAnalysisState reached = createState(1, 1, 2, 2);
+    assertThat(state.isLessOrEqual(reached)).isFalse();
+    INDEX.getCoverageKey(state);
+
+    state.assignConstant(
+        MemoryLocation.valueOf("main", "x2"), new NumericValue(2), CNumericTypes.INT);
+    assertThat(state.isLessOrEqual(reached)).isTrue();
+    assertThat(mayBeCoveredBy(state, reached)).isTrue();
+  }
+
+  @Test
+  public void testStopWithIndex() throws Exception {
+    CoverageIndexStatistics stats = new CoverageIndexStatistics("test");
+    StopSepOperator stop =
+        new StopSepOperator(DelegateAbstractDomain.<ValueAnalysisState>getInstance(), INDEX, stats);
+
+    List<AbstractState> reached = new ArrayList<>();
+    reached.add(createState(1, 1, 2, 2, 3, 3));
+    reached.add(createState(1, 2));
+    reached.add(createState(1, 1));
+
+    assertThat(stop.stop(createState(1, 1, 2, 2), reached, SingletonPrecision.getInstance()))
+        .isTrue();
+    assertThat(stop.stop(createState(1, 3, 2, 2), reached, SingletonPrecision.getInstance()))
+        .isFalse();
+  }
+}
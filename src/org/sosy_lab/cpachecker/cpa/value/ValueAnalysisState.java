@@ -28,6 +28,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -92,8 +94,18 @@ public class ValueAnalysisState
    */
   private PersistentMap<MemoryLocation, ValueAndType> constantsMap;
 
+  /**
+   * hash code of constantsMap, updated incrementally on every modification. Do not update
+   * constantsMap without updating this field! It is transient because some values use the identity
+   * hash code, which changes on deserialization.
+   */
+  private transient int constantsHashCode;
+
   private final @Nullable MachineModel machineModel;
 
+  /** cached key for {@link ValueAnalysisCoverageIndex}, outdated if constantsMap changed */
+  private transient ValueAnalysisCoverageIndex.@Nullable Key coverageKey = null;
+
   public ValueAnalysisState(MachineModel pMachineModel) {
     this(
         checkNotNull(pMachineModel),
@@ -109,12 +121,68 @@ public class ValueAnalysisState
   private ValueAnalysisState(
       @Nullable MachineModel pMachineModel,
       PersistentMap<MemoryLocation, ValueAndType> pConstantsMap) {
+    this(pMachineModel, pConstantsMap, pConstantsMap.hashCode());
+  }
+
+  private ValueAnalysisState(
+      @Nullable MachineModel pMachineModel,
+      PersistentMap<MemoryLocation, ValueAndType> pConstantsMap,
+      int pConstantsHashCode) {
     machineModel = pMachineModel;
     constantsMap = checkNotNull(pConstantsMap);
+    constantsHashCode = pConstantsHashCode;
+    assert constantsHashCode == constantsMap.hashCode();
   }
 
   public static ValueAnalysisState copyOf(ValueAnalysisState state) {
-    return new ValueAnalysisState(state.machineModel, state.constantsMap);
+    return new ValueAnalysisState(state.machineModel, state.constantsMap, state.constantsHashCode);
+  }
+
+  /** Put an entry into constantsMap and keep its hash code up to date. */
+  private void putConstant(MemoryLocation pMemLoc, ValueAndType pValueAndType) {
+    ValueAndType oldValueAndType = constantsMap.get(pMemLoc);
+    if (oldValueAndType != null) {
+      constantsHashCode -= entryHashCode(pMemLoc, oldValueAndType);
+    }
+    constantsMap = constantsMap.putAndCopy(pMemLoc, pValueAndType);
+    constantsHashCode += entryHashCode(pMemLoc, pValueAndType);
+  }
+
+  /** Remove an entry from constantsMap and keep its hash code up to date. */
+  private void removeConstant(MemoryLocation pMemLoc) {
+    ValueAndType oldValueAndType = constantsMap.get(pMemLoc);
+    if (oldValueAndType != null) {
+      constantsMap = constantsMap.removeAndCopy(pMemLoc);
+      constantsHashCode -= entryHashCode(pMemLoc, oldValueAndType);
+    }
+  }
+
+  /** Hash code of a map entry as defined by {@link java.util.Map.Entry#hashCode()}. */
+  private static int entryHashCode(MemoryLocation pMemLoc, ValueAndType pValueAndType) {
+    return pMemLoc.hashCode() ^ pValueAndType.hashCode();
+  }
+
+  /**
+   * Let this state reference the given constants map, which has to be equal to the current one.
+   * This is used for sharing equal maps between states, cf. {@link ValueAnalysisStateInterner}.
+   */
+  void shareConstantsMapWith(ValueAnalysisState pEqualState) {
+    assert constantsMap.equals(pEqualState.constantsMap);
+    constantsMap = pEqualState.constantsMap;
+  }
+
+  boolean hasSameConstantsMapInstance(ValueAnalysisState pOther) {
+    return constantsMap == pOther.constantsMap;
+  }
+
+  /** Return the constants map for statistics about sharing, it must not be modified. */
+  PersistentMap<MemoryLocation, ValueAndType> getConstantsMap() {
+    return constantsMap;
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    constantsHashCode = constantsMap.hashCode();
   }
 
   /**
@@ -139,8 +207,7 @@ public class ValueAnalysisState
       valueToAdd = ((SymbolicValue) valueToAdd).copyForLocation(pMemLoc);
     }
 
-    constantsMap =
-        constantsMap.putAndCopy(pMemLoc, new ValueAndType(checkNotNull(valueToAdd), pType));
+    putConstant(pMemLoc, new ValueAndType(checkNotNull(valueToAdd), pType));
   }
 
   /**
@@ -212,7 +279,7 @@ public class ValueAnalysisState
     }
 
     ValueAndType value = constantsMap.get(pMemoryLocation);
-    constantsMap = constantsMap.removeAndCopy(pMemoryLocation);
+    removeConstant(pMemoryLocation);
 
     PersistentMap<MemoryLocation, ValueAndType> valueAssignment = PathCopyingPersistentTreeMap.of();
     valueAssignment = valueAssignment.putAndCopy(pMemoryLocation, value);
@@ -337,6 +404,11 @@ public class ValueAnalysisState
    */
   @Override
   public ValueAnalysisState join(ValueAnalysisState reachedState) {
+    if (constantsMap == reachedState.constantsMap) {
+      // shared map, nothing to join
+      return reachedState;
+    }
+
     PersistentMap<MemoryLocation, ValueAndType> newConstantsMap = PathCopyingPersistentTreeMap.of();
 
     for (Entry<MemoryLocation, ValueAndType> otherEntry : reachedState.constantsMap.entrySet()) {
@@ -365,6 +437,11 @@ public class ValueAnalysisState
   @Override
   public boolean isLessOrEqual(ValueAnalysisState other) {
 
+    // this element is less or equal than the other element, if both share their map
+    if (constantsMap == other.constantsMap) {
+      return true;
+    }
+
     // also, this element is not less or equal than the other element, if it contains less elements
     if (constantsMap.size() < other.constantsMap.size()) {
       return false;
@@ -407,12 +484,14 @@ public class ValueAnalysisState
     }
 
     ValueAnalysisState otherElement = (ValueAnalysisState) other;
-    return otherElement.constantsMap.equals(constantsMap);
+    return otherElement.constantsMap == constantsMap
+        || (otherElement.constantsHashCode == constantsHashCode
+            && otherElement.constantsMap.equals(constantsMap));
   }
 
   @Override
   public int hashCode() {
-    return constantsMap.hashCode();
+    return constantsHashCode;
   }
 
   @Override
@@ -729,7 +808,7 @@ public class ValueAnalysisState
   public void forgetValuesWithIdentifier(String pIdentifier) {
     for (MemoryLocation memoryLocation : constantsMap.keySet()) {
       if (memoryLocation.getIdentifier().equals(pIdentifier)) {
-        constantsMap = constantsMap.removeAndCopy(memoryLocation);
+        removeConstant(memoryLocation);
       }
     }
   }
@@ -774,6 +853,16 @@ public class ValueAnalysisState
     return rebuildState;
   }
 
+  ValueAnalysisCoverageIndex.Key getCoverageKey() {
+    ValueAnalysisCoverageIndex.Key key = coverageKey;
+    if (key == null || !key.isFor(constantsMap)) {
+      // the key is immutable, so there is no harm if several threads compute it concurrently
+      key = ValueAnalysisCoverageIndex.computeKey(constantsMap);
+      coverageKey = key;
+    }
+    return key;
+  }
+
   @Override
   public Comparable<?> getPseudoPartitionKey() {
     return getSize();
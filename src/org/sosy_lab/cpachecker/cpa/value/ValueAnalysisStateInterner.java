@@ -0,0 +1,108 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.value;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import org.sosy_lab.common.collect.PersistentMap;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.cpa.value.ValueAnalysisState.ValueAndType;
+import org.sosy_lab.cpachecker.util.AbstractStates;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * Lets equal {@link ValueAnalysisState}s share the same instance of their map of assignments.
+ * States that are reached along different paths are frequently equal, but do not share any
+ * internal structure. After interning, such duplicates are recognized by reference comparison in
+ * {@link ValueAnalysisState#equals(Object)}, {@link ValueAnalysisState#isLessOrEqual} and {@link
+ * ValueAnalysisState#join}, and they retain only one copy of the map.
+ *
+ * <p>The states themselves cannot be shared because they are mutable. Instead, the first state
+ * with a given content is kept (weakly referenced) as the canonical state, and later equal states
+ * are changed to reference its map. If the canonical state is modified afterwards, this only
+ * causes lookups to miss.
+ */
+public final class ValueAnalysisStateInterner implements Statistics {
+
+  private final Interner<ValueAnalysisState> interner = Interners.newWeakInterner();
+
+  private final StatCounter requests = new StatCounter("Number of interned states");
+  private final StatCounter shared = new StatCounter("Number of states sharing an equal map");
+
+  /** Let the given state share its map with a previously interned equal state, if any. */
+  void intern(ValueAnalysisState pState) {
+    if (pState.getSize() == 0) {
+      return;
+    }
+    requests.inc();
+    ValueAnalysisState canonicalState = interner.intern(pState);
+    if (canonicalState != pState && !canonicalState.hasSameConstantsMapInstance(pState)) {
+      pState.shareConstantsMapWith(canonicalState);
+      shared.inc();
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "ValueAnalysisCPA state interning";
+  }
+
+  /**
+   * Print the sharing of assignments in the reached set in addition to the number of interned
+   * states. The difference between the numbers of distinct map instances and distinct map values
+   * is the amount of maps that could still be shared.
+   */
+  @Override
+  public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+    Set<PersistentMap<MemoryLocation, ValueAndType>> instances =
+        Collections.newSetFromMap(new IdentityHashMap<>());
+    Set<ValueAnalysisState> values = new HashSet<>();
+    int references = 0;
+    long entries = 0;
+    for (ValueAnalysisState state :
+        AbstractStates.projectToType(pReached, ValueAnalysisState.class)) {
+      references++;
+      if (instances.add(state.getConstantsMap())) {
+        entries += state.getSize();
+      }
+      values.add(state);
+    }
+    StatisticsWriter.writingStatisticsTo(pOut)
+        .put(requests)
+        .put(shared)
+        .put("Number of states in reached set", references)
+        .put("  Distinct map instances", instances.size())
+        .put("  Distinct map values", values.size())
+        .put("  Entries in distinct map instances", entries);
+  }
+}
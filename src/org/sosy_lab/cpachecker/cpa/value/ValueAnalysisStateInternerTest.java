@@ -0,0 +1,126 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.cpa.value;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.types.MachineModel;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.cpa.value.type.NumericValue;
+import org.sosy_lab.cpachecker.util.states.MemoryLocation;
+
+public class ValueAnalysisStateInternerTest {
+
+  private static MemoryLocation var(int pIndex) {
+    return MemoryLocation.valueOf("main", "x" + pIndex);
+  }
+
+  private static ValueAnalysisState createState(int... pAssignments) {
+    ValueAnalysisState state = new ValueAnalysisState(MachineModel.LINUX32);
+    for (int i = 0; i < pAssignments.length; i += 2) {
+      state.assignConstant(
+          var(pAssignments[i]), new NumericValue(pAssignments[i + 1]), CNumericTypes.INT);
+    }
+    return state;
+  }
+
+  @Test
+  public void testHashCodeIsUpdated() {
+    Random random = new Random(0);
+    ValueAnalysisState state = createState();
+    for (int i = 0; i < 1000; i++) {
+      if (random.nextInt(3) == 0) {
+        state.forget(var(random.nextInt(20)));
+      } else {
+        state.assignConstant(
+            var(random.nextInt(20)), new NumericValue(random.nextInt(3)), CNumericTypes.INT);
+      }
+      ValueAnalysisState copy =
+          new ValueAnalysisState(
+              Optional.of(MachineModel.LINUX32),
+              state.getInformation().getAssignments());
+      assertThat(state).isEqualTo(copy);
+      assertThat(state.hashCode()).isEqualTo(copy.hashCode());
+    }
+  }
+
+  @Test
+  public void testSerializationRestoresHashCode() throws Exception {
+    ValueAnalysisState state = createState(1, 1, 2, 2);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(state);
+    }
+    ValueAnalysisState read;
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      read = (ValueAnalysisState) in.readObject();
+    }
+    assertThat(read).isEqualTo(state);
+    assertThat(read.hashCode()).isEqualTo(state.hashCode());
+  }
+
+  @Test
+  public void testEqualStatesShareMap() {
+    ValueAnalysisStateInterner interner = new ValueAnalysisStateInterner();
+    ValueAnalysisState s1 = createState(1, 1, 2, 2);
+    ValueAnalysisState s2 = createState(2, 2, 1, 1);
+    ValueAnalysisState s3 = createState(1, 1, 2, 3);
+    interner.intern(s1);
+    interner.intern(s2);
+    interner.intern(s3);
+
+    assertThat(s2.hasSameConstantsMapInstance(s1)).isTrue();
+    assertThat(s3.hasSameConstantsMapInstance(s1)).isFalse();
+    assertThat(s2.isLessOrEqual(s1)).isTrue();
+    assertThat(s2.join(s1)).isSameAs(s1);
+    assertThat(s3.isLessOrEqual(s1)).isFalse();
+    assertThat(s3.join(s1)).isEqualTo(createState(1, 1));
+
+    // states are still independent
+    s2.forget(var(1));
+    assertThat(s2).isEqualTo(createState(2, 2));
+    assertThat(s1).isEqualTo(createState(1, 1, 2, 2));
+  }
+
+  @Test
+  public void testModifiedCanonicalState() {
+    ValueAnalysisStateInterner interner = new ValueAnalysisStateInterner();
+    ValueAnalysisState s1 = createState(1, 1);
+    interner.intern(s1);
+    s1.assignConstant(var(2), new NumericValue(2), CNumericTypes.INT);
+
+    ValueAnalysisState s2 = createState(1, 1);
+    interner.intern(s2);
+    assertThat(s2).isEqualTo(createState(1, 1));
+    assertThat(s2.hasSameConstantsMapInstance(s1)).isFalse();
+  }
+}
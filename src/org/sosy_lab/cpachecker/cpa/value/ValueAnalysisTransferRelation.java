@@ -199,6 +199,7 @@ public class ValueAnalysisTransferRelation
 
   private final ValueTransferOptions options;
   private final @Nullable ValueAnalysisCPAStatistics stats;
+  private final @Nullable ValueAnalysisStateInterner stateInterner;
 
   private final ConstraintsStrengthenOperator constraintsStrengthenOperator;
 
@@ -246,11 +247,13 @@ public class ValueAnalysisTransferRelation
       ValueTransferOptions pOptions,
       MemoryLocationValueHandler pUnknownValueHandler,
       ConstraintsStrengthenOperator pConstraintsStrengthenOperator,
-      @Nullable ValueAnalysisCPAStatistics pStats) {
+      @Nullable ValueAnalysisCPAStatistics pStats,
+      @Nullable ValueAnalysisStateInterner pStateInterner) {
     options = pOptions;
     machineModel = pCfa.getMachineModel();
     logger = new LogManagerWithoutDuplicates(pLogger);
     stats = pStats;
+    stateInterner = pStateInterner;
 
     if (pCfa.getVarClassification().isPresent()) {
       addressedVariables = pCfa.getVarClassification().get().getAddressedVariables();
@@ -269,6 +272,9 @@ public class ValueAnalysisTransferRelation
     // always return a new state (requirement for strengthening states with interpolants)
     if (successor != null) {
       successor = ValueAnalysisState.copyOf(successor);
+      if (stateInterner != null) {
+        stateInterner.intern(successor);
+      }
     }
 
     return super.postProcessing(successor, edge);
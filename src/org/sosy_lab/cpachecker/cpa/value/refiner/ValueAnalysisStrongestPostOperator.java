@@ -71,6 +71,7 @@ public class ValueAnalysisStrongestPostOperator implements StrongestPostOperator
             new ValueAnalysisTransferRelation.ValueTransferOptions(pConfig),
             new UnknownValueAssigner(),
             new ConstraintsStrengthenOperator(pConfig, pLogger),
+            null,
             null);
   }
 
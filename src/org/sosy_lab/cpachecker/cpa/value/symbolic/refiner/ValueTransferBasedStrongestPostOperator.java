@@ -79,6 +79,7 @@ public class ValueTransferBasedStrongestPostOperator
             new ValueAnalysisTransferRelation.ValueTransferOptions(pConfig),
             new SymbolicValueAssigner(pConfig),
             new ConstraintsStrengthenOperator(pConfig, pLogger),
+            null,
             null);
 
     valueStrongestPost = new ValueAnalysisStrongestPostOperator(pLogger, pConfig, pCfa);
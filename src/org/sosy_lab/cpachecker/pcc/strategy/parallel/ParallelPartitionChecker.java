@@ -111,6 +111,11 @@ public class ParallelPartitionChecker implements Runnable, PartitioningCheckingH
       if (shutdownNotifier.shouldShutdown()) {
         abortCheckingPreparation();
       }
+      if (ioHelper.getPartition(nextPartitionId) == null) {
+        // partitions of binary certificates are decoded on demand, which may fail
+        abortCheckingPreparation();
+        break;
+      }
       checker.checkPartition(nextPartitionId);
 
       mutex.lock();
@@ -0,0 +1,284 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy.parallel.interleaved;
+
+import com.google.common.base.Throwables;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
+import org.sosy_lab.cpachecker.core.interfaces.Statistics;
+import org.sosy_lab.cpachecker.core.reachedset.UnmodifiableReachedSet;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * Reads and checks partitions with a common pool of threads. Before each step, a thread decides
+ * whether it reads the next partition or checks a partition that was read before. The decision is
+ * based on the measured average time for reading and for checking a partition, such that the
+ * throughput of both stages is balanced at runtime. The number of read but unchecked partitions is
+ * bounded, so readers are blocked if the checkers fall behind.
+ *
+ * <p>If reading or checking a partition fails, the pipeline is aborted and all threads stop.
+ *
+ * @param <P> the type of a read partition
+ */
+abstract class AdaptiveReadCheckPipeline<P> {
+
+  private static final long POLL_TIMEOUT_MS = 10;
+
+  private final int numThreads;
+  private final int numPartitions;
+
+  private final PipelineStatistics stats;
+  private final ShutdownNotifier shutdownNotifier;
+  private final LogManager logger;
+
+  /** Read but unchecked partitions, at most one per reserved slot. */
+  private final BlockingQueue<P> readPartitions;
+  /** Free slots of {@link #readPartitions}, a slot is reserved before a partition is read. */
+  private final Semaphore freeSlots;
+
+  private final AtomicInteger nextPartitionToRead = new AtomicInteger(0);
+  private final AtomicInteger numCheckedPartitions = new AtomicInteger(0);
+  private final AtomicInteger activeReaders = new AtomicInteger(0);
+  private final AtomicBoolean checkResult = new AtomicBoolean(true);
+
+  AdaptiveReadCheckPipeline(
+      final int pNumThreads,
+      final int pNumPartitions,
+      final int pMaxBufferedPartitions,
+      final PipelineStatistics pStats,
+      final ShutdownNotifier pShutdownNotifier,
+      final LogManager pLogger) {
+    numThreads = pNumThreads;
+    numPartitions = pNumPartitions;
+    stats = pStats;
+    shutdownNotifier = pShutdownNotifier;
+    logger = pLogger;
+
+    int capacity = pMaxBufferedPartitions > 0 ? pMaxBufferedPartitions : 2 * numThreads;
+    readPartitions = new ArrayBlockingQueue<>(capacity);
+    freeSlots = new Semaphore(capacity);
+  }
+
+  /** Read the partition with the given index. This is called concurrently by several threads. */
+  protected abstract P readPartition(int pIndex) throws IOException, ClassNotFoundException;
+
+  /**
+   * Create the checker that is used by one thread for all partitions it checks. A checker calls
+   * {@link #abort()} if a partition is not valid.
+   */
+  protected abstract Consumer<P> createChecker();
+
+  /**
+   * Read and check all partitions.
+   *
+   * @return false if a partition could not be read or is not valid
+   */
+  boolean run() throws InterruptedException {
+    List<Callable<Void>> workers = new ArrayList<>(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      workers.add(
+          () -> {
+            try {
+              work();
+            } catch (Throwable t) {
+              // let the other threads stop instead of waiting for the partitions of this one
+              abort();
+              throw t;
+            }
+            return null;
+          });
+    }
+    List<Future<Void>> results;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      results = executor.invokeAll(workers);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (Future<Void> result : results) {
+      try {
+        result.get();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        Throwables.throwIfInstanceOf(cause, Error.class);
+        logger.logException(Level.SEVERE, cause, "Unexpected failure during proof checking");
+      }
+    }
+    return checkResult.get() && numCheckedPartitions.get() == numPartitions;
+  }
+
+  /** Stop reading and checking, the result of the pipeline is negative. */
+  final void abort() {
+    checkResult.set(false);
+  }
+
+  private void work() {
+    Consumer<P> checker = createChecker();
+    boolean wasReading = false;
+
+    while (checkResult.get() && numCheckedPartitions.get() < numPartitions) {
+      if (shutdownNotifier.shouldShutdown()) {
+        abort();
+        return;
+      }
+
+      if (shouldRead() && freeSlots.tryAcquire()) {
+        int nextId = nextPartitionToRead.getAndIncrement();
+        if (nextId < numPartitions) {
+          if (!wasReading) {
+            stats.roleSwitches.inc();
+            wasReading = true;
+          }
+          read(nextId);
+          continue;
+        }
+        freeSlots.release();
+      }
+
+      P partition;
+      try {
+        partition = readPartitions.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        abort();
+        return;
+      }
+      if (partition != null) {
+        if (wasReading) {
+          stats.roleSwitches.inc();
+          wasReading = false;
+        }
+        check(checker, partition);
+      }
+    }
+  }
+
+  /**
+   * Decide whether a thread should read the next partition. Reading is preferred if no read
+   * partition is available. Otherwise, the share of reading threads should correspond to the share
+   * of the reading time in the total time spent for a partition.
+   */
+  private boolean shouldRead() {
+    if (nextPartitionToRead.get() >= numPartitions) {
+      return false;
+    }
+    if (readPartitions.isEmpty()) {
+      return true;
+    }
+    long reads = stats.partitionsRead.getValue();
+    long checks = stats.partitionsChecked.getValue();
+    if (reads == 0 || checks == 0) {
+      return true;
+    }
+    double avgReadTime = stats.readTime.sum() / (double) reads;
+    double avgCheckTime = stats.checkTime.sum() / (double) checks;
+    long targetReaders =
+        Math.max(1, Math.round(numThreads * avgReadTime / (avgReadTime + avgCheckTime)));
+    return activeReaders.get() < targetReaders;
+  }
+
+  private void read(final int pIndex) {
+    activeReaders.incrementAndGet();
+    long start = System.nanoTime();
+    try {
+      P partition = readPartition(pIndex);
+      // cannot fail, the slot was reserved before
+      readPartitions.add(partition);
+      stats.readTime.add(System.nanoTime() - start);
+      stats.partitionsRead.inc();
+      stats.maxBufferedPartitions.accumulate(readPartitions.size());
+    } catch (IOException | ClassNotFoundException e) {
+      logger.logUserException(Level.SEVERE, e, "Partition reading failed. Stop checking");
+      freeSlots.release();
+      abort();
+    } finally {
+      activeReaders.decrementAndGet();
+    }
+  }
+
+  private void check(final Consumer<P> pChecker, final P pPartition) {
+    freeSlots.release();
+    long start = System.nanoTime();
+    pChecker.accept(pPartition);
+    stats.checkTime.add(System.nanoTime() - start);
+    stats.partitionsChecked.inc();
+    numCheckedPartitions.incrementAndGet();
+  }
+
+  static class PipelineStatistics implements Statistics {
+
+    private final StatCounter partitionsRead = new StatCounter("Number of read partitions");
+    private final StatCounter partitionsChecked = new StatCounter("Number of checked partitions");
+    private final StatCounter roleSwitches =
+        new StatCounter("Number of switches between reading and checking");
+    private final LongAdder readTime = new LongAdder();
+    private final LongAdder checkTime = new LongAdder();
+    private final LongAccumulator maxBufferedPartitions = new LongAccumulator(Math::max, 0);
+
+    @Override
+    public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+      StatisticsWriter writer = StatisticsWriter.writingStatisticsTo(pOut);
+      writer
+          .put(partitionsRead)
+          .put(partitionsChecked)
+          .put(roleSwitches)
+          .put("Max. number of buffered partitions", maxBufferedPartitions.get())
+          .put("Avg. time for reading a partition", average(readTime, partitionsRead))
+          .put("Avg. time for checking a partition", average(checkTime, partitionsChecked));
+    }
+
+    private static String average(LongAdder pNanos, StatCounter pCount) {
+      long count = Math.max(1, pCount.getValue());
+      return TimeSpan.ofNanos(pNanos.sum() / count).formatAs(TimeUnit.SECONDS);
+    }
+
+    @Override
+    public @Nullable String getName() {
+      return "Adaptive read/check pipeline";
+    }
+  }
+}
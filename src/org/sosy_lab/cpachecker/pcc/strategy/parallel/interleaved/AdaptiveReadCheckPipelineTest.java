@@ -0,0 +1,142 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy.parallel.interleaved;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.Range;
+import com.google.common.collect.Sets;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.pcc.strategy.parallel.interleaved.AdaptiveReadCheckPipeline.PipelineStatistics;
+
+public class AdaptiveReadCheckPipelineTest {
+
+  private static final int THREADS = 4;
+  private static final int PARTITIONS = 200;
+  private static final int CAPACITY = 1;
+
+  /** Pipeline for partitions that are just their index. */
+  private static class TestPipeline extends AdaptiveReadCheckPipeline<Integer> {
+
+    private final Set<Integer> checked = Sets.newConcurrentHashSet();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final AtomicInteger maxBuffered = new AtomicInteger();
+
+    TestPipeline() {
+      super(
+          THREADS,
+          PARTITIONS,
+          CAPACITY,
+          new PipelineStatistics(),
+          ShutdownNotifier.createDummy(),
+          LogManager.createTestLogManager());
+    }
+
+    @Override
+    protected Integer readPartition(int pIndex) throws IOException, ClassNotFoundException {
+      maxBuffered.accumulateAndGet(buffered.incrementAndGet(), Math::max);
+      return pIndex;
+    }
+
+    @Override
+    protected Consumer<Integer> createChecker() {
+      return partition -> {
+        buffered.decrementAndGet();
+        assertThat(checked.add(partition)).isTrue();
+      };
+    }
+  }
+
+  @Test(timeout = 60_000)
+  public void testAllPartitionsChecked() throws InterruptedException {
+    TestPipeline pipeline = new TestPipeline();
+    assertThat(pipeline.run()).isTrue();
+    assertThat(pipeline.checked)
+        .containsExactlyElementsIn(
+            ContiguousSet.create(Range.closedOpen(0, PARTITIONS), DiscreteDomain.integers()));
+    // a slot is reserved before reading, so readers never get ahead of the checkers
+    assertThat(pipeline.maxBuffered.get()).isAtMost(CAPACITY);
+  }
+
+  @Test(timeout = 60_000)
+  public void testInvalidPartitionStopsPipeline() throws InterruptedException {
+    TestPipeline pipeline =
+        new TestPipeline() {
+          @Override
+          protected Consumer<Integer> createChecker() {
+            Consumer<Integer> checker = super.createChecker();
+            return partition -> {
+              checker.accept(partition);
+              if (partition == PARTITIONS / 2) {
+                abort();
+              }
+            };
+          }
+        };
+    assertThat(pipeline.run()).isFalse();
+  }
+
+  @Test(timeout = 60_000)
+  public void testReadFailureStopsPipeline() throws InterruptedException {
+    TestPipeline pipeline =
+        new TestPipeline() {
+          @Override
+          protected Integer readPartition(int pIndex) throws IOException, ClassNotFoundException {
+            if (pIndex == PARTITIONS / 2) {
+              throw new IOException("corrupt partition");
+            }
+            return super.readPartition(pIndex);
+          }
+        };
+    assertThat(pipeline.run()).isFalse();
+    assertThat(pipeline.checked).doesNotContain(PARTITIONS / 2);
+  }
+
+  @Test(timeout = 60_000)
+  public void testUnexpectedExceptionStopsPipeline() throws InterruptedException {
+    TestPipeline pipeline =
+        new TestPipeline() {
+          @Override
+          protected Consumer<Integer> createChecker() {
+            Consumer<Integer> checker = super.createChecker();
+            return partition -> {
+              if (partition == PARTITIONS / 2) {
+                throw new IllegalStateException("bug in checker");
+              }
+              checker.accept(partition);
+            };
+          }
+        };
+    // without handling the exception, the other threads would wait for this partition forever
+    assertThat(pipeline.run()).isFalse();
+  }
+}
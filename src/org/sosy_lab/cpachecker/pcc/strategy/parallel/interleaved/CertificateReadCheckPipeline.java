@@ -0,0 +1,167 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy.parallel.interleaved;
+
+import com.google.common.collect.Multimap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.zip.ZipInputStream;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.core.interfaces.Precision;
+import org.sosy_lab.cpachecker.core.interfaces.pcc.PartitioningCheckingHelper;
+import org.sosy_lab.cpachecker.cpa.PropertyChecker.PropertyCheckerCPA;
+import org.sosy_lab.cpachecker.pcc.strategy.AbstractStrategy;
+import org.sosy_lab.cpachecker.pcc.strategy.AbstractStrategy.PCStrategyStatistics;
+import org.sosy_lab.cpachecker.pcc.strategy.partitioning.PartitionChecker;
+import org.sosy_lab.cpachecker.pcc.strategy.partitioning.PartitioningIOHelper;
+import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.Triple;
+
+/**
+ * {@link AdaptiveReadCheckPipeline} for the partitions of a certificate. In contrast to the static
+ * split between reading and checking threads, checked partitions are not kept by the {@link
+ * PartitioningIOHelper}.
+ */
+class CertificateReadCheckPipeline
+    extends AdaptiveReadCheckPipeline<Pair<AbstractState[], AbstractState[]>>
+    implements PartitioningCheckingHelper {
+
+  private final AbstractStrategy strategy;
+  private final PartitioningIOHelper ioHelper;
+  private final PropertyCheckerCPA cpa;
+  private final Precision initialPrecision;
+  private final PCStrategyStatistics proofStats;
+  private final ShutdownNotifier shutdownNotifier;
+  private final LogManager logger;
+
+  private final Lock mutex;
+  private final Collection<AbstractState> certificate;
+  private final Multimap<CFANode, AbstractState> partitionNodes;
+  private final Collection<AbstractState> inOtherPartition;
+
+  CertificateReadCheckPipeline(
+      final int pNumThreads,
+      final int pMaxBufferedPartitions,
+      final AbstractStrategy pStrategy,
+      final PartitioningIOHelper pIOHelper,
+      final PropertyCheckerCPA pCpa,
+      final Precision pInitialPrecision,
+      final Collection<AbstractState> pCertificate,
+      final Multimap<CFANode, AbstractState> pPartitionNodes,
+      final Collection<AbstractState> pInOtherPartition,
+      final Lock pMutex,
+      final PCStrategyStatistics pProofStats,
+      final PipelineStatistics pStats,
+      final ShutdownNotifier pShutdownNotifier,
+      final LogManager pLogger) {
+    super(
+        pNumThreads,
+        pIOHelper.getNumPartitions(),
+        pMaxBufferedPartitions,
+        pStats,
+        pShutdownNotifier,
+        pLogger);
+    strategy = pStrategy;
+    ioHelper = pIOHelper;
+    cpa = pCpa;
+    initialPrecision = pInitialPrecision;
+    certificate = pCertificate;
+    partitionNodes = pPartitionNodes;
+    inOtherPartition = pInOtherPartition;
+    mutex = pMutex;
+    proofStats = pProofStats;
+    shutdownNotifier = pShutdownNotifier;
+    logger = pLogger;
+  }
+
+  @Override
+  protected Pair<AbstractState[], AbstractState[]> readPartition(final int pIndex)
+      throws IOException, ClassNotFoundException {
+    Triple<InputStream, ZipInputStream, ObjectInputStream> streams = null;
+    try {
+      streams = strategy.openAdditionalProofStream(pIndex);
+      Pair<AbstractState[], AbstractState[]> partition =
+          ioHelper.readPartitionContent(streams.getThird());
+      mutex.lock();
+      try {
+        proofStats.increaseProofSize(partition.getFirst().length + partition.getSecond().length);
+      } finally {
+        mutex.unlock();
+      }
+      return partition;
+    } finally {
+      if (streams != null) {
+        try {
+          streams.getThird().close();
+          streams.getSecond().close();
+          streams.getFirst().close();
+        } catch (IOException e) {
+        }
+      }
+    }
+  }
+
+  @Override
+  protected Consumer<Pair<AbstractState[], AbstractState[]>> createChecker() {
+    PartitionChecker checker =
+        new PartitionChecker(
+            initialPrecision,
+            cpa.getStopOperator(),
+            cpa.getTransferRelation(),
+            ioHelper,
+            this,
+            shutdownNotifier,
+            logger);
+    return partition -> {
+      checker.checkPartition(partition);
+
+      mutex.lock();
+      try {
+        checker.addCertificatePartsToCertificate(certificate);
+        checker.addPartitionElements(partitionNodes);
+        checker.addElementsCheckedInOtherPartitions(inOtherPartition);
+      } finally {
+        mutex.unlock();
+      }
+      checker.clearAllSavedPartitioningElements();
+    };
+  }
+
+  @Override
+  public int getCurrentCertificateSize() {
+    return certificate.size();
+  }
+
+  @Override
+  public void abortCheckingPreparation() {
+    abort();
+  }
+}
@@ -43,6 +43,7 @@ import java.util.logging.Level;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -57,6 +58,7 @@ import org.sosy_lab.cpachecker.cpa.PropertyChecker.PropertyCheckerCPA;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.pcc.strategy.AbstractStrategy;
 import org.sosy_lab.cpachecker.pcc.strategy.parallel.ParallelPartitionChecker;
+import org.sosy_lab.cpachecker.pcc.strategy.parallel.interleaved.AdaptiveReadCheckPipeline.PipelineStatistics;
 import org.sosy_lab.cpachecker.pcc.strategy.parallel.io.ParallelPartitionReader;
 import org.sosy_lab.cpachecker.pcc.strategy.partitioning.PartitioningIOHelper;
 import org.sosy_lab.cpachecker.pcc.strategy.partitioning.PartitioningUtils;
@@ -69,6 +71,28 @@ public class PartialReachedSetParallelIOCheckingInterleavedStrategy extends Abst
       description = "The number of cores used exclusively for proof reading. Must be less than pcc.useCores and may not be negative. Value 0 means that the cores used for reading and checking are shared")
   private int numReadThreads = 0;
 
+  @Option(
+    secure = true,
+    description =
+        "Share all cores between proof reading and checking and decide at runtime whether a thread"
+            + " reads or checks the next partition, based on the measured reading and checking"
+            + " times. If enabled, option useReadCores is ignored and checked partitions are not"
+            + " kept in memory."
+  )
+  private boolean adaptiveReadCheck = false;
+
+  @Option(
+    secure = true,
+    description =
+        "The maximal number of partitions that are read but not yet checked when the adaptive"
+            + " pipeline is used. Reading is blocked if this number is reached. Value 0 means twice"
+            + " the number of threads."
+  )
+  @IntegerOption(min = 0)
+  private int maxBufferedPartitions = 0;
+
+  private final PipelineStatistics pipelineStats = new PipelineStatistics();
+
   private int nextPartition;
   private final PartitioningIOHelper ioHelper;
   private final ShutdownNotifier shutdown;
@@ -91,6 +115,9 @@ public class PartialReachedSetParallelIOCheckingInterleavedStrategy extends Abst
     numReadThreads = Math.min(numReadThreads, numThreads - 1);
     numReadThreads = Math.max(0, numReadThreads);
     addPCCStatistic(ioHelper.getPartitioningStatistc());
+    if (adaptiveReadCheck) {
+      addPCCStatistic(pipelineStats);
+    }
   }
 
   @Override
@@ -115,7 +142,29 @@ public class PartialReachedSetParallelIOCheckingInterleavedStrategy extends Abst
     ExecutorService executor = null, readExecutor = null, checkExecutor = null;
     logger.log(Level.INFO, "Create and start threads");
     try {
-      if (numReadThreads == 0) {
+      if (adaptiveReadCheck) {
+        CertificateReadCheckPipeline pipeline =
+            new CertificateReadCheckPipeline(
+                numThreads,
+                maxBufferedPartitions,
+                this,
+                ioHelper,
+                cpa,
+                initPrec,
+                certificate,
+                partitionNodes,
+                inOtherPartition,
+                lock,
+                stats,
+                pipelineStats,
+                shutdown,
+                logger);
+        if (!pipeline.run()) {
+          return false;
+        }
+        // all partitions are already checked
+        partitionChecked.release(ioHelper.getNumPartitions());
+      } else if (numReadThreads == 0) {
         executor = Executors.newFixedThreadPool(numThreads);
         startReadingThreads(numThreads, executor, checkResult, partitionsRead);
         startCheckingThreads(numThreads, executor, checkResult, partitionsRead, partitionChecked, certificate,
@@ -27,8 +27,11 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import java.io.IOException;
+import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -43,11 +46,13 @@ import java.util.logging.Level;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
+import org.sosy_lab.cpachecker.core.CPAcheckerResult.Result;
 import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
 import org.sosy_lab.cpachecker.core.interfaces.Precision;
 import org.sosy_lab.cpachecker.core.interfaces.Statistics;
@@ -57,8 +62,12 @@ import org.sosy_lab.cpachecker.cpa.PropertyChecker.PropertyCheckerCPA;
 import org.sosy_lab.cpachecker.exceptions.CPAException;
 import org.sosy_lab.cpachecker.pcc.strategy.AbstractStrategy;
 import org.sosy_lab.cpachecker.pcc.strategy.parallel.ParallelPartitionChecker;
+import org.sosy_lab.cpachecker.pcc.strategy.partitioning.BinaryCertificate;
 import org.sosy_lab.cpachecker.pcc.strategy.partitioning.PartitioningIOHelper;
 import org.sosy_lab.cpachecker.pcc.strategy.partitioning.PartitioningUtils;
+import org.sosy_lab.cpachecker.util.statistics.StatTimer;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsUtils;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 
 @Options(prefix = "pcc.parallel.io")
 public class PartialReachedSetParallelReadingStrategy extends AbstractStrategy {
@@ -70,8 +79,30 @@ public class PartialReachedSetParallelReadingStrategy extends AbstractStrategy {
 
   @Option(secure=true, description = "enables parallel checking of partial certificate")
   private boolean enableParallelCheck = false;
+
+  @Option(
+    secure = true,
+    description =
+        "write the certificate in a binary format with a partition index, "
+            + "which is read via memory-mapped I/O such that each checking thread "
+            + "decodes its partitions on demand. The format is detected automatically "
+            + "when reading a certificate."
+  )
+  private boolean binaryCertificate = false;
+
+  @Option(
+    secure = true,
+    description =
+        "convert a certificate in the zip-based format into the binary format "
+            + "while reading it, and write the converted certificate to this file"
+  )
+  @FileOption(FileOption.Type.OUTPUT_FILE)
+  private @Nullable Path convertedCertificateFile = null;
+
   private int nextPartition;
 
+  private final CertificateFormatStatistics formatStats = new CertificateFormatStatistics();
+
   public PartialReachedSetParallelReadingStrategy(
       final Configuration pConfig,
       final LogManager pLogger,
@@ -84,7 +115,12 @@ public class PartialReachedSetParallelReadingStrategy extends AbstractStrategy {
     ioHelper = new PartitioningIOHelper(pConfig, pLogger, pShutdownNotifier);
     shutdownNotifier = pShutdownNotifier;
     cpa = pCpa;
+    if (binaryCertificate && shouldStoreConfiguration()) {
+      throw new InvalidConfigurationException(
+          "The validation configuration cannot be stored in a binary certificate.");
+    }
     addPCCStatistic(ioHelper.getPartitioningStatistc());
+    addPCCStatistic(formatStats);
   }
 
   @Override
@@ -149,6 +185,66 @@ public class PartialReachedSetParallelReadingStrategy extends AbstractStrategy {
     }
   }
 
+  @Override
+  public void writeProof(final UnmodifiableReachedSet pReached) {
+    if (!binaryCertificate) {
+      super.writeProof(pReached);
+      return;
+    }
+
+    try {
+      ioHelper.constructInternalProofRepresentation(pReached);
+      formatStats.usesBinaryCertificate = true;
+      formatStats.binaryCertificateSize = ioHelper.writeBinaryProof(proofFile, pReached.size());
+    } catch (NotSerializableException eS) {
+      logger.log(Level.SEVERE, "Proof cannot be written. Class " + eS.getMessage()
+          + " does not implement Serializable interface");
+    } catch (InvalidConfigurationException e) {
+      logger.log(Level.SEVERE, "Proof cannot be constructed due to conflicting configuration.",
+          e.getMessage());
+    } catch (InterruptedException e) {
+      logger.log(Level.SEVERE,
+          "Proof cannot be written due to time out during proof construction");
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    logger.log(Level.INFO, proofInfo.getInfoAsString());
+  }
+
+  @Override
+  public void readProof()
+      throws IOException, ClassNotFoundException, InvalidConfigurationException {
+    if (BinaryCertificate.isBinaryCertificate(proofFile)) {
+      formatStats.usesBinaryCertificate = true;
+      formatStats.readingTimer.start();
+      try {
+        ioHelper.readBinaryProof(proofFile, stats);
+      } finally {
+        formatStats.readingTimer.stop();
+      }
+      return;
+    }
+
+    formatStats.readingTimer.start();
+    try {
+      super.readProof();
+    } finally {
+      formatStats.readingTimer.stop();
+    }
+
+    if (convertedCertificateFile != null) {
+      formatStats.conversionTimer.start();
+      try {
+        formatStats.binaryCertificateSize =
+            ioHelper.writeBinaryProof(convertedCertificateFile, ioHelper.getSavedReachedSetSize());
+      } finally {
+        formatStats.conversionTimer.stop();
+      }
+      logger.log(Level.INFO, "Converted certificate into binary format:", convertedCertificateFile);
+    }
+  }
+
   @Override
   protected void writeProofToStream(final ObjectOutputStream pOut, final UnmodifiableReachedSet pReached)
       throws IOException, InvalidConfigurationException, InterruptedException {
@@ -203,7 +299,48 @@ public class PartialReachedSetParallelReadingStrategy extends AbstractStrategy {
   public Collection<Statistics> getAdditionalProofGenerationStatistics() {
     Collection<Statistics> result = new ArrayList<>(super.getAdditionalProofGenerationStatistics());
     result.add(ioHelper.getGraphStatistic());
+    result.add(formatStats);
     return result;
   }
 
+  private class CertificateFormatStatistics implements Statistics {
+
+    private boolean usesBinaryCertificate = false;
+    private long binaryCertificateSize = -1;
+    private final StatTimer readingTimer = new StatTimer("Time for reading certificate");
+    private final StatTimer conversionTimer =
+        new StatTimer("Time for converting certificate into binary format");
+
+    @Override
+    public void printStatistics(PrintStream pOut, Result pResult, UnmodifiableReachedSet pReached) {
+      StatisticsWriter writer = StatisticsWriter.writingStatisticsTo(pOut);
+      long proofFileSize = getFileSize(proofFile);
+      writer
+          .put("Certificate format", usesBinaryCertificate ? "binary" : "zip")
+          .putIf(proofFileSize >= 0, "Certificate file size (bytes)", proofFileSize)
+          .putIf(
+              binaryCertificateSize >= 0, "Binary certificate size (bytes)", binaryCertificateSize)
+          .putIfUpdatedAtLeastOnce(readingTimer)
+          .putIfUpdatedAtLeastOnce(conversionTimer);
+      if (convertedCertificateFile != null && binaryCertificateSize >= 0 && proofFileSize > 0) {
+        writer.put(
+            "Size of converted certificate",
+            StatisticsUtils.toPercent(binaryCertificateSize, proofFileSize));
+      }
+    }
+
+    private long getFileSize(@Nullable Path pFile) {
+      try {
+        return pFile != null && Files.exists(pFile) ? Files.size(pFile) : -1;
+      } catch (IOException e) {
+        return -1;
+      }
+    }
+
+    @Override
+    public String getName() {
+      return "PCC Certificate Format";
+    }
+  }
+
 }
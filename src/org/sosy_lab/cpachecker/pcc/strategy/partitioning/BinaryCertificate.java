@@ -0,0 +1,256 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy.partitioning;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.util.Pair;
+
+/**
+ * A binary format for partitioned certificates, which allows to decode each partition
+ * independently.
+ *
+ * <p>The file starts with a header (magic number, version, size of the reached set, number of
+ * partitions) and an index, which contains for each partition the position and length of its data
+ * and the number of its states. Afterwards, the data of all partitions follows. The data of a
+ * partition is the compressed Java serialization of the states of the partition and of the
+ * adjacent states outside the partition.
+ *
+ * <p>For reading, the header with the index and the data of each partition are mapped into memory
+ * as separate regions, such that certificates larger than 2 GiB can be read as long as each single
+ * partition is smaller. Only the index is read when opening the file. Partitions are decoded on
+ * demand, and several threads may decode different partitions in parallel.
+ */
+public final class BinaryCertificate {
+
+  private static final int MAGIC = 0x50434342; // "PCCB"
+  private static final int VERSION = 1;
+
+  /** magic, version, size of reached set, number of partitions */
+  private static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+  /** offset, length, number of states, number of adjacent states */
+  private static final int INDEX_ENTRY_SIZE = Long.BYTES + 3 * Integer.BYTES;
+
+  private final MappedByteBuffer index;
+  private final MappedByteBuffer[] partitions;
+  private final int reachedSetSize;
+
+  private BinaryCertificate(
+      MappedByteBuffer pIndex, MappedByteBuffer[] pPartitions, int pReachedSetSize) {
+    index = pIndex;
+    partitions = pPartitions;
+    reachedSetSize = pReachedSetSize;
+  }
+
+  /**
+   * Write the partitions into a file in the binary certificate format.
+   *
+   * @return the size of the written file in bytes
+   */
+  public static long write(
+      Path pFile, int pReachedSetSize, List<Pair<AbstractState[], AbstractState[]>> pPartitions)
+      throws IOException {
+    Path dir = pFile.toAbsolutePath().getParent();
+    if (dir != null) {
+      Files.createDirectories(dir);
+    }
+
+    ByteBuffer index = ByteBuffer.allocate(HEADER_SIZE + pPartitions.size() * INDEX_ENTRY_SIZE);
+    index.putInt(MAGIC).putInt(VERSION).putInt(pReachedSetSize).putInt(pPartitions.size());
+
+    try (FileChannel channel =
+        FileChannel.open(
+            pFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      // the index is written at the end, when the positions of all partitions are known
+      long offset = index.capacity();
+      channel.position(offset);
+      for (Pair<AbstractState[], AbstractState[]> partition : pPartitions) {
+        byte[] data = encode(partition);
+        writeFully(channel, ByteBuffer.wrap(data));
+        index
+            .putLong(offset)
+            .putInt(data.length)
+            .putInt(partition.getFirst().length)
+            .putInt(partition.getSecond().length);
+        offset += data.length;
+      }
+      index.flip();
+      channel.position(0);
+      writeFully(channel, index);
+      return offset;
+    }
+  }
+
+  private static byte[] encode(Pair<AbstractState[], AbstractState[]> pPartition)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(new DeflaterOutputStream(bytes))) {
+      out.writeObject(pPartition.getFirst());
+      out.writeObject(pPartition.getSecond());
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void writeFully(FileChannel pChannel, ByteBuffer pData) throws IOException {
+    while (pData.hasRemaining()) {
+      pChannel.write(pData);
+    }
+  }
+
+  /** Check whether the given file starts with the header of a binary certificate. */
+  public static boolean isBinaryCertificate(Path pFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(pFile, StandardOpenOption.READ)) {
+      ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+      while (magic.hasRemaining()) {
+        if (channel.read(magic) < 0) {
+          return false;
+        }
+      }
+      return magic.getInt(0) == MAGIC;
+    }
+  }
+
+  /**
+   * Map the header with the index and the data of each partition of the given file into memory.
+   * The partitions are not decoded.
+   */
+  public static BinaryCertificate open(Path pFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(pFile, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE) {
+        throw new IOException("Certificate is truncated: " + pFile);
+      }
+      // the mappings remain valid after closing the channel
+      MappedByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE);
+      if (header.getInt(0) != MAGIC) {
+        throw new IOException("Not a binary certificate: " + pFile);
+      }
+      if (header.getInt(Integer.BYTES) != VERSION) {
+        throw new IOException("Unsupported version of binary certificate: " + pFile);
+      }
+      int reachedSetSize = header.getInt(2 * Integer.BYTES);
+      int numPartitions = header.getInt(3 * Integer.BYTES);
+      long indexSize = HEADER_SIZE + (long) numPartitions * INDEX_ENTRY_SIZE;
+      if (numPartitions < 0 || indexSize > size || indexSize > Integer.MAX_VALUE) {
+        throw new IOException("Invalid index in binary certificate: " + pFile);
+      }
+
+      MappedByteBuffer index = channel.map(MapMode.READ_ONLY, 0, indexSize);
+      MappedByteBuffer[] partitions = new MappedByteBuffer[numPartitions];
+      for (int i = 0; i < numPartitions; i++) {
+        int position = HEADER_SIZE + i * INDEX_ENTRY_SIZE;
+        long offset = index.getLong(position);
+        int length = index.getInt(position + Long.BYTES);
+        if (offset < indexSize || length < 0 || offset + length > size) {
+          throw new IOException("Invalid index entry for partition " + i + ": " + pFile);
+        }
+        partitions[i] = channel.map(MapMode.READ_ONLY, offset, length);
+      }
+      return new BinaryCertificate(index, partitions, reachedSetSize);
+    }
+  }
+
+  public int getReachedSetSize() {
+    return reachedSetSize;
+  }
+
+  public int getNumPartitions() {
+    return partitions.length;
+  }
+
+  /** Return the number of states in the partition and adjacent to it, without decoding it. */
+  public int getNumberOfStates(int pIndex) {
+    checkElementIndex(pIndex, partitions.length);
+    int position = HEADER_SIZE + pIndex * INDEX_ENTRY_SIZE + Long.BYTES + Integer.BYTES;
+    return index.getInt(position) + index.getInt(position + Integer.BYTES);
+  }
+
+  /**
+   * Decode a single partition. This method can be called by several threads in parallel.
+   *
+   * @return the states of the partition and the adjacent states outside the partition
+   */
+  public Pair<AbstractState[], AbstractState[]> decodePartition(int pIndex)
+      throws IOException, ClassNotFoundException {
+    checkElementIndex(pIndex, partitions.length);
+    // a duplicate does not modify the position of the shared buffer
+    ByteBuffer data = partitions[pIndex].duplicate();
+    try (ObjectInputStream in =
+        new ObjectInputStream(new InflaterInputStream(new ByteBufferInputStream(data)))) {
+      return Pair.of((AbstractState[]) in.readObject(), (AbstractState[]) in.readObject());
+    }
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer data;
+
+    ByteBufferInputStream(ByteBuffer pData) {
+      data = pData;
+    }
+
+    @Override
+    public int read() {
+      return data.hasRemaining() ? (data.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] pBytes, int pOffset, int pLength) {
+      if (pLength == 0) {
+        return 0;
+      }
+      if (!data.hasRemaining()) {
+        return -1;
+      }
+      int length = Math.min(pLength, data.remaining());
+      data.get(pBytes, pOffset, length);
+      return length;
+    }
+
+    @Override
+    public int available() {
+      return data.remaining();
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.pcc.strategy.partitioning;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.cpachecker.core.interfaces.AbstractState;
+import org.sosy_lab.cpachecker.util.Pair;
+
+public class BinaryCertificateTest {
+
+  private static final int PARTITIONS = 20;
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private static final class TestState implements AbstractState, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int id;
+
+    private TestState(int pId) {
+      id = pId;
+    }
+
+    @Override
+    public boolean equals(Object pObj) {
+      return pObj instanceof TestState && ((TestState) pObj).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return id;
+    }
+
+    @Override
+    public String toString() {
+      return "S" + id;
+    }
+  }
+
+  private static List<Pair<AbstractState[], AbstractState[]>> createPartitions() {
+    List<Pair<AbstractState[], AbstractState[]>> partitions = new ArrayList<>();
+    for (int p = 0; p < PARTITIONS; p++) {
+      AbstractState[] nodes = new AbstractState[p + 1];
+      for (int i = 0; i < nodes.length; i++) {
+        nodes[i] = new TestState(p * 100 + i);
+      }
+      AbstractState[] adjacent = new AbstractState[p % 3];
+      for (int i = 0; i < adjacent.length; i++) {
+        adjacent[i] = new TestState(((p + 1) % PARTITIONS) * 100 + i);
+      }
+      partitions.add(Pair.of(nodes, adjacent));
+    }
+    return partitions;
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException, ClassNotFoundException {
+    Path file = tmp.getRoot().toPath().resolve("proof.bin");
+    List<Pair<AbstractState[], AbstractState[]>> partitions = createPartitions();
+
+    long size = BinaryCertificate.write(file, 1234, partitions);
+    assertThat(Files.size(file)).isEqualTo(size);
+    assertThat(BinaryCertificate.isBinaryCertificate(file)).isTrue();
+
+    BinaryCertificate certificate = BinaryCertificate.open(file);
+    assertThat(certificate.getReachedSetSize()).isEqualTo(1234);
+    assertThat(certificate.getNumPartitions()).isEqualTo(PARTITIONS);
+    // decode in reverse order, each partition is independent of the others
+    for (int p = PARTITIONS - 1; p >= 0; p--) {
+      Pair<AbstractState[], AbstractState[]> expected = partitions.get(p);
+      assertThat(certificate.getNumberOfStates(p))
+          .isEqualTo(expected.getFirst().length + expected.getSecond().length);
+      Pair<AbstractState[], AbstractState[]> decoded = certificate.decodePartition(p);
+      assertThat(decoded.getFirst()).asList().containsExactlyElementsIn(expected.getFirst());
+      assertThat(decoded.getSecond()).asList().containsExactlyElementsIn(expected.getSecond());
+    }
+  }
+
+  @Test
+  public void testParallelDecoding() throws Exception {
+    Path file = tmp.getRoot().toPath().resolve("proof.bin");
+    List<Pair<AbstractState[], AbstractState[]>> partitions = createPartitions();
+    BinaryCertificate.write(file, 0, partitions);
+    BinaryCertificate certificate = BinaryCertificate.open(file);
+
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Pair<AbstractState[], AbstractState[]>>> results = new ArrayList<>();
+      for (int round = 0; round < 5; round++) {
+        for (int p = 0; p < PARTITIONS; p++) {
+          final int index = p;
+          results.add(pool.submit(() -> certificate.decodePartition(index)));
+        }
+      }
+      for (int i = 0; i < results.size(); i++) {
+        Pair<AbstractState[], AbstractState[]> decoded = results.get(i).get(1, TimeUnit.MINUTES);
+        assertThat(decoded.getFirst())
+            .asList()
+            .containsExactlyElementsIn(partitions.get(i % PARTITIONS).getFirst());
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testOtherFormatIsDetected() throws IOException {
+    Path file = tmp.newFile("proof.zip").toPath();
+    Files.write(file, "PK".getBytes(StandardCharsets.US_ASCII));
+    assertThat(BinaryCertificate.isBinaryCertificate(file)).isFalse();
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncatedCertificate() throws IOException {
+    Path file = tmp.getRoot().toPath().resolve("proof.bin");
+    BinaryCertificate.write(file, 0, createPartitions());
+    byte[] content = Files.readAllBytes(file);
+    byte[] truncated = new byte[content.length / 2];
+    System.arraycopy(content, 0, truncated, 0, truncated.length);
+    Files.write(file, truncated);
+    BinaryCertificate.open(file);
+  }
+}
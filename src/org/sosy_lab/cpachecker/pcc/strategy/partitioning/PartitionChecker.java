@@ -77,9 +77,18 @@ public class PartitionChecker {
   }
 
   public void checkPartition(int pIndex){
-    Multimap<CFANode, AbstractState> statesPerLocation = HashMultimap.create();
     Pair<AbstractState[], AbstractState[]> partition = ioHelper.getPartition(pIndex);
     Preconditions.checkNotNull(partition);
+    checkPartition(partition);
+  }
+
+  /**
+   * Check a partition that is not stored in the {@link PartitioningIOHelper}.
+   *
+   * @param partition the states of the partition and the adjacent states of other partitions
+   */
+  public void checkPartition(final Pair<AbstractState[], AbstractState[]> partition) {
+    Multimap<CFANode, AbstractState> statesPerLocation = HashMultimap.create();
 
     // add nodes of partition
     for (AbstractState internalNode : partition.getFirst()) {
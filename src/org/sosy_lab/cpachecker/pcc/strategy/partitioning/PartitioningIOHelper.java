@@ -27,10 +27,12 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.Lock;
 import java.util.logging.Level;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -53,6 +55,8 @@ import org.sosy_lab.cpachecker.pcc.strategy.partialcertificate.PartialReachedSet
 import org.sosy_lab.cpachecker.pcc.strategy.partitioning.GraphPartitionerFactory.PartitioningHeuristics;
 import org.sosy_lab.cpachecker.pcc.util.ProofStatesInfoCollector;
 import org.sosy_lab.cpachecker.util.Pair;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer;
+import org.sosy_lab.cpachecker.util.statistics.ThreadSafeTimerContainer.TimerWrapper;
 
 @Options(prefix = "pcc.partitioning")
 public class PartitioningIOHelper {
@@ -75,6 +79,14 @@ public class PartitioningIOHelper {
   private Statistics currentGraphStatistics;
   private ProofStatesInfoCollector infoCollector;
 
+  /** if a binary certificate is read, its partitions are decoded on demand */
+  private @Nullable BinaryCertificate binaryCertificate = null;
+  private @Nullable AtomicReferenceArray<Pair<AbstractState[], AbstractState[]>> decodedPartitions;
+  private final ThreadSafeTimerContainer decodingTime =
+      new ThreadSafeTimerContainer("Time for decoding partitions of binary certificate");
+  private final ThreadLocal<TimerWrapper> decodingTimer =
+      ThreadLocal.withInitial(decodingTime::getNewTimer);
+
   public PartitioningIOHelper(final Configuration pConfig, final LogManager pLogger,
       final ShutdownNotifier pShutdownNotifier) throws InvalidConfigurationException {
     this(pConfig, pLogger, pShutdownNotifier, false);
@@ -97,13 +109,41 @@ public class PartitioningIOHelper {
     return numPartitions;
   }
 
+  /**
+   * Return the partition with the given index. If a binary certificate was read, the partition is
+   * decoded on the first access, and null is returned if decoding fails.
+   */
   public @Nullable Pair<AbstractState[], AbstractState[]> getPartition(int pIndex) {
+    if (binaryCertificate != null) {
+      return 0 <= pIndex && pIndex < numPartitions ? getDecodedPartition(pIndex) : null;
+    }
     if (0<=pIndex && pIndex<numPartitions && pIndex<partitions.size()) {
       return partitions.get(pIndex);
     }
     return null;
   }
 
+  private @Nullable Pair<AbstractState[], AbstractState[]> getDecodedPartition(int pIndex) {
+    Pair<AbstractState[], AbstractState[]> partition = decodedPartitions.get(pIndex);
+    if (partition == null) {
+      TimerWrapper timer = decodingTimer.get();
+      timer.start();
+      try {
+        partition = binaryCertificate.decodePartition(pIndex);
+      } catch (IOException | ClassNotFoundException e) {
+        logger.logUserException(Level.SEVERE, e, "Decoding partition " + pIndex + " failed");
+        return null;
+      } finally {
+        timer.stop();
+      }
+      // another thread might have decoded the same partition in parallel, use only one result
+      if (!decodedPartitions.compareAndSet(pIndex, null, partition)) {
+        partition = decodedPartitions.get(pIndex);
+      }
+    }
+    return partition;
+  }
+
   public void constructInternalProofRepresentation(final UnmodifiableReachedSet pReached)
       throws InvalidConfigurationException, InterruptedException {
     saveInternalProof(pReached.size(), computePartialReachedSetAndPartition(pReached));
@@ -154,7 +194,8 @@ public class PartitioningIOHelper {
     pStats.increaseProofSize(result.getFirst().length+result.getSecond().length);
   }
 
-  private Pair<AbstractState[], AbstractState[]> readPartitionContent(final ObjectInputStream pIn)
+  /** Read a partition without storing it, e.g., if the partition is checked directly. */
+  public Pair<AbstractState[], AbstractState[]> readPartitionContent(final ObjectInputStream pIn)
       throws ClassNotFoundException, IOException {
     return Pair.of((AbstractState[]) pIn.readObject(), (AbstractState[]) pIn.readObject());
   }
@@ -232,6 +273,37 @@ public class PartitioningIOHelper {
     }
   }
 
+  /**
+   * Write the internal proof representation into a file in the binary certificate format.
+   *
+   * @return the size of the written file in bytes
+   */
+  public long writeBinaryProof(final Path pFile, final int pReachedSetSize) throws IOException {
+    logger.log(Level.FINER, "Write binary certificate with", numPartitions, "partitions");
+    if (infoCollector != null) {
+      for (Pair<AbstractState[], AbstractState[]> partition : partitions) {
+        infoCollector.addInfoForStates(partition.getFirst());
+      }
+    }
+    return BinaryCertificate.write(pFile, pReachedSetSize, partitions);
+  }
+
+  /**
+   * Read the index of a binary certificate. The partitions are decoded later on demand, possibly
+   * by several threads in parallel.
+   */
+  public void readBinaryProof(final Path pFile, final PCStrategyStatistics pStats)
+      throws IOException {
+    binaryCertificate = BinaryCertificate.open(pFile);
+    savedReachedSetSize = binaryCertificate.getReachedSetSize();
+    numPartitions = binaryCertificate.getNumPartitions();
+    partitions = null;
+    decodedPartitions = new AtomicReferenceArray<>(numPartitions);
+    for (int i = 0; i < numPartitions; i++) {
+      pStats.increaseProofSize(binaryCertificate.getNumberOfStates(i));
+    }
+  }
+
   public void setProofInfoCollector(final ProofStatesInfoCollector pInfoCollector) {
     infoCollector = pInfoCollector;
   }
@@ -267,6 +339,10 @@ public class PartitioningIOHelper {
         pOut.format("The following numbers are given in number of states.%n");
         computeAndPrintDetailedPartitioningStats(pOut);
       }
+      if (binaryCertificate != null) {
+        pOut.format("Number of partitions: %d%n", numPartitions);
+        pOut.println(decodingTime.getTitle() + ": " + decodingTime.prettyFormat());
+      }
 
       if(currentGraphStatistics!= null) {
         pOut.println("\nStatistics for partial reached set directed graph used in proof construction");
@@ -0,0 +1,254 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.automaton;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.cfa.CFA;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.ElementType;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMLTag;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeType;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.WitnessType;
+
+/**
+ * Writes a GraphML witness element by element to an {@link Appendable}, without building a DOM in
+ * memory. The output is the same as the one of {@link AutomatonGraphmlCommon.GraphMlBuilder}.
+ *
+ * <p>In contrast to the builder, all data of a node or an edge has to be given when the element is
+ * written, and because the key definitions precede the graph, all keys used by nodes and edges
+ * have to be known when the writer is created.
+ */
+public class GraphMlWriter {
+
+  private static final String INDENT = " ";
+
+  private final Appendable target;
+  private final Set<KeyDef> definedKeys;
+  private boolean finished = false;
+
+  /**
+   * Create a writer and write the header of the witness, i.e., the key definitions and the data of
+   * the graph.
+   *
+   * @param pUsedKeys all keys used by nodes and edges that will be written, including {@link
+   *     KeyDef#NODETYPE} if a node has a type different from the default one
+   */
+  public GraphMlWriter(
+      Appendable pTarget,
+      WitnessType pGraphType,
+      @Nullable String pDefaultSourceFileName,
+      CFA pCfa,
+      VerificationTaskMetaData pVerificationTaskMetaData,
+      Set<KeyDef> pUsedKeys)
+      throws IOException {
+    this(
+        pTarget,
+        pDefaultSourceFileName,
+        AutomatonGraphmlCommon.getGraphData(pGraphType, pCfa, pVerificationTaskMetaData),
+        pUsedKeys);
+  }
+
+  GraphMlWriter(
+      Appendable pTarget,
+      @Nullable String pDefaultSourceFileName,
+      List<Map.Entry<KeyDef, String>> pGraphData,
+      Set<KeyDef> pUsedKeys)
+      throws IOException {
+    target = pTarget;
+
+    // same set and order of keys as defined by GraphMlBuilder
+    definedKeys = EnumSet.copyOf(pUsedKeys);
+    definedKeys.add(KeyDef.ORIGINFILE);
+    for (KeyDef keyDef : KeyDef.values()) {
+      if (keyDef.keyFor == ElementType.GRAPH) {
+        definedKeys.add(keyDef);
+      }
+    }
+    for (Map.Entry<KeyDef, String> data : pGraphData) {
+      definedKeys.add(data.getKey());
+    }
+
+    target.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+    target.append(
+        "<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\""
+            + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\n");
+    for (KeyDef keyDef : definedKeys) {
+      String defaultValue =
+          keyDef == KeyDef.ORIGINFILE && pDefaultSourceFileName != null
+              ? pDefaultSourceFileName
+              : keyDef.defaultValue;
+      target.append(INDENT).append('<').append(GraphMLTag.KEY.toString());
+      appendAttribute("attr.name", keyDef.attrName);
+      appendAttribute("attr.type", keyDef.attrType);
+      appendAttribute("for", keyDef.keyFor.toString());
+      appendAttribute("id", keyDef.id);
+      if (defaultValue == null) {
+        target.append("/>\n");
+      } else {
+        target.append(">\n");
+        appendTextElement(2, GraphMLTag.DEFAULT.toString(), null, defaultValue);
+        target.append(INDENT).append("</").append(GraphMLTag.KEY.toString()).append(">\n");
+      }
+    }
+
+    target.append(INDENT).append('<').append(GraphMLTag.GRAPH.toString());
+    appendAttribute("edgedefault", "directed");
+    target.append(">\n");
+    for (Map.Entry<KeyDef, String> data : pGraphData) {
+      appendData(2, data.getKey(), data.getValue());
+    }
+  }
+
+  public void writeNode(
+      String pNodeId, NodeType pNodeType, Iterable<? extends Map.Entry<KeyDef, String>> pData)
+      throws IOException {
+    checkState(!finished);
+    target.append(INDENT).append(INDENT).append('<').append(GraphMLTag.NODE.toString());
+    appendAttribute("id", pNodeId);
+    boolean hasChildren = false;
+    if (pNodeType != AutomatonGraphmlCommon.defaultNodeType) {
+      target.append(">\n");
+      hasChildren = true;
+      appendData(3, KeyDef.NODETYPE, pNodeType.toString());
+    }
+    appendChildren(GraphMLTag.NODE, hasChildren, pData);
+  }
+
+  public void writeEdge(
+      String pSource, String pTarget, Iterable<? extends Map.Entry<KeyDef, String>> pData)
+      throws IOException {
+    checkState(!finished);
+    target.append(INDENT).append(INDENT).append('<').append(GraphMLTag.EDGE.toString());
+    appendAttribute("source", pSource);
+    appendAttribute("target", pTarget);
+    appendChildren(GraphMLTag.EDGE, false, pData);
+  }
+
+  /** Close the graph and the document. No elements can be written afterwards. */
+  public void finish() throws IOException {
+    checkState(!finished);
+    finished = true;
+    target.append(INDENT).append("</").append(GraphMLTag.GRAPH.toString()).append(">\n");
+    target.append("</graphml>\n");
+  }
+
+  private void appendChildren(
+      GraphMLTag pTag, boolean pHasChildren, Iterable<? extends Map.Entry<KeyDef, String>> pData)
+      throws IOException {
+    for (Map.Entry<KeyDef, String> data : pData) {
+      if (!pHasChildren) {
+        target.append(">\n");
+        pHasChildren = true;
+      }
+      appendData(3, data.getKey(), data.getValue());
+    }
+    if (pHasChildren) {
+      target.append(INDENT).append(INDENT).append("</").append(pTag.toString()).append(">\n");
+    } else {
+      target.append("/>\n");
+    }
+  }
+
+  private void appendData(int pDepth, KeyDef pKey, String pValue) throws IOException {
+    checkState(definedKeys.contains(pKey), "Key %s was not declared", pKey);
+    appendTextElement(pDepth, GraphMLTag.DATA.toString(), pKey.id, pValue);
+  }
+
+  private void appendTextElement(
+      int pDepth, String pTag, @Nullable String pKeyAttribute, String pText) throws IOException {
+    for (int i = 0; i < pDepth; i++) {
+      target.append(INDENT);
+    }
+    target.append('<').append(pTag);
+    if (pKeyAttribute != null) {
+      appendAttribute("key", pKeyAttribute);
+    }
+    if (pText.isEmpty()) {
+      target.append("/>\n");
+    } else {
+      target.append('>');
+      appendEscaped(pText, false);
+      target.append("</").append(pTag).append(">\n");
+    }
+  }
+
+  private void appendAttribute(String pName, String pValue) throws IOException {
+    target.append(' ').append(pName).append("=\"");
+    appendEscaped(pValue, true);
+    target.append('"');
+  }
+
+  /**
+   * Append the given text with the same escaping as the XML serializer of the JDK, i.e., markup
+   * characters, control characters, and supplementary characters are written as references.
+   */
+  private void appendEscaped(String pText, boolean pInAttribute) throws IOException {
+    int start = 0;
+    for (int i = 0; i < pText.length(); i++) {
+      char c = pText.charAt(i);
+      String replacement = null;
+      int length = 1;
+      switch (c) {
+        case '&':
+          replacement = "&amp;";
+          break;
+        case '<':
+          replacement = "&lt;";
+          break;
+        case '>':
+          replacement = "&gt;";
+          break;
+        case '"':
+          replacement = pInAttribute ? "&quot;" : null;
+          break;
+        case '\n':
+        case '\t':
+          replacement = pInAttribute ? "&#" + (int) c + ";" : null;
+          break;
+        default:
+          if (c < 0x20 || (!pInAttribute && c >= 0x7F && c <= 0x9F)) {
+            replacement = "&#" + (int) c + ";";
+          } else if (Character.isHighSurrogate(c)
+              && i + 1 < pText.length()
+              && Character.isLowSurrogate(pText.charAt(i + 1))) {
+            replacement = "&#" + pText.codePointAt(i) + ";";
+            length = 2;
+          }
+      }
+      if (replacement != null) {
+        target.append(pText, start, i).append(replacement);
+        i += length - 1;
+        start = i + 1;
+      }
+    }
+    target.append(pText, start, pText.length());
+  }
+}
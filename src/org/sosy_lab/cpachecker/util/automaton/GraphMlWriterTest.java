@@ -0,0 +1,116 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.automaton;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.GraphMlBuilder;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.KeyDef;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.NodeType;
+import org.sosy_lab.cpachecker.util.automaton.AutomatonGraphmlCommon.WitnessType;
+import org.w3c.dom.Element;
+
+public class GraphMlWriterTest {
+
+  private static final String DIFFICULT_TEXT =
+      "a < b && c > d \"quoted\" 'single' ]]>\n line\r\ttab \u0001 \u007f \u0085 ä €"
+          + " 😀";
+
+  private static final List<Map.Entry<KeyDef, String>> GRAPH_DATA =
+      ImmutableList.of(
+          Maps.immutableEntry(KeyDef.WITNESS_TYPE, WitnessType.VIOLATION_WITNESS.toString()),
+          Maps.immutableEntry(KeyDef.SOURCECODELANGUAGE, "C"),
+          Maps.immutableEntry(KeyDef.SPECIFICATION, DIFFICULT_TEXT),
+          Maps.immutableEntry(KeyDef.PROGRAMFILE, "test.c"),
+          Maps.immutableEntry(KeyDef.CREATIONTIME, "2018-01-01T00:00:00+01:00"));
+
+  private static final List<Map.Entry<KeyDef, String>> ENTRY_DATA =
+      ImmutableList.of(Maps.immutableEntry(KeyDef.ISENTRYNODE, "true"));
+
+  private static final List<Map.Entry<KeyDef, String>> EDGE_DATA =
+      ImmutableList.of(
+          Maps.immutableEntry(KeyDef.STARTLINE, "42"),
+          Maps.immutableEntry(KeyDef.SOURCECODE, DIFFICULT_TEXT),
+          Maps.immutableEntry(KeyDef.ASSUMPTION, ""),
+          Maps.immutableEntry(KeyDef.CONTROLCASE, "condition-true"));
+
+  private static final List<Map.Entry<KeyDef, String>> VIOLATION_DATA =
+      ImmutableList.of(
+          Maps.immutableEntry(KeyDef.ISVIOLATIONNODE, "true"),
+          Maps.immutableEntry(KeyDef.INVARIANT, DIFFICULT_TEXT));
+
+  private static final String ID = "N\"1\" <&> '\n\t' \u0085";
+
+  @Test
+  public void testSameOutputAsBuilder() throws Exception {
+    GraphMlBuilder builder = new GraphMlBuilder("test.c", GRAPH_DATA);
+    Element entry = builder.createNodeElement("A0", NodeType.ONPATH);
+    Element violation = builder.createNodeElement(ID, NodeType.ONPATH);
+    Element edge = builder.createEdgeElement("A0", ID);
+    for (Map.Entry<KeyDef, String> data : EDGE_DATA) {
+      builder.addDataElementChild(edge, data.getKey(), data.getValue());
+    }
+    builder.createEdgeElement(ID, "sink");
+    builder.createNodeElement("sink", NodeType.ANNOTATION);
+    // data added later to nodes that were created before
+    for (Map.Entry<KeyDef, String> data : ENTRY_DATA) {
+      builder.addDataElementChild(entry, data.getKey(), data.getValue());
+    }
+    for (Map.Entry<KeyDef, String> data : VIOLATION_DATA) {
+      builder.addDataElementChild(violation, data.getKey(), data.getValue());
+    }
+    StringBuilder expected = new StringBuilder();
+    builder.appendTo(expected);
+
+    Set<KeyDef> usedKeys = EnumSet.of(KeyDef.NODETYPE);
+    for (List<Map.Entry<KeyDef, String>> data :
+        ImmutableList.of(ENTRY_DATA, EDGE_DATA, VIOLATION_DATA)) {
+      data.forEach(e -> usedKeys.add(e.getKey()));
+    }
+    StringBuilder actual = new StringBuilder();
+    GraphMlWriter writer = new GraphMlWriter(actual, "test.c", GRAPH_DATA, usedKeys);
+    writer.writeNode("A0", NodeType.ONPATH, ENTRY_DATA);
+    writer.writeNode(ID, NodeType.ONPATH, VIOLATION_DATA);
+    writer.writeEdge("A0", ID, EDGE_DATA);
+    writer.writeEdge(ID, "sink", ImmutableList.of());
+    writer.writeNode("sink", NodeType.ANNOTATION, ImmutableList.of());
+    writer.finish();
+
+    assertThat(actual.toString()).isEqualTo(expected.toString());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testUndeclaredKey() throws Exception {
+    GraphMlWriter writer =
+        new GraphMlWriter(new StringBuilder(), "test.c", GRAPH_DATA, EnumSet.noneOf(KeyDef.class));
+    writer.writeEdge("A0", "A1", EDGE_DATA);
+  }
+}
@@ -24,12 +24,13 @@
 package org.sosy_lab.cpachecker.util.globalinfo;
 
 import com.google.common.collect.ImmutableMap;
+import java.util.function.Function;
 import org.sosy_lab.cpachecker.cfa.CFA;
 import org.sosy_lab.cpachecker.cfa.model.CFANode;
 import org.sosy_lab.cpachecker.cpa.location.LocationStateFactory;
 
 public class CFAInfo {
-  private final ImmutableMap<Integer, CFANode> nodeNumberToNode;
+  private final Function<Integer, CFANode> nodeNumberToNode;
   private LocationStateFactory locationStateFactory;
   private final CFA cfa;
 
@@ -38,12 +39,27 @@ public class CFAInfo {
     for (CFANode node : cfa.getAllNodes()) {
       nodeNumberToNode0.put(node.getNodeNumber(), node);
     }
-    this.nodeNumberToNode = nodeNumberToNode0.build();
+    this.nodeNumberToNode = nodeNumberToNode0.build()::get;
     this.cfa = cfa;
   }
 
+  private CFAInfo(CFAInfo pOther, Function<Integer, CFANode> pNodeNumberToNode) {
+    nodeNumberToNode = pNodeNumberToNode;
+    locationStateFactory = pOther.locationStateFactory;
+    cfa = pOther.cfa;
+  }
+
+  /**
+   * Create a copy of this instance that resolves node numbers with the given function instead of
+   * using the node numbers of the CFA. This is useful for deserializing states that were created
+   * for a different CFA, e.g., for a previous version of the program.
+   */
+  public CFAInfo withNodeNumberMapping(Function<Integer, CFANode> pNodeNumberToNode) {
+    return new CFAInfo(this, pNodeNumberToNode);
+  }
+
   public CFANode getNodeByNodeNumber(int nodeNumber) {
-    return nodeNumberToNode.get(nodeNumber);
+    return nodeNumberToNode.apply(nodeNumber);
   }
 
   public void storeLocationStateFactory(LocationStateFactory pElementFactory) {
@@ -65,6 +65,11 @@ public class GlobalInfo {
     cfaInfo = new CFAInfo(cfa);
   }
 
+  /** Replace the stored information about the CFA, e.g., with a different node mapping. */
+  public synchronized void storeCFAInfo(CFAInfo pCfaInfo) {
+    cfaInfo = Preconditions.checkNotNull(pCfaInfo);
+  }
+
   public synchronized Optional<CFAInfo> getCFAInfo() {
     return Optional.ofNullable(cfaInfo);
   }
@@ -120,6 +120,16 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
   )
   private boolean useNondetFlags = false;
 
+  @Option(
+    secure = true,
+    description =
+        "Share equal SSA maps between path formulas. This reduces memory consumption"
+            + " if many paths lead to the same SSA indices."
+  )
+  private boolean internSSAMaps = false;
+
+  private final @Nullable SSAMapInterner ssaMapInterner;
+
   public PathFormulaManagerImpl(FormulaManagerView pFmgr,
       Configuration config, LogManager pLogger, ShutdownNotifier pShutdownNotifier,
       CFA pCfa, AnalysisDirection pDirection)
@@ -197,6 +207,11 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
     }
 
     NONDET_FORMULA_TYPE = converter.getFormulaTypeFromCType(NONDET_TYPE);
+    ssaMapInterner = internSSAMaps ? new SSAMapInterner() : null;
+  }
+
+  private PathFormula intern(PathFormula pf) {
+    return ssaMapInterner == null ? pf : ssaMapInterner.intern(pf);
   }
 
   @Override
@@ -242,7 +257,7 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
     if (simplifyGeneratedPathFormulas) {
       pf = pf.updateFormula(fmgr.simplify(pf.getFormula()));
     }
-    return pf;
+    return intern(pf);
   }
 
   @Override
@@ -256,7 +271,8 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
             new CFANode("dummy"),
             pAssumption,
             true);
-    return converter.makeAnd(pPathFormula, fakeEdge, ErrorConditions.dummyInstance(bfmgr));
+    return intern(
+        converter.makeAnd(pPathFormula, fakeEdge, ErrorConditions.dummyInstance(bfmgr)));
   }
 
   @Override
@@ -285,18 +301,18 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
   @Override
   @Deprecated
   public PathFormula makeNewPathFormula(PathFormula oldFormula, SSAMap m) {
-    return new PathFormula(oldFormula.getFormula(),
+    return intern(new PathFormula(oldFormula.getFormula(),
                            m,
                            oldFormula.getPointerTargetSet(),
-                           oldFormula.getLength());
+                           oldFormula.getLength()));
   }
 
   @Override
   public PathFormula makeNewPathFormula(PathFormula oldFormula, SSAMap m, PointerTargetSet pPts) {
-    return new PathFormula(oldFormula.getFormula(),
+    return intern(new PathFormula(oldFormula.getFormula(),
         m,
         pPts,
-        oldFormula.getLength());
+        oldFormula.getLength()));
   }
 
   @Override
@@ -337,7 +353,7 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
     if (simplifyGeneratedPathFormulas) {
       out = out.updateFormula(fmgr.simplify(out.getFormula()));
     }
-    return out;
+    return intern(out);
   }
 
   @Override
@@ -566,6 +582,9 @@ public class PathFormulaManagerImpl implements PathFormulaManager {
   @Override
   public void printStatistics(PrintStream out) {
     converter.printStatistics(out);
+    if (ssaMapInterner != null) {
+      ssaMapInterner.printStatistics(out);
+    }
   }
 
   @Override
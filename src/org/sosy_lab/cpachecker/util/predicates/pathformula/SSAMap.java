@@ -28,6 +28,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import com.google.common.base.Equivalence;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import java.io.Serializable;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Map;
@@ -42,6 +44,7 @@ import org.sosy_lab.cpachecker.cfa.types.c.CComplexType.ComplexTypeKind;
 import org.sosy_lab.cpachecker.cfa.types.c.CElaboratedType;
 import org.sosy_lab.cpachecker.cfa.types.c.CFunctionType;
 import org.sosy_lab.cpachecker.cfa.types.c.CPointerType;
+import org.sosy_lab.cpachecker.cfa.types.c.CSimpleType;
 import org.sosy_lab.cpachecker.cfa.types.c.CType;
 import org.sosy_lab.cpachecker.cfa.types.c.CTypes;
 
@@ -58,6 +61,32 @@ public class SSAMap implements Serializable {
 
   private final int defaultValue;
 
+  /**
+   * Symbol table for variable names and types shared by all SSA maps. Names are often created
+   * freshly by string concatenation for every edge, so without interning each new map entry would
+   * retain its own copy of the name.
+   */
+  private static final Interner<String> NAME_INTERNER = Interners.newWeakInterner();
+
+  // canonical types are created anew, too, but only simple types are cheap to compare
+  private static final Interner<CSimpleType> SIMPLE_TYPE_INTERNER = Interners.newWeakInterner();
+
+  /**
+   * Whether {@link SSAMapBuilder#setIndex(String, CType, int)} passes names and types through the
+   * interners above. This is only enabled if SSA maps are interned (cf. {@link SSAMapInterner}),
+   * such that the default configuration does not pay for the additional lookups.
+   */
+  private static volatile boolean internVariables = false;
+
+  /**
+   * Let all SSA maps that are built from now on share variable names and simple types. This
+   * cannot be disabled again, because it does not change any result and other analyses in the
+   * same JVM might rely on it.
+   */
+  static void enableVariableInterning() {
+    internVariables = true;
+  }
+
   private static MergeConflictHandler<String, CType> TYPE_CONFLICT_CHECKER =
       new MergeConflictHandler<String, CType>() {
         @Override
@@ -137,13 +166,21 @@ public class SSAMap implements Serializable {
       type = type.getCanonicalType();
       assert !(type instanceof CFunctionType) : "Variable " + name + " has function type " + type;
       CType oldType = varTypes.get(name);
+      boolean updateIndex = idx > oldIdx || idx == ssa.defaultValue;
+      boolean intern = internVariables;
+      if (intern && (oldType == null || updateIndex)) {
+        name = NAME_INTERNER.intern(name);
+      }
       if (oldType != null) {
         TYPE_CONFLICT_CHECKER.resolveConflict(name, oldType, type);
       } else {
+        if (intern && type instanceof CSimpleType) {
+          type = SIMPLE_TYPE_INTERNER.intern((CSimpleType) type);
+        }
         varTypes = varTypes.putAndCopy(name, type);
       }
 
-      if (idx > oldIdx || idx == ssa.defaultValue) {
+      if (updateIndex) {
         vars = vars.putAndCopy(name, idx);
         if (oldIdx != ssa.defaultValue) {
           varsHashCode -= mapEntryHashCode(name, oldIdx);
@@ -208,6 +245,23 @@ public class SSAMap implements Serializable {
     return EMPTY_SSA_MAP;
   }
 
+  /**
+   * Check whether this map uses the standard default index that {@link #emptySSAMap()} has, i.e.,
+   * whether it was not created by {@link #withDefault(int)} with another value.
+   */
+  boolean hasStandardDefault() {
+    return defaultValue == DEFAULT_DEFAULT_IDX;
+  }
+
+  /**
+   * Check whether this map has the same variable types and default index as the given one. Both
+   * are not considered by {@link #equals(Object)}, but need to match before one map can replace
+   * the other.
+   */
+  boolean hasSameTypesAndDefault(SSAMap pOther) {
+    return defaultValue == pOther.defaultValue && varTypes.equals(pOther.varTypes);
+  }
+
   public SSAMap withDefault(final int pDefaultValue) {
     return new SSAMap(this.vars, this.freshValueProvider, this.varsHashCode, this.varTypes, pDefaultValue);
   }
@@ -0,0 +1,125 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * Canonicalizes {@link SSAMap} instances such that equal SSA maps in path formulas are represented
+ * by the same object. SSA maps that are created along different paths (e.g., in both branches of an
+ * if statement) are frequently equal, but do not share any internal structure. Interning them
+ * reduces the amount of memory that is retained by the abstract states of the predicate analysis.
+ *
+ * <p>Because {@link SSAMap#equals(Object)} ignores the variable types and the default index, a
+ * map is only replaced by an equal instance if these match, too. Maps with a non-standard default
+ * index (e.g., from {@link SSAMap#withDefault(int)}) are never interned.
+ *
+ * <p>Interned SSA maps are referenced weakly, so they are garbage collected as soon as no path
+ * formula uses them anymore. This class is thread-safe.
+ */
+public final class SSAMapInterner {
+
+  private final Interner<SSAMap> interner = Interners.newWeakInterner();
+
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger shared = new AtomicInteger();
+
+  public SSAMapInterner() {
+    SSAMap.enableVariableInterning();
+  }
+
+  /** Return the canonical instance of the given SSA map. */
+  public SSAMap intern(SSAMap pSsa) {
+    if (pSsa.allVariables().isEmpty() || !pSsa.hasStandardDefault()) {
+      return pSsa;
+    }
+    requests.incrementAndGet();
+    SSAMap result = interner.intern(pSsa);
+    if (result == pSsa || !result.hasSameTypesAndDefault(pSsa)) {
+      // equal indices, but different types: keep the given map
+      return pSsa;
+    }
+    shared.incrementAndGet();
+    return result;
+  }
+
+  /**
+   * Return a path formula that is equal to the given one, but references the canonical instance of
+   * its SSA map.
+   */
+  public PathFormula intern(PathFormula pPathFormula) {
+    SSAMap ssa = pPathFormula.getSsa();
+    SSAMap canonicalSsa = intern(ssa);
+    if (canonicalSsa == ssa) {
+      return pPathFormula;
+    }
+    return new PathFormula(
+        pPathFormula.getFormula(),
+        canonicalSsa,
+        pPathFormula.getPointerTargetSet(),
+        pPathFormula.getLength());
+  }
+
+  public void printStatistics(PrintStream pOut) {
+    int requestCount = requests.get();
+    StatisticsWriter.writingStatisticsTo(pOut)
+        .put("Number of SSA maps interned", requestCount)
+        .put(
+            "Number of SSA maps replaced by equal instance",
+            String.format(
+                "%d (%.0f%%)",
+                shared.get(), requestCount == 0 ? 0.0 : 100.0 * shared.get() / requestCount));
+  }
+
+  /**
+   * Print how many of the given SSA maps are distinct objects and how many are distinct values.
+   * The difference between both numbers is the amount of SSA maps that could still be shared.
+   */
+  public static void printMemoryStatistics(Iterable<SSAMap> pSsaMaps, StatisticsWriter pWriter) {
+    Set<SSAMap> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+    Set<SSAMap> values = new HashSet<>();
+    int references = 0;
+    long entries = 0;
+    for (SSAMap ssa : pSsaMaps) {
+      references++;
+      if (instances.add(ssa)) {
+        entries += ssa.allVariables().size();
+        values.add(ssa);
+      }
+    }
+    pWriter
+        .put("Number of SSA maps referenced by reached set", references)
+        .put("  Distinct SSA map instances", instances.size())
+        .put("  Distinct SSA map values", values.size())
+        .put("  Entries in distinct SSA map instances", entries);
+  }
+}
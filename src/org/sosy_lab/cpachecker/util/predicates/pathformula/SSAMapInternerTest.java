@@ -0,0 +1,122 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.pathformula;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import org.junit.Test;
+import org.sosy_lab.cpachecker.cfa.types.c.CNumericTypes;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+public class SSAMapInternerTest {
+
+  private static SSAMap createMap(int pIndexOfB) {
+    return SSAMap.emptySSAMap()
+        .builder()
+        .setIndex("a", CNumericTypes.INT, 2)
+        .setIndex("b", CNumericTypes.INT, pIndexOfB)
+        .build();
+  }
+
+  @Test
+  public void testEqualMapsAreShared() {
+    SSAMapInterner interner = new SSAMapInterner();
+    SSAMap ssa1 = createMap(3);
+    SSAMap ssa2 = createMap(3);
+    SSAMap ssa3 = createMap(4);
+    assertThat(ssa1).isNotSameAs(ssa2);
+
+    SSAMap interned1 = interner.intern(ssa1);
+    assertThat(interned1).isSameAs(ssa1);
+    assertThat(interner.intern(ssa2)).isSameAs(ssa1);
+    assertThat(interner.intern(ssa3)).isSameAs(ssa3);
+  }
+
+  @Test
+  public void testMapsWithOtherDefaultAreNotShared() {
+    SSAMapInterner interner = new SSAMapInterner();
+    SSAMap ssa1 = createMap(3);
+    SSAMap ssa2 = createMap(3).withDefault(1);
+    assertThat(ssa2).isEqualTo(ssa1);
+
+    assertThat(interner.intern(ssa1)).isSameAs(ssa1);
+    SSAMap interned2 = interner.intern(ssa2);
+    assertThat(interned2).isSameAs(ssa2);
+    assertThat(interned2.getIndex("c")).isEqualTo(1);
+  }
+
+  @Test
+  public void testMapsWithOtherTypesAreNotShared() {
+    SSAMapInterner interner = new SSAMapInterner();
+    SSAMap ssa1 = createMap(3);
+    SSAMap ssa2 =
+        SSAMap.emptySSAMap()
+            .builder()
+            .setIndex("a", CNumericTypes.LONG_INT, 2)
+            .setIndex("b", CNumericTypes.INT, 3)
+            .build();
+    assertThat(ssa2).isEqualTo(ssa1);
+
+    assertThat(interner.intern(ssa1)).isSameAs(ssa1);
+    SSAMap interned2 = interner.intern(ssa2);
+    assertThat(interned2).isSameAs(ssa2);
+    assertThat(interned2.getType("a")).isEqualTo(CNumericTypes.LONG_INT.getCanonicalType());
+  }
+
+  @Test
+  @SuppressWarnings("RedundantStringConstructorCall")
+  public void testVariableNamesAreShared() {
+    new SSAMapInterner(); // enables sharing of names
+    String name1 = new String("main::x");
+    String name2 = new String("main::x");
+    SSAMap ssa1 = SSAMap.emptySSAMap().builder().setIndex(name1, CNumericTypes.INT, 2).build();
+    SSAMap ssa2 =
+        SSAMap.emptySSAMap()
+            .builder()
+            .setIndex("main::y", CNumericTypes.INT, 2)
+            .setIndex(name2, CNumericTypes.INT, 3)
+            .build();
+
+    assertThat(ssa2.allVariables().first()).isSameAs(ssa1.allVariables().first());
+    assertThat(ssa1.getIndex("main::x")).isEqualTo(2);
+    assertThat(ssa2.getIndex("main::x")).isEqualTo(3);
+  }
+
+  @Test
+  public void testMemoryStatistics() {
+    SSAMap ssa1 = createMap(3);
+    SSAMap ssa2 = createMap(3);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    SSAMapInterner.printMemoryStatistics(
+        ImmutableList.of(ssa1, ssa2, ssa1),
+        StatisticsWriter.writingStatisticsTo(new PrintStream(bytes, true)));
+    String output = bytes.toString();
+    assertThat(output).containsMatch("referenced by reached set: +3");
+    assertThat(output).containsMatch("Distinct SSA map instances: +2");
+    assertThat(output).containsMatch("Distinct SSA map values: +1");
+  }
+}
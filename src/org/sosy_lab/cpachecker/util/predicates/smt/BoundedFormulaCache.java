@@ -0,0 +1,192 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * A map-like cache (e.g., for results of solver queries) that evicts the least-recently used
+ * entries if it grows too large. The size of the cache can be limited both by the number of
+ * entries and by the total weight of the keys, which is usually the DAG size of the formulas in
+ * the key. A limit of 0 means that the respective size is not bounded. Keys are only weighed if
+ * the weight is bounded, because weighing formulas can be expensive.
+ *
+ * <p>This class is not thread-safe. Note that even {@link #get(Object)} modifies the cache,
+ * because it updates the order in which entries are evicted.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values, null values are not supported
+ */
+public final class BoundedFormulaCache<K, V> {
+
+  private final long maxEntries;
+  private final long maxWeight;
+  private final ToLongFunction<? super K> weigher;
+
+  /** The entries with their values and weights, in access order. */
+  private final LinkedHashMap<K, WeightedValue<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long weight = 0;
+
+  private final StatCounter hits = new StatCounter("Cache hits");
+  private final StatCounter misses = new StatCounter("Cache misses");
+  private final StatCounter evictions = new StatCounter("Cache evictions");
+  private long maxHeldEntries = 0;
+  private long maxHeldWeight = 0;
+
+  private static final class WeightedValue<V> {
+    private final V value;
+    private final long weight;
+
+    private WeightedValue(V pValue, long pWeight) {
+      value = pValue;
+      weight = pWeight;
+    }
+  }
+
+  /**
+   * Create a new cache.
+   *
+   * @param pMaxEntries the maximal number of entries, or 0 for an unbounded number
+   * @param pMaxWeight the maximal sum of the weights of all keys, or 0 for an unbounded weight
+   * @param pWeigher computes the weight of a key, it is called once when an entry is added and
+   *     only if pMaxWeight is not 0
+   */
+  public BoundedFormulaCache(
+      long pMaxEntries, long pMaxWeight, ToLongFunction<? super K> pWeigher) {
+    checkArgument(pMaxEntries >= 0, "maximal number of entries must not be negative");
+    checkArgument(pMaxWeight >= 0, "maximal weight must not be negative");
+    maxEntries = pMaxEntries;
+    maxWeight = pMaxWeight;
+    weigher = checkNotNull(pWeigher);
+  }
+
+  /** Create a cache without any bound on its size. */
+  public static <K, V> BoundedFormulaCache<K, V> unbounded() {
+    return new BoundedFormulaCache<>(0, 0, k -> 1);
+  }
+
+  /**
+   * Return the cached value for a key, or null if there is none. This counts as a cache lookup and
+   * marks the entry as most-recently used, i.e., it modifies the cache.
+   */
+  public @Nullable V get(K pKey) {
+    WeightedValue<V> entry = entries.get(pKey);
+    if (entry == null) {
+      misses.inc();
+      return null;
+    }
+    hits.inc();
+    return entry.value;
+  }
+
+  /**
+   * Check whether there is a cached value for a key. In contrast to {@link #get(Object)}, this
+   * neither counts as a cache lookup nor changes the order of eviction.
+   */
+  public boolean containsKey(K pKey) {
+    return entries.containsKey(pKey);
+  }
+
+  /**
+   * Store a value for a key, replacing any previous value. If the cache is too large afterwards,
+   * the least-recently used entries are removed.
+   */
+  public void put(K pKey, V pValue) {
+    checkNotNull(pKey);
+    checkNotNull(pValue);
+    long keyWeight = maxWeight > 0 ? weigher.applyAsLong(pKey) : 0;
+    checkArgument(keyWeight >= 0, "weight must not be negative");
+
+    WeightedValue<V> previous = entries.put(pKey, new WeightedValue<>(pValue, keyWeight));
+    if (previous != null) {
+      weight -= previous.weight;
+    }
+    weight += keyWeight;
+    evictIfNecessary();
+
+    maxHeldEntries = Math.max(maxHeldEntries, entries.size());
+    maxHeldWeight = Math.max(maxHeldWeight, weight);
+  }
+
+  private void evictIfNecessary() {
+    Iterator<Map.Entry<K, WeightedValue<V>>> it = entries.entrySet().iterator();
+    // never evict the most-recently added entry, even if it is too large on its own
+    while (entries.size() > 1
+        && ((maxEntries > 0 && entries.size() > maxEntries)
+            || (maxWeight > 0 && weight > maxWeight))) {
+      WeightedValue<V> eldest = it.next().getValue();
+      it.remove();
+      weight -= eldest.weight;
+      evictions.inc();
+    }
+  }
+
+  public void clear() {
+    entries.clear();
+    weight = 0;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Return the sum of the weights of all keys that are currently stored, or 0 if the weight is not
+   * bounded.
+   */
+  public long getWeight() {
+    return weight;
+  }
+
+  public long getHits() {
+    return hits.getValue();
+  }
+
+  public long getMisses() {
+    return misses.getValue();
+  }
+
+  public long getEvictions() {
+    return evictions.getValue();
+  }
+
+  public void printStatistics(StatisticsWriter pWriter) {
+    pWriter
+        .put(hits)
+        .put(misses)
+        .put(evictions)
+        .put("Cache entries (current/max)", entries.size() + "/" + maxHeldEntries)
+        .putIf(maxWeight > 0, "Cached formula size (current/max)", weight + "/" + maxHeldWeight);
+  }
+}
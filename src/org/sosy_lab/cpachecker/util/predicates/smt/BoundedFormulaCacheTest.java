@@ -0,0 +1,117 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+
+public class BoundedFormulaCacheTest {
+
+  @Test
+  public void testUnbounded() {
+    BoundedFormulaCache<String, Integer> cache = BoundedFormulaCache.unbounded();
+    for (int i = 0; i < 1000; i++) {
+      cache.put("f" + i, i);
+    }
+    assertThat(cache.size()).isEqualTo(1000);
+    assertThat(cache.get("f0")).isEqualTo(0);
+    assertThat(cache.get("g")).isNull();
+    assertThat(cache.getHits()).isEqualTo(1);
+    assertThat(cache.getMisses()).isEqualTo(1);
+    assertThat(cache.getEvictions()).isEqualTo(0);
+  }
+
+  @Test
+  public void testEvictionByEntries() {
+    BoundedFormulaCache<String, Integer> cache = new BoundedFormulaCache<>(2, 0, String::length);
+    cache.put("a", 1);
+    cache.put("b", 2);
+    assertThat(cache.get("a")).isEqualTo(1); // now "b" is least-recently used
+    cache.put("c", 3);
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.containsKey("a")).isTrue();
+    assertThat(cache.containsKey("b")).isFalse();
+    assertThat(cache.containsKey("c")).isTrue();
+    assertThat(cache.getEvictions()).isEqualTo(1);
+  }
+
+  @Test
+  public void testContainsKeyIsNoLookup() {
+    BoundedFormulaCache<String, Integer> cache =
+        new BoundedFormulaCache<>(
+            2,
+            0,
+            k -> {
+              throw new AssertionError("weight is not bounded");
+            });
+    cache.put("a", 1);
+    cache.put("b", 2);
+    assertThat(cache.containsKey("a")).isTrue();
+    assertThat(cache.containsKey("c")).isFalse();
+    assertThat(cache.getHits()).isEqualTo(0);
+    assertThat(cache.getMisses()).isEqualTo(0);
+
+    // containsKey() does not change the order of eviction, so "a" is still least-recently used
+    cache.put("c", 3);
+    assertThat(cache.containsKey("a")).isFalse();
+    assertThat(cache.getWeight()).isEqualTo(0);
+  }
+
+  @Test
+  public void testEvictionByWeight() {
+    BoundedFormulaCache<String, Integer> cache = new BoundedFormulaCache<>(0, 10, String::length);
+    cache.put("aaaa", 1);
+    cache.put("bbbb", 2);
+    assertThat(cache.getWeight()).isEqualTo(8);
+    cache.put("cccc", 3);
+
+    assertThat(cache.getWeight()).isEqualTo(8);
+    assertThat(cache.containsKey("aaaa")).isFalse();
+
+    // replacing an entry must not count its weight twice
+    cache.put("cccc", 4);
+    assertThat(cache.getWeight()).isEqualTo(8);
+    assertThat(cache.get("cccc")).isEqualTo(4);
+
+    // an entry that is too large on its own is kept until the next insertion
+    cache.put("dddddddddddd", 5);
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.getWeight()).isEqualTo(12);
+    cache.put("e", 6);
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.getWeight()).isEqualTo(1);
+  }
+
+  @Test
+  public void testClear() {
+    BoundedFormulaCache<String, Integer> cache = new BoundedFormulaCache<>(5, 0, String::length);
+    cache.put("a", 1);
+    cache.clear();
+    assertThat(cache.size()).isEqualTo(0);
+    assertThat(cache.getWeight()).isEqualTo(0);
+    assertThat(cache.get("a")).isNull();
+  }
+}
@@ -50,6 +50,7 @@ import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.logging.Level;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -1689,6 +1690,22 @@ public class FormulaManagerView {
     return manager.visit(unwrap(f), rFormulaVisitor);
   }
 
+  /**
+   * Return the number of distinct nodes in the DAG representation of a formula,
+   * which can be used as an estimate for the memory held by the formula.
+   */
+  public int getDagSize(Formula f) {
+    final AtomicInteger size = new AtomicInteger(0);
+    visitRecursively(f, new DefaultFormulaVisitor<TraversalProcess>() {
+      @Override
+      protected TraversalProcess visitDefault(Formula pF) {
+        size.incrementAndGet();
+        return TraversalProcess.CONTINUE;
+      }
+    });
+    return size.get();
+  }
+
   /**
    * Visit the formula recursively with a given {@link FormulaVisitor}.
    *
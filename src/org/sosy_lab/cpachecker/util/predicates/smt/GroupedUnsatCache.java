@@ -0,0 +1,316 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.SetMultimap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.cpachecker.util.statistics.StatCounter;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
+
+/**
+ * Cache for the results of satisfiability checks of sets of constraints, grouped by an arbitrary
+ * key (e.g., a CFA node).
+ *
+ * <p>For each group, it stores sets of constraints together with whether they are unsatisfiable.
+ * If a set of constraints is satisfiable, any subset of it is also satisfiable. If a set of
+ * constraints is unsatisfiable, any superset of it is also unsatisfiable. Lookups use this
+ * subsumption, but instead of comparing the query with all stored sets of the group, the stored
+ * sets are indexed by their constraints:
+ *
+ * <ul>
+ *   <li>Unsatisfiable sets are indexed by one of their constraints, so only those sets need to be
+ *       checked that are indexed by a constraint of the query.
+ *   <li>Satisfiable sets are indexed by all their constraints, so only those sets need to be
+ *       checked that are indexed by the least frequent constraint of the query.
+ * </ul>
+ *
+ * <p>The cache evicts the least-recently used sets if there are too many of them or if the sum of
+ * their weights (usually the DAG sizes of the constraints) gets too large. A limit of 0 means that
+ * the respective size is not bounded. Constraints are only weighed if the weight is bounded,
+ * because weighing formulas can be expensive.
+ *
+ * <p>This class is not thread-safe.
+ *
+ * @param <T> the type of constraints
+ */
+public final class GroupedUnsatCache<T> {
+
+  private final long maxEntries;
+  private final long maxWeight;
+  private final ToLongFunction<? super T> weigher;
+
+  private final Map<Object, Group<T>> groups = new HashMap<>();
+
+  /** All entries of all groups, least-recently used first. */
+  private final LinkedHashSet<Entry<T>> lruEntries = new LinkedHashSet<>();
+
+  private long weight = 0;
+
+  private final StatCounter hits = new StatCounter("Cache hits");
+  private final StatCounter misses = new StatCounter("Cache misses");
+  private final StatCounter evictions = new StatCounter("Cache evictions");
+  private final StatCounter comparedEntries = new StatCounter("Compared cache entries");
+  private long maxHeldEntries = 0;
+  private long maxHeldWeight = 0;
+
+  private static final class Entry<T> {
+    private final Object groupKey;
+    private final ImmutableSet<T> constraints;
+    private final boolean unsat;
+    private final long weight;
+
+    private Entry(Object pGroupKey, ImmutableSet<T> pConstraints, boolean pUnsat, long pWeight) {
+      groupKey = pGroupKey;
+      constraints = pConstraints;
+      unsat = pUnsat;
+      weight = pWeight;
+    }
+
+    // identity-based equals() and hashCode() are intended
+  }
+
+  private static final class Group<T> {
+
+    /** unsatisfiable sets, indexed by their first constraint */
+    private final SetMultimap<T, Entry<T>> unsatIndex = HashMultimap.create();
+
+    /** satisfiable sets, indexed by each of their constraints */
+    private final SetMultimap<T, Entry<T>> satIndex = HashMultimap.create();
+
+    /** unsatisfiable empty set of constraints (occurs only for trivially false constraints) */
+    private @Nullable Entry<T> emptyUnsatEntry = null;
+
+    /** all satisfiable sets, needed for queries with an empty set of constraints */
+    private final Set<Entry<T>> satEntries = new LinkedHashSet<>();
+
+    private boolean isEmpty() {
+      return unsatIndex.isEmpty() && satEntries.isEmpty() && emptyUnsatEntry == null;
+    }
+  }
+
+  /**
+   * Create a new cache.
+   *
+   * @param pMaxEntries the maximal number of stored sets, or 0 for an unbounded number
+   * @param pMaxWeight the maximal sum of the weights of all stored constraints, or 0 for an
+   *     unbounded weight
+   * @param pWeigher computes the weight of a single constraint, it is only called if pMaxWeight is
+   *     not 0
+   */
+  public GroupedUnsatCache(
+      long pMaxEntries, long pMaxWeight, ToLongFunction<? super T> pWeigher) {
+    checkArgument(pMaxEntries >= 0, "maximal number of entries must not be negative");
+    checkArgument(pMaxWeight >= 0, "maximal weight must not be negative");
+    maxEntries = pMaxEntries;
+    maxWeight = pMaxWeight;
+    weigher = checkNotNull(pWeigher);
+  }
+
+  /**
+   * Look up whether a set of constraints is known to be unsatisfiable.
+   *
+   * @return true if the constraints are known to be unsatisfiable, false if they are known to be
+   *     satisfiable, and null if nothing is known
+   */
+  public @Nullable Boolean isUnsat(Object pGroupKey, Set<T> pConstraints) {
+    checkNotNull(pConstraints);
+    Group<T> group = groups.get(checkNotNull(pGroupKey));
+    if (group != null) {
+      Entry<T> match = findUnsatSubset(group, pConstraints);
+      if (match == null) {
+        match = findSatSuperset(group, pConstraints);
+      }
+      if (match != null) {
+        hits.inc();
+        // update position in LRU order
+        lruEntries.remove(match);
+        lruEntries.add(match);
+        return match.unsat;
+      }
+    }
+    misses.inc();
+    return null;
+  }
+
+  private @Nullable Entry<T> findUnsatSubset(Group<T> pGroup, Set<T> pConstraints) {
+    if (pGroup.emptyUnsatEntry != null) {
+      return pGroup.emptyUnsatEntry;
+    }
+    for (T constraint : pConstraints) {
+      for (Entry<T> entry : pGroup.unsatIndex.get(constraint)) {
+        comparedEntries.inc();
+        if (pConstraints.containsAll(entry.constraints)) {
+          return entry;
+        }
+      }
+    }
+    return null;
+  }
+
+  private @Nullable Entry<T> findSatSuperset(Group<T> pGroup, Set<T> pConstraints) {
+    if (pConstraints.isEmpty()) {
+      return Iterables.getFirst(pGroup.satEntries, null);
+    }
+
+    // every superset is indexed by every constraint of the query, so pick the rarest one
+    Set<Entry<T>> candidates = null;
+    for (T constraint : pConstraints) {
+      Set<Entry<T>> current = pGroup.satIndex.get(constraint);
+      if (candidates == null || current.size() < candidates.size()) {
+        candidates = current;
+        if (candidates.isEmpty()) {
+          return null;
+        }
+      }
+    }
+
+    for (Entry<T> entry : candidates) {
+      comparedEntries.inc();
+      if (entry.constraints.containsAll(pConstraints)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  /** Store the result of a satisfiability check for a set of constraints. */
+  public void put(Object pGroupKey, Set<T> pConstraints, boolean pUnsat) {
+    checkNotNull(pGroupKey);
+    ImmutableSet<T> constraints = ImmutableSet.copyOf(pConstraints);
+    long entryWeight = 0;
+    if (maxWeight > 0) {
+      for (T constraint : constraints) {
+        entryWeight += weigher.applyAsLong(constraint);
+      }
+    }
+    Entry<T> entry = new Entry<>(pGroupKey, constraints, pUnsat, entryWeight);
+
+    Group<T> group = groups.computeIfAbsent(pGroupKey, k -> new Group<>());
+    if (!pUnsat) {
+      group.satEntries.add(entry);
+      for (T constraint : constraints) {
+        group.satIndex.put(constraint, entry);
+      }
+    } else if (constraints.isEmpty()) {
+      if (group.emptyUnsatEntry != null) {
+        removeFromLru(group.emptyUnsatEntry);
+      }
+      group.emptyUnsatEntry = entry;
+    } else {
+      group.unsatIndex.put(constraints.iterator().next(), entry);
+    }
+    lruEntries.add(entry);
+    weight += entryWeight;
+
+    evictIfNecessary();
+    maxHeldEntries = Math.max(maxHeldEntries, lruEntries.size());
+    maxHeldWeight = Math.max(maxHeldWeight, weight);
+  }
+
+  private void evictIfNecessary() {
+    Iterator<Entry<T>> it = lruEntries.iterator();
+    // never evict the most-recently added entry, even if it is too large on its own
+    while (lruEntries.size() > 1
+        && ((maxEntries > 0 && lruEntries.size() > maxEntries)
+            || (maxWeight > 0 && weight > maxWeight))) {
+      Entry<T> eldest = it.next();
+      it.remove();
+      weight -= eldest.weight;
+      removeFromGroup(eldest);
+      evictions.inc();
+    }
+  }
+
+  private void removeFromLru(Entry<T> pEntry) {
+    lruEntries.remove(pEntry);
+    weight -= pEntry.weight;
+  }
+
+  private void removeFromGroup(Entry<T> pEntry) {
+    Group<T> group = groups.get(pEntry.groupKey);
+    if (!pEntry.unsat) {
+      group.satEntries.remove(pEntry);
+      for (T constraint : pEntry.constraints) {
+        group.satIndex.remove(constraint, pEntry);
+      }
+    } else if (pEntry.constraints.isEmpty()) {
+      group.emptyUnsatEntry = null;
+    } else {
+      group.unsatIndex.remove(pEntry.constraints.iterator().next(), pEntry);
+    }
+    if (group.isEmpty()) {
+      groups.remove(pEntry.groupKey);
+    }
+  }
+
+  public void clear() {
+    groups.clear();
+    lruEntries.clear();
+    weight = 0;
+  }
+
+  /** Return the number of stored sets of constraints. */
+  public int size() {
+    return lruEntries.size();
+  }
+
+  /** Return the sum of the weights of all stored constraints, or 0 if the weight is not bounded. */
+  public long getWeight() {
+    return weight;
+  }
+
+  public long getHits() {
+    return hits.getValue();
+  }
+
+  public long getMisses() {
+    return misses.getValue();
+  }
+
+  public long getEvictions() {
+    return evictions.getValue();
+  }
+
+  public void printStatistics(StatisticsWriter pWriter) {
+    pWriter
+        .put(hits)
+        .put(misses)
+        .put(comparedEntries)
+        .put(evictions)
+        .put("Cache entries (current/max)", lruEntries.size() + "/" + maxHeldEntries)
+        .putIf(maxWeight > 0, "Cached formula size (current/max)", weight + "/" + maxHeldWeight);
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ *  CPAchecker is a tool for configurable software verification.
+ *  This file is part of CPAchecker.
+ *
+ *  Copyright (C) 2007-2018  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ *
+ *  CPAchecker web page:
+ *    http://cpachecker.sosy-lab.org
+ */
+package org.sosy_lab.cpachecker.util.predicates.smt;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class GroupedUnsatCacheTest {
+
+  private static final String GROUP = "N1";
+
+  private static GroupedUnsatCache<String> createUnboundedCache() {
+    return new GroupedUnsatCache<>(0, 0, c -> 1);
+  }
+
+  @Test
+  public void testSubsumption() {
+    GroupedUnsatCache<String> cache = createUnboundedCache();
+    cache.put(GROUP, ImmutableSet.of("a", "b"), true);
+    cache.put(GROUP, ImmutableSet.of("c", "d", "e"), false);
+
+    // supersets of unsatisfiable sets are unsatisfiable
+    assertThat(cache.isUnsat(GROUP, ImmutableSet.of("a", "b"))).isTrue();
+    assertThat(cache.isUnsat(GROUP, ImmutableSet.of("x", "b", "a"))).isTrue();
+    // subsets of satisfiable sets are satisfiable
+    assertThat(cache.isUnsat(GROUP, ImmutableSet.of("d", "c"))).isFalse();
+    assertThat(cache.isUnsat(GROUP, ImmutableSet.of())).isFalse();
+    // unknown
+    assertThat(cache.isUnsat(GROUP, ImmutableSet.of("a", "c"))).isNull();
+    assertThat(cache.isUnsat(GROUP, ImmutableSet.of("c", "d", "e", "f"))).isNull();
+    // other group
+    assertThat(cache.isUnsat("N2", ImmutableSet.of("a", "b"))).isNull();
+
+    assertThat(cache.getHits()).isEqualTo(4);
+    assertThat(cache.getMisses()).isEqualTo(3);
+  }
+
+  @Test
+  public void testEmptyUnsatSet() {
+    GroupedUnsatCache<String> cache = createUnboundedCache();
+    assertThat(cache.isUnsat(GROUP, ImmutableSet.of())).isNull();
+    cache.put(GROUP, ImmutableSet.of(), true);
+    assertThat(cache.isUnsat(GROUP, ImmutableSet.of())).isTrue();
+    assertThat(cache.isUnsat(GROUP, ImmutableSet.of("a"))).isTrue();
+  }
+
+  @Test
+  public void testEviction() {
+    GroupedUnsatCache<String> cache = new GroupedUnsatCache<>(2, 0, String::length);
+    cache.put(GROUP, ImmutableSet.of("a"), true);
+    cache.put("N2", ImmutableSet.of("b", "c"), false);
+    assertThat(cache.isUnsat(GROUP, ImmutableSet.of("a"))).isTrue(); // "N2" is now LRU
+    cache.put(GROUP, ImmutableSet.of("d"), true);
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getEvictions()).isEqualTo(1);
+    assertThat(cache.getWeight()).isEqualTo(0); // not weighed without a bound
+    assertThat(cache.isUnsat("N2", ImmutableSet.of("b"))).isNull();
+    assertThat(cache.isUnsat(GROUP, ImmutableSet.of("a"))).isTrue();
+    assertThat(cache.isUnsat(GROUP, ImmutableSet.of("d"))).isTrue();
+
+    GroupedUnsatCache<String> weightedCache = new GroupedUnsatCache<>(0, 3, String::length);
+    weightedCache.put(GROUP, ImmutableSet.of("aa"), true);
+    weightedCache.put(GROUP, ImmutableSet.of("bb"), true);
+    assertThat(weightedCache.size()).isEqualTo(1);
+    assertThat(weightedCache.isUnsat(GROUP, ImmutableSet.of("aa"))).isNull();
+    assertThat(weightedCache.isUnsat(GROUP, ImmutableSet.of("bb"))).isTrue();
+  }
+
+  /** Compare the results of the cache with a linear scan over all stored sets. */
+  @Test
+  public void testMatchesLinearScan() {
+    Random random = new Random(0);
+    GroupedUnsatCache<String> cache = createUnboundedCache();
+    Map<Set<String>, Boolean> stored = new HashMap<>();
+
+    for (int i = 0; i < 2000; i++) {
+      Set<String> constraints = randomConstraints(random);
+      Boolean expected = null;
+      for (Entry<Set<String>, Boolean> entry : stored.entrySet()) {
+        if (entry.getValue() && constraints.containsAll(entry.getKey())) {
+          expected = true;
+        } else if (!entry.getValue() && entry.getKey().containsAll(constraints)) {
+          expected = false;
+        }
+      }
+
+      Boolean result = cache.isUnsat(GROUP, constraints);
+      assertThat(result).isEqualTo(expected);
+      if (result == null) {
+        // "unsatisfiable" iff constraints contain both "c0" and "c1"
+        boolean unsat = constraints.contains("c0") && constraints.contains("c1");
+        Set<String> toStore = unsat ? ImmutableSet.of("c0", "c1") : constraints;
+        cache.put(GROUP, toStore, unsat);
+        stored.put(toStore, unsat);
+      }
+    }
+  }
+
+  private static Set<String> randomConstraints(Random pRandom) {
+    Set<String> result = new HashSet<>();
+    int size = pRandom.nextInt(6);
+    for (int i = 0; i < size; i++) {
+      result.add("c" + pRandom.nextInt(10));
+    }
+    return result;
+  }
+}
@@ -28,14 +28,9 @@ import static org.sosy_lab.java_smt.api.SolverContext.ProverOptions.GENERATE_UNS
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Verify;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
@@ -49,6 +44,7 @@ import org.sosy_lab.cpachecker.util.predicates.interpolation.SeparateInterpolati
 import org.sosy_lab.cpachecker.util.predicates.ufCheckingProver.UFCheckingBasicProverEnvironment.UFCheckingProverOptions;
 import org.sosy_lab.cpachecker.util.predicates.ufCheckingProver.UFCheckingInterpolatingProverEnvironment;
 import org.sosy_lab.cpachecker.util.predicates.ufCheckingProver.UFCheckingProverEnvironment;
+import org.sosy_lab.cpachecker.util.statistics.StatisticsWriter;
 import org.sosy_lab.java_smt.SolverContextFactory;
 import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
 import org.sosy_lab.java_smt.api.BooleanFormula;
@@ -96,6 +92,23 @@ public final class Solver implements AutoCloseable {
   description="Extract and cache unsat cores for satisfiability checking")
   private boolean cacheUnsatCores = true;
 
+  @Option(
+      secure = true,
+      name = "cache.maxEntries",
+      description =
+          "Maximal number of entries in each of the caches for satisfiability checks"
+              + " (0 for no limit). The least-recently used entries are evicted.")
+  private int maxCacheEntries = 0;
+
+  @Option(
+      secure = true,
+      name = "cache.maxFormulaSize",
+      description =
+          "Maximal sum of the DAG sizes of the formulas stored in each of the caches"
+              + " for satisfiability checks (0 for no limit)."
+              + " The least-recently used entries are evicted.")
+  private long maxCacheFormulaSize = 0;
+
   private final @Nullable UFCheckingProverOptions ufCheckingProverOptions;
 
   private final FormulaManagerView fmgr;
@@ -104,7 +117,7 @@ public final class Solver implements AutoCloseable {
   private final SolverContext solvingContext;
   private final SolverContext interpolatingContext;
 
-  private final Map<BooleanFormula, Boolean> unsatCache = Maps.newHashMap();
+  private final BoundedFormulaCache<BooleanFormula, Boolean> unsatCache;
 
   /**
    * More complex unsat cache, grouped by an arbitrary key.
@@ -116,8 +129,7 @@ public final class Solver implements AutoCloseable {
    * If a set of constraints is unsatisfiable, any superset of it is also
    * unsatisfiable.
    */
-  private final Map<Object, Map<Set<BooleanFormula>, Boolean>>
-      groupedUnsatCache = new HashMap<>();
+  private final GroupedUnsatCache<BooleanFormula> groupedUnsatCache;
 
   private final LogManager logger;
 
@@ -154,6 +166,10 @@ public final class Solver implements AutoCloseable {
     bfmgr = fmgr.getBooleanFormulaManager();
     logger = pLogger;
 
+    unsatCache = new BoundedFormulaCache<>(maxCacheEntries, maxCacheFormulaSize, fmgr::getDagSize);
+    groupedUnsatCache =
+        new GroupedUnsatCache<>(maxCacheEntries, maxCacheFormulaSize, fmgr::getDagSize);
+
     if (checkUFs) {
       ufCheckingProverOptions = new UFCheckingProverOptions(config);
     } else {
@@ -199,6 +215,10 @@ public final class Solver implements AutoCloseable {
     bfmgr = fmgr.getBooleanFormulaManager();
     logger = pLogger;
 
+    unsatCache = new BoundedFormulaCache<>(maxCacheEntries, maxCacheFormulaSize, fmgr::getDagSize);
+    groupedUnsatCache =
+        new GroupedUnsatCache<>(maxCacheEntries, maxCacheFormulaSize, fmgr::getDagSize);
+
     if (checkUFs) {
       ufCheckingProverOptions = new UFCheckingProverOptions(pConfig);
     } else {
@@ -370,32 +390,12 @@ public final class Solver implements AutoCloseable {
       throws InterruptedException, SolverException {
     satChecks++;
 
-    Map<Set<BooleanFormula>, Boolean> stored = groupedUnsatCache.get(cacheKey);
-    if (stored != null) {
-      for (Entry<Set<BooleanFormula>, Boolean> isUnsatResults : stored
-          .entrySet()) {
-        Set<BooleanFormula> cachedConstraints = isUnsatResults.getKey();
-        boolean cachedIsUnsat = isUnsatResults.getValue();
-
-        if (cachedIsUnsat && lemmas.containsAll(cachedConstraints)) {
-
-          // Any superset of unreachable constraints is unreachable.
-          cachedSatChecks++;
-          return true;
-        } else if (!cachedIsUnsat &&
-            cachedConstraints.containsAll(lemmas)) {
-
-          // Any subset of reachable constraints is reachable.
-          cachedSatChecks++;
-          return false;
-        }
-      }
-    }
-
-    if (stored == null) {
-      stored = new HashMap<>();
-    } else {
-      stored = new HashMap<>(stored);
+    // Any superset of unreachable constraints is unreachable,
+    // and any subset of reachable constraints is reachable.
+    Boolean cached = groupedUnsatCache.isUnsat(cacheKey, lemmas);
+    if (cached != null) {
+      cachedSatChecks++;
+      return cached;
     }
 
     ProverOptions opts[];
@@ -412,17 +412,15 @@ public final class Solver implements AutoCloseable {
       }
       if (pe.isUnsat()) {
         if (cacheUnsatCores) {
-          stored.put(ImmutableSet.copyOf(pe.getUnsatCore()), true);
+          groupedUnsatCache.put(cacheKey, ImmutableSet.copyOf(pe.getUnsatCore()), true);
         } else {
-          stored.put(ImmutableSet.copyOf(lemmas), true);
+          groupedUnsatCache.put(cacheKey, lemmas, true);
         }
         return true;
       } else {
-        stored.put(lemmas, false);
+        groupedUnsatCache.put(cacheKey, lemmas, false);
         return false;
       }
-    } finally {
-      groupedUnsatCache.put(cacheKey, ImmutableMap.copyOf(stored));
     }
   }
 
@@ -480,6 +478,14 @@ public final class Solver implements AutoCloseable {
     return isUnsat(f);
   }
 
+  /** Write statistics about the caches for satisfiability checks. */
+  public void printCacheStatistics(StatisticsWriter pWriter) {
+    pWriter.put("Unsat cache for formulas", unsatCache.size() + " entries");
+    unsatCache.printStatistics(pWriter.beginLevel());
+    pWriter.put("Unsat cache for sets of constraints", groupedUnsatCache.size() + " entries");
+    groupedUnsatCache.printStatistics(pWriter.beginLevel());
+  }
+
   /**
    * Close this solver instance and all underlying formula managers.
    * This instance and any instance retrieved from it (including all {@link Formula}s)
@@ -527,7 +533,7 @@ public final class Solver implements AutoCloseable {
    * @param unsat An unsatisfiable formula.
    */
   public void addUnsatisfiableFormulaToCache(BooleanFormula unsat) {
-    if (unsatCache.containsKey(unsat) || bfmgr.isFalse(unsat)) {
+    if (bfmgr.isFalse(unsat) || unsatCache.containsKey(unsat)) {
       return;
     }
     try {